@@ -0,0 +1,33 @@
+/**
+ * The BenchmarkBoards class holds the fixed set of board states used by the benchmarks. The boards are written in the
+ * notation of the BoardNotation class and were taken from one self-play game, so they look like the positions the AI
+ * player really meets. Player.O is to move in every board.
+ */
+public class BenchmarkBoards {
+    // Three pieces around the center
+    public static final String OPENING = "15/15/15/15/15/15/15/7xo6/8x6/15/15/15/15/15/15 o";
+    // Seventeen pieces with open threes for both players
+    public static final String MIDDLEGAME = "15/15/15/4o10/5x1o7/5oxxx6/5xox1x5/6oxoo5/7ox6/15/15/15/15/15/15 o";
+    // Forty-five pieces with several blocked fours
+    public static final String ENDGAME = "9o5/8ox5/8oxo4/4o3oxo4/5x1oxxxo3/5oxxxo1x3/5xox1xo1o2/6oxooxxxo1/7ox1xox2/9x5/8o1x4/11o3/15/15/15 o";
+
+    /**
+     * Get the notation of the board with the input name.
+     *
+     * @param name "opening", "middlegame" or "endgame"
+     * @return the notation of the board
+     * @throws IllegalArgumentException When there is no board with the input name
+     */
+    public static String get(String name) throws IllegalArgumentException{
+        switch (name){
+            case "opening":
+                return OPENING;
+            case "middlegame":
+                return MIDDLEGAME;
+            case "endgame":
+                return ENDGAME;
+            default:
+                throw new IllegalArgumentException("Unknown benchmark board: " + name);
+        }
+    }
+}
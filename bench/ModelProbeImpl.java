@@ -0,0 +1,145 @@
+import benchmark.ModelProbe;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The ModelProbeImpl class implements the ModelProbe interface by calling the Model class, so the benchmarks in the
+ * benchmark package can measure the Model.
+ */
+public class ModelProbeImpl implements ModelProbe {
+    // The model holding the loaded board
+    private Model model;
+    // A clone board of the model, which is the input of the evaluate functions and the minimax algorithm
+    private Player[][] board;
+    // The loaded SparseBoard and its search
+    private SparseBoard sparse;
+    private SparseSearch sparseSearch;
+    // The depth of the minimax algorithm
+    private int depth = 3;
+    // The buffer of the last snapshot
+    private ByteBuffer snapshot = ByteBuffer.allocateDirect(Model.getMaxSnapshotSize(15));
+
+    @Override
+    public void load(String boardName){
+        model = BoardNotation.toModel(BenchmarkBoards.get(boardName));
+        board = model.getCloneBoard();
+    }
+
+    @Override
+    public void load(String boardName, int boardSize){
+        Player[][] small = BoardNotation.parse(BenchmarkBoards.get(boardName));
+        int offset = (boardSize - small.length) / 2;
+        model = new Model(boardSize);
+        for(int i = 0; i < small.length; i++){
+            for(int j = 0; j < small.length; j++){
+                if(small[i][j] != Player.EMPTY){
+                    model.placeChessOnPosition(new Position(i + offset, j + offset), small[i][j]);
+                }
+            }
+        }
+        model.setTurn(BoardNotation.sideToMove(BenchmarkBoards.get(boardName)) == Player.X ? 1 : 2);
+        board = model.getCloneBoard();
+    }
+
+    @Override
+    public void setCandidateRadius(int radius){
+        model.setCandidateRadius(radius);
+    }
+
+    @Override
+    public void setBeamWidths(int[] widths){
+        model.setBeamWidths(widths);
+    }
+
+    @Override
+    public void setDepth(int depth){
+        this.depth = depth;
+        if(model != null){
+            model.setH(depth);
+        }
+    }
+
+    @Override
+    public double evaluate(){
+        return model.evaluate(board, model.getTurn() == 1);
+    }
+
+    @Override
+    public int evaluateRow(boolean forX){
+        return model.evaluateRow(board, forX, model.getTurn() == 1);
+    }
+
+    @Override
+    public int evaluateColumn(boolean forX){
+        return model.evaluateColumn(board, forX, model.getTurn() == 1);
+    }
+
+    @Override
+    public int evaluateDiagonal(boolean forX){
+        return model.evaluateDiagonal(board, forX, model.getTurn() == 1);
+    }
+
+    @Override
+    public Object getWinner(){
+        return model.getWinner();
+    }
+
+    @Override
+    public Object getCloneBoard(){
+        return model.getCloneBoard(board);
+    }
+
+    @Override
+    public Object minimax(){
+        // The maximizer is Player.O
+        return model.minimax(model.getH(), board, model.getTurn() == 2, -1.0, 100000000);
+    }
+
+    @Override
+    public Object moveAI(){
+        model.moveAI();
+        return model.getLastPosition();
+    }
+
+    @Override
+    public void loadSparse(String boardName, int boardSize){
+        Player[][] small = BoardNotation.parse(BenchmarkBoards.get(boardName));
+        int offset = (boardSize > 0) ? (boardSize - small.length) / 2 : 0;
+        sparse = new SparseBoard(boardSize);
+        for(int i = 0; i < small.length; i++){
+            for(int j = 0; j < small.length; j++){
+                if(small[i][j] != Player.EMPTY){
+                    sparse.play(i + offset, j + offset, small[i][j]);
+                }
+            }
+        }
+        sparseSearch = new SparseSearch(sparse);
+    }
+
+    @Override
+    public double sparseEvaluate(){
+        // Every benchmark board has Player.O to move
+        return sparse.evaluate(false);
+    }
+
+    @Override
+    public long sparseSearch(){
+        return sparseSearch.findBestMove(Player.O, depth);
+    }
+
+    @Override
+    public int snapshot(){
+        snapshot.clear();
+        model.writeSnapshot(snapshot);
+        return snapshot.position();
+    }
+
+    @Override
+    public Object restore(){
+        snapshot.flip();
+        Model restored = Model.readSnapshot(snapshot);
+        // The next restore reads the same snapshot
+        snapshot.position(snapshot.limit());
+        return restored;
+    }
+}
@@ -0,0 +1,61 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The BeamBenchmark class shows the trade-off between the depth and the beam widths of the minimax algorithm on the
+ * opening, middlegame and endgame boards. Without the beam the depth 4 takes seconds, with a beam the time is bounded by
+ * the product of the widths, so the beams are also measured at the depth 6. The chosen moves of the beams are compared
+ * with the full search by the beamTest of ModelTest and the regression boards.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Thread)
+public class BeamBenchmark {
+    // The name of the board in the BenchmarkBoards class
+    @Param({"opening", "middlegame", "endgame"})
+    public String boardName;
+
+    // The depth of the minimax algorithm
+    @Param({"2", "4", "6"})
+    public int depth;
+
+    // The widths of the beam separated by slashes, "off" for the full search
+    @Param({"off", "12/10/8/6", "8/6/4", "6/4/3"})
+    public String beam;
+
+    // The probe holding the loaded board
+    private ModelProbe probe;
+
+    /**
+     * Load the board before each invocation.
+     */
+    @Setup(Level.Invocation)
+    public void setUp(){
+        probe = ModelProbe.create();
+        probe.load(boardName);
+        probe.setDepth(depth);
+        if(!beam.equals("off")){
+            String[] parts = beam.split("/");
+            int[] widths = new int[parts.length];
+            for(int w = 0; w < parts.length; w++){
+                widths[w] = Integer.parseInt(parts[w]);
+            }
+            probe.setBeamWidths(widths);
+        }
+    }
+
+    @Benchmark
+    public Object minimax(){
+        // The full search at the depth 6 would take hours
+        if(beam.equals("off") && depth > 4){
+            return null;
+        }
+        return probe.minimax();
+    }
+}
@@ -0,0 +1,58 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The BoardSizeBenchmark class shows how the throughput changes with the board size. The middlegame board is placed in
+ * the center of boards from 15x15 to 31x31. The evaluate method and getCloneBoard scan the whole board, so they grow
+ * with the area. The minimax search is measured with a candidate radius of 2, which keeps the number of moves at each
+ * node independent of the board size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardSizeBenchmark {
+    // The number of row or column in the board
+    @Param({"15", "19", "25", "31"})
+    public int boardSize;
+
+    // The probe holding the loaded board
+    private ModelProbe probe;
+
+    /**
+     * Load the board before each trial.
+     */
+    @Setup(Level.Trial)
+    public void setUp(){
+        probe = ModelProbe.create();
+        probe.load("middlegame", boardSize);
+        probe.setCandidateRadius(2);
+        probe.setDepth(2);
+    }
+
+    @Benchmark
+    public double evaluate(){
+        return probe.evaluate();
+    }
+
+    @Benchmark
+    public Object getCloneBoard(){
+        return probe.getCloneBoard();
+    }
+
+    @Benchmark
+    public Object getWinner(){
+        return probe.getWinner();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object minimax(){
+        return probe.minimax();
+    }
+}
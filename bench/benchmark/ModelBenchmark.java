@@ -0,0 +1,68 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ModelBenchmark class measures the methods of the Model class that the minimax algorithm calls on every node:
+ * the evaluate functions, getWinner and getCloneBoard. Every benchmark runs on the opening, middlegame and endgame
+ * boards of the BenchmarkBoards class. Run with "-prof gc" to see the allocation rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelBenchmark {
+    // The name of the board in the BenchmarkBoards class
+    @Param({"opening", "middlegame", "endgame"})
+    public String boardName;
+
+    // The probe holding the loaded board
+    private ModelProbe probe;
+
+    /**
+     * Load the board before each trial.
+     */
+    @Setup(Level.Trial)
+    public void setUp(){
+        probe = ModelProbe.create();
+        probe.load(boardName);
+    }
+
+    @Benchmark
+    public double evaluate(){
+        return probe.evaluate();
+    }
+
+    @Benchmark
+    public void evaluateRow(Blackhole blackhole){
+        blackhole.consume(probe.evaluateRow(true));
+        blackhole.consume(probe.evaluateRow(false));
+    }
+
+    @Benchmark
+    public void evaluateColumn(Blackhole blackhole){
+        blackhole.consume(probe.evaluateColumn(true));
+        blackhole.consume(probe.evaluateColumn(false));
+    }
+
+    @Benchmark
+    public void evaluateDiagonal(Blackhole blackhole){
+        blackhole.consume(probe.evaluateDiagonal(true));
+        blackhole.consume(probe.evaluateDiagonal(false));
+    }
+
+    @Benchmark
+    public Object getWinner(){
+        return probe.getWinner();
+    }
+
+    @Benchmark
+    public Object getCloneBoard(){
+        return probe.getCloneBoard();
+    }
+}
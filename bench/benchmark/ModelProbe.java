@@ -0,0 +1,155 @@
+package benchmark;
+
+/**
+ * The ModelProbe interface is the bridge between the benchmarks and the game classes. JMH does not accept benchmark
+ * classes in the default package, and the game classes live in the default package, which can not be imported from a
+ * named package. So the benchmarks call the game through this interface, and the ModelProbeImpl class in the default
+ * package implements it by calling the Model class directly. The interface call has only one receiver class, so it is
+ * inlined by the JIT compiler and does not show in the measurements.
+ */
+public interface ModelProbe {
+    /**
+     * Load the board with the input name from the BenchmarkBoards class.
+     *
+     * @param boardName "opening", "middlegame" or "endgame"
+     */
+    void load(String boardName);
+
+    /**
+     * Load the board with the input name from the BenchmarkBoards class into the center of a larger board.
+     *
+     * @param boardName "opening", "middlegame" or "endgame"
+     * @param boardSize the number of row or column in the larger board, at least 15
+     */
+    void load(String boardName, int boardSize);
+
+    /**
+     * Set the candidate radius of the minimax algorithm.
+     *
+     * @param radius the candidate radius, 0 means every empty position is tried
+     */
+    void setCandidateRadius(int radius);
+
+    /**
+     * Set the depth of the minimax algorithm.
+     *
+     * @param depth the depth of the minimax algorithm
+     */
+    void setDepth(int depth);
+
+    /**
+     * Set the beam of the minimax algorithm.
+     *
+     * @param widths the number of moves searched at each ply, empty for off
+     */
+    void setBeamWidths(int[] widths);
+
+    /**
+     * Evaluate the loaded board by the evaluate method of the Model.
+     *
+     * @return the score of the board
+     */
+    double evaluate();
+
+    /**
+     * Evaluate all rows of the loaded board.
+     *
+     * @param forX whether it is calculating the score for Player.X
+     * @return the score of all rows
+     */
+    int evaluateRow(boolean forX);
+
+    /**
+     * Evaluate all columns of the loaded board.
+     *
+     * @param forX whether it is calculating the score for Player.X
+     * @return the score of all columns
+     */
+    int evaluateColumn(boolean forX);
+
+    /**
+     * Evaluate all diagonals of the loaded board.
+     *
+     * @param forX whether it is calculating the score for Player.X
+     * @return the score of all diagonals
+     */
+    int evaluateDiagonal(boolean forX);
+
+    /**
+     * Check the winner of the loaded board.
+     *
+     * @return the winner returned by the Model
+     */
+    Object getWinner();
+
+    /**
+     * Clone the loaded board.
+     *
+     * @return the clone board
+     */
+    Object getCloneBoard();
+
+    /**
+     * Run the minimax algorithm from the loaded board with the depth set before.
+     *
+     * @return the result of the minimax algorithm
+     */
+    Object minimax();
+
+    /**
+     * Move the AI player on the loaded board. This changes the board, so load the board again before the next call.
+     *
+     * @return the position of the new piece
+     */
+    Object moveAI();
+
+    /**
+     * Load the board with the input name from the BenchmarkBoards class into the center of a SparseBoard.
+     *
+     * @param boardName "opening", "middlegame" or "endgame"
+     * @param boardSize the number of row or column of the SparseBoard, at least 15, or 0 for an infinite board
+     */
+    void loadSparse(String boardName, int boardSize);
+
+    /**
+     * Evaluate the loaded SparseBoard.
+     *
+     * @return the score of the board
+     */
+    double sparseEvaluate();
+
+    /**
+     * Search the loaded SparseBoard with the depth set before and a candidate radius of 2.
+     *
+     * @return the key of the best move
+     */
+    long sparseSearch();
+
+    /**
+     * Write a snapshot of the loaded board to a direct buffer of the probe, replacing the previous snapshot.
+     *
+     * @return the size of the snapshot in bytes
+     */
+    int snapshot();
+
+    /**
+     * Restore a new Model from the last snapshot.
+     *
+     * @return the restored Model
+     */
+    Object restore();
+
+    /**
+     * Create the implementation of this interface in the default package.
+     *
+     * @return a new ModelProbe
+     * @throws IllegalStateException When the implementation is not on the class path
+     */
+    static ModelProbe create() throws IllegalStateException{
+        try{
+            return (ModelProbe) Class.forName("ModelProbeImpl").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e){
+            throw new IllegalStateException("ModelProbeImpl is not on the class path.", e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The SearchBenchmark class measures one call of the minimax algorithm from the root of the opening, middlegame and
+ * endgame boards at the depths 1 to 4, and one call of moveAI, which also scans the board for an immediate win before
+ * the search. One search at depth 3 or 4 takes seconds, so every call is timed once in the SingleShotTime mode with
+ * only a few iterations. Run with "-prof gc" to see the allocation rate.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+    // The name of the board in the BenchmarkBoards class
+    @Param({"opening", "middlegame", "endgame"})
+    public String boardName;
+
+    // The depth of the minimax algorithm
+    @Param({"1", "2", "3", "4"})
+    public int depth;
+
+    // The probe holding the loaded board
+    private ModelProbe probe;
+
+    /**
+     * Load the board before each invocation, because moveAI places a new piece on the board.
+     */
+    @Setup(Level.Invocation)
+    public void setUp(){
+        probe = ModelProbe.create();
+        probe.load(boardName);
+        probe.setDepth(depth);
+    }
+
+    @Benchmark
+    public Object minimax(){
+        return probe.minimax();
+    }
+
+    @Benchmark
+    public Object moveAI(){
+        return probe.moveAI();
+    }
+}
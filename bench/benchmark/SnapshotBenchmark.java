@@ -0,0 +1,44 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The SnapshotBenchmark class measures how long it takes to suspend a game to a direct ByteBuffer with
+ * Model.writeSnapshot and to resume it with Model.readSnapshot. Both should take well under a microsecond on a 15x15
+ * board, so idle games can be moved out of the heap and back on every request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SnapshotBenchmark {
+    @Param({"opening", "middlegame", "endgame"})
+    public String boardName;
+
+    // The probe holding the loaded board and the last snapshot
+    private ModelProbe probe;
+
+    /**
+     * Load the board and write one snapshot before each trial.
+     */
+    @Setup(Level.Trial)
+    public void setUp(){
+        probe = ModelProbe.create();
+        probe.load(boardName);
+        probe.snapshot();
+    }
+
+    @Benchmark
+    public int snapshot(){
+        return probe.snapshot();
+    }
+
+    @Benchmark
+    public Object restore(){
+        return probe.restore();
+    }
+}
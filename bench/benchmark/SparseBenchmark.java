@@ -0,0 +1,47 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The SparseBenchmark class shows that the SparseBoard does not slow down when the board grows. The middlegame board is
+ * placed in the center of a 15x15 board, a 1001x1001 board and an infinite board. The evaluation and the candidate
+ * moves only visit the pieces and their neighbors, so all three sizes should take the same time, unlike the
+ * BoardSizeBenchmark of the Model.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SparseBenchmark {
+    // The number of row or column in the board, 0 means the board is infinite
+    @Param({"15", "1001", "0"})
+    public int boardSize;
+
+    // The probe holding the loaded board
+    private ModelProbe probe;
+
+    /**
+     * Load the board before each trial.
+     */
+    @Setup(Level.Trial)
+    public void setUp(){
+        probe = ModelProbe.create();
+        probe.setDepth(2);
+        probe.loadSparse("middlegame", boardSize);
+    }
+
+    @Benchmark
+    public double evaluate(){
+        return probe.sparseEvaluate();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long search(){
+        return probe.sparseSearch();
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The AnalysisLine class is one of the best moves found by Model.analyze: the move, its score and the principal
+ * variation, which is the sequence of moves both players are expected to play after it.
+ */
+public class AnalysisLine {
+    // The move of the side to move
+    private final Position move;
+    // The score of the move for Player.O, the maximizer
+    private final double score;
+    // The move followed by the expected replies
+    private final List<Position> variation;
+
+    /**
+     * Constructor of the AnalysisLine class.
+     *
+     * @param score the score of the move for Player.O
+     * @param variation the move followed by the expected replies, at least the move
+     */
+    public AnalysisLine(double score, List<Position> variation){
+        this.move = variation.get(0);
+        this.score = score;
+        this.variation = Collections.unmodifiableList(variation);
+    }
+
+    /**
+     * Get the move.
+     *
+     * @return the position of the move
+     */
+    public Position getMove(){
+        return move;
+    }
+
+    /**
+     * Get the score.
+     *
+     * @return the score of the move for Player.O, higher is better for Player.O
+     */
+    public double getScore(){
+        return score;
+    }
+
+    /**
+     * Get the principal variation.
+     *
+     * @return the move followed by the expected replies, as far as they are known
+     */
+    public List<Position> getVariation(){
+        return variation;
+    }
+
+    /**
+     * Get the line as text, for example "7,8 score=1.25 pv=7,8 6,7 8,9".
+     *
+     * @return the line as text
+     */
+    @Override
+    public String toString(){
+        StringBuilder text = new StringBuilder();
+        text.append(move.getRow()).append(',').append(move.getColumn()).append(" score=").append(score).append(" pv=");
+        for(int k = 0; k < variation.size(); k++){
+            if(k > 0){
+                text.append(' ');
+            }
+            text.append(variation.get(k).getRow()).append(',').append(variation.get(k).getColumn());
+        }
+        return text.toString();
+    }
+}
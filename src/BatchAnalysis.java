@@ -0,0 +1,132 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The BatchAnalysis class finds the best move of many board states without the graphical user interface. It reads one
+ * board in the notation of the BoardNotation class per line, searches the boards in parallel with one Model for each
+ * board, and writes one line per board in the order of the input:
+ * <pre>
+ * line row,column score=... depth=... nodes=... ms=...
+ * </pre>
+ * A board which can not be searched gives the line "line error message" instead. Empty lines and lines starting with
+ * '#' are skipped. Only a few boards per thread are read ahead, so the input can be as long as needed and the results
+ * are written while the input is still read.
+ */
+public class BatchAnalysis {
+    // The settings of the search
+    private EngineConfig config;
+    // The number of boards searched at the same time
+    private int threads;
+
+    /**
+     * Constructor of the BatchAnalysis class. By default the boards are searched on all the cores.
+     *
+     * @param config the settings of the search
+     */
+    public BatchAnalysis(EngineConfig config){
+        this.config = config;
+        this.threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Set the number of boards searched at the same time.
+     *
+     * @param threads the number of threads
+     * @throws IllegalArgumentException When the number of threads is not positive
+     */
+    public void setThreads(int threads) throws IllegalArgumentException{
+        if(threads <= 0){
+            throw new IllegalArgumentException("The number of threads must be positive.");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Search every board of the input and write the results.
+     *
+     * @param in the boards, one per line
+     * @param out where the results are written
+     * @return the number of boards searched, including the boards with an error
+     * @throws IOException When the input can not be read
+     * @throws InterruptedException When the thread is interrupted while waiting for a search
+     */
+    public long run(BufferedReader in, PrintStream out) throws IOException, InterruptedException{
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        // The searches not written yet, in the order of the input
+        Deque<Future<String>> pending = new ArrayDeque<>();
+        long count = 0;
+        try{
+            int lineNumber = 0;
+            String line;
+            while((line = in.readLine()) != null){
+                lineNumber++;
+                String text = line.trim();
+                if(text.isEmpty() || text.startsWith("#")){
+                    continue;
+                }
+                final int number = lineNumber;
+                pending.add(pool.submit(() -> analyze(number, text)));
+                count++;
+                // Write the finished results before reading further ahead
+                while(pending.size() > 4 * threads || (!pending.isEmpty() && pending.peek().isDone())){
+                    out.println(result(pending.poll()));
+                }
+            }
+            while(!pending.isEmpty()){
+                out.println(result(pending.poll()));
+            }
+            out.flush();
+        } finally{
+            pool.shutdownNow();
+        }
+        return count;
+    }
+
+    /**
+     * Search one board.
+     *
+     * @param lineNumber the number of the line of the board in the input
+     * @param text the board in the notation of the BoardNotation class
+     * @return the line of the result
+     */
+    private String analyze(int lineNumber, String text){
+        try{
+            Model model = BoardNotation.toModel(text);
+            if(!model.checkEmpty()){
+                return lineNumber + " error the board is full";
+            }
+            config.applyTo(model);
+            long start = System.nanoTime();
+            model.moveAI();
+            long nanos = System.nanoTime() - start;
+            SearchStats stats = model.getSearchStats();
+            Position move = model.getLastPosition();
+            return String.format("%d %d,%d score=%s depth=%d nodes=%d ms=%.1f", lineNumber, move.getRow(),
+                    move.getColumn(), stats.getScore(), stats.getDepthReached(), stats.getNodes(), nanos / 1e6);
+        } catch (IllegalArgumentException e){
+            return lineNumber + " error " + e.getMessage();
+        }
+    }
+
+    /**
+     * A helper function to wait for one search.
+     *
+     * @param future the search
+     * @return the line of the result
+     * @throws InterruptedException When the thread is interrupted while waiting
+     */
+    private static String result(Future<String> future) throws InterruptedException{
+        try{
+            return future.get();
+        } catch (ExecutionException e){
+            throw new IllegalStateException("A search failed.", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * The BoardNotation class reads and writes a compact text notation of one board state. The rows are written from the
+ * top to the bottom and separated by '/'. In one row, 'x' is a Player.X piece, 'o' is a Player.O piece and a number is
+ * a run of empty positions. The side to move can follow the board after one space. For example, the 15x15 board with
+ * only one black piece in the center and white to move is written as "15/15/15/15/15/15/15/7x7/15/15/15/15/15/15/15 o".
+ */
+public class BoardNotation {
+
+    /**
+     * Parse the board part of the input notation.
+     *
+     * @param text the input notation
+     * @return the board described by the notation
+     * @throws IllegalArgumentException When the notation is not well formed or the board is not square
+     */
+    public static Player[][] parse(String text) throws IllegalArgumentException{
+        String[] rows = boardPart(text).split("/");
+        int boardSize = rows.length;
+        Player[][] board = new Player[boardSize][boardSize];
+        for(int i = 0; i < boardSize; i++){
+            int j = 0;
+            int run = 0;
+            for(int k = 0; k < rows[i].length(); k++){
+                char c = rows[i].charAt(k);
+                if(c >= '0' && c <= '9'){
+                    run = run * 10 + (c - '0');
+                    continue;
+                }
+                j = fillEmpty(board[i], j, run, i);
+                run = 0;
+                if(j >= boardSize){
+                    throw new IllegalArgumentException("Row " + (i + 1) + " has more than " + boardSize + " positions.");
+                }
+                if(c == 'x' || c == 'X'){
+                    board[i][j++] = Player.X;
+                }
+                else if(c == 'o' || c == 'O'){
+                    board[i][j++] = Player.O;
+                }
+                else{
+                    throw new IllegalArgumentException("Unknown character '" + c + "' in row " + (i + 1) + ".");
+                }
+            }
+            j = fillEmpty(board[i], j, run, i);
+            if(j != boardSize){
+                throw new IllegalArgumentException("Row " + (i + 1) + " has " + j + " positions instead of " + boardSize + ".");
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Get whose turn it is in the input notation. If the side to move is not written, Player.X moves when both players
+     * have the same number of pieces, otherwise Player.O moves.
+     *
+     * @param text the input notation
+     * @return Player.X or Player.O
+     * @throws IllegalArgumentException When the notation is not well formed
+     */
+    public static Player sideToMove(String text) throws IllegalArgumentException{
+        String trimmed = text.trim();
+        int space = trimmed.indexOf(' ');
+        if(space >= 0){
+            String side = trimmed.substring(space + 1).trim();
+            if(side.equalsIgnoreCase("x")){
+                return Player.X;
+            }
+            if(side.equalsIgnoreCase("o")){
+                return Player.O;
+            }
+            throw new IllegalArgumentException("The side to move must be x or o.");
+        }
+        int xCount = 0;
+        int oCount = 0;
+        for(Player[] row : parse(trimmed)){
+            for(Player player : row){
+                if(player == Player.X){
+                    xCount++;
+                }
+                else if(player == Player.O){
+                    oCount++;
+                }
+            }
+        }
+        return (xCount == oCount) ? Player.X : Player.O;
+    }
+
+    /**
+     * Write the input board in the notation without the side to move.
+     *
+     * @param board the input board
+     * @return the notation of the board
+     */
+    public static String format(Player[][] board){
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < board.length; i++){
+            if(i > 0){
+                text.append('/');
+            }
+            int run = 0;
+            for(int j = 0; j < board[i].length; j++){
+                if(board[i][j] == Player.EMPTY){
+                    run++;
+                    continue;
+                }
+                if(run > 0){
+                    text.append(run);
+                    run = 0;
+                }
+                text.append(board[i][j] == Player.X ? 'x' : 'o');
+            }
+            if(run > 0){
+                text.append(run);
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Write the input board and the side to move in the notation.
+     *
+     * @param board the input board
+     * @param toMove the player to move
+     * @return the notation of the board followed by the side to move
+     */
+    public static String format(Player[][] board, Player toMove){
+        return format(board) + ((toMove == Player.X) ? " x" : " o");
+    }
+
+    /**
+     * Create a Model holding the position of the input notation. The turn of the Model is set to the side to move and
+     * the step is set to the number of pieces on the board.
+     *
+     * @param text the input notation
+     * @return a new Model with the position loaded
+     * @throws IllegalArgumentException When the notation is not well formed or the board is smaller than 5x5
+     */
+    public static Model toModel(String text) throws IllegalArgumentException{
+        Player[][] board = parse(text);
+        Model model = new Model(board.length);
+        int step = 0;
+        for(int i = 0; i < board.length; i++){
+            for(int j = 0; j < board.length; j++){
+                if(board[i][j] != Player.EMPTY){
+                    model.placeChessOnPosition(new Position(i, j), board[i][j]);
+                    step++;
+                }
+            }
+        }
+        model.setTurn(sideToMove(text) == Player.X ? 1 : 2);
+        model.setStep(step);
+        return model;
+    }
+
+    /**
+     * A helper function to return the board part of the input notation.
+     *
+     * @param text the input notation
+     * @return the notation without the side to move
+     * @throws IllegalArgumentException When the notation is empty
+     */
+    private static String boardPart(String text) throws IllegalArgumentException{
+        if(text == null || text.trim().isEmpty()){
+            throw new IllegalArgumentException("The notation can not be empty.");
+        }
+        String trimmed = text.trim();
+        int space = trimmed.indexOf(' ');
+        return (space >= 0) ? trimmed.substring(0, space) : trimmed;
+    }
+
+    /**
+     * A helper function to fill a run of empty positions into one row.
+     *
+     * @param row the row to fill
+     * @param start the first column of the run
+     * @param run the number of empty positions
+     * @param rowIndex the index of the row, used in the error message
+     * @return the column after the run
+     * @throws IllegalArgumentException When the run goes beyond the row
+     */
+    private static int fillEmpty(Player[] row, int start, int run, int rowIndex) throws IllegalArgumentException{
+        if(start + run > row.length){
+            throw new IllegalArgumentException("Row " + (rowIndex + 1) + " has more than " + row.length + " positions.");
+        }
+        for(int j = start; j < start + run; j++){
+            row[j] = Player.EMPTY;
+        }
+        return start + run;
+    }
+}
@@ -9,11 +9,17 @@ import java.awt.event.ActionEvent;
  * It implements the java.awt.event.ActionListener to listen the button event in the panel and the actionPerformed
  * method is provided to perform different actions when corresponding button is clicked. It implements the
  * java.awt.event.MouseListener to listen the clicking of mouse on the board and the mouseClicked method is provided
- * to handle the event of the mouse clicking on the board.
+ * to handle the event of the mouse clicking on the board. The AI moves started from the panel run on a background
+ * thread, so the panel stays responsive and the "Abort" button stops the search at once through a SearchCancellation.
+ * The pieces of the AI thread are painted, and the turn is handed back, on the event dispatch thread.
  */
 public class Controller implements ActionListener, MouseListener, IController{
     private Model model;
     private View view;
+    // The thread playing the AI moves started from the panel, null if none was started
+    private Thread aiThread;
+    // The token which stops the search of the AI thread
+    private SearchCancellation cancellation = new SearchCancellation();
 
     /**
      * Constructor of the Controller class. Assign the input models and view to the private fields of the Controller
@@ -51,15 +57,18 @@ public class Controller implements ActionListener, MouseListener, IController{
     public void actionPerformed(ActionEvent e){
         // When "New Game" button is clicked
         if(e.getActionCommand().equals("New Game")){
+            stopAI();
             // paint the empty board
             clearAndRepaintBoard();
             model.setTurn(1);
             if(model.getMode() == 2){
-                runAIVsAI();
+                startAI(this::runAIVsAI);
             }
         }
         // When the "Abort" button is clicked
         else if(e.getActionCommand().equals("Abort")){
+            // The running search stops within a few milliseconds, before the board is cleared
+            stopAI();
             if(model.getTurn() == 1){
                 view.popUp("White Wins");
             } else{
@@ -94,16 +103,19 @@ public class Controller implements ActionListener, MouseListener, IController{
         }
         // Set the model parameters according to the game mode selected in the box of the panel
         else if(view.getBoxes().getSelectedItem().equals("Human vs Human")){
+            stopAI();
             model.setMode(0);
             model.setTurn(0);
             model.setStep(0);
         }
         else if(view.getBoxes().getSelectedItem().equals("Human vs AI")){
+            stopAI();
             model.setMode(1);
             model.setTurn(0);
             model.setStep(0);
         }
         else if(view.getBoxes().getSelectedItem().equals("AI vs AI")){
+            stopAI();
             model.setMode(2);
             model.setTurn(0);
             model.setStep(0);
@@ -117,37 +129,40 @@ public class Controller implements ActionListener, MouseListener, IController{
     public void runAIVsAI(){
         // AI vs AI
         // Place the first piece in the center of the board
-        model.placeChessOnPosition(new Position(7,7),Player.X);
+        model.placeChessOnPosition(new Position(model.getBoardSize() / 2, model.getBoardSize() / 2),Player.X);
         model.setStep(model.getStep()+1);
-        view.paintMark(model.getLastPosition().getRow(), model.getLastPosition().getColumn(), Player.X, model.getStep());
+        paintLastMove(Player.X);
         model.setTurn(2);
         // Loop until there is a winner or it is a tie with no empty position anymore
         while(true) {
             if (model.getTurn() == 2) {
                 //AI (O) turn
                 oneAIStep(model.getH());
+                if(cancellation.isCancelled()){
+                    // Aborted, the board is cleared by the "Abort" button
+                    break;
+                }
                 model.setTurn(1);
                 if (model.getWinner() == Player.O) {
-                    view.popUp("AI White Wins!");
-                    clearAndRepaintBoard();
+                    endGame("AI White Wins!");
                     break;
                 }
                 if(!model.checkEmpty()){
-                    view.popUp("A tie!");
-                    clearAndRepaintBoard();
+                    endGame("A tie!");
                     break;
                 }
                 //AI (X) turn
                 oneAIStep(model.getH());
+                if(cancellation.isCancelled()){
+                    break;
+                }
                 model.setTurn(2);
                 if (model.getWinner() == Player.X) {
-                    view.popUp("AI Black Wins!");
-                    clearAndRepaintBoard();
+                    endGame("AI Black Wins!");
                     break;
                 }
                 if(!model.checkEmpty()){
-                    view.popUp("A tie!");
-                    clearAndRepaintBoard();
+                    endGame("A tie!");
                     break;
                 }
             }
@@ -171,7 +186,19 @@ public class Controller implements ActionListener, MouseListener, IController{
         // Increase the step count after one move
         model.setStep(model.getStep()+1);
         // Paint the new piece on the board
-        view.paintMark(model.getLastPosition().getRow(), model.getLastPosition().getColumn(), (model.getTurn() == 2) ? Player.O : Player.X, model.getStep());
+        paintLastMove((model.getTurn() == 2) ? Player.O : Player.X);
+    }
+
+    /**
+     * Paint the last piece placed on the board. The position and the step are read at once, so the painting can be
+     * left to the event dispatch thread while the AI thread goes on.
+     *
+     * @param player the player of the last piece
+     */
+    private void paintLastMove(Player player){
+        Position last = model.getLastPosition();
+        int step = model.getStep();
+        onEventThread(() -> view.paintMark(last.getRow(), last.getColumn(), player, step));
     }
 
     /**
@@ -187,12 +214,11 @@ public class Controller implements ActionListener, MouseListener, IController{
         int x = e.getX();
         int y = e.getY();
         //Convert the position to board index
-        x = (x / 40) * 40 + 20;
-        y = (y / 40) * 40 + 20;
-        int row = (y - 20) / 40;
-        int column = (x - 20) / 40;
+        int cellSize = view.getCellSize();
+        int row = y / cellSize;
+        int column = x / cellSize;
         //Pass the index to the go method
-        if(row >=0 && row <= 14 && column >= 0 && column <= 14) {
+        if(row >=0 && row < model.getBoardSize() && column >= 0 && column < model.getBoardSize()) {
             go(row, column);
         }
     }
@@ -246,15 +272,15 @@ public class Controller implements ActionListener, MouseListener, IController{
      *
      * @param row The input row on the board
      * @param column The input column on the board
-     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and 14
+     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and boardSize - 1
      */
     @Override
     public void oneHumanStep(int row, int column) throws IndexOutOfBoundsException{
-        if(row < 0 || row > 14){
-            throw new IndexOutOfBoundsException("Index of row must between 0 and 14.");
+        if(row < 0 || row >= model.getBoardSize()){
+            throw new IndexOutOfBoundsException("Index of row must between 0 and " + (model.getBoardSize() - 1) + ".");
         }
-        if(column < 0 || column > 14){
-            throw new IndexOutOfBoundsException("Index of column must between 0 and 14.");
+        if(column < 0 || column >= model.getBoardSize()){
+            throw new IndexOutOfBoundsException("Index of column must between 0 and " + (model.getBoardSize() - 1) + ".");
         }
         model.placeChessOnPosition(new Position(row, column), (model.getTurn() == 2) ? Player.O : Player.X);
         model.setStep(model.getStep()+1);
@@ -266,15 +292,19 @@ public class Controller implements ActionListener, MouseListener, IController{
      *
      * @param row The row index of the clicking position on the board
      * @param column The column index of the clicking position on the board
-     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and 14
+     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and boardSize - 1
      */
     @Override
     public void go(int row, int column) throws IndexOutOfBoundsException{
-        if(row < 0 || row > 14){
-            throw new IndexOutOfBoundsException("Index of row must between 0 and 14.");
+        if(row < 0 || row >= model.getBoardSize()){
+            throw new IndexOutOfBoundsException("Index of row must between 0 and " + (model.getBoardSize() - 1) + ".");
+        }
+        if(column < 0 || column >= model.getBoardSize()){
+            throw new IndexOutOfBoundsException("Index of column must between 0 and " + (model.getBoardSize() - 1) + ".");
         }
-        if(column < 0 || column > 14){
-            throw new IndexOutOfBoundsException("Index of column must between 0 and 14.");
+        // Ignore the clicks while the AI moves, the board is only changed on the AI thread then
+        if(model.getMode() == 2 || (model.getMode() == 1 && model.getTurn() == 2)){
+            return;
         }
         // If the game is started
         if(model.getTurn() != 0){
@@ -330,22 +360,97 @@ public class Controller implements ActionListener, MouseListener, IController{
                             clearAndRepaintBoard();
                             return;
                         }
-                        //AI (O) turn
-                        oneAIStep(model.getH());
-                        model.setTurn(1);
-                        if(model.getWinner() == Player.O){
-                            view.popUp("AI Wins!");
-                            clearAndRepaintBoard();
-                            return;
-                        }
-                        if(!model.checkEmpty()){
-                            view.popUp("A tie!");
-                            clearAndRepaintBoard();
-                            return;
-                        }
+                        //AI (O) turn, on the AI thread
+                        startAI(this::aiReply);
                     }
                 }
             }
         }
     }
+
+    /**
+     * Moves the AI player (O) after the human player in the Human vs AI mode.
+     */
+    private void aiReply(){
+        oneAIStep(model.getH());
+        if(cancellation.isCancelled()){
+            // Aborted, the board is cleared by the "Abort" button
+            return;
+        }
+        // The turn is handed back on the event dispatch thread, which reads it when the board is clicked
+        onEventThread(() -> {
+            model.setTurn(1);
+            if(model.getWinner() == Player.O){
+                endGame("AI Wins!");
+                return;
+            }
+            if(!model.checkEmpty()){
+                endGame("A tie!");
+            }
+        });
+    }
+
+    /**
+     * Start the AI moves on the AI thread with a new cancellation token.
+     *
+     * @param moves the AI moves to play
+     */
+    private void startAI(Runnable moves){
+        cancellation = new SearchCancellation();
+        model.setCancellation(cancellation);
+        aiThread = new Thread(moves, "AI player");
+        // The application can exit while the AI thinks
+        aiThread.setDaemon(true);
+        aiThread.start();
+    }
+
+    /**
+     * Stop the search of the AI thread and wait until the thread ends, so the model can be changed.
+     */
+    private void stopAI(){
+        if(aiThread == null){
+            return;
+        }
+        cancellation.cancel();
+        try{
+            aiThread.join();
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        aiThread = null;
+        model.setCancellation(null);
+    }
+
+    /**
+     * Show the result of the game and clear the board. On the AI thread, it is left to the event dispatch thread, so
+     * the AI thread never waits for the dialog and stopAI can always wait for the AI thread.
+     *
+     * @param message the result of the game
+     */
+    private void endGame(String message){
+        onEventThread(() -> {
+            view.popUp(message);
+            clearAndRepaintBoard();
+        });
+    }
+
+    /**
+     * Run an update of the view or of the game state. On the AI thread, it is posted to the event dispatch thread,
+     * which owns the view and the turn, and it is dropped if the AI moves are stopped before it runs, so a stale
+     * piece is never painted on a cleared board.
+     *
+     * @param update the update to run
+     */
+    private void onEventThread(Runnable update){
+        if(Thread.currentThread() != aiThread){
+            update.run();
+            return;
+        }
+        SearchCancellation token = cancellation;
+        EventQueue.invokeLater(() -> {
+            if(!token.isCancelled()){
+                update.run();
+            }
+        });
+    }
 }
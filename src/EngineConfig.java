@@ -0,0 +1,524 @@
+/**
+ * The EngineConfig class describes one configuration of the AI player: a name and the settings of the search. A
+ * configuration is written as a list of key=value pairs separated by commas, for example "depth=2,radius=2". With the
+ * key time, the depth is the largest depth tried in the time limit, for example "depth=6,time=1000". The key nodes
+ * works the same with a number of nodes instead, so the moves do not depend on the machine, for example
+ * "depth=8,nodes=200000". The key table
+ * turns on a transposition table with that many entries, for example "depth=4,radius=2,table=65536", and the key
+ * evalcache turns on a cache of the leaf evaluations with that many entries. The key forced restricts the search to
+ * the forced moves when a five (forced=1) or also an open four (forced=2) is threatened, and the key quiescence lets
+ * the fours go on that many plies after the depth, for example "depth=2,quiescence=6". The key lmr searches the moves
+ * of a node after that many one ply less, and the key nullmove turns on the null move pruning with that reduction, for
+ * example "depth=4,lmr=4,nullmove=2". The key beam searches only the best moves of each ply, with one width per ply
+ * separated by slashes, for example "depth=6,beam=12/10/8/6", and "staged=true" gives the moves of a node in stages,
+ * threats and killer moves first. With "reuse=true" the transposition table, the history of the cutoffs and the
+ * expected line are kept from one move to the next, for example "depth=4,table=65536,staged=true,reuse=true". The
+ * key engine chooses the search, minimax by default or mcts for the Monte Carlo tree search, which only uses the
+ * radius, the time and the nodes, for example "engine=mcts,time=1000", and the key tree sets the largest number of
+ * nodes of its tree, for example "engine=mcts,nodes=5000,tree=65536". It is applied to a Model before the Model
+ * moves the AI player, so different configurations can play against each other on the same board.
+ */
+public class EngineConfig {
+    // The name of the configuration shown in the reports
+    private String name;
+    // The depth of the minimax algorithm
+    private int depth;
+    // The candidate radius of the minimax algorithm, 0 means every empty position is tried
+    private int radius;
+    // The time limit of one move in milliseconds, 0 means the search always goes to the depth
+    private long time;
+    // The largest number of nodes of one move, 0 means the search always goes to the depth
+    private long nodes;
+    // The number of entries of the transposition table, 0 means the search does not use a table
+    private int table;
+    // The number of entries of the evaluation cache, 0 means the leaf boards are always evaluated
+    private int evalCache;
+    // Which forced situations restrict the search, see Model.setForcedMoveLevel
+    private int forced;
+    // The largest number of plies of the quiescence search, 0 for off
+    private int quiescence;
+    // The number of moves of a node searched at the full depth before the late move reductions, 0 for off
+    private int lmr;
+    // The reduction of the null move search, 0 for off
+    private int nullMove;
+    // The number of moves searched at each ply of the beam search, empty for off
+    private int[] beam = new int[0];
+    // Whether the moves of a node are given in stages
+    private boolean staged;
+    // Whether the results of the earlier moves are kept
+    private boolean reuse;
+    // The search of the moves, minimax or mcts
+    private String engine = "minimax";
+    // The largest number of nodes of the Monte Carlo tree, 0 means MctsEngine.DEFAULT_CAPACITY
+    private int tree;
+
+    /**
+     * Constructor of the EngineConfig class with the input name and depth.
+     *
+     * @param name the name of the configuration
+     * @param depth the depth of the minimax algorithm
+     * @throws IllegalArgumentException When the depth is not positive
+     */
+    public EngineConfig(String name, int depth) throws IllegalArgumentException{
+        this.name = name;
+        setDepth(depth);
+    }
+
+    /**
+     * Parse a configuration from a list of key=value pairs separated by commas. The whole text is used as the name.
+     *
+     * @param text the input configuration, for example "depth=2"
+     * @return the configuration described by the text
+     * @throws IllegalArgumentException When a key is unknown or a value is not valid
+     */
+    public static EngineConfig parse(String text) throws IllegalArgumentException{
+        EngineConfig config = new EngineConfig(text, 3);
+        for(String pair : text.split(",")){
+            String[] keyValue = pair.trim().split("=", 2);
+            if(keyValue.length != 2){
+                throw new IllegalArgumentException("Expected key=value but got '" + pair + "'.");
+            }
+            String key = keyValue[0].trim();
+            String value = keyValue[1].trim();
+            try{
+                if(key.equals("depth")){
+                    config.setDepth(Integer.parseInt(value));
+                }
+                else if(key.equals("radius")){
+                    config.setRadius(Integer.parseInt(value));
+                }
+                else if(key.equals("time")){
+                    config.setTime(Long.parseLong(value));
+                }
+                else if(key.equals("nodes")){
+                    config.setNodes(Long.parseLong(value));
+                }
+                else if(key.equals("table")){
+                    config.setTable(Integer.parseInt(value));
+                }
+                else if(key.equals("evalcache")){
+                    config.setEvalCache(Integer.parseInt(value));
+                }
+                else if(key.equals("forced")){
+                    config.setForced(Integer.parseInt(value));
+                }
+                else if(key.equals("quiescence")){
+                    config.setQuiescence(Integer.parseInt(value));
+                }
+                else if(key.equals("lmr")){
+                    config.setLmr(Integer.parseInt(value));
+                }
+                else if(key.equals("nullmove")){
+                    config.setNullMove(Integer.parseInt(value));
+                }
+                else if(key.equals("beam")){
+                    String[] widths = value.split("/");
+                    int[] beam = new int[widths.length];
+                    for(int w = 0; w < widths.length; w++){
+                        beam[w] = Integer.parseInt(widths[w].trim());
+                    }
+                    config.setBeam(beam);
+                }
+                else if(key.equals("staged")){
+                    if(!value.equals("true") && !value.equals("false")){
+                        throw new IllegalArgumentException("The value of staged must be true or false.");
+                    }
+                    config.setStaged(value.equals("true"));
+                }
+                else if(key.equals("reuse")){
+                    if(!value.equals("true") && !value.equals("false")){
+                        throw new IllegalArgumentException("The value of reuse must be true or false.");
+                    }
+                    config.setReuse(value.equals("true"));
+                }
+                else if(key.equals("engine")){
+                    config.setEngine(value);
+                }
+                else if(key.equals("tree")){
+                    config.setTree(Integer.parseInt(value));
+                }
+                else{
+                    throw new IllegalArgumentException("Unknown engine setting '" + key + "'.");
+                }
+            } catch (NumberFormatException e){
+                throw new IllegalArgumentException("The value of " + key + " must be a number.");
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Get the name.
+     *
+     * @return the name of the configuration
+     */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * Get the depth.
+     *
+     * @return the depth of the minimax algorithm
+     */
+    public int getDepth(){
+        return depth;
+    }
+
+    /**
+     * Set the depth.
+     *
+     * @param depth the depth of the minimax algorithm
+     * @throws IllegalArgumentException When the depth is not positive
+     */
+    public void setDepth(int depth) throws IllegalArgumentException{
+        if(depth <= 0){
+            throw new IllegalArgumentException("The depth of the minimax algorithm must be positive.");
+        }
+        this.depth = depth;
+    }
+
+    /**
+     * Get the candidate radius.
+     *
+     * @return the candidate radius of the minimax algorithm, 0 means every empty position is tried
+     */
+    public int getRadius(){
+        return radius;
+    }
+
+    /**
+     * Set the candidate radius.
+     *
+     * @param radius the candidate radius of the minimax algorithm, 0 means every empty position is tried
+     * @throws IllegalArgumentException When the radius is negative
+     */
+    public void setRadius(int radius) throws IllegalArgumentException{
+        if(radius < 0){
+            throw new IllegalArgumentException("The candidate radius can not be negative.");
+        }
+        this.radius = radius;
+    }
+
+    /**
+     * Get the time limit of one move.
+     *
+     * @return the time limit in milliseconds, 0 means the search always goes to the depth
+     */
+    public long getTime(){
+        return time;
+    }
+
+    /**
+     * Set the time limit of one move.
+     *
+     * @param time the time limit in milliseconds, 0 means the search always goes to the depth
+     * @throws IllegalArgumentException When the time limit is negative
+     */
+    public void setTime(long time) throws IllegalArgumentException{
+        if(time < 0){
+            throw new IllegalArgumentException("The time limit can not be negative.");
+        }
+        this.time = time;
+    }
+
+    /**
+     * Get the node budget of one move.
+     *
+     * @return the largest number of nodes, 0 means the search always goes to the depth
+     */
+    public long getNodes(){
+        return nodes;
+    }
+
+    /**
+     * Set the node budget of one move.
+     *
+     * @param nodes the largest number of nodes, 0 means the search always goes to the depth
+     * @throws IllegalArgumentException When the number of nodes is negative
+     */
+    public void setNodes(long nodes) throws IllegalArgumentException{
+        if(nodes < 0){
+            throw new IllegalArgumentException("The node budget can not be negative.");
+        }
+        this.nodes = nodes;
+    }
+
+    /**
+     * Get the size of the transposition table.
+     *
+     * @return the number of entries, 0 means the search does not use a table
+     */
+    public int getTable(){
+        return table;
+    }
+
+    /**
+     * Set the size of the transposition table.
+     *
+     * @param table the number of entries, 0 means the search does not use a table
+     * @throws IllegalArgumentException When the number of entries is negative or larger than 2^30
+     */
+    public void setTable(int table) throws IllegalArgumentException{
+        if(table < 0 || table > (1 << 30)){
+            throw new IllegalArgumentException("The size of the table must be between 0 and 2^30.");
+        }
+        this.table = table;
+    }
+
+    /**
+     * Get the size of the evaluation cache.
+     *
+     * @return the number of entries, 0 means the leaf boards are always evaluated
+     */
+    public int getEvalCache(){
+        return evalCache;
+    }
+
+    /**
+     * Set the size of the evaluation cache.
+     *
+     * @param evalCache the number of entries, 0 means the leaf boards are always evaluated
+     * @throws IllegalArgumentException When the number of entries is negative or larger than 2^30
+     */
+    public void setEvalCache(int evalCache) throws IllegalArgumentException{
+        if(evalCache < 0 || evalCache > (1 << 30)){
+            throw new IllegalArgumentException("The size of the evaluation cache must be between 0 and 2^30.");
+        }
+        this.evalCache = evalCache;
+    }
+
+    /**
+     * Get which forced situations restrict the search.
+     *
+     * @return 0 for off, 1 for the fives, 2 for the fives and the open fours
+     */
+    public int getForced(){
+        return forced;
+    }
+
+    /**
+     * Set which forced situations restrict the search.
+     *
+     * @param forced 0 for off, 1 for the fives, 2 for the fives and the open fours
+     * @throws IllegalArgumentException When the level is not 0, 1 or 2
+     */
+    public void setForced(int forced) throws IllegalArgumentException{
+        if(forced < 0 || forced > 2){
+            throw new IllegalArgumentException("The forced move level must be 0, 1 or 2.");
+        }
+        this.forced = forced;
+    }
+
+    /**
+     * Get the largest number of plies the quiescence search adds after the depth.
+     *
+     * @return the number of plies, 0 for off
+     */
+    public int getQuiescence(){
+        return quiescence;
+    }
+
+    /**
+     * Set the largest number of plies the quiescence search adds after the depth.
+     *
+     * @param quiescence the number of plies, 0 for off
+     * @throws IllegalArgumentException When the number is negative
+     */
+    public void setQuiescence(int quiescence) throws IllegalArgumentException{
+        if(quiescence < 0){
+            throw new IllegalArgumentException("The quiescence depth can not be negative.");
+        }
+        this.quiescence = quiescence;
+    }
+
+    /**
+     * Get the number of moves of a node searched at the full depth before the late move reductions.
+     *
+     * @return the number of moves, 0 for off
+     */
+    public int getLmr(){
+        return lmr;
+    }
+
+    /**
+     * Set the number of moves of a node searched at the full depth before the late move reductions.
+     *
+     * @param lmr the number of moves, 0 for off
+     * @throws IllegalArgumentException When the number is negative
+     */
+    public void setLmr(int lmr) throws IllegalArgumentException{
+        if(lmr < 0){
+            throw new IllegalArgumentException("The number of moves before the reductions can not be negative.");
+        }
+        this.lmr = lmr;
+    }
+
+    /**
+     * Get the reduction of the null move search.
+     *
+     * @return the number of plies, 0 for off
+     */
+    public int getNullMove(){
+        return nullMove;
+    }
+
+    /**
+     * Set the reduction of the null move search.
+     *
+     * @param nullMove the number of plies, 0 for off
+     * @throws IllegalArgumentException When the number is negative
+     */
+    public void setNullMove(int nullMove) throws IllegalArgumentException{
+        if(nullMove < 0){
+            throw new IllegalArgumentException("The null move reduction can not be negative.");
+        }
+        this.nullMove = nullMove;
+    }
+
+    /**
+     * Get the number of moves searched at each ply of the beam search.
+     *
+     * @return the widths, empty if the beam is off
+     */
+    public int[] getBeam(){
+        return beam.clone();
+    }
+
+    /**
+     * Set the number of moves searched at each ply of the beam search. The last width is used for all deeper plies.
+     *
+     * @param beam the widths, empty for off
+     * @throws IllegalArgumentException When a width is not positive
+     */
+    public void setBeam(int[] beam) throws IllegalArgumentException{
+        for(int width : beam){
+            if(width <= 0){
+                throw new IllegalArgumentException("The beam widths must be positive.");
+            }
+        }
+        this.beam = beam.clone();
+    }
+
+    /**
+     * Check whether the moves of a node are given in stages.
+     *
+     * @return true iif the moves are given in stages
+     */
+    public boolean isStaged(){
+        return staged;
+    }
+
+    /**
+     * Set whether the moves of a node are given in stages.
+     *
+     * @param staged true to give the moves in stages
+     */
+    public void setStaged(boolean staged){
+        this.staged = staged;
+    }
+
+    /**
+     * Check whether the results of the earlier moves are kept.
+     *
+     * @return true iif the results are kept
+     */
+    public boolean isReuse(){
+        return reuse;
+    }
+
+    /**
+     * Set whether the results of the earlier moves are kept.
+     *
+     * @param reuse true to keep the results
+     */
+    public void setReuse(boolean reuse){
+        this.reuse = reuse;
+    }
+
+    /**
+     * Get the search of the moves.
+     *
+     * @return minimax or mcts
+     */
+    public String getEngine(){
+        return engine;
+    }
+
+    /**
+     * Set the search of the moves.
+     *
+     * @param engine minimax for the minimax method, mcts for the Monte Carlo tree search
+     * @throws IllegalArgumentException When the engine is neither minimax nor mcts
+     */
+    public void setEngine(String engine) throws IllegalArgumentException{
+        if(!"minimax".equals(engine) && !"mcts".equals(engine)){
+            throw new IllegalArgumentException("The engine must be minimax or mcts.");
+        }
+        this.engine = engine;
+    }
+
+    /**
+     * Get the largest number of nodes of the Monte Carlo tree.
+     *
+     * @return the number of nodes, 0 means MctsEngine.DEFAULT_CAPACITY
+     */
+    public int getTree(){
+        return tree;
+    }
+
+    /**
+     * Set the largest number of nodes of the Monte Carlo tree.
+     *
+     * @param tree the number of nodes, 0 means MctsEngine.DEFAULT_CAPACITY
+     * @throws IllegalArgumentException When the number of nodes is negative, 1 or larger than 2^30
+     */
+    public void setTree(int tree) throws IllegalArgumentException{
+        if(tree < 0 || tree == 1 || tree > (1 << 30)){
+            throw new IllegalArgumentException("The size of the tree must be 0 or between 2 and 2^30.");
+        }
+        this.tree = tree;
+    }
+
+    /**
+     * Apply the settings of this configuration to the input model. A Monte Carlo engine already set on the model is
+     * kept with its tree when it has the size of the tree of this configuration.
+     *
+     * @param model the model which will move the AI player
+     */
+    public void applyTo(Model model){
+        model.setH(depth);
+        model.setCandidateRadius(radius);
+        model.setTimeBudget(time);
+        model.setNodeBudget(nodes);
+        model.setTableSize(table);
+        model.setEvaluationCacheSize(evalCache);
+        model.setForcedMoveLevel(forced);
+        model.setQuiescenceDepth(quiescence);
+        model.setLateMoveReduction(lmr);
+        model.setNullMoveReduction(nullMove);
+        model.setBeamWidths(beam);
+        model.setStagedMoves(staged);
+        model.setSearchReuse(reuse);
+        if(engine.equals("mcts")){
+            int capacity = (tree > 0) ? tree : MctsEngine.DEFAULT_CAPACITY;
+            if(!(model.getEngine() instanceof MctsEngine)
+                    || ((MctsEngine) model.getEngine()).getCapacity() != capacity){
+                model.setEngine(new MctsEngine(capacity));
+            }
+        }
+        else{
+            model.setEngine(null);
+        }
+    }
+
+    /**
+     * Get the name of the configuration.
+     *
+     * @return the name of the configuration
+     */
+    @Override
+    public String toString(){
+        return name;
+    }
+}
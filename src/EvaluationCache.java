@@ -0,0 +1,75 @@
+import java.util.Arrays;
+
+/**
+ * The EvaluationCache class remembers the scores of the evaluate method at the leaf nodes, so a board which is
+ * evaluated again, in the same search or in the search of the next move, costs one array lookup instead of a scan of
+ * the whole board. It is direct mapped and lossy: each board has one slot chosen by the low bits of its Zobrist hash,
+ * and a new board simply overwrites the slot. It never allocates after its construction.
+ */
+public class EvaluationCache {
+    // The hashes of the cached boards
+    private final long[] hashes;
+    // The scores of the cached boards, NaN for an empty slot
+    private final double[] scores;
+    // The low bits of the hash used as the index
+    private final int mask;
+
+    /**
+     * Constructor of the EvaluationCache class.
+     *
+     * @param entries the number of entries, rounded up to a power of two
+     * @throws IllegalArgumentException When the number of entries is not between 1 and 2^30
+     */
+    public EvaluationCache(int entries) throws IllegalArgumentException{
+        if(entries <= 0 || entries > (1 << 30)){
+            throw new IllegalArgumentException("The number of entries must be between 1 and 2^30.");
+        }
+        int size = Integer.highestOneBit(entries);
+        if(size < entries){
+            size <<= 1;
+        }
+        hashes = new long[size];
+        scores = new double[size];
+        mask = size - 1;
+        clear();
+    }
+
+    /**
+     * Get the number of entries.
+     *
+     * @return the number of entries
+     */
+    public int size(){
+        return hashes.length;
+    }
+
+    /**
+     * Get the cached score of a board.
+     *
+     * @param hash the Zobrist hash of the board, including the side to move
+     * @return the score, or NaN if the board is not cached
+     */
+    public double get(long hash){
+        int slot = (int)hash & mask;
+        return (hashes[slot] == hash) ? scores[slot] : Double.NaN;
+    }
+
+    /**
+     * Cache the score of a board, replacing the board of the same slot.
+     *
+     * @param hash the Zobrist hash of the board, including the side to move
+     * @param score the score returned by the evaluate method
+     */
+    public void put(long hash, double score){
+        int slot = (int)hash & mask;
+        hashes[slot] = hash;
+        scores[slot] = score;
+    }
+
+    /**
+     * Remove every board.
+     */
+    public void clear(){
+        Arrays.fill(scores, Double.NaN);
+    }
+}
@@ -1,12 +1,55 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
 /**
  * The main program class for the Five In A Row game with the AI player supported by the minimax algorithm alpha-beta
  * pruning.
  */
 public class FiveInARow {
-    public static void main(String[] args){
-        Model model = new Model();
-        View view = new View("Five In A Row");
+    /**
+     * Start the game, or analyze boards without the graphical user interface when the first argument is "analyze".
+     * The analyze mode reads one board per line from the file named by the second argument, or from the standard
+     * input if there is no file or the file is "-", and writes the best move of each board to the standard output. It
+     * takes the engine configuration and the number of threads as optional third and fourth arguments, for example
+     * "analyze boards.txt depth=6,time=500,radius=2 8".
+     *
+     * @param args optionally the number of row or column in the board, 15 by default, or the arguments of the
+     *             analyze mode
+     * @throws IOException When the boards can not be read in the analyze mode
+     * @throws InterruptedException When the thread is interrupted in the analyze mode
+     */
+    public static void main(String[] args) throws IOException, InterruptedException{
+        if(args.length > 0 && args[0].equals("analyze")){
+            analyze(args);
+            return;
+        }
+        // Let JMX clients such as jconsole read the search statistics
+        SearchMetrics.register();
+        int boardSize = (args.length > 0) ? Integer.parseInt(args[0]) : 15;
+        Model model = new Model(boardSize);
+        View view = new View("Five In A Row", boardSize);
         //The constructor of the Controller class will start the game
         new Controller(model, view);
     }
+
+    /**
+     * A helper function to run the analyze mode.
+     *
+     * @param args the arguments of the main method
+     * @throws IOException When the boards can not be read
+     * @throws InterruptedException When the thread is interrupted while waiting for a search
+     */
+    private static void analyze(String[] args) throws IOException, InterruptedException{
+        boolean stdin = args.length < 2 || args[1].equals("-");
+        EngineConfig config = (args.length > 2) ? EngineConfig.parse(args[2]) : new EngineConfig("default", 3);
+        BatchAnalysis analysis = new BatchAnalysis(config);
+        if(args.length > 3){
+            analysis.setThreads(Integer.parseInt(args[3]));
+        }
+        try(BufferedReader in = new BufferedReader(stdin ? new InputStreamReader(System.in) : new FileReader(args[1]))){
+            analysis.run(in, System.out);
+        }
+    }
 }
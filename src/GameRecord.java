@@ -0,0 +1,217 @@
+import java.util.Arrays;
+
+/**
+ * The GameRecord class holds the moves of one game, so the game can be saved by the GameRecordWriter and read back by
+ * the GameRecordReader. The moves alternate between the players and Player.X always moves first. A move played by the
+ * AI player can carry the result of its search: the score, the depth, the number of nodes and the time. A move without
+ * a search, such as a random opening move, has the depth 0.
+ */
+public class GameRecord {
+    // The number of row or column in the board
+    private int boardSize;
+    // The winner of the game, Player.EMPTY for a tie or an unfinished game
+    private Player winner;
+    // The number of moves
+    private int moveCount;
+    // The positions of the moves as row * boardSize + column
+    private int[] moves;
+    // The search of each move
+    private float[] scores;
+    private int[] depths;
+    private long[] nodes;
+    private long[] micros;
+
+    /**
+     * Constructor of the GameRecord class for an empty game.
+     *
+     * @param boardSize the number of row or column in the board
+     * @throws IllegalArgumentException When the board size is less than 5
+     */
+    public GameRecord(int boardSize) throws IllegalArgumentException{
+        if(boardSize < 5){
+            throw new IllegalArgumentException("The board size must be at least 5.");
+        }
+        this.boardSize = boardSize;
+        this.winner = Player.EMPTY;
+        this.moves = new int[32];
+        this.scores = new float[32];
+        this.depths = new int[32];
+        this.nodes = new long[32];
+        this.micros = new long[32];
+    }
+
+    /**
+     * Add a move without a search.
+     *
+     * @param row the row of the move
+     * @param column the column of the move
+     * @throws IndexOutOfBoundsException When the position is not on the board
+     */
+    public void addMove(int row, int column) throws IndexOutOfBoundsException{
+        addMove(row, column, 0, 0, 0, 0);
+    }
+
+    /**
+     * Add a move with the result of its search.
+     *
+     * @param row the row of the move
+     * @param column the column of the move
+     * @param score the score of the move
+     * @param depth the depth of the search, 0 if the move is not searched
+     * @param nodes the number of nodes searched
+     * @param micros the time of the search in microseconds
+     * @throws IndexOutOfBoundsException When the position is not on the board
+     * @throws IllegalArgumentException When the depth, the number of nodes or the time is negative
+     */
+    public void addMove(int row, int column, double score, int depth, long nodes, long micros)
+            throws IndexOutOfBoundsException, IllegalArgumentException{
+        if(row < 0 || row >= boardSize){
+            throw new IndexOutOfBoundsException("Index of row must between 0 and " + (boardSize - 1) + ".");
+        }
+        if(column < 0 || column >= boardSize){
+            throw new IndexOutOfBoundsException("Index of column must between 0 and " + (boardSize - 1) + ".");
+        }
+        if(depth < 0 || nodes < 0 || micros < 0){
+            throw new IllegalArgumentException("The depth, the nodes and the time can not be negative.");
+        }
+        if(moveCount == moves.length){
+            int length = moves.length * 2;
+            moves = Arrays.copyOf(moves, length);
+            scores = Arrays.copyOf(scores, length);
+            depths = Arrays.copyOf(depths, length);
+            this.nodes = Arrays.copyOf(this.nodes, length);
+            this.micros = Arrays.copyOf(this.micros, length);
+        }
+        moves[moveCount] = row * boardSize + column;
+        scores[moveCount] = (float) score;
+        depths[moveCount] = depth;
+        this.nodes[moveCount] = nodes;
+        this.micros[moveCount] = micros;
+        moveCount++;
+    }
+
+    /**
+     * Get the size of the board.
+     *
+     * @return the number of row or column in the board
+     */
+    public int getBoardSize(){
+        return boardSize;
+    }
+
+    /**
+     * Get the winner.
+     *
+     * @return the winner of the game, Player.EMPTY for a tie or an unfinished game
+     */
+    public Player getWinner(){
+        return winner;
+    }
+
+    /**
+     * Set the winner.
+     *
+     * @param winner the winner of the game, Player.EMPTY for a tie or an unfinished game
+     */
+    public void setWinner(Player winner){
+        this.winner = winner;
+    }
+
+    /**
+     * Get the number of moves.
+     *
+     * @return the number of moves
+     */
+    public int getMoveCount(){
+        return moveCount;
+    }
+
+    /**
+     * Get the position of one move.
+     *
+     * @param i the index of the move, 0 is the first move
+     * @return the position of the move
+     */
+    public Position getPosition(int i){
+        return new Position(moves[i] / boardSize, moves[i] % boardSize);
+    }
+
+    /**
+     * Get the player of one move.
+     *
+     * @param i the index of the move, 0 is the first move
+     * @return Player.X for the even moves and Player.O for the odd moves
+     */
+    public Player getPlayer(int i){
+        return (i % 2 == 0) ? Player.X : Player.O;
+    }
+
+    /**
+     * Get the score of one move.
+     *
+     * @param i the index of the move
+     * @return the score of the search, 0 if the move is not searched
+     */
+    public float getScore(int i){
+        return scores[i];
+    }
+
+    /**
+     * Get the depth of the search of one move.
+     *
+     * @param i the index of the move
+     * @return the depth of the search, 0 if the move is not searched
+     */
+    public int getDepth(int i){
+        return depths[i];
+    }
+
+    /**
+     * Get the number of nodes searched for one move.
+     *
+     * @param i the index of the move
+     * @return the number of nodes
+     */
+    public long getNodes(int i){
+        return nodes[i];
+    }
+
+    /**
+     * Get the time of the search of one move.
+     *
+     * @param i the index of the move
+     * @return the time in microseconds
+     */
+    public long getMicros(int i){
+        return micros[i];
+    }
+
+    /**
+     * Check whether any move carries the result of a search.
+     *
+     * @return true iif at least one move has a depth greater than 0
+     */
+    public boolean hasSearchInfo(){
+        for(int i = 0; i < moveCount; i++){
+            if(depths[i] > 0){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Play all the moves on a new Model.
+     *
+     * @return a Model holding the board after the last move
+     */
+    public Model toModel(){
+        Model model = new Model(boardSize);
+        for(int i = 0; i < moveCount; i++){
+            model.placeChessOnPosition(getPosition(i), getPlayer(i));
+        }
+        model.setStep(moveCount);
+        model.setTurn((moveCount % 2 == 0) ? 1 : 2);
+        return model;
+    }
+}
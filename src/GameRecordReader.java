@@ -0,0 +1,120 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * The GameRecordReader class reads the games written by the GameRecordWriter, one game at a time, so a file with
+ * millions of games can be processed without loading it into the memory. The format is described in the
+ * GameRecordWriter class.
+ */
+public class GameRecordReader implements Closeable {
+    // The stream the games are read from
+    private DataInputStream in;
+
+    /**
+     * Constructor of the GameRecordReader class. The start of the format is read from the stream at once.
+     *
+     * @param in the stream to read from
+     * @throws IOException When the stream can not be read or does not start with the format
+     */
+    public GameRecordReader(InputStream in) throws IOException{
+        this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        byte[] magic = new byte[GameRecordWriter.MAGIC.length];
+        try{
+            this.in.readFully(magic);
+        } catch (EOFException e){
+            throw new IOException("The stream is too short to hold games.", e);
+        }
+        if(!Arrays.equals(magic, GameRecordWriter.MAGIC)){
+            throw new IOException("The stream does not hold games.");
+        }
+        int version = this.in.readUnsignedByte();
+        if(version != GameRecordWriter.VERSION){
+            throw new IOException("Unknown version " + version + " of the game format.");
+        }
+    }
+
+    /**
+     * Read the next game.
+     *
+     * @return the next game, null if there is no more game
+     * @throws IOException When the stream can not be read or a game is cut off
+     */
+    public GameRecord read() throws IOException{
+        int first = in.read();
+        if(first < 0){
+            return null;
+        }
+        try{
+            int boardSize = (int) readVarint(first);
+            GameRecord game = new GameRecord(boardSize);
+            int winner = in.readUnsignedByte();
+            game.setWinner(winner == 1 ? Player.X : (winner == 2 ? Player.O : Player.EMPTY));
+            boolean searchInfo = (in.readUnsignedByte() & GameRecordWriter.FLAG_SEARCH_INFO) != 0;
+            long moveCount = readVarint(in.readUnsignedByte());
+            for(long i = 0; i < moveCount; i++){
+                int row;
+                int column;
+                if(boardSize <= 16){
+                    int move = in.readUnsignedByte();
+                    row = move / 16;
+                    column = move % 16;
+                } else{
+                    long move = readVarint(in.readUnsignedByte());
+                    row = (int) (move / boardSize);
+                    column = (int) (move % boardSize);
+                }
+                int depth = searchInfo ? (int) readVarint(in.readUnsignedByte()) : 0;
+                if(depth > 0){
+                    float score = in.readFloat();
+                    long nodes = readVarint(in.readUnsignedByte());
+                    long micros = readVarint(in.readUnsignedByte());
+                    game.addMove(row, column, score, depth, nodes, micros);
+                } else{
+                    game.addMove(row, column);
+                }
+            }
+            return game;
+        } catch (EOFException e){
+            throw new IOException("The last game is cut off.", e);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e){
+            throw new IOException("The game is not well formed.", e);
+        }
+    }
+
+    /**
+     * Close the stream.
+     *
+     * @throws IOException When the stream can not be closed
+     */
+    @Override
+    public void close() throws IOException{
+        in.close();
+    }
+
+    /**
+     * A helper function to read a varint whose first byte is already read.
+     *
+     * @param first the first byte of the varint
+     * @return the number
+     * @throws IOException When the stream can not be read or the varint is too long
+     */
+    private long readVarint(int first) throws IOException{
+        long value = first & 0x7F;
+        int shift = 7;
+        int b = first;
+        while((b & 0x80) != 0){
+            if(shift > 63){
+                throw new IOException("The varint is too long.");
+            }
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+}
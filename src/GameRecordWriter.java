@@ -0,0 +1,148 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The GameRecordWriter class writes games to a stream in a compact binary format, one game after another, so millions
+ * of games can be appended to one file. The stream starts with the bytes "FIAR" and the version of the format. Each game
+ * is written as:
+ * <ul>
+ *     <li>the board size as a varint</li>
+ *     <li>the winner as one byte: 0 for none, 1 for Player.X and 2 for Player.O</li>
+ *     <li>the flags as one byte: 1 if the moves carry the result of their search</li>
+ *     <li>the number of moves as a varint</li>
+ *     <li>each move as one byte (row * 16 + column) on boards up to 16x16, otherwise row * boardSize + column as a
+ *     varint, followed by the depth as a varint if the flag is set, and then the score as a float, the nodes and the
+ *     microseconds as varints if the depth is greater than 0</li>
+ * </ul>
+ * A varint writes 7 bits in each byte, starting with the lowest bits, and sets the highest bit of every byte but the
+ * last. Small numbers take one byte.
+ */
+public class GameRecordWriter implements Closeable {
+    // The bytes at the start of a stream of games
+    static final byte[] MAGIC = {'F', 'I', 'A', 'R'};
+    // The version of the format
+    static final int VERSION = 1;
+    // The flag of the games whose moves carry the result of their search
+    static final int FLAG_SEARCH_INFO = 1;
+
+    // The stream the games are written to
+    private DataOutputStream out;
+    // The number of games written
+    private long gameCount;
+
+    /**
+     * Constructor of the GameRecordWriter class. The start of the format is written to the stream at once.
+     *
+     * @param out the stream to write to
+     * @throws IOException When the stream can not be written
+     */
+    public GameRecordWriter(OutputStream out) throws IOException{
+        this(out, true);
+    }
+
+    /**
+     * A helper constructor which writes the start of the format only if asked.
+     *
+     * @param out the stream to write to
+     * @param writeHeader whether the start of the format is written
+     * @throws IOException When the stream can not be written
+     */
+    private GameRecordWriter(OutputStream out, boolean writeHeader) throws IOException{
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        if(writeHeader){
+            this.out.write(MAGIC);
+            this.out.writeByte(VERSION);
+        }
+    }
+
+    /**
+     * Open a file to append games to. The start of the format is only written if the file is new or empty.
+     *
+     * @param file the file to append to
+     * @return a writer appending to the end of the file
+     * @throws IOException When the file can not be opened
+     */
+    public static GameRecordWriter append(File file) throws IOException{
+        boolean empty = !file.exists() || file.length() == 0;
+        return new GameRecordWriter(new FileOutputStream(file, true), empty);
+    }
+
+    /**
+     * Write one game. It is safe to call from several threads, each game is written as a whole.
+     *
+     * @param game the game to write
+     * @throws IOException When the stream can not be written
+     */
+    public synchronized void write(GameRecord game) throws IOException{
+        int boardSize = game.getBoardSize();
+        boolean searchInfo = game.hasSearchInfo();
+        writeVarint(boardSize);
+        out.writeByte(game.getWinner() == Player.X ? 1 : (game.getWinner() == Player.O ? 2 : 0));
+        out.writeByte(searchInfo ? FLAG_SEARCH_INFO : 0);
+        writeVarint(game.getMoveCount());
+        for(int i = 0; i < game.getMoveCount(); i++){
+            Position position = game.getPosition(i);
+            if(boardSize <= 16){
+                out.writeByte(position.getRow() * 16 + position.getColumn());
+            } else{
+                writeVarint((long) position.getRow() * boardSize + position.getColumn());
+            }
+            if(searchInfo){
+                writeVarint(game.getDepth(i));
+                if(game.getDepth(i) > 0){
+                    out.writeFloat(game.getScore(i));
+                    writeVarint(game.getNodes(i));
+                    writeVarint(game.getMicros(i));
+                }
+            }
+        }
+        gameCount++;
+    }
+
+    /**
+     * Get the number of games written by this writer.
+     *
+     * @return the number of games
+     */
+    public synchronized long getGameCount(){
+        return gameCount;
+    }
+
+    /**
+     * Write the buffered bytes to the stream.
+     *
+     * @throws IOException When the stream can not be written
+     */
+    public synchronized void flush() throws IOException{
+        out.flush();
+    }
+
+    /**
+     * Write the buffered bytes and close the stream.
+     *
+     * @throws IOException When the stream can not be written
+     */
+    @Override
+    public synchronized void close() throws IOException{
+        out.close();
+    }
+
+    /**
+     * A helper function to write a number which is not negative as a varint.
+     *
+     * @param value the input number
+     * @throws IOException When the stream can not be written
+     */
+    private void writeVarint(long value) throws IOException{
+        while((value & ~0x7FL) != 0){
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
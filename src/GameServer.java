@@ -0,0 +1,566 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The GameServer class hosts many games at the same time on one network port. Every connection is one game with its
+ * own Model. One I/O thread serves all the connections with a java.nio Selector, and the searches of the AI player run
+ * on the compute threads of a SearchScheduler, so the I/O thread never waits for moveAI and deep searches can not
+ * starve the others. When the scheduler is full, the search is refused with BUSY instead of piling up. The protocol is
+ * one command per line:
+ * <ul>
+ *     <li>NEW [size]: start a new game, Player.X moves first; answers OK</li>
+ *     <li>CONFIG settings: set the engine configuration, for example "depth=2,radius=2"; answers OK</li>
+ *     <li>PRIORITY class: set the priority class of the searches, interactive by default; answers OK</li>
+ *     <li>MOVE row,column: play the side to move, then the AI player answers for the other side with "MOVE row,column"</li>
+ *     <li>GO: let the AI player play the side to move; answers "MOVE row,column"</li>
+ *     <li>STOP: stop the running search, which answers at once with the best move found so far</li>
+ *     <li>BOARD: answers the board in the notation of the BoardNotation class</li>
+ *     <li>QUIT: answers BYE and closes the connection</li>
+ * </ul>
+ * A move which ends the game is followed by "WIN X", "WIN O" or "DRAW". A command which can not be done is answered with
+ * "ERROR message". The search of a connection which is closed is stopped, so it does not keep a compute thread. The
+ * board size, the depth and the sizes of the table, the cache and the Monte Carlo tree are limited, so one client can
+ * not take the memory of the others, and a search is stopped after the time limit of a move, so it can not keep a
+ * compute thread forever; it then answers with the best move found so far.
+ */
+public class GameServer implements Closeable {
+    // The engine configuration of a new connection
+    private static final String DEFAULT_CONFIG = "depth=2,radius=2";
+    // The longest command accepted
+    private static final int MAX_LINE = 1024;
+    // The largest board of a game, so one client can not take the memory of the others
+    public static final int MAX_BOARD_SIZE = 64;
+    // The largest transposition table and evaluation cache of a game, in entries
+    public static final int MAX_TABLE_SIZE = 1 << 18;
+    // The largest Monte Carlo tree of a game, in nodes
+    public static final int MAX_TREE_SIZE = 1 << 15;
+    // The largest depth of the minimax algorithm of a game
+    public static final int MAX_DEPTH = 6;
+    // The time limit of one move of the AI player by default in milliseconds, counted from the command
+    public static final long DEFAULT_MOVE_TIME_LIMIT = 30000;
+
+    /**
+     * The state of one connection. Only the I/O thread reads and writes it, except the Model while a search runs.
+     */
+    private static class Session {
+        private SocketChannel channel;
+        private SelectionKey key;
+        // The command being read
+        private StringBuilder line = new StringBuilder();
+        // The answers not written yet
+        private ArrayDeque<ByteBuffer> output = new ArrayDeque<>();
+        private Model model;
+        private EngineConfig config;
+        private SearchScheduler.Priority priority;
+        // Whether a search of this game is queued or running; the Model belongs to the search until it ends
+        private boolean searching;
+        // The token which stops the search of this game
+        private SearchCancellation cancellation;
+        // Whether the game is won or drawn
+        private boolean over;
+        // Whether the connection is closed once the answers are written
+        private boolean closing;
+    }
+
+    private Selector selector;
+    private ServerSocketChannel server;
+    // The compute threads of the searches
+    private SearchScheduler scheduler;
+    // The work handed to the I/O thread by the compute threads
+    private ConcurrentLinkedQueue<Runnable> ioTasks;
+    private Thread ioThread;
+    private volatile boolean running;
+    // The number of open connections
+    private AtomicInteger sessionCount;
+    // The buffer of the reads, shared by all connections because only the I/O thread reads
+    private ByteBuffer readBuffer;
+    // The time limit of one move of the AI player in milliseconds
+    private long moveTimeLimit;
+    // The thread which stops the searches at their time limit
+    private ScheduledThreadPoolExecutor timeouts;
+
+    /**
+     * Constructor of the GameServer class with the time limit DEFAULT_MOVE_TIME_LIMIT of a move. The server starts to
+     * accept connections at once.
+     *
+     * @param port the port to listen on, 0 for any free port
+     * @param threads the number of compute threads
+     * @param queueCapacity the number of searches which can wait for a compute thread
+     * @throws IOException When the port can not be opened
+     * @throws IllegalArgumentException When the number of threads or the queue capacity is not positive
+     */
+    public GameServer(int port, int threads, int queueCapacity) throws IOException, IllegalArgumentException{
+        this(port, threads, queueCapacity, DEFAULT_MOVE_TIME_LIMIT);
+    }
+
+    /**
+     * Constructor of the GameServer class. The server starts to accept connections at once.
+     *
+     * @param port the port to listen on, 0 for any free port
+     * @param threads the number of compute threads
+     * @param queueCapacity the number of searches which can wait for a compute thread
+     * @param moveTimeLimit the time limit of one move of the AI player in milliseconds, whatever the configuration
+     * @throws IOException When the port can not be opened
+     * @throws IllegalArgumentException When the number of threads, the queue capacity or the time limit is not
+     *                                  positive
+     */
+    public GameServer(int port, int threads, int queueCapacity, long moveTimeLimit)
+            throws IOException, IllegalArgumentException{
+        if(threads <= 0 || queueCapacity <= 0){
+            throw new IllegalArgumentException("The number of threads and the queue capacity must be positive.");
+        }
+        if(moveTimeLimit <= 0){
+            throw new IllegalArgumentException("The time limit of a move must be positive.");
+        }
+        this.moveTimeLimit = moveTimeLimit;
+        timeouts = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "GameServer-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // A search which ends in time does not leave its timeout in the queue
+        timeouts.setRemoveOnCancelPolicy(true);
+        scheduler = new SearchScheduler(threads, threads + queueCapacity);
+        ioTasks = new ConcurrentLinkedQueue<>();
+        sessionCount = new AtomicInteger();
+        readBuffer = ByteBuffer.allocate(4096);
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        ioThread = new Thread(this::serve, "GameServer-io");
+        ioThread.start();
+    }
+
+    /**
+     * Get the port the server listens on.
+     *
+     * @return the port
+     * @throws IOException When the port can not be read
+     */
+    public int getPort() throws IOException{
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Get the number of open connections.
+     *
+     * @return the number of games hosted
+     */
+    public int getSessionCount(){
+        return sessionCount.get();
+    }
+
+    /**
+     * Get the scheduler of the searches, for its metrics.
+     *
+     * @return the scheduler
+     */
+    public SearchScheduler getScheduler(){
+        return scheduler;
+    }
+
+    /**
+     * Stop the server and close all connections. The running searches are not waited for.
+     *
+     * @throws IOException When the port can not be closed
+     */
+    @Override
+    public void close() throws IOException{
+        running = false;
+        selector.wakeup();
+        try{
+            ioThread.join();
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        scheduler.close();
+        timeouts.shutdownNow();
+        for(SelectionKey key : selector.keys()){
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    /**
+     * The loop of the I/O thread.
+     */
+    private void serve(){
+        try{
+            while(running){
+                selector.select();
+                Runnable task;
+                while((task = ioTasks.poll()) != null){
+                    task.run();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while(keys.hasNext()){
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try{
+                        if(!key.isValid()){
+                            continue;
+                        }
+                        if(key.isAcceptable()){
+                            accept();
+                            continue;
+                        }
+                        Session session = (Session) key.attachment();
+                        if(key.isReadable()){
+                            read(session);
+                        }
+                        if(key.isValid() && key.isWritable()){
+                            write(session);
+                        }
+                    } catch (IOException e){
+                        // One broken connection does not stop the others
+                        if(key.attachment() != null){
+                            disconnect((Session) key.attachment());
+                        }
+                    }
+                }
+            }
+        } catch (IOException e){
+            throw new IllegalStateException("The selector failed.", e);
+        }
+    }
+
+    /**
+     * A helper function to accept a new connection with a new game.
+     *
+     * @throws IOException When the connection can not be set up
+     */
+    private void accept() throws IOException{
+        SocketChannel channel = server.accept();
+        if(channel == null){
+            return;
+        }
+        channel.configureBlocking(false);
+        Session session = new Session();
+        session.channel = channel;
+        session.key = channel.register(selector, SelectionKey.OP_READ, session);
+        session.config = EngineConfig.parse(DEFAULT_CONFIG);
+        session.priority = SearchScheduler.Priority.INTERACTIVE;
+        newGame(session, 15);
+        sessionCount.incrementAndGet();
+    }
+
+    /**
+     * A helper function to read the available bytes of one connection and handle the complete commands.
+     *
+     * @param session the connection
+     * @throws IOException When the connection can not be read
+     */
+    private void read(Session session) throws IOException{
+        readBuffer.clear();
+        int count = session.channel.read(readBuffer);
+        if(count < 0){
+            disconnect(session);
+            return;
+        }
+        for(int i = 0; i < count && !session.closing; i++){
+            char c = (char) (readBuffer.get(i) & 0xFF);
+            if(c == '\n'){
+                handle(session, session.line.toString().trim());
+                session.line.setLength(0);
+            }
+            else if(session.line.length() < MAX_LINE){
+                session.line.append(c);
+            }
+            else{
+                send(session, "ERROR the command is too long");
+                session.closing = true;
+            }
+        }
+    }
+
+    /**
+     * A helper function to write the waiting answers of one connection.
+     *
+     * @param session the connection
+     * @throws IOException When the connection can not be written
+     */
+    private void write(Session session) throws IOException{
+        while(!session.output.isEmpty()){
+            ByteBuffer buffer = session.output.peek();
+            session.channel.write(buffer);
+            if(buffer.hasRemaining()){
+                return;
+            }
+            session.output.poll();
+        }
+        if(session.closing){
+            disconnect(session);
+        }
+        else{
+            session.key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * A helper function to queue one answer.
+     *
+     * @param session the connection
+     * @param text the answer without the line break
+     */
+    private void send(Session session, String text){
+        if(!session.key.isValid()){
+            return;
+        }
+        session.output.add(ByteBuffer.wrap((text + "\n").getBytes(StandardCharsets.US_ASCII)));
+        session.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * A helper function to close one connection.
+     *
+     * @param session the connection
+     */
+    private void disconnect(Session session){
+        if(session.searching){
+            session.cancellation.cancel();
+        }
+        if(session.key.isValid()){
+            session.key.cancel();
+            sessionCount.decrementAndGet();
+        }
+        try{
+            session.channel.close();
+        } catch (IOException e){
+            // The connection is gone anyway
+        }
+    }
+
+    /**
+     * A helper function to handle one command.
+     *
+     * @param session the connection
+     * @param command the command
+     */
+    private void handle(Session session, String command){
+        if(command.isEmpty()){
+            return;
+        }
+        int space = command.indexOf(' ');
+        String name = ((space >= 0) ? command.substring(0, space) : command).toUpperCase();
+        String argument = (space >= 0) ? command.substring(space + 1).trim() : "";
+        if(name.equals("QUIT")){
+            if(session.searching){
+                session.cancellation.cancel();
+            }
+            send(session, "BYE");
+            session.closing = true;
+            return;
+        }
+        if(name.equals("STOP")){
+            if(session.searching){
+                session.cancellation.cancel();
+            }
+            else{
+                send(session, "ERROR no search is running");
+            }
+            return;
+        }
+        if(session.searching){
+            send(session, "ERROR the AI player is still searching");
+            return;
+        }
+        try{
+            switch(name){
+                case "NEW":
+                    newGame(session, argument.isEmpty() ? 15 : Integer.parseInt(argument));
+                    send(session, "OK");
+                    break;
+                case "CONFIG":
+                    EngineConfig config = EngineConfig.parse(argument);
+                    if(config.getTable() > MAX_TABLE_SIZE || config.getEvalCache() > MAX_TABLE_SIZE){
+                        throw new IllegalArgumentException("the table and the cache can have at most "
+                                + MAX_TABLE_SIZE + " entries");
+                    }
+                    if(config.getEngine().equals("mcts") && config.getTree() == 0){
+                        // A session does not keep the default tree of a desktop game
+                        config.setTree(MAX_TREE_SIZE);
+                    }
+                    if(config.getTree() > MAX_TREE_SIZE){
+                        throw new IllegalArgumentException("the tree can have at most " + MAX_TREE_SIZE + " nodes");
+                    }
+                    if(config.getDepth() > MAX_DEPTH){
+                        throw new IllegalArgumentException("the depth can be at most " + MAX_DEPTH);
+                    }
+                    session.config = config;
+                    send(session, "OK");
+                    break;
+                case "PRIORITY":
+                    session.priority = SearchScheduler.Priority.valueOf(argument.toUpperCase());
+                    send(session, "OK");
+                    break;
+                case "MOVE":
+                    play(session, argument);
+                    break;
+                case "GO":
+                    search(session);
+                    break;
+                case "BOARD":
+                    Player toMove = (session.model.getTurn() == 1) ? Player.X : Player.O;
+                    send(session, BoardNotation.format(session.model.getCloneBoard(), toMove));
+                    break;
+                default:
+                    send(session, "ERROR unknown command " + name);
+            }
+        } catch (RuntimeException e){
+            // A command of one client must never stop the I/O thread of all the games
+            send(session, "ERROR " + e.getMessage());
+        }
+    }
+
+    /**
+     * A helper function to start a new game on one connection.
+     *
+     * @param session the connection
+     * @param boardSize the number of row or column in the board
+     * @throws IllegalArgumentException When the board size is less than 5 or more than MAX_BOARD_SIZE
+     */
+    private void newGame(Session session, int boardSize) throws IllegalArgumentException{
+        if(boardSize > MAX_BOARD_SIZE){
+            throw new IllegalArgumentException("the board size can be at most " + MAX_BOARD_SIZE);
+        }
+        session.model = new Model(boardSize);
+        session.model.setTurn(1);
+        session.over = false;
+    }
+
+    /**
+     * A helper function to play the move of the client, then start the search of the AI player.
+     *
+     * @param session the connection
+     * @param argument the move as row,column
+     * @throws IllegalArgumentException When the move is not valid
+     * @throws IndexOutOfBoundsException When the move is not on the board
+     */
+    private void play(Session session, String argument) throws IllegalArgumentException, IndexOutOfBoundsException{
+        if(session.over){
+            throw new IllegalArgumentException("the game is over");
+        }
+        String[] rowColumn = argument.split(",");
+        if(rowColumn.length != 2){
+            throw new IllegalArgumentException("expected row,column but got '" + argument + "'");
+        }
+        Position position = new Position(Integer.parseInt(rowColumn[0].trim()), Integer.parseInt(rowColumn[1].trim()));
+        Model model = session.model;
+        if(model.getStateOnPosition(position) != Player.EMPTY){
+            throw new IllegalArgumentException("the position is not empty");
+        }
+        model.placeChessOnPosition(position, (model.getTurn() == 1) ? Player.X : Player.O);
+        model.setStep(model.getStep() + 1);
+        String end = endOfGame(model);
+        if(end != null){
+            session.over = true;
+            send(session, end);
+            return;
+        }
+        model.setTurn((model.getTurn() == 1) ? 2 : 1);
+        search(session);
+    }
+
+    /**
+     * A helper function to hand the search of the AI player to the compute threads. The answer is sent by the I/O
+     * thread when the search ends.
+     *
+     * @param session the connection
+     */
+    private void search(Session session){
+        if(session.over){
+            send(session, "ERROR the game is over");
+            return;
+        }
+        Model model = session.model;
+        session.searching = true;
+        session.cancellation = new SearchCancellation();
+        try{
+            CompletableFuture<Position> future =
+                    scheduler.submit(model, session.config, session.priority, session.cancellation);
+            // Whatever the configuration, the search plays its best move so far at the time limit
+            ScheduledFuture<?> timeout =
+                    timeouts.schedule(session.cancellation::cancel, moveTimeLimit, TimeUnit.MILLISECONDS);
+            future.whenComplete((position, error) -> {
+                timeout.cancel(false);
+                String answer;
+                String end = null;
+                if(error == null){
+                    model.setStep(model.getStep() + 1);
+                    answer = "MOVE " + position.getRow() + "," + position.getColumn();
+                    end = endOfGame(model);
+                    model.setTurn((model.getTurn() == 1) ? 2 : 1);
+                } else{
+                    answer = "ERROR the search failed: " + error.getMessage();
+                }
+                String finalAnswer = answer;
+                String finalEnd = end;
+                ioTasks.add(() -> {
+                    session.searching = false;
+                    send(session, finalAnswer);
+                    if(finalEnd != null){
+                        session.over = true;
+                        send(session, finalEnd);
+                    }
+                });
+                selector.wakeup();
+            });
+        } catch (RejectedExecutionException e){
+            session.searching = false;
+            send(session, "BUSY");
+        }
+    }
+
+    /**
+     * A helper function to check whether the last move ended the game.
+     *
+     * @param model the game
+     * @return "WIN X", "WIN O" or "DRAW" if the game is over, otherwise null
+     */
+    private static String endOfGame(Model model){
+        Player winner = model.getWinner();
+        if(winner != Player.EMPTY){
+            return "WIN " + winner;
+        }
+        return model.checkEmpty() ? null : "DRAW";
+    }
+
+    /**
+     * Run a server from the command line until the process is stopped.
+     *
+     * @param args optionally the port, 7777 by default, the number of compute threads, all the cores by default, the
+     *             number of searches which can wait, 1024 by default, and the time limit of a move in milliseconds,
+     *             DEFAULT_MOVE_TIME_LIMIT by default
+     * @throws IOException When the port can not be opened
+     */
+    public static void main(String[] args) throws IOException{
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : 7777;
+        int threads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int queueCapacity = (args.length > 2) ? Integer.parseInt(args[2]) : 1024;
+        long moveTimeLimit = (args.length > 3) ? Long.parseLong(args[3]) : DEFAULT_MOVE_TIME_LIMIT;
+        GameServer gameServer = new GameServer(port, threads, queueCapacity, moveTimeLimit);
+        // Let JMX clients such as jconsole read the queue and search metrics
+        gameServer.getScheduler().register();
+        SearchMetrics.register();
+        System.out.println("Listening on port " + gameServer.getPort());
+    }
+}
@@ -0,0 +1,302 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+
+/**
+ * The GomocupEngine class plays the game through the Gomocup (Piskvork) engine protocol on the standard input and
+ * output, so the AI player can be run by gomoku tournament managers without the graphical user interface. It only
+ * uses the Model and never loads the AWT classes, which keeps the start fast. The supported commands are START, RESTART,
+ * BEGIN, TURN, BOARD, TAKEBACK, INFO, ABOUT and END. The coordinates of the protocol are "x,y", where x is the column
+ * and y is the row. The engine always plays Player.O on the Model and the opponent plays Player.X.
+ *
+ * <p>The time of one move is the smallest of the timeout_turn, a share of the time_left of the match and the
+ * configured time limit, minus a safety margin. The search deepens until that time is used, see Model.setTimeBudget.
+ */
+public class GomocupEngine {
+    // The time kept back from every move for reading and writing the commands, in milliseconds
+    private static final long SAFETY_MARGIN = 50;
+    // The number of moves the time_left of the match is shared by
+    private static final int MOVES_TO_GO = 20;
+
+    // The settings of the search
+    private EngineConfig config;
+    // The board, null before START
+    private Model model;
+    // The time limit of one move from INFO timeout_turn in milliseconds, 0 means as fast as possible
+    private long timeoutTurn;
+    // The time limit of the match from INFO timeout_match in milliseconds, 0 means no limit
+    private long timeoutMatch;
+    // The time left of the match from INFO time_left in milliseconds, -1 means not known
+    private long timeLeft;
+    // Where the answers are written
+    private PrintStream out;
+
+    /**
+     * Constructor of the GomocupEngine class. By default a move takes at most 5 seconds.
+     *
+     * @param config the settings of the search; its time, if not 0, is the largest time of one move
+     * @param out where the answers are written
+     */
+    public GomocupEngine(EngineConfig config, PrintStream out){
+        this.config = config;
+        this.out = out;
+        this.timeoutTurn = 5000;
+        this.timeoutMatch = 0;
+        this.timeLeft = -1;
+    }
+
+    /**
+     * Read and answer the commands until END or the end of the input.
+     *
+     * @param in the commands, one per line
+     * @throws IOException When the input can not be read
+     */
+    public void run(BufferedReader in) throws IOException{
+        String line;
+        while((line = in.readLine()) != null){
+            String text = line.trim();
+            if(text.isEmpty()){
+                continue;
+            }
+            int space = text.indexOf(' ');
+            String command = ((space >= 0) ? text.substring(0, space) : text).toUpperCase();
+            String argument = (space >= 0) ? text.substring(space + 1).trim() : "";
+            if(command.equals("END")){
+                return;
+            }
+            try{
+                if(command.equals("BOARD")){
+                    board(in);
+                }
+                else{
+                    handle(command, argument);
+                }
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | IllegalStateException e){
+                answer("ERROR " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A helper function to answer one command of one line.
+     *
+     * @param command the command in upper case
+     * @param argument the rest of the line
+     * @throws IllegalArgumentException When the argument is not valid
+     * @throws IllegalStateException When the game is not started
+     */
+    private void handle(String command, String argument) throws IllegalArgumentException, IllegalStateException{
+        switch(command){
+            case "START":
+                model = new Model(parseNumber(argument));
+                answer("OK");
+                break;
+            case "RESTART":
+                model = new Model(started().getBoardSize());
+                answer("OK");
+                break;
+            case "BEGIN":
+                move();
+                break;
+            case "TURN":
+                place(argument, Player.X);
+                move();
+                break;
+            case "TAKEBACK":
+                Position position = parsePosition(argument);
+                Model game = started();
+                if(game.getStateOnPosition(position) == Player.EMPTY){
+                    throw new IllegalArgumentException("There is no piece at " + argument + ".");
+                }
+                game.placeChessOnPosition(position, Player.EMPTY);
+                answer("OK");
+                break;
+            case "INFO":
+                info(argument);
+                break;
+            case "ABOUT":
+                answer("name=\"FiveInARowAIWithMinimax\", version=\"1.0\", author=\"Yuting Shao\"");
+                break;
+            default:
+                answer("UNKNOWN " + command);
+        }
+    }
+
+    /**
+     * A helper function to read the positions after BOARD until DONE, then move.
+     *
+     * @param in the commands
+     * @throws IOException When the input can not be read
+     * @throws IllegalArgumentException When a position is not valid
+     * @throws IllegalStateException When the game is not started
+     */
+    private void board(BufferedReader in) throws IOException, IllegalArgumentException, IllegalStateException{
+        Model board = new Model(started().getBoardSize());
+        String line;
+        while((line = in.readLine()) != null && !line.trim().equalsIgnoreCase("DONE")){
+            String[] fields = line.trim().split(",");
+            if(fields.length != 3){
+                throw new IllegalArgumentException("Expected x,y,field but got '" + line.trim() + "'.");
+            }
+            Position position = parsePosition(fields[0] + "," + fields[1]);
+            int field = parseNumber(fields[2]);
+            // 1 is a piece of this engine, 2 and 3 are pieces of the opponent
+            board.placeChessOnPosition(position, (field == 1) ? Player.O : Player.X);
+        }
+        model = board;
+        move();
+    }
+
+    /**
+     * A helper function to read one INFO key and value.
+     *
+     * @param argument the key and the value
+     */
+    private void info(String argument){
+        String[] keyValue = argument.split("\\s+", 2);
+        if(keyValue.length != 2){
+            return;
+        }
+        try{
+            switch(keyValue[0].toLowerCase()){
+                case "timeout_turn":
+                    timeoutTurn = Long.parseLong(keyValue[1]);
+                    break;
+                case "timeout_match":
+                    timeoutMatch = Long.parseLong(keyValue[1]);
+                    break;
+                case "time_left":
+                    timeLeft = Long.parseLong(keyValue[1]);
+                    break;
+                default:
+                    // The other keys do not change the search
+            }
+        } catch (NumberFormatException e){
+            // The protocol has no answer to INFO, a value which is not a number is ignored
+        }
+    }
+
+    /**
+     * A helper function to move the AI player and write the position of the move.
+     *
+     * @throws IllegalStateException When the game is not started or the board is full
+     */
+    private void move() throws IllegalStateException{
+        Model game = started();
+        if(!game.checkEmpty()){
+            throw new IllegalStateException("The board is full.");
+        }
+        config.applyTo(game);
+        game.setTimeBudget(getMoveTime());
+        game.setTurn(2);
+        game.moveAI();
+        Position position = game.getLastPosition();
+        answer(position.getColumn() + "," + position.getRow());
+    }
+
+    /**
+     * Get the time of the next move.
+     *
+     * @return the time limit of the next move in milliseconds, at least 1
+     */
+    public long getMoveTime(){
+        if(timeoutTurn == 0){
+            // Only the search of the depth 1
+            return 1;
+        }
+        long time = timeoutTurn;
+        if(timeoutMatch > 0 && timeLeft >= 0){
+            time = Math.min(time, timeLeft / MOVES_TO_GO);
+        }
+        if(config.getTime() > 0){
+            time = Math.min(time, config.getTime());
+        }
+        return Math.max(1, time - SAFETY_MARGIN);
+    }
+
+    /**
+     * A helper function to place a piece of the input player at the position of the protocol.
+     *
+     * @param argument the position as x,y
+     * @param player whose piece
+     * @throws IllegalArgumentException When the position is not valid or not empty
+     * @throws IllegalStateException When the game is not started
+     */
+    private void place(String argument, Player player) throws IllegalArgumentException, IllegalStateException{
+        Position position = parsePosition(argument);
+        Model game = started();
+        if(game.getStateOnPosition(position) != Player.EMPTY){
+            throw new IllegalArgumentException("The position " + argument + " is not empty.");
+        }
+        game.placeChessOnPosition(position, player);
+    }
+
+    /**
+     * A helper function to get the board of the started game.
+     *
+     * @return the board
+     * @throws IllegalStateException When the game is not started
+     */
+    private Model started() throws IllegalStateException{
+        if(model == null){
+            throw new IllegalStateException("The game is not started, send START first.");
+        }
+        return model;
+    }
+
+    /**
+     * A helper function to read a position of the protocol.
+     *
+     * @param text the position as x,y
+     * @return the position, whose row is y and column is x
+     * @throws IllegalArgumentException When the text is not two numbers
+     * @throws IndexOutOfBoundsException When the position is not on the board
+     */
+    private Position parsePosition(String text) throws IllegalArgumentException, IndexOutOfBoundsException{
+        String[] xy = text.split(",");
+        if(xy.length != 2){
+            throw new IllegalArgumentException("Expected x,y but got '" + text + "'.");
+        }
+        Position position = new Position(parseNumber(xy[1]), parseNumber(xy[0]));
+        // The Model checks that the position is on the board
+        started().getStateOnPosition(position);
+        return position;
+    }
+
+    /**
+     * A helper function to read a number.
+     *
+     * @param text the number
+     * @return the number
+     * @throws IllegalArgumentException When the text is not a number
+     */
+    private static int parseNumber(String text) throws IllegalArgumentException{
+        try{
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e){
+            throw new IllegalArgumentException("'" + text.trim() + "' is not a number.");
+        }
+    }
+
+    /**
+     * A helper function to write one answer at once.
+     *
+     * @param text the answer
+     */
+    private void answer(String text){
+        out.println(text);
+        out.flush();
+    }
+
+    /**
+     * Run the engine on the standard input and output.
+     *
+     * @param args optionally the engine configuration, for example "depth=20,radius=2"
+     * @throws IOException When the standard input can not be read
+     */
+    public static void main(String[] args) throws IOException{
+        EngineConfig config = EngineConfig.parse((args.length > 0) ? args[0] : "depth=20,radius=2");
+        new GomocupEngine(config, System.out).run(new BufferedReader(new InputStreamReader(System.in)));
+    }
+}
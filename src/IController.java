@@ -25,7 +25,7 @@ public interface IController {
      *
      * @param row The input row on the board
      * @param column The input column on the board
-     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and 14
+     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and boardSize - 1
      */
     void oneHumanStep(int row, int column) throws IndexOutOfBoundsException;
 
@@ -34,7 +34,7 @@ public interface IController {
      *
      * @param row The row index of the clicking position on the board
      * @param column The column index of the clicking position on the board
-     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and 14
+     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and boardSize - 1
      */
    void go(int row, int column)  throws IndexOutOfBoundsException;
 }
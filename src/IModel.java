@@ -54,6 +54,13 @@ public interface IModel {
      */
     int getH();
 
+    /**
+     * Get the candidate radius of the Model.
+     *
+     * @return the candidate radius of the Model, 0 means every empty position is tried
+     */
+    int getCandidateRadius();
+
     /**
      * Get the step of the Model.
      *
@@ -68,12 +75,20 @@ public interface IModel {
      */
     void setStep(int i);
 
+    /**
+     * Get the counts of the minimax algorithm. The counts are set to zero at the start of moveAI, and keep adding up
+     * when the minimax method is called directly.
+     *
+     * @return the search statistics of the Model
+     */
+    SearchStats getSearchStats();
+
     /**
      * Place a new piece on the input position.
      *
      * @param position where to place the new piece
      * @param player whose turn
-     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and 14
+     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and boardSize - 1
      */
     void placeChessOnPosition(Position position, Player player) throws IndexOutOfBoundsException;
 
@@ -82,7 +97,7 @@ public interface IModel {
      *
      * @param position the input position
      * @return the whose piece is on that position
-     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and 14
+     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and boardSize - 1
      */
     Player getStateOnPosition(Position position) throws IndexOutOfBoundsException;
 
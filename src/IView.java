@@ -70,6 +70,13 @@ public interface IView {
      */
     JFrame getJFrame();
 
+    /**
+     * Get the width and height of one position on the board in pixels.
+     *
+     * @return the cell size of the View
+     */
+    int getCellSize();
+
     /**
      * Get the cloneBoard of the View.
      *
@@ -110,7 +117,7 @@ public interface IView {
      * @param j the input column
      * @param player the input player
      * @param step the input step number
-     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and 14
+     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and boardSize - 1
      * @throws IllegalArgumentException When the player is Player.EMPTY or the step is not positive
      */
     void paintMark(int i, int j, Player player, int step) throws IndexOutOfBoundsException, IllegalArgumentException;
@@ -0,0 +1,214 @@
+import java.util.Arrays;
+
+/**
+ * The LongByteMap class is a hash map from long keys to non-zero byte values. It stores the keys and values in two
+ * primitive arrays with open addressing and linear probing, so it does not create one object per entry like
+ * java.util.HashMap. A value of 0 marks a free slot, which is why 0 can not be stored. Removing an entry shifts the
+ * following entries of the same probe sequence back, so no deleted markers are left in the table.
+ */
+public class LongByteMap {
+    // The keys of the slots
+    private long[] keys;
+    // The values of the slots, 0 means the slot is free
+    private byte[] values;
+    // The number of entries
+    private int size;
+    // capacity - 1, the capacity is always a power of two
+    private int mask;
+
+    /**
+     * Constructor of the LongByteMap class with room for 16 entries before it grows.
+     */
+    public LongByteMap(){
+        this(16);
+    }
+
+    /**
+     * Constructor of the LongByteMap class with room for the input number of entries before it grows.
+     *
+     * @param expectedSize the expected number of entries
+     */
+    public LongByteMap(int expectedSize){
+        int capacity = 4;
+        while(capacity < expectedSize * 2){
+            capacity *= 2;
+        }
+        keys = new long[capacity];
+        values = new byte[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Get the value of the input key.
+     *
+     * @param key the input key
+     * @return the value of the key, 0 if the key is not in the map
+     */
+    public byte get(long key){
+        int slot = hash(key) & mask;
+        while(values[slot] != 0){
+            if(keys[slot] == key){
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Put the input key and value into the map, replacing the old value of the key.
+     *
+     * @param key the input key
+     * @param value the input value
+     * @throws IllegalArgumentException When the value is 0
+     */
+    public void put(long key, byte value) throws IllegalArgumentException{
+        if(value == 0){
+            throw new IllegalArgumentException("The value 0 marks a free slot and can not be stored.");
+        }
+        int slot = hash(key) & mask;
+        while(values[slot] != 0){
+            if(keys[slot] == key){
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        // Keep the table at most half full, so the probe sequences stay short
+        if(size * 2 > keys.length){
+            grow();
+        }
+    }
+
+    /**
+     * Remove the input key from the map.
+     *
+     * @param key the input key
+     * @return the old value of the key, 0 if the key was not in the map
+     */
+    public byte remove(long key){
+        int slot = hash(key) & mask;
+        while(values[slot] != 0){
+            if(keys[slot] == key){
+                byte old = values[slot];
+                shiftBack(slot);
+                size--;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Remove all entries. The capacity stays the same.
+     */
+    public void clear(){
+        if(size > 0){
+            Arrays.fill(values, (byte) 0);
+            size = 0;
+        }
+    }
+
+    /**
+     * Get the number of entries.
+     *
+     * @return the number of entries
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Get the number of slots. The slots can be walked with keyAt and valueAt.
+     *
+     * @return the number of slots
+     */
+    public int capacity(){
+        return keys.length;
+    }
+
+    /**
+     * Get the key in the input slot. It is only meaningful if valueAt of the slot is not 0.
+     *
+     * @param slot the input slot
+     * @return the key in the slot
+     */
+    public long keyAt(int slot){
+        return keys[slot];
+    }
+
+    /**
+     * Get the value in the input slot.
+     *
+     * @param slot the input slot
+     * @return the value in the slot, 0 if the slot is free
+     */
+    public byte valueAt(int slot){
+        return values[slot];
+    }
+
+    /**
+     * A helper function to fill the free slot left by a removed entry with the entries after it that would not be
+     * found anymore.
+     *
+     * @param free the slot of the removed entry
+     */
+    private void shiftBack(int free){
+        int slot = free;
+        while(true){
+            slot = (slot + 1) & mask;
+            if(values[slot] == 0){
+                values[free] = 0;
+                return;
+            }
+            int home = hash(keys[slot]) & mask;
+            // Move the entry if its home slot is not between the free slot and its current slot
+            boolean between = (free <= slot) ? (free < home && home <= slot) : (free < home || home <= slot);
+            if(!between){
+                keys[free] = keys[slot];
+                values[free] = values[slot];
+                free = slot;
+            }
+        }
+    }
+
+    /**
+     * A helper function to double the capacity and put every entry again.
+     */
+    private void grow(){
+        long[] oldKeys = keys;
+        byte[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new byte[oldValues.length * 2];
+        mask = keys.length - 1;
+        for(int i = 0; i < oldKeys.length; i++){
+            if(oldValues[i] != 0){
+                int slot = hash(oldKeys[i]) & mask;
+                while(values[slot] != 0){
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * A helper function to mix the bits of the key, so keys that differ in a few bits land in different slots.
+     *
+     * @param key the input key
+     * @return the hash of the key
+     */
+    private static int hash(long key){
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,584 @@
+import java.util.Arrays;
+
+/**
+ * The MctsEngine class chooses the move of the AI player with a Monte Carlo tree search (UCT) instead of the minimax
+ * method. Every playout walks down the tree by the UCT formula, adds the children of the leaf once the leaf was
+ * visited, plays the rest of the game at random on the empty positions near the pieces, and counts the result on the
+ * path. The move played is the most visited move of the root. An immediate five is always played, and an immediate five
+ * of the opponent always blocked, without a search.
+ *
+ * <p>The tree lives in an arena of parallel arrays indexed by node, the children of a node side by side, so the search
+ * allocates nothing after its first move and a playout only works on a few primitive arrays. When the arena is full,
+ * the tree stops growing and the playouts go on from its leaves. The tree is kept from one move to the next: when the
+ * game went on with moves of the tree, the subtree of the new position is copied to the front of a second arena and
+ * the search goes on with its visits. The moves are the empty positions within the candidate radius of the Model, or
+ * next to a piece when the radius is 0; random games near the pieces look more like real games.
+ *
+ * <p>Unlike the minimax search, the depth of the Model is not used. The search stops after the node budget of the
+ * Model, one node per playout, after its time limit or when it is cancelled, and plays the best move so far; without a
+ * limit it plays DEFAULT_PLAYOUTS playouts. The random generator has a fixed seed, so with a node budget the moves are
+ * the same on every machine. An engine keeps the tree of one game, so it must only be used by one Model. Its two arenas
+ * take 40 bytes per node of capacity, about 5 MB with DEFAULT_CAPACITY, so an engine which plays small budgets
+ * is better built with a smaller capacity, see the key tree of EngineConfig.
+ */
+public class MctsEngine implements SearchEngine {
+    // The playouts of a move when the Model has neither a time limit nor a node budget
+    public static final int DEFAULT_PLAYOUTS = 20000;
+    // The number of nodes of an arena by default
+    public static final int DEFAULT_CAPACITY = 1 << 17;
+    // The exploration constant of the UCT formula
+    private static final double EXPLORATION = 1.4;
+    // The playouts between two looks at the clock and at the cancellation token
+    private static final int CHECK_INTERVAL = 64;
+    // The directions of the lines as {row step, column step}
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+    // The results of a playout besides the winner piece
+    private static final int NONE = 0;
+    private static final int DRAW = 3;
+
+    /**
+     * The nodes of a tree as parallel arrays. The root is the node 0.
+     */
+    private static class Arena {
+        // The move leading to each node as row * boardSize + column
+        private final int[] move;
+        // The first child and the number of children, -1 and 0 until the node is expanded
+        private final int[] firstChild;
+        private final int[] childCount;
+        // The number of playouts through each node
+        private final int[] visits;
+        // The results of those playouts for the player who made the move of the node: 1 per win, 0.5 per draw
+        private final float[] wins;
+
+        Arena(int capacity){
+            move = new int[capacity];
+            firstChild = new int[capacity];
+            childCount = new int[capacity];
+            visits = new int[capacity];
+            wins = new float[capacity];
+        }
+
+        /**
+         * Make a node a new leaf.
+         *
+         * @param node the node
+         * @param index the move of the node
+         */
+        void clear(int node, int index){
+            move[node] = index;
+            firstChild[node] = -1;
+            childCount[node] = 0;
+            visits[node] = 0;
+            wins[node] = 0;
+        }
+
+        /**
+         * Copy a node of another arena.
+         *
+         * @param node the node of this arena
+         * @param from the other arena
+         * @param source the node of the other arena
+         */
+        void copy(int node, Arena from, int source){
+            move[node] = from.move[source];
+            firstChild[node] = from.firstChild[source];
+            childCount[node] = from.childCount[source];
+            visits[node] = from.visits[source];
+            wins[node] = from.wins[source];
+        }
+    }
+
+    // The largest number of nodes of the tree
+    private final int capacity;
+    // The tree, and the arena the kept subtree is copied into; null before the first search
+    private Arena tree;
+    private Arena spare;
+    // The number of nodes of the tree
+    private int nodeCount;
+    // The number of row or column in the board of the tree
+    private int boardSize;
+    // The empty positions within this distance of a piece are the moves of the tree and of the playouts
+    private int radius;
+    // The moves of the game at the root of the tree, in the order played, and their number
+    private int[] rootMoves = new int[0];
+    private int rootMoveCount;
+    // The piece of the side to move at the root: 1 for Player.X and 2 for Player.O
+    private int rootPiece;
+    // The playouts of the root kept from the search of the last move
+    private int reusedVisits;
+    // The pieces of the root: 0 is empty, 1 is Player.X and 2 is Player.O
+    private byte[] rootBoard;
+    // The moves of the root
+    private int[] rootCandidates;
+    private int rootCandidateCount;
+    // The board of the running playout
+    private byte[] board;
+    // The moves of the running playout, and the playout which last added each position to them
+    private int[] candidates;
+    private int candidateCount;
+    private int[] added;
+    private int stamp;
+    // The nodes of the path of the running playout from the root
+    private int[] path;
+    // The longest path of the search
+    private int maxDepth;
+    // The state of the xorshift random generator
+    private long random = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Constructor of the MctsEngine class with an arena of DEFAULT_CAPACITY nodes.
+     */
+    public MctsEngine(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor of the MctsEngine class. The arenas are allocated at the first search.
+     *
+     * @param capacity the largest number of nodes of the tree
+     * @throws IllegalArgumentException When the capacity is less than 2
+     */
+    public MctsEngine(int capacity) throws IllegalArgumentException{
+        if(capacity < 2){
+            throw new IllegalArgumentException("The capacity of the tree must be at least 2.");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Get the largest number of nodes of the tree.
+     *
+     * @return the capacity of an arena
+     */
+    public int getCapacity(){
+        return capacity;
+    }
+
+    /**
+     * Get the number of nodes of the tree after the last search.
+     *
+     * @return the number of nodes
+     */
+    public int getNodeCount(){
+        return nodeCount;
+    }
+
+    /**
+     * Get the number of playouts of the root which the last search kept from the search of the move before.
+     *
+     * @return the number of kept playouts, 0 if the tree was not kept
+     */
+    public int getReusedVisits(){
+        return reusedVisits;
+    }
+
+    @Override
+    public Position chooseMove(Model game){
+        int size = game.getBoardSize();
+        Player mover = (game.getTurn() == 1) ? Player.X : Player.O;
+        Player opponent = (mover == Player.X) ? Player.O : Player.X;
+        Position forced = game.findFive(mover);
+        if(forced == null){
+            forced = game.findFive(opponent);
+        }
+        if(forced != null){
+            return forced;
+        }
+        prepare(game, (mover == Player.X) ? 1 : 2);
+        SearchStats stats = game.getSearchStats();
+        SearchCancellation cancellation = game.getCancellation();
+        long nodeBudget = game.getNodeBudget();
+        long timeBudget = game.getTimeBudget() * 1000000;
+        long playouts = (nodeBudget > 0) ? nodeBudget : (timeBudget > 0) ? Long.MAX_VALUE : DEFAULT_PLAYOUTS;
+        long start = System.nanoTime();
+        for(long n = 0; n < playouts; n++){
+            if(n % CHECK_INTERVAL == 0 && n > 0 && ((cancellation != null && cancellation.isCancelled())
+                    || (timeBudget > 0 && System.nanoTime() - start > timeBudget))){
+                break;
+            }
+            playout();
+            stats.countNode();
+        }
+        if(tree.childCount[0] == 0){
+            // The children of the root do not fit in the arena
+            int index = rootCandidates[0];
+            return new Position(index / size, index % size);
+        }
+        // The most visited move of the root, the first one on equal visits
+        int first = tree.firstChild[0];
+        int best = first;
+        for(int c = first + 1; c < first + tree.childCount[0]; c++){
+            if(tree.visits[c] > tree.visits[best]){
+                best = c;
+            }
+        }
+        stats.setDepthReached(maxDepth);
+        stats.setScore((tree.visits[best] == 0) ? 0.5 : tree.wins[best] / tree.visits[best]);
+        int index = tree.move[best];
+        return new Position(index / size, index % size);
+    }
+
+    /**
+     * A helper function to set up the search of the game: the arenas, the board and the moves of the root, and the
+     * tree, kept from the last search when the game went on with moves of the tree.
+     *
+     * @param game the game
+     * @param piece the piece of the side to move
+     */
+    private void prepare(Model game, int piece){
+        int size = game.getBoardSize();
+        int cellCount = size * size;
+        if(tree == null || size != boardSize){
+            boardSize = size;
+            tree = (tree == null) ? new Arena(capacity) : tree;
+            spare = (spare == null) ? new Arena(capacity) : spare;
+            rootBoard = new byte[cellCount];
+            board = new byte[cellCount];
+            rootCandidates = new int[cellCount];
+            candidates = new int[cellCount];
+            added = new int[cellCount];
+            path = new int[cellCount + 1];
+            nodeCount = 0;
+        }
+        radius = (game.getCandidateRadius() > 0) ? game.getCandidateRadius() : 1;
+        int moveCount = game.getMoveCount();
+        int root = keptRoot(game, piece);
+        if(root < 0){
+            tree.clear(0, -1);
+            nodeCount = 1;
+            reusedVisits = 0;
+        }
+        else{
+            compact(root);
+            reusedVisits = tree.visits[0];
+        }
+        if(rootMoves.length < moveCount){
+            rootMoves = new int[Math.max(moveCount, 2 * rootMoves.length)];
+        }
+        for(int k = 0; k < moveCount; k++){
+            rootMoves[k] = index(game.getMove(k));
+        }
+        rootMoveCount = moveCount;
+        rootPiece = piece;
+        // The board and the moves of the root
+        Player[][] cells = game.getCloneBoard();
+        for(int i = 0; i < size; i++){
+            for(int j = 0; j < size; j++){
+                rootBoard[i * size + j] = (byte)((cells[i][j] == Player.X) ? 1 : (cells[i][j] == Player.O) ? 2 : 0);
+            }
+        }
+        rootCandidateCount = 0;
+        for(int index = 0; index < cellCount; index++){
+            if(rootBoard[index] == 0 && (moveCount == 0 || isNearPiece(index))){
+                rootCandidates[rootCandidateCount++] = index;
+            }
+        }
+        if(rootCandidateCount == 0){
+            // Every position near the pieces is taken, but there are empty positions further away
+            for(int index = 0; index < cellCount; index++){
+                if(rootBoard[index] == 0){
+                    rootCandidates[rootCandidateCount++] = index;
+                }
+            }
+        }
+        maxDepth = 0;
+        if(tree.childCount[0] == 0){
+            resetPlayout();
+            expand(0);
+        }
+    }
+
+    /**
+     * A helper function to find the node of the kept tree for the position of the game.
+     *
+     * @param game the game
+     * @param piece the piece of the side to move
+     * @return the node, -1 if the tree does not lead to the position
+     */
+    private int keptRoot(Model game, int piece){
+        int moveCount = game.getMoveCount();
+        int played = moveCount - rootMoveCount;
+        // The side to move must change with every move played since
+        if(nodeCount == 0 || played < 0 || (played % 2 == 0) != (piece == rootPiece)){
+            return -1;
+        }
+        for(int k = 0; k < rootMoveCount; k++){
+            if(index(game.getMove(k)) != rootMoves[k]){
+                return -1;
+            }
+        }
+        int node = 0;
+        for(int k = rootMoveCount; k < moveCount; k++){
+            int index = index(game.getMove(k));
+            int child = -1;
+            for(int c = tree.firstChild[node]; c >= 0 && c < tree.firstChild[node] + tree.childCount[node]; c++){
+                if(tree.move[c] == index){
+                    child = c;
+                    break;
+                }
+            }
+            if(child < 0){
+                return -1;
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * A helper function to copy the subtree of a node to the front of the spare arena, breadth first, and make it the
+     * tree. The children of a node stay side by side.
+     *
+     * @param root the root of the subtree
+     */
+    private void compact(int root){
+        spare.copy(0, tree, root);
+        int count = 1;
+        for(int node = 0; node < count; node++){
+            // The first child still points into the old tree
+            int first = spare.firstChild[node];
+            int children = spare.childCount[node];
+            if(children > 0){
+                for(int c = 0; c < children; c++){
+                    spare.copy(count + c, tree, first + c);
+                }
+                spare.firstChild[node] = count;
+                count += children;
+            }
+        }
+        Arena old = tree;
+        tree = spare;
+        spare = old;
+        nodeCount = count;
+    }
+
+    /**
+     * A helper function to run one playout: down the tree, one expansion, the random rest of the game, and the
+     * result back up the path.
+     */
+    private void playout(){
+        resetPlayout();
+        int node = 0;
+        int depth = 0;
+        path[0] = 0;
+        int piece = rootPiece;
+        int result = NONE;
+        while(result == NONE){
+            if(tree.childCount[node] == 0){
+                // A leaf is expanded at its second visit, when there is room left
+                if(tree.visits[node] == 0 || !expand(node)){
+                    break;
+                }
+                node = tree.firstChild[node] + nextInt(tree.childCount[node]);
+            }
+            else{
+                node = select(node);
+            }
+            int index = tree.move[node];
+            board[index] = (byte)piece;
+            addNeighbors(index);
+            path[++depth] = node;
+            if(isFive(index, piece)){
+                result = piece;
+            }
+            piece = 3 - piece;
+        }
+        if(result == NONE){
+            result = randomGame(piece);
+        }
+        maxDepth = Math.max(maxDepth, depth);
+        for(int d = depth; d >= 0; d--){
+            int n = path[d];
+            tree.visits[n]++;
+            // The nodes at an odd depth are the moves of the side to move at the root
+            int owner = (d % 2 == 1) ? rootPiece : 3 - rootPiece;
+            if(result == owner){
+                tree.wins[n] += 1;
+            }
+            else if(result == DRAW){
+                tree.wins[n] += 0.5f;
+            }
+        }
+    }
+
+    /**
+     * A helper function to pick the child of a node with the best UCT value. A child never visited comes first.
+     *
+     * @param node the node
+     * @return the child
+     */
+    private int select(int node){
+        int first = tree.firstChild[node];
+        double logVisits = Math.log(tree.visits[node]);
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for(int c = first; c < first + tree.childCount[node]; c++){
+            int visits = tree.visits[c];
+            if(visits == 0){
+                return c;
+            }
+            double value = tree.wins[c] / visits + EXPLORATION * Math.sqrt(logVisits / visits);
+            if(value > bestValue){
+                bestValue = value;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * A helper function to add the children of a leaf: one per empty position among the moves of the playout.
+     *
+     * @param node the leaf
+     * @return true iif the leaf has children now, false when the game has no move left or the arena is full
+     */
+    private boolean expand(int node){
+        int children = 0;
+        for(int k = 0; k < candidateCount; k++){
+            if(board[candidates[k]] == 0){
+                children++;
+            }
+        }
+        if(children == 0 || nodeCount + children > capacity){
+            return false;
+        }
+        tree.firstChild[node] = nodeCount;
+        tree.childCount[node] = children;
+        for(int k = 0; k < candidateCount; k++){
+            if(board[candidates[k]] == 0){
+                tree.clear(nodeCount++, candidates[k]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A helper function to play the rest of the game at random on the moves of the playout.
+     *
+     * @param piece the piece of the side to move
+     * @return the piece of the winner, or DRAW when there is no move left
+     */
+    private int randomGame(int piece){
+        while(candidateCount > 0){
+            int k = nextInt(candidateCount);
+            int index = candidates[k];
+            candidates[k] = candidates[--candidateCount];
+            if(board[index] != 0){
+                continue;
+            }
+            board[index] = (byte)piece;
+            if(isFive(index, piece)){
+                return piece;
+            }
+            addNeighbors(index);
+            piece = 3 - piece;
+        }
+        return DRAW;
+    }
+
+    /**
+     * A helper function to start a playout from the board and the moves of the root.
+     */
+    private void resetPlayout(){
+        System.arraycopy(rootBoard, 0, board, 0, rootBoard.length);
+        if(++stamp == Integer.MAX_VALUE){
+            Arrays.fill(added, 0);
+            stamp = 1;
+        }
+        candidateCount = 0;
+        for(int k = 0; k < rootCandidateCount; k++){
+            int index = rootCandidates[k];
+            added[index] = stamp;
+            candidates[candidateCount++] = index;
+        }
+    }
+
+    /**
+     * A helper function to add the empty positions near a new piece to the moves of the playout.
+     *
+     * @param index the position of the piece as row * boardSize + column
+     */
+    private void addNeighbors(int index){
+        int row = index / boardSize;
+        int column = index % boardSize;
+        for(int r = Math.max(0, row - radius); r <= Math.min(boardSize - 1, row + radius); r++){
+            for(int c = Math.max(0, column - radius); c <= Math.min(boardSize - 1, column + radius); c++){
+                int neighbor = r * boardSize + c;
+                if(board[neighbor] == 0 && added[neighbor] != stamp){
+                    added[neighbor] = stamp;
+                    candidates[candidateCount++] = neighbor;
+                }
+            }
+        }
+    }
+
+    /**
+     * A helper function to check whether a position of the root board has a piece within the radius.
+     *
+     * @param index the position as row * boardSize + column
+     * @return true iif a piece is near
+     */
+    private boolean isNearPiece(int index){
+        int row = index / boardSize;
+        int column = index % boardSize;
+        for(int r = Math.max(0, row - radius); r <= Math.min(boardSize - 1, row + radius); r++){
+            for(int c = Math.max(0, column - radius); c <= Math.min(boardSize - 1, column + radius); c++){
+                if(rootBoard[r * boardSize + c] != 0){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A helper function to check whether a new piece makes five in a row on the board of the playout.
+     *
+     * @param index the position of the piece as row * boardSize + column
+     * @param piece the piece
+     * @return true iif there are five or more in a row through the piece
+     */
+    private boolean isFive(int index, int piece){
+        int row = index / boardSize;
+        int column = index % boardSize;
+        for(int[] direction : DIRECTIONS){
+            int length = 1;
+            for(int sign = -1; sign <= 1; sign += 2){
+                int r = row + sign * direction[0];
+                int c = column + sign * direction[1];
+                while(r >= 0 && r < boardSize && c >= 0 && c < boardSize && board[r * boardSize + c] == piece){
+                    length++;
+                    r += sign * direction[0];
+                    c += sign * direction[1];
+                }
+            }
+            if(length >= 5){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A helper function to get the next random number of the xorshift generator.
+     *
+     * @param bound the upper bound, positive
+     * @return a number from 0 to bound - 1
+     */
+    private int nextInt(int bound){
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        return (int)((random >>> 33) % bound);
+    }
+
+    /**
+     * A helper function to get the position of a move as row * boardSize + column.
+     *
+     * @param position the position
+     * @return the index of the position
+     */
+    private int index(Position position){
+        return position.getRow() * boardSize + position.getColumn();
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * The MinimaxEngine class is the minimax search of the Model with alpha-beta pruning, behind the SearchEngine
+ * interface. It keeps nothing itself, the settings and the tables of the search belong to the Model, so one instance
+ * serves every Model.
+ */
+public class MinimaxEngine implements SearchEngine {
+    // The shared instance
+    private static final MinimaxEngine INSTANCE = new MinimaxEngine();
+
+    /**
+     * Constructor of the MinimaxEngine class. Use getInstance instead.
+     */
+    private MinimaxEngine(){
+    }
+
+    /**
+     * Get the shared instance.
+     *
+     * @return the minimax engine
+     */
+    public static MinimaxEngine getInstance(){
+        return INSTANCE;
+    }
+
+    @Override
+    public Position chooseMove(Model game){
+        return game.chooseMinimaxMove();
+    }
+}
@@ -1,12 +1,44 @@
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
+
 /**
- * The Model class is the model of the Five In A Row game. It represents the board of the game using a two dimensional
- * array. It provides the minimax algorithm alpha-beta pruning supporting the AI player to find the best move given a
- * board state. It provides the method to check if the game is over and return who is the winner. It provides the evaluate
- * method to get the score of one board state, which is used in the minimax algorithm while it reaches the leaf node.
+ * The Model class is the model of the Five In A Row game. It represents the board of the game compactly, with two
+ * bits per position packed in an array of long, and keeps the list of the pieces in the order they were placed. The
+ * two dimensional board the minimax method works on is borrowed from a shared pool only while a search runs, see
+ * SearchScratch, so an idle game takes a few hundred bytes. It provides the minimax algorithm alpha-beta pruning
+ * supporting the AI player to find the best move given a board state. It provides the method to check if the game is
+ * over and return who is the winner. It provides the evaluate method to get the score of one board state, which is used
+ * in the minimax algorithm while it reaches the leaf node.
  */
 public class Model implements IModel{
-    // Represent the board using a 2D array
-    private Player[][] board;
+    // The players of the values of the cells
+    private static final Player[] PLAYERS = {Player.EMPTY, Player.X, Player.O};
+    // The directions of the lines as {row step, column step}, used to score the moves of the beam
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+    // The number of cells packed in one long
+    private static final int CELLS_PER_LONG = 32;
+    // The first bytes of a snapshot, "FIAS"
+    private static final int SNAPSHOT_MAGIC = 0x46494153;
+    // The version of the snapshot layout; 2 added the node budget
+    private static final byte SNAPSHOT_VERSION = 2;
+    // The bytes of a snapshot before the list of the pieces and the packed board
+    private static final int SNAPSHOT_HEADER = 47;
+    // The largest board of a snapshot; a larger size is taken as a corrupt snapshot
+    private static final int MAX_SNAPSHOT_BOARD_SIZE = 1024;
+
+    // Represent the board with two bits per position, row by row: 0 is empty, 1 is Player.X and 2 is Player.O
+    private long[] cells;
+    // The positions of the pieces on the board as row * boardSize + column, in the order they were placed
+    private int[] moves;
+    // The number of pieces on the board
+    private int moveCount;
     // The number of row or column in the board
     private int boardSize;
     // turn = 0 means the game is not started yet; turn = 1 means this is Player.X turn; turn = 2 means this is Player.O turn
@@ -14,24 +46,95 @@ public class Model implements IModel{
     // mode = 0 means it is the human vs human mode; mode = 1 means it is the human vs AI mode; mode = 2 means it is
     // the AI vs AI mode.
     private int mode;
-    // Record the newest added piece on the board
-    private Position lastPosition;
+    // Record the newest added piece on the board as row * boardSize + column, -1 means none
+    private int lastMove;
     // The depth of the minimax algorithm
     private int h;
     // The current step number of the game
     private int step;
+    // The counts of the last search of the minimax algorithm, created at the first search
+    private SearchStats searchStats;
+    // The minimax algorithm only tries the empty positions within this distance of a piece; 0 means every empty
+    // position is tried
+    private int candidateRadius;
+    // The time limit of one AI move in milliseconds; 0 means the search always goes to the depth h
+    private long timeBudget;
+    // The largest number of nodes of one AI move; 0 means the search always goes to the depth h
+    private long nodeBudget;
+    // The token which stops the searches from another thread, null if they can not be cancelled
+    private SearchCancellation cancellation;
+    // The engine choosing the AI moves
+    private SearchEngine engine = MinimaxEngine.getInstance();
+    // The board, the deadline and the node limit of the running search, null when no search runs
+    private SearchScratch scratch;
+    // The results of the searched boards, null means the search does not use a transposition table
+    private TranspositionTable table;
+    // The scores of the evaluated leaf boards, kept from one move to the next; null means no cache
+    private EvaluationCache evaluationCache;
+    // The threats of the board, created when they are first asked for and then updated with each piece
+    private ThreatIndex threats;
+    // The empty positions completing a five, as bit sets indexed by player (0 for X, 1 for O); created when a five is
+    // first looked for and then updated with each piece, null before
+    private long[][] fives;
+    // forcedMoveLevel = 0 means every candidate is searched; 1 means only the moves completing or blocking a five are
+    // searched when there is one; 2 means also only the moves blocking an open four or making a four are searched
+    // when the opponent can make an open four
+    private int forcedMoveLevel;
+    // The largest number of plies the quiescence search adds after the depth of the minimax search, 0 means off
+    private int quiescenceDepth;
+    // The number of moves of a node searched at the full depth before the later quiet moves are searched one ply
+    // less, 0 means the late move reductions are off
+    private int lateMoveReduction;
+    // The number of plies the null move search is reduced by, 0 means the null move pruning is off
+    private int nullMoveReduction;
+    // The number of moves searched at each ply of the beam search, the last one for all deeper plies; null means every
+    // candidate is searched
+    private int[] beamWidths;
+    // Whether the moves of a node are given by a staged MoveGenerator instead of in the order of the rows
+    private boolean stagedMoves;
+    // Whether the transposition table, the history of the cutoffs and the expected line are kept from one move of the
+    // game to the next
+    private boolean searchReuse;
+    // The cutoffs of the earlier searches, weighted by the square of the depth, indexed by side (0 for Player.X and 1
+    // for Player.O) * boardSize * boardSize + position; null when the reuse is off
+    private int[] history;
+    // The principal variation of the last search of each side (0 for Player.X and 1 for Player.O) as row * boardSize +
+    // column, starting with the move played; null if there is none. One Model can search both sides of a game, so each
+    // side keeps its own line
+    private int[][] expectedLines = new int[2][];
+    // The move the root of the search tries first when the table has none, -1 if there is none
+    private int rootSeed = -1;
+    // Whether the root of a search of the current move tried the seed first
+    private boolean rootSeedTried;
+    // Whether the running search is below a null move, where no other null move is tried
+    private boolean belowNullMove;
+    // The threats of the board of the running minimax search, null when the forced moves, the quiescence search and
+    // the pruning are off
+    private ThreatIndex nodeThreats;
 
     /**
-     * Constructor of the Model class. It will initialize the fields of the Model class.
+     * Constructor of the Model class with the standard 15x15 board. It will initialize the fields of the Model class.
      */
     public Model(){
-        boardSize = 15;
-        board = new Player[boardSize][boardSize];
-        for(int i = 0; i < boardSize; i++){
-            for(int j = 0; j < boardSize; j++){
-                board[i][j] = Player.EMPTY;
-            }
+        this(15);
+    }
+
+    /**
+     * Constructor of the Model class with the input board size. It will initialize the fields of the Model class.
+     *
+     * @param boardSize the number of row or column in the board
+     * @throws IllegalArgumentException When the board size is less than 5
+     */
+    public Model(int boardSize) throws IllegalArgumentException{
+        if(boardSize < 5){
+            throw new IllegalArgumentException("The board size must be at least 5.");
         }
+        this.boardSize = boardSize;
+        // Every cell is empty
+        cells = new long[(boardSize * boardSize + CELLS_PER_LONG - 1) / CELLS_PER_LONG];
+        moves = new int[4];
+        moveCount = 0;
+        lastMove = -1;
         // Game not start yet
         turn = 0;
         // Default mode: human vs human
@@ -40,6 +143,12 @@ public class Model implements IModel{
         h = 3;
         // Initial step
         step = 0;
+        // Try every empty position
+        candidateRadius = 0;
+        // No time limit
+        timeBudget = 0;
+        // No node budget
+        nodeBudget = 0;
     }
 
     /**
@@ -79,7 +188,34 @@ public class Model implements IModel{
      */
     @Override
     public Position getLastPosition(){
-        return lastPosition;
+        if(lastMove < 0){
+            return null;
+        }
+        return new Position(lastMove / boardSize, lastMove % boardSize);
+    }
+
+    /**
+     * Get the number of pieces on the board.
+     *
+     * @return the number of pieces on the board
+     */
+    public int getMoveCount(){
+        return moveCount;
+    }
+
+    /**
+     * Get the position of one piece on the board in the order the pieces were placed. A piece which was removed is not
+     * in the list anymore.
+     *
+     * @param index the index of the piece, 0 is the oldest piece
+     * @return the position of the piece
+     * @throws IndexOutOfBoundsException When the index is not between 0 and getMoveCount() - 1
+     */
+    public Position getMove(int index) throws IndexOutOfBoundsException{
+        if(index < 0 || index >= moveCount){
+            throw new IndexOutOfBoundsException("Index of move must between 0 and " + (moveCount - 1) + ".");
+        }
+        return new Position(moves[index] / boardSize, moves[index] % boardSize);
     }
 
     /**
@@ -116,6 +252,415 @@ public class Model implements IModel{
         return h;
     }
 
+    /**
+     * Set the candidate radius of the Model. The minimax algorithm only tries the empty positions within this
+     * distance of a piece, which keeps the number of moves at each node independent of the board size.
+     *
+     * @param i the input radius, 0 means every empty position is tried
+     * @throws IllegalArgumentException When the radius is negative
+     */
+    public void setCandidateRadius(int i) throws IllegalArgumentException{
+        if(i < 0){
+            throw new IllegalArgumentException("The candidate radius can not be negative.");
+        }
+        candidateRadius = i;
+    }
+
+    /**
+     * Get the candidate radius of the Model.
+     *
+     * @return the candidate radius of the Model, 0 means every empty position is tried
+     */
+    @Override
+    public int getCandidateRadius(){
+        return candidateRadius;
+    }
+
+    /**
+     * Set the time limit of one AI move. With a time limit, moveAI searches the depths 1, 2, ... up to the depth h and
+     * plays the best move of the deepest search which is completed in time. The search of the depth 1 is always
+     * completed.
+     *
+     * @param millis the time limit in milliseconds, 0 means the search always goes to the depth h
+     * @throws IllegalArgumentException When the time limit is negative
+     */
+    public void setTimeBudget(long millis) throws IllegalArgumentException{
+        if(millis < 0){
+            throw new IllegalArgumentException("The time limit can not be negative.");
+        }
+        timeBudget = millis;
+    }
+
+    /**
+     * Get the time limit of one AI move.
+     *
+     * @return the time limit in milliseconds, 0 means the search always goes to the depth h
+     */
+    public long getTimeBudget(){
+        return timeBudget;
+    }
+
+    /**
+     * Set the largest number of nodes of one AI move. With a node budget, moveAI searches the depths 1, 2, ... up to
+     * the depth h and plays the best move of the deepest search which is completed within the budget, counting the
+     * nodes of all the depths. The search of the depth 1 is always completed. Unlike the time limit, the move only
+     * depends on the board and the settings, so it is the same on every machine; the budget also bounds the work of one
+     * move. When both limits are set, the search stops at the first one reached.
+     *
+     * @param nodes the largest number of nodes, 0 means the search always goes to the depth h
+     * @throws IllegalArgumentException When the number of nodes is negative
+     */
+    public void setNodeBudget(long nodes) throws IllegalArgumentException{
+        if(nodes < 0){
+            throw new IllegalArgumentException("The node budget can not be negative.");
+        }
+        nodeBudget = nodes;
+    }
+
+    /**
+     * Get the largest number of nodes of one AI move.
+     *
+     * @return the largest number of nodes, 0 means the search always goes to the depth h
+     */
+    public long getNodeBudget(){
+        return nodeBudget;
+    }
+
+    /**
+     * Set the token which stops the searches of this Model from another thread. A cancelled search ends within 256
+     * nodes: moveAI then plays the best move of the deepest completed depth, or at the depth being searched the best
+     * of the moves of the root searched to the end, or the move the root tried first. The results of the unfinished
+     * nodes are not stored in the transposition table nor in the history.
+     *
+     * @param cancellation the token, null if the searches can not be cancelled
+     */
+    public void setCancellation(SearchCancellation cancellation){
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Get the token which stops the searches of this Model.
+     *
+     * @return the token, null if the searches can not be cancelled
+     */
+    public SearchCancellation getCancellation(){
+        return cancellation;
+    }
+
+    /**
+     * Set the engine which chooses the moves of moveAI. An engine which keeps its search from one move to the next
+     * must only be used by one Model.
+     *
+     * @param engine the engine, null for the minimax search of the Model
+     */
+    public void setEngine(SearchEngine engine){
+        this.engine = (engine == null) ? MinimaxEngine.getInstance() : engine;
+    }
+
+    /**
+     * Get the engine which chooses the moves of moveAI.
+     *
+     * @return the engine, a MinimaxEngine by default
+     */
+    public SearchEngine getEngine(){
+        return engine;
+    }
+
+    /**
+     * A helper function to check whether the token of this Model is cancelled.
+     *
+     * @return true iif there is a token and it is cancelled
+     */
+    private boolean isCancelled(){
+        return cancellation != null && cancellation.isCancelled();
+    }
+
+    /**
+     * Set the size of the transposition table of the minimax algorithm. The table is kept while the size does not
+     * change, and it is cleared at the start of moveAI.
+     *
+     * @param entries the number of entries, rounded up to a power of two; 0 means the search does not use a table
+     * @throws IllegalArgumentException When the number of entries is negative or larger than 2^30
+     */
+    public void setTableSize(int entries) throws IllegalArgumentException{
+        if(entries == 0){
+            table = null;
+        }
+        else if(table == null || entries > table.size() || entries <= table.size() / 2){
+            table = new TranspositionTable(entries);
+        }
+    }
+
+    /**
+     * Get the size of the transposition table of the minimax algorithm.
+     *
+     * @return the number of entries, 0 means the search does not use a table
+     */
+    public int getTableSize(){
+        return (table == null) ? 0 : table.size();
+    }
+
+    /**
+     * Set the size of the evaluation cache of the leaf nodes. The cache is kept while the size does not change, also
+     * from one move to the next, because the score of a board never changes.
+     *
+     * @param entries the number of entries, rounded up to a power of two; 0 means the leaf boards are always evaluated
+     * @throws IllegalArgumentException When the number of entries is negative or larger than 2^30
+     */
+    public void setEvaluationCacheSize(int entries) throws IllegalArgumentException{
+        if(entries == 0){
+            evaluationCache = null;
+        }
+        else if(evaluationCache == null || entries > evaluationCache.size() || entries <= evaluationCache.size() / 2){
+            evaluationCache = new EvaluationCache(entries);
+        }
+    }
+
+    /**
+     * Get the size of the evaluation cache of the leaf nodes.
+     *
+     * @return the number of entries, 0 means the leaf boards are always evaluated
+     */
+    public int getEvaluationCacheSize(){
+        return (evaluationCache == null) ? 0 : evaluationCache.size();
+    }
+
+    /**
+     * Set which forced situations restrict the moves searched by the minimax algorithm. When the side to move can
+     * complete a five, only those moves are searched; when the opponent can, only the blocking moves are. At level 2,
+     * when the opponent can make an open four, only the moves which stop it or make a four are searched; this level
+     * can miss a defense further away, so it trades some accuracy for speed.
+     *
+     * @param level 0 for off, 1 for the fives, 2 for the fives and the open fours
+     * @throws IllegalArgumentException When the level is not 0, 1 or 2
+     */
+    public void setForcedMoveLevel(int level) throws IllegalArgumentException{
+        if(level < 0 || level > 2){
+            throw new IllegalArgumentException("The forced move level must be 0, 1 or 2.");
+        }
+        forcedMoveLevel = level;
+    }
+
+    /**
+     * Get which forced situations restrict the moves searched by the minimax algorithm.
+     *
+     * @return 0 for off, 1 for the fives, 2 for the fives and the open fours
+     */
+    public int getForcedMoveLevel(){
+        return forcedMoveLevel;
+    }
+
+    /**
+     * Set the largest number of plies the quiescence search adds after the depth of the minimax search. Instead of
+     * evaluating the board at once, the quiescence search goes on with the moves which make a four, and the blocks of
+     * the fours they make, until the board is quiet or the plies are used. The side to move can always stop and take
+     * the evaluation of the board, unless it must block a five.
+     *
+     * @param plies the largest number of added plies, 0 for off
+     * @throws IllegalArgumentException When the number is negative
+     */
+    public void setQuiescenceDepth(int plies) throws IllegalArgumentException{
+        if(plies < 0){
+            throw new IllegalArgumentException("The quiescence depth can not be negative.");
+        }
+        quiescenceDepth = plies;
+    }
+
+    /**
+     * Get the largest number of plies the quiescence search adds after the depth of the minimax search.
+     *
+     * @return the largest number of added plies, 0 for off
+     */
+    public int getQuiescenceDepth(){
+        return quiescenceDepth;
+    }
+
+    /**
+     * Set the late move reductions of the minimax search. At a depth of 3 or more, the moves of a node after the
+     * first ones are searched one ply less, unless they make or stop a four or come from the transposition table. A
+     * reduced move which scores better than the best move so far is searched again at the full depth.
+     *
+     * @param moves the number of moves of a node searched at the full depth, 0 for off
+     * @throws IllegalArgumentException When the number is negative
+     */
+    public void setLateMoveReduction(int moves) throws IllegalArgumentException{
+        if(moves < 0){
+            throw new IllegalArgumentException("The number of moves before the reductions can not be negative.");
+        }
+        lateMoveReduction = moves;
+    }
+
+    /**
+     * Get the number of moves of a node searched at the full depth before the late move reductions.
+     *
+     * @return the number of moves, 0 for off
+     */
+    public int getLateMoveReduction(){
+        return lateMoveReduction;
+    }
+
+    /**
+     * Set the null move pruning of the minimax search. Below the root, when nobody threatens a four, the side to move
+     * passes and the opponent searches that many plies less than a normal move. If the opponent still can not reach
+     * the bound of the side to move, a verification search of the node, also reduced, checks it before the node is
+     * cut off, which keeps most of the tactics a pass would hide.
+     *
+     * @param plies the reduction of the null move search, 0 for off
+     * @throws IllegalArgumentException When the number is negative
+     */
+    public void setNullMoveReduction(int plies) throws IllegalArgumentException{
+        if(plies < 0){
+            throw new IllegalArgumentException("The null move reduction can not be negative.");
+        }
+        nullMoveReduction = plies;
+    }
+
+    /**
+     * Get the reduction of the null move search.
+     *
+     * @return the number of plies, 0 for off
+     */
+    public int getNullMoveReduction(){
+        return nullMoveReduction;
+    }
+
+    /**
+     * Set the beam of the minimax search. At each ply the candidate moves are scored by the lines they make and block,
+     * and only the best ones are searched, best first. This bounds the nodes of a search of depth d by the product of
+     * the first d widths, whatever the board.
+     *
+     * @param widths the number of moves searched at the root, at the next ply and so on; the last one is used for all
+     *               deeper plies; null or empty for off
+     * @throws IllegalArgumentException When a width is not positive
+     */
+    public void setBeamWidths(int[] widths) throws IllegalArgumentException{
+        if(widths == null || widths.length == 0){
+            beamWidths = null;
+            return;
+        }
+        for(int width : widths){
+            if(width <= 0){
+                throw new IllegalArgumentException("The beam widths must be positive.");
+            }
+        }
+        beamWidths = widths.clone();
+    }
+
+    /**
+     * Get the beam of the minimax search.
+     *
+     * @return the number of moves searched at each ply, empty if the beam is off
+     */
+    public int[] getBeamWidths(){
+        return (beamWidths == null) ? new int[0] : beamWidths.clone();
+    }
+
+    /**
+     * Set whether the moves of a node are given by a staged MoveGenerator: the move from the transposition table, the
+     * threats, the killer moves and then the other moves best scored first, each stage computed only when it is
+     * reached. It is not used at the nodes of the beam, which are already sorted.
+     *
+     * @param staged true to give the moves in stages, false for the order of the rows
+     */
+    public void setStagedMoves(boolean staged){
+        stagedMoves = staged;
+    }
+
+    /**
+     * Check whether the moves of a node are given by a staged MoveGenerator.
+     *
+     * @return true iif the moves are given in stages
+     */
+    public boolean isStagedMoves(){
+        return stagedMoves;
+    }
+
+    /**
+     * Set whether the searches of the moves of a game build on each other. With the reuse, the transposition table is
+     * kept from one move to the next and its older entries are replaced first, the cutoffs of the earlier searches
+     * order the moves of the staged search, and when the opponent answered with the reply the last search expected,
+     * the next move of that line is tried first. The reuse is only useful with a transposition table.
+     *
+     * @param reuse true to keep the results of the earlier moves, false to start every search from nothing
+     */
+    public void setSearchReuse(boolean reuse){
+        searchReuse = reuse;
+        if(!reuse){
+            history = null;
+            expectedLines[0] = null;
+            expectedLines[1] = null;
+            rootSeed = -1;
+        }
+    }
+
+    /**
+     * Check whether the searches of the moves of a game build on each other.
+     *
+     * @return true iif the results of the earlier moves are kept
+     */
+    public boolean isSearchReuse(){
+        return searchReuse;
+    }
+
+    /**
+     * Get the move the last search of the side to move expected next, because the opponent answered with the reply
+     * that search expected. The root tries it first when the table has no move.
+     *
+     * @return the move as row * boardSize + column, -1 if there was none
+     */
+    public int getRootSeed(){
+        return rootSeed;
+    }
+
+    /**
+     * Check whether the root of a search of the current move tried the seed first.
+     *
+     * @return true iif the seed was tried first at least once
+     */
+    public boolean isRootSeedTried(){
+        return rootSeedTried;
+    }
+
+    /**
+     * Prepare the search of a new move of the game. Without the reuse, the transposition table is cleared. With it,
+     * the table starts a new age, the history of the cutoffs of the side to move counts half, and the move the last
+     * search of the side to move expected after the last two moves is tried first at the root.
+     */
+    public void startMove(){
+        rootSeed = -1;
+        rootSeedTried = false;
+        if(!searchReuse){
+            clearTable();
+            return;
+        }
+        if(table != null){
+            table.newSearch();
+        }
+        int cellCount = boardSize * boardSize;
+        if(history == null){
+            history = new int[2 * cellCount];
+        }
+        int side = (getTurn() == 2) ? 1 : 0;
+        for(int k = side * cellCount; k < (side + 1) * cellCount; k++){
+            history[k] >>= 1;
+        }
+        int[] expectedLine = expectedLines[side];
+        if(expectedLine != null && expectedLine.length >= 3 && moveCount >= 2
+                && moves[moveCount - 2] == expectedLine[0] && moves[moveCount - 1] == expectedLine[1]){
+            rootSeed = expectedLine[2];
+        }
+        expectedLines[side] = null;
+    }
+
+    /**
+     * Remove every board from the transposition table, so the next search starts from nothing.
+     */
+    public void clearTable(){
+        if(table != null){
+            table.clear();
+        }
+    }
+
     /**
      * Get the step of the Model.
      *
@@ -137,22 +682,94 @@ public class Model implements IModel{
     }
 
     /**
-     * Place a new piece on the input position.
+     * Get the counts of the minimax algorithm. The counts are set to zero at the start of moveAI, and keep adding up
+     * when the minimax method is called directly.
+     *
+     * @return the search statistics of the Model
+     */
+    @Override
+    public SearchStats getSearchStats(){
+        if(searchStats == null){
+            searchStats = new SearchStats();
+        }
+        return searchStats;
+    }
+
+    /**
+     * Place a new piece on the input position. With Player.EMPTY the piece is removed, and if it was the last piece,
+     * the piece placed before it becomes the last position.
      *
      * @param position where to place the new piece
      * @param player whose turn
-     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and 14
+     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and boardSize - 1
      */
     @Override
     public void placeChessOnPosition(Position position, Player player) throws IndexOutOfBoundsException{
-        if(position.getRow() < 0 || position.getRow() > 14){
-            throw new IndexOutOfBoundsException("Index of row must between 0 and 14.");
+        if(position.getRow() < 0 || position.getRow() >= boardSize){
+            throw new IndexOutOfBoundsException("Index of row must between 0 and " + (boardSize - 1) + ".");
+        }
+        if(position.getColumn() < 0 || position.getColumn() >= boardSize){
+            throw new IndexOutOfBoundsException("Index of column must between 0 and " + (boardSize - 1) + ".");
+        }
+        int index = position.getRow() * boardSize + position.getColumn();
+        if(cell(index) != Player.EMPTY){
+            removeMove(index);
         }
-        if(position.getColumn() < 0 || position.getColumn() > 14){
-            throw new IndexOutOfBoundsException("Index of column must between 0 and 14.");
+        setCell(index, player);
+        if(threats != null){
+            threats.place(index, player);
+        }
+        if(fives != null){
+            updateFives(index);
+        }
+        if(player != Player.EMPTY){
+            if(moveCount == moves.length){
+                moves = Arrays.copyOf(moves, moveCount * 2);
+            }
+            moves[moveCount++] = index;
+            lastMove = index;
+        }
+        else if(lastMove == index){
+            // The last piece is taken back, the piece before it is the last one again
+            lastMove = (moveCount > 0) ? moves[moveCount - 1] : -1;
+        }
+    }
+
+    /**
+     * A helper function to get the piece of a cell.
+     *
+     * @param index the cell as row * boardSize + column
+     * @return whose piece is on the cell
+     */
+    private Player cell(int index){
+        return PLAYERS[(int)(cells[index / CELLS_PER_LONG] >>> ((index % CELLS_PER_LONG) * 2)) & 3];
+    }
+
+    /**
+     * A helper function to set the piece of a cell without changing the list of the pieces.
+     *
+     * @param index the cell as row * boardSize + column
+     * @param player whose piece
+     */
+    private void setCell(int index, Player player){
+        int shift = (index % CELLS_PER_LONG) * 2;
+        long value = (player == Player.X) ? 1 : (player == Player.O) ? 2 : 0;
+        cells[index / CELLS_PER_LONG] = (cells[index / CELLS_PER_LONG] & ~(3L << shift)) | (value << shift);
+    }
+
+    /**
+     * A helper function to remove a cell from the list of the pieces, keeping the order of the others.
+     *
+     * @param index the cell as row * boardSize + column
+     */
+    private void removeMove(int index){
+        for(int k = moveCount - 1; k >= 0; k--){
+            if(moves[k] == index){
+                System.arraycopy(moves, k + 1, moves, k, moveCount - k - 1);
+                moveCount--;
+                return;
+            }
         }
-        board[position.getRow()][position.getColumn()] = player;
-        lastPosition = position;
     }
 
     /**
@@ -160,17 +777,17 @@ public class Model implements IModel{
      *
      * @param position the input position
      * @return the whose piece is on that position
-     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and 14
+     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and boardSize - 1
      */
     @Override
     public Player getStateOnPosition(Position position) throws IndexOutOfBoundsException{
-        if(position.getRow() < 0 || position.getRow() > 14){
-            throw new IndexOutOfBoundsException("Index of row must between 0 and 14.");
+        if(position.getRow() < 0 || position.getRow() >= boardSize){
+            throw new IndexOutOfBoundsException("Index of row must between 0 and " + (boardSize - 1) + ".");
         }
-        if(position.getColumn() < 0 || position.getColumn() > 14){
-            throw new IndexOutOfBoundsException("Index of column must between 0 and 14.");
+        if(position.getColumn() < 0 || position.getColumn() >= boardSize){
+            throw new IndexOutOfBoundsException("Index of column must between 0 and " + (boardSize - 1) + ".");
         }
-        return board[position.getRow()][position.getColumn()];
+        return cell(position.getRow() * boardSize + position.getColumn());
     }
 
     /**
@@ -180,14 +797,22 @@ public class Model implements IModel{
      */
     @Override
     public Player[][] getCloneBoard(){
-        Player[][] cloneBoard;
-        cloneBoard = new Player[boardSize][boardSize];
+        return fillBoard(new Player[boardSize][boardSize]);
+    }
+
+    /**
+     * A helper function to copy the pieces of the Model into a two dimensional board.
+     *
+     * @param board the board of the same size to fill
+     * @return the input board
+     */
+    private Player[][] fillBoard(Player[][] board){
         for(int i = 0; i < boardSize; i++){
             for(int j = 0; j < boardSize; j++){
-                cloneBoard[i][j] = board[i][j];
+                board[i][j] = cell(i * boardSize + j);
             }
         }
-        return cloneBoard;
+        return board;
     }
 
     /**
@@ -213,11 +838,28 @@ public class Model implements IModel{
      */
     @Override
     public void clearBoard(){
-        for(int i = 0; i < getBoardSize(); i++){
-            for(int j = 0; j < getBoardSize(); j++){
-                placeChessOnPosition(new Position(i, j), Player.EMPTY);
+        Arrays.fill(cells, 0);
+        moveCount = 0;
+        // The last position is the last one cleared
+        lastMove = boardSize * boardSize - 1;
+        threats = null;
+        fives = null;
+    }
+
+    /**
+     * Get the threats of the board: where each player can complete a five, make an open four, a four or an open
+     * three. The index is built at the first call and then updated with each piece placed on the Model.
+     *
+     * @return the threat index of the board, which must not be changed
+     */
+    public ThreatIndex getThreatIndex(){
+        if(threats == null){
+            threats = new ThreatIndex(boardSize);
+            for(int k = 0; k < moveCount; k++){
+                threats.place(moves[k], cell(moves[k]));
             }
         }
+        return threats;
     }
 
     /**
@@ -230,7 +872,7 @@ public class Model implements IModel{
         boolean hasEmpty = false;
         for(int i = 0; i < getBoardSize(); i++){
             for(int j = 0; j < getBoardSize(); j++){
-                if(board[i][j] == Player.EMPTY){
+                if(cell(i * boardSize + j) == Player.EMPTY){
                     hasEmpty = true;
                 }
             }
@@ -246,8 +888,9 @@ public class Model implements IModel{
      */
     @Override
     public Player getWinner() {
+        Position lastPosition = getLastPosition();
         // Check the row
-        for(int c = Math.max(lastPosition.getColumn() - 4, 0); c < Math.min(11, lastPosition.getColumn() + 5); c++){
+        for(int c = Math.max(lastPosition.getColumn() - 4, 0); c < Math.min(boardSize - 4, lastPosition.getColumn() + 5); c++){
             if(getStateOnPosition(new Position(lastPosition.getRow(), c)) == Player.X &&
                     getStateOnPosition(new Position(lastPosition.getRow(), c+1)) == Player.X &&
                     getStateOnPosition(new Position(lastPosition.getRow(), c+2)) == Player.X &&
@@ -266,7 +909,7 @@ public class Model implements IModel{
             }
         }
         // Check the column
-        for(int r = Math.max(lastPosition.getRow() - 4, 0); r < Math.min(11, lastPosition.getRow() + 5); r++){
+        for(int r = Math.max(lastPosition.getRow() - 4, 0); r < Math.min(boardSize - 4, lastPosition.getRow() + 5); r++){
             if(getStateOnPosition(new Position(r, lastPosition.getColumn())) == Player.X &&
                     getStateOnPosition(new Position(r+1, lastPosition.getColumn())) == Player.X &&
                     getStateOnPosition(new Position(r+2, lastPosition.getColumn())) == Player.X &&
@@ -285,7 +928,7 @@ public class Model implements IModel{
             }
         }
         // Check the diagonal
-        for(int r = Math.max(lastPosition.getRow() - 4, 0); r < Math.min(11, lastPosition.getRow() + 5); r++){
+        for(int r = Math.max(lastPosition.getRow() - 4, 0); r < Math.min(boardSize - 4, lastPosition.getRow() + 5); r++){
             // Skip the outbound index
             try{
                 if(getStateOnPosition(new Position(r, lastPosition.getColumn() - lastPosition.getRow() + r)) == Player.X &&
@@ -310,7 +953,7 @@ public class Model implements IModel{
             }
         }
         // Check another diagonal
-        for(int r = 0; r < Math.max(11, lastPosition.getRow() - 4); r++){
+        for(int r = 0; r < boardSize - 4; r++){
             // Skip the outbound index
             try{
                 if(getStateOnPosition(new Position(r, lastPosition.getColumn() + lastPosition.getRow() - r)) == Player.X &&
@@ -348,9 +991,22 @@ public class Model implements IModel{
      */
     @Override
     public int getConsecutiveScore(int count, int blocks, boolean currentTurn){
-        // If both sides are blocked by the opponent and the consecutive pieces is less than 5, return zero score
-        // because there is no possibility of win
-        if(blocks == 2 && count < 5){
+        return consecutiveScore(count, blocks, currentTurn);
+    }
+
+    /**
+     * The score of one sequence used by getConsecutiveScore. It does not depend on the board, so it is shared with the
+     * SparseBoard class.
+     *
+     * @param count how many consecutive pieces
+     * @param blocks how many blocks on the two sides
+     * @param currentTurn is the player's current turn?
+     * @return the score calculated from the input parameters
+     */
+    public static int consecutiveScore(int count, int blocks, boolean currentTurn){
+        // If both sides are blocked by the opponent and the consecutive pieces is less than 5, return zero score
+        // because there is no possibility of win
+        if(blocks == 2 && count < 5){
             return 0;
         }
         switch (count){
@@ -630,6 +1286,37 @@ public class Model implements IModel{
         return Oscore / Xscore;
     }
 
+    /**
+     * A helper function to mark the empty positions within the candidate radius of a piece. If the board is empty, the
+     * center is the only candidate.
+     *
+     * @param board the input board
+     * @return the marked candidates, or null if the candidate radius is 0 and every empty position is a candidate
+     */
+    private boolean[][] getCandidates(Player[][] board){
+        if(candidateRadius == 0){
+            return null;
+        }
+        boolean[][] candidates = new boolean[boardSize][boardSize];
+        boolean hasPiece = false;
+        for(int i = 0; i < boardSize; i++){
+            for(int j = 0; j < boardSize; j++){
+                if(board[i][j] != Player.EMPTY){
+                    hasPiece = true;
+                    for(int r = Math.max(0, i - candidateRadius); r <= Math.min(boardSize - 1, i + candidateRadius); r++){
+                        for(int c = Math.max(0, j - candidateRadius); c <= Math.min(boardSize - 1, j + candidateRadius); c++){
+                            candidates[r][c] = true;
+                        }
+                    }
+                }
+            }
+        }
+        if(!hasPiece){
+            candidates[boardSize / 2][boardSize / 2] = true;
+        }
+        return candidates;
+    }
+
     /**
      * Calculate the best move for the AI player using the minimax algorithm alpha-beta pruning.
      *
@@ -642,133 +1329,1292 @@ public class Model implements IModel{
      */
     @Override
     public Object[] minimax(int depth, Player[][] board,  boolean maximizingPlayer, double alpha, double beta){
+        long hash = (table == null && evaluationCache == null) ? 0 : Zobrist.hash(board, maximizingPlayer);
+        nodeThreats = buildNodeThreats(board);
+        // The staged moves keep their generators in a scratch, and a cancelled search marks it as stopped
+        boolean borrowed = (stagedMoves || cancellation != null) && scratch == null;
+        if(borrowed){
+            scratch = SearchScratch.borrow(boardSize);
+        }
+        try{
+            return search(depth, board, maximizingPlayer, alpha, beta, hash, 0);
+        } finally{
+            nodeThreats = null;
+            if(borrowed){
+                scratch.release();
+                scratch = null;
+            }
+        }
+    }
+
+    /**
+     * A helper function to build the threats the minimax search updates with its moves, if the forced moves, the
+     * quiescence search or the pruning are on. Only the kinds they need are tracked, which keeps the updates cheap.
+     *
+     * @param board the board of the root
+     * @return the threats of the board, null if they are all off
+     */
+    private ThreatIndex buildNodeThreats(Player[][] board){
+        boolean pruning = lateMoveReduction > 0 || nullMoveReduction > 0 || stagedMoves;
+        if(forcedMoveLevel == 0 && quiescenceDepth == 0 && !pruning){
+            return null;
+        }
+        boolean fours = forcedMoveLevel == 2 || quiescenceDepth > 0 || pruning;
+        ThreatIndex index = new ThreatIndex(boardSize, fours ? ThreatIndex.FOUR : ThreatIndex.FIVE);
+        for(int i = 0; i < boardSize; i++){
+            for(int j = 0; j < boardSize; j++){
+                if(board[i][j] != Player.EMPTY){
+                    index.place(i * boardSize + j, board[i][j]);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * A helper function to find the kind of forced situation of a node of the minimax search.
+     *
+     * @param mover the side to move
+     * @return 0 if the moves are not restricted, 1 if only the moves completing a five of the mover are searched, 2 if
+     *         only the moves blocking a five of the opponent, 3 if only the moves blocking an open four of the opponent
+     *         or making a four of the mover
+     */
+    private int forcedSituation(Player mover){
+        if(nodeThreats == null || forcedMoveLevel == 0){
+            return 0;
+        }
+        Player opponent = (mover == Player.X) ? Player.O : Player.X;
+        if(nodeThreats.first(mover, ThreatIndex.FIVE) >= 0){
+            return 1;
+        }
+        if(nodeThreats.first(opponent, ThreatIndex.FIVE) >= 0){
+            return 2;
+        }
+        if(forcedMoveLevel >= 2 && nodeThreats.first(opponent, ThreatIndex.OPEN_FOUR) >= 0){
+            return 3;
+        }
+        return 0;
+    }
+
+    /**
+     * A helper function to check whether a move is quiet: it does not make or stop a four or a five of either side.
+     *
+     * @param index the move as row * boardSize + column
+     * @return true iif the move can be reduced
+     */
+    private boolean isQuietMove(int index){
+        return !nodeThreats.is(index, Player.X, ThreatIndex.FIVE) && !nodeThreats.is(index, Player.O, ThreatIndex.FIVE)
+                && !nodeThreats.is(index, Player.X, ThreatIndex.FOUR)
+                && !nodeThreats.is(index, Player.O, ThreatIndex.FOUR);
+    }
+
+    /**
+     * A helper function to try the null move of a node: the side to move passes, and the node is cut off when the
+     * opponent can not reach the bound of the side to move with a reduced search, and a reduced search of the node
+     * itself confirms it.
+     *
+     * @param depth the depth of the node
+     * @param board the board of the node, not changed
+     * @param maximizingPlayer true iif the side to move is Player.O
+     * @param alpha the score the maximizer is sure of
+     * @param beta the score the minimizer is sure of
+     * @param hash the Zobrist hash of the board and the side to move
+     * @param ply the number of moves from the root
+     * @return the score of the verification search if the node is cut off, null otherwise
+     */
+    private Object[] tryNullMove(int depth, Player[][] board, boolean maximizingPlayer, double alpha, double beta,
+                                 long hash, int ply){
+        Player opponent = maximizingPlayer ? Player.X : Player.O;
+        // Passing against a four or an open three loses, and two passes in a row prove nothing
+        if(belowNullMove || ply == 0 || depth <= nullMoveReduction
+                || nodeThreats.first(opponent, ThreatIndex.FIVE) >= 0
+                || nodeThreats.first(opponent, ThreatIndex.OPEN_FOUR) >= 0){
+            return null;
+        }
+        boolean hashing = table != null || evaluationCache != null;
+        belowNullMove = true;
+        try{
+            double score = (Double)(search(depth - 1 - nullMoveReduction, board, !maximizingPlayer, alpha, beta,
+                    hashing ? hash ^ Zobrist.SIDE : 0, ply + 1)[0]);
+            if(maximizingPlayer ? score < beta : score > alpha){
+                return null;
+            }
+            Object[] verified = search(depth - nullMoveReduction, board, maximizingPlayer, alpha, beta, hash, ply);
+            if(maximizingPlayer ? (Double)(verified[0]) < beta : (Double)(verified[0]) > alpha){
+                return null;
+            }
+            getSearchStats().countNullMoveCutoff();
+            return verified;
+        } finally{
+            belowNullMove = false;
+        }
+    }
+
+    /**
+     * A helper function to check whether a move is searched at a node.
+     *
+     * @param board the board of the node
+     * @param index the move as row * boardSize + column
+     * @param candidates the candidates of the node, null if every empty position is a candidate
+     * @param forced the forced situation of the node
+     * @param mover the side to move
+     * @return true iif the position is empty and the move is a candidate, or a forced move in a forced situation
+     */
+    private boolean isSearched(Player[][] board, int index, boolean[][] candidates, int forced, Player mover){
+        int i = index / boardSize;
+        int j = index % boardSize;
+        if(board[i][j] != Player.EMPTY){
+            return false;
+        }
+        if(forced != 0){
+            return isForcedMove(forced, index, mover);
+        }
+        return candidates == null || candidates[i][j];
+    }
+
+    /**
+     * A helper function to score a move without searching it: the sum of the scores of the lines the move makes for
+     * the side to move and of the lines of the opponent it blocks, in the four directions.
+     *
+     * @param board the board of the node
+     * @param index the move as row * boardSize + column
+     * @param mover the side to move
+     * @return the score of the move, higher is better
+     */
+    private long scoreMove(Player[][] board, int index, Player mover){
+        int i = index / boardSize;
+        int j = index % boardSize;
+        Player opponent = (mover == Player.X) ? Player.O : Player.X;
+        long score = 0;
+        for(int[] direction : DIRECTIONS){
+            for(int side = 0; side < 2; side++){
+                Player player = (side == 0) ? mover : opponent;
+                int count = 1;
+                int blocks = 0;
+                for(int sign = -1; sign <= 1; sign += 2){
+                    int r = i + sign * direction[0];
+                    int c = j + sign * direction[1];
+                    while(r >= 0 && r < boardSize && c >= 0 && c < boardSize && board[r][c] == player){
+                        count++;
+                        r += sign * direction[0];
+                        c += sign * direction[1];
+                    }
+                    if(r < 0 || r >= boardSize || c < 0 || c >= boardSize || board[r][c] != Player.EMPTY){
+                        blocks++;
+                    }
+                }
+                score += consecutiveScore(Math.min(count, 5), blocks, player == mover);
+            }
+        }
+        return score;
+    }
+
+    /**
+     * The moves of one node for its MoveGenerator: which positions are searched and how they are scored. The search
+     * keeps one per ply in its SearchScratch and resets it at each node, so the staged moves allocate nothing per node.
+     */
+    static class NodeMoves implements IntPredicate, IntToLongFunction {
+        // The Model searching, null when the scratch is in the pool
+        private Model model;
+        private Player[][] board;
+        // The candidates of the node, null if every empty position is a candidate
+        private boolean[][] candidates;
+        // The forced situation of the node
+        private int forced;
+        private Player mover;
+        // The history of the cutoffs which breaks the ties of the scores, null for none
+        private int[] history;
+        // The first entry of the history of the side to move
+        private int side;
+
+        /**
+         * Start the moves of a new node.
+         *
+         * @param model the Model searching
+         * @param board the board of the node
+         * @param candidates the candidates of the node, null if every empty position is a candidate
+         * @param forced the forced situation of the node
+         * @param mover the side to move
+         * @param history the history of the cutoffs, null for none
+         * @param side the first entry of the history of the side to move
+         */
+        void reset(Model model, Player[][] board, boolean[][] candidates, int forced, Player mover, int[] history,
+                   int side){
+            this.model = model;
+            this.board = board;
+            this.candidates = candidates;
+            this.forced = forced;
+            this.mover = mover;
+            this.history = history;
+            this.side = side;
+        }
+
+        /**
+         * Drop the references to the Model and its search, so a pooled scratch does not keep them.
+         */
+        void clear(){
+            reset(null, null, null, 0, null, null, 0);
+        }
+
+        @Override
+        public boolean test(int index){
+            return model.isSearched(board, index, candidates, forced, mover);
+        }
+
+        @Override
+        public long applyAsLong(int index){
+            long score = model.scoreMove(board, index, mover);
+            return (history == null) ? score : (score << 16) + Math.min(history[side + index], 65535);
+        }
+    }
+
+    /**
+     * A helper function to choose the moves of a node searched by the beam: the moves searched at the node are scored
+     * by scoreMove, the best ones are moved to the front by a partial quickselect instead of a full sort, and only
+     * those are sorted.
+     *
+     * @param board the board of the node
+     * @param candidates the candidates of the node, null if every empty position is a candidate
+     * @param forced the forced situation of the node
+     * @param mover the side to move
+     * @param width the largest number of moves
+     * @param ply the number of moves from the root, whose buffers of the SearchScratch are used
+     * @param moves where the chosen moves are written as row * boardSize + column, best first, equal scores in the
+     *              order of the rows; at least boardSize * boardSize long
+     * @return the number of chosen moves
+     */
+    private int selectBeam(Player[][] board, boolean[][] candidates, int forced, Player mover, int width, int ply,
+            int[] moves){
+        int cellCount = boardSize * boardSize;
+        long[] scores = (scratch != null) ? scratch.beamScores(ply) : new long[cellCount];
+        int count = 0;
+        for(int index = 0; index < cellCount; index++){
+            if(isSearched(board, index, candidates, forced, mover)){
+                moves[count] = index;
+                scores[count] = scoreMove(board, index, mover);
+                count++;
+            }
+        }
+        int k = Math.min(width, count);
+        // Quickselect: after it, the k best moves are before position k, in any order
+        int low = 0;
+        int high = count - 1;
+        while(k < count && low < high){
+            int pivot = partition(moves, scores, low, high);
+            if(pivot == k - 1 || pivot == k){
+                break;
+            }
+            if(pivot < k){
+                low = pivot + 1;
+            }
+            else{
+                high = pivot - 1;
+            }
+        }
+        // Insertion sort of the k best moves only
+        for(int a = 1; a < k; a++){
+            for(int b = a; b > 0 && isBetter(moves, scores, b, b - 1); b--){
+                swap(moves, scores, b, b - 1);
+            }
+        }
+        return k;
+    }
+
+    /**
+     * A helper function of the quickselect: put the better moves before the middle move of the range and the others
+     * after it.
+     *
+     * @param moves the moves
+     * @param scores the scores of the moves
+     * @param low the first position of the range
+     * @param high the last position of the range
+     * @return the position of the middle move after the partition
+     */
+    private static int partition(int[] moves, long[] scores, int low, int high){
+        swap(moves, scores, (low + high) >>> 1, high);
+        int store = low;
+        for(int a = low; a < high; a++){
+            if(isBetter(moves, scores, a, high)){
+                swap(moves, scores, a, store++);
+            }
+        }
+        swap(moves, scores, store, high);
+        return store;
+    }
+
+    /**
+     * A helper function to compare two moves of the beam: the higher score, or the first in the order of the rows.
+     *
+     * @param moves the moves
+     * @param scores the scores of the moves
+     * @param a the position of the first move
+     * @param b the position of the second move
+     * @return true iif the first move is better
+     */
+    private static boolean isBetter(int[] moves, long[] scores, int a, int b){
+        return scores[a] > scores[b] || (scores[a] == scores[b] && moves[a] < moves[b]);
+    }
+
+    /**
+     * A helper function to swap two moves of the beam with their scores.
+     *
+     * @param moves the moves
+     * @param scores the scores of the moves
+     * @param a the position of the first move
+     * @param b the position of the second move
+     */
+    private static void swap(int[] moves, long[] scores, int a, int b){
+        int move = moves[a];
+        moves[a] = moves[b];
+        moves[b] = move;
+        long score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+
+    /**
+     * A helper function to check whether a move is searched in a forced situation.
+     *
+     * @param forced the forced situation returned by forcedSituation
+     * @param index the move as row * boardSize + column
+     * @param mover the side to move
+     * @return true iif the move is searched
+     */
+    private boolean isForcedMove(int forced, int index, Player mover){
+        Player opponent = (mover == Player.X) ? Player.O : Player.X;
+        if(forced == 1){
+            return nodeThreats.is(index, mover, ThreatIndex.FIVE);
+        }
+        if(forced == 2){
+            return nodeThreats.is(index, opponent, ThreatIndex.FIVE);
+        }
+        return nodeThreats.is(index, opponent, ThreatIndex.OPEN_FOUR) || nodeThreats.is(index, mover, ThreatIndex.FOUR);
+    }
+
+    /**
+     * A helper function of the minimax method which carries the Zobrist hash of the board, so the transposition table
+     * and the evaluation cache can be used when they are on. A stored result is only used below the root, because the root must return a move.
+     *
+     * @param depth the depth of the minimax algorithm
+     * @param board the input board
+     * @param maximizingPlayer whether the turn is maximizer
+     * @param alpha the alpha value for alpha-beta pruning
+     * @param beta the beta value for alpha-beta pruning
+     * @param hash the Zobrist hash of the input board, not used when the table and the cache are off
+     * @param ply the distance from the root, 0 at the root
+     * @return {the score of the input board, row index of the best move, column index of the best move}
+     */
+    private Object[] search(int depth, Player[][] board, boolean maximizingPlayer, double alpha, double beta,
+                            long hash, int ply){
+        SearchStats searchStats = getSearchStats();
+        // Stop at once when the time or the nodes are over or the search is cancelled, the caller does not use the
+        // result; the root always goes on to its first move, so there is a move to play
+        if(ply > 0 && scratch != null && (scratch.aborted || searchStats.getNodes() >= scratch.nodeLimit
+                || ((searchStats.getNodes() & 255) == 0 && (isCancelled()
+                || (scratch.deadline != Long.MAX_VALUE && System.nanoTime() - scratch.deadline > 0))))){
+            scratch.aborted = true;
+            Object[] x = {0.0, null, null};
+            return x;
+        }
+        searchStats.countNode();
         // base case: leaf node in the minimax tree
         if(depth == 0){
-            Object[] x = {evaluate(board,!maximizingPlayer), null, null};
+            double score = (quiescenceDepth == 0) ? evaluateLeaf(board, maximizingPlayer, hash)
+                    : quiesce(board, maximizingPlayer, alpha, beta, hash, quiescenceDepth);
+            Object[] x = {score, null, null};
             return x;
         }
+        int cellCount = boardSize * boardSize;
+        // The best move of an earlier search of this board is tried first, -1 if there is none
+        int hashMove = -1;
+        if(table != null){
+            int entry = table.probe(hash);
+            searchStats.countTableProbe(entry >= 0);
+            if(entry >= 0){
+                double score = table.getScore(entry);
+                byte flag = table.getFlag(entry);
+                if(ply > 0 && table.getDepth(entry) >= depth && (flag == TranspositionTable.EXACT
+                        || (flag == TranspositionTable.LOWER && score >= beta)
+                        || (flag == TranspositionTable.UPPER && score <= alpha))){
+                    Object[] x = {score, null, null};
+                    return x;
+                }
+                hashMove = (table.getMove(entry) < cellCount) ? table.getMove(entry) : -1;
+            }
+        }
+        if(ply == 0 && hashMove < 0 && rootSeed >= 0){
+            // The line of the last search of this side predicted this board, its next move goes first
+            hashMove = rootSeed;
+            rootSeedTried = true;
+        }
+        if(nullMoveReduction > 0){
+            Object[] cutoff = tryNullMove(depth, board, maximizingPlayer, alpha, beta, hash, ply);
+            if(cutoff != null){
+                searchStats.countBetaCutoff();
+                return cutoff;
+            }
+        }
+        // The hashes of the children are only needed by the table and the cache
+        boolean hashing = table != null || evaluationCache != null;
+        double alphaStart = alpha;
+        double betaStart = beta;
         Object[] best = new Object[3];
         int emptyCount = 0;
+        // null means every empty position is a candidate move
+        boolean[][] candidates = getCandidates(board);
+        // In a forced situation only the forced moves are searched, whatever the candidates
+        int forced = forcedSituation(maximizingPlayer ? Player.O : Player.X);
+        // With the beam only the best moves are searched, best first; null means all of them in the order of the rows
+        int[] order = null;
+        int moveCount = cellCount;
+        if(beamWidths != null){
+            order = (scratch != null) ? scratch.beamMoves(ply) : new int[cellCount];
+            moveCount = selectBeam(board, candidates, forced, maximizingPlayer ? Player.O : Player.X,
+                    beamWidths[Math.min(ply, beamWidths.length - 1)], ply, order);
+        }
+        // The staged moves, null means the moves come from the order above
+        MoveGenerator generator = null;
+        if(stagedMoves && order == null && scratch != null){
+            Player mover = maximizingPlayer ? Player.O : Player.X;
+            generator = scratch.generator(ply);
+            // With the reuse, the history of the cutoffs of the side breaks the ties of the scores
+            int side = maximizingPlayer ? cellCount : 0;
+            NodeMoves nodeMoves = scratch.nodeMoves(ply);
+            nodeMoves.reset(this, board, candidates, forced, mover, history, side);
+            generator.reset(hashMove, nodeThreats, mover, nodeMoves, nodeMoves);
+        }
         if(maximizingPlayer){
             best[0] = -1.0;
-            for(int i = 0; i < boardSize; i++){
-                for(int j = 0; j < boardSize; j++){
-                    // Looping over the board to figure out possible moves
-                    if(board[i][j] == Player.EMPTY){
-                        Player[][] cloneBoard = getCloneBoard(board);
-                        emptyCount++;
-                        cloneBoard[i][j] = Player.O;
-                        // Calculate the score of the new board after this move
-                        Object[] temp = minimax(depth-1, cloneBoard, !maximizingPlayer, alpha, beta);
-                        if((Double)(temp[0]) > alpha){
-                            alpha = (Double)(temp[0]);
+            for(int n = (hashMove >= 0 && generator == null) ? -1 : 0; n < moveCount; n++){
+                // Looping over the board to figure out possible moves, after the move from the table
+                int index = (generator != null) ? generator.next()
+                        : (n < 0) ? hashMove : (order == null) ? n : order[n];
+                if(index < 0){
+                    break;
+                }
+                int i = index / boardSize;
+                int j = index % boardSize;
+                if(generator != null
+                        || ((n < 0 || index != hashMove) && isSearched(board, index, candidates, forced, Player.O))){
+                    Player[][] cloneBoard = getCloneBoard(board);
+                    emptyCount++;
+                    cloneBoard[i][j] = Player.O;
+                    long childHash = hashing ? hash ^ Zobrist.SIDE ^ Zobrist.key(index, Player.O) : 0;
+                    boolean reduced = lateMoveReduction > 0 && depth >= 3 && index != hashMove && forced == 0
+                            && emptyCount > lateMoveReduction && isQuietMove(index);
+                    // Calculate the score of the new board after this move
+                    if(nodeThreats != null){
+                        nodeThreats.place(index, Player.O);
+                    }
+                    Object[] temp;
+                    if(reduced){
+                        // A late quiet move is searched one ply less, and again if it still looks good
+                        temp = search(depth-2, cloneBoard, !maximizingPlayer, alpha, beta, childHash, ply + 1);
+                        boolean researched = (Double)(temp[0]) > alpha;
+                        searchStats.countLateMoveReduction(researched);
+                        if(researched){
+                            temp = search(depth-1, cloneBoard, !maximizingPlayer, alpha, beta, childHash, ply + 1);
                         }
-                        if((Double)(temp[0]) >= beta){
-                            return temp;
+                    }
+                    else{
+                        temp = search(depth-1, cloneBoard, !maximizingPlayer, alpha, beta, childHash, ply + 1);
+                    }
+                    if(nodeThreats != null){
+                        nodeThreats.place(index, Player.EMPTY);
+                    }
+                    if(isStopped(ply, best, i, j)){
+                        break;
+                    }
+                    if((Double)(temp[0]) > alpha){
+                        alpha = (Double)(temp[0]);
+                    }
+                    if((Double)(temp[0]) >= beta){
+                        searchStats.countBetaCutoff();
+                        storeResult(hash, depth, (Double)(temp[0]), TranspositionTable.LOWER, index);
+                        if(generator != null && index != hashMove){
+                            generator.addKiller(index);
                         }
-                        // Update the best if this is a better move based on the score
-                        if((Double)temp[0] > (Double)best[0]){
-                            best = temp;
-                            best[1] = i;
-                            best[2] = j;
+                        if(history != null){
+                            history[cellCount + index] += depth * depth;
                         }
+                        return temp;
+                    }
+                    // Update the best if this is a better move based on the score
+                    if((Double)temp[0] > (Double)best[0]){
+                        best = temp;
+                        best[1] = i;
+                        best[2] = j;
                     }
                 }
             }
         }
         else{
             best[0] = 100000000.0;
-            for(int i = 0; i < boardSize; i++){
-                for(int j = 0; j < boardSize; j++){
-                    // Looping over the board to figure out possible moves
-                    if(board[i][j] == Player.EMPTY){
-                        Player[][] cloneBoard = getCloneBoard(board);
-                        emptyCount++;
-                        cloneBoard[i][j] = Player.X;
-                        // Calculate the score of the new board after this move
-                        Object[] temp = minimax(depth-1, cloneBoard, !maximizingPlayer, alpha, beta);
-                        if((Double)(temp[0]) < beta){
-                            beta = (Double)(temp[0]);
+            for(int n = (hashMove >= 0 && generator == null) ? -1 : 0; n < moveCount; n++){
+                // Looping over the board to figure out possible moves, after the move from the table
+                int index = (generator != null) ? generator.next()
+                        : (n < 0) ? hashMove : (order == null) ? n : order[n];
+                if(index < 0){
+                    break;
+                }
+                int i = index / boardSize;
+                int j = index % boardSize;
+                if(generator != null
+                        || ((n < 0 || index != hashMove) && isSearched(board, index, candidates, forced, Player.X))){
+                    Player[][] cloneBoard = getCloneBoard(board);
+                    emptyCount++;
+                    cloneBoard[i][j] = Player.X;
+                    long childHash = hashing ? hash ^ Zobrist.SIDE ^ Zobrist.key(index, Player.X) : 0;
+                    boolean reduced = lateMoveReduction > 0 && depth >= 3 && index != hashMove && forced == 0
+                            && emptyCount > lateMoveReduction && isQuietMove(index);
+                    // Calculate the score of the new board after this move
+                    if(nodeThreats != null){
+                        nodeThreats.place(index, Player.X);
+                    }
+                    Object[] temp;
+                    if(reduced){
+                        // A late quiet move is searched one ply less, and again if it still looks good
+                        temp = search(depth-2, cloneBoard, !maximizingPlayer, alpha, beta, childHash, ply + 1);
+                        boolean researched = (Double)(temp[0]) < beta;
+                        searchStats.countLateMoveReduction(researched);
+                        if(researched){
+                            temp = search(depth-1, cloneBoard, !maximizingPlayer, alpha, beta, childHash, ply + 1);
                         }
-                        if((Double)(temp[0]) <= alpha){
-                            return temp;
+                    }
+                    else{
+                        temp = search(depth-1, cloneBoard, !maximizingPlayer, alpha, beta, childHash, ply + 1);
+                    }
+                    if(nodeThreats != null){
+                        nodeThreats.place(index, Player.EMPTY);
+                    }
+                    if(isStopped(ply, best, i, j)){
+                        break;
+                    }
+                    if((Double)(temp[0]) < beta){
+                        beta = (Double)(temp[0]);
+                    }
+                    if((Double)(temp[0]) <= alpha){
+                        searchStats.countBetaCutoff();
+                        storeResult(hash, depth, (Double)(temp[0]), TranspositionTable.UPPER, index);
+                        if(generator != null && index != hashMove){
+                            generator.addKiller(index);
                         }
-                        // Update the best if this is a better move based on the score
-                        if((Double)temp[0] < (Double)best[0]){
-                            best = temp;
-                            best[1] = i;
-                            best[2] = j;
+                        if(history != null){
+                            history[index] += depth * depth;
                         }
+                        return temp;
+                    }
+                    // Update the best if this is a better move based on the score
+                    if((Double)temp[0] < (Double)best[0]){
+                        best = temp;
+                        best[1] = i;
+                        best[2] = j;
                     }
                 }
             }
         }
         // The board is full, this is a leaf node
         if(emptyCount == 0){
-            Object[] x = {evaluate(board,!maximizingPlayer), null, null};
+            Object[] x = {evaluateLeaf(board, maximizingPlayer, hash), null, null};
             return x;
         }
+        double score = (Double)(best[0]);
+        byte flag = TranspositionTable.EXACT;
+        if(maximizingPlayer ? score <= alphaStart : score >= betaStart){
+            // No move reached the window, the score is only a bound
+            flag = maximizingPlayer ? TranspositionTable.UPPER : TranspositionTable.LOWER;
+        }
+        int move = (best[1] == null) ? -1 : (Integer)(best[1]) * boardSize + (Integer)(best[2]);
+        storeResult(hash, depth, score, flag, move);
         return best;
     }
 
     /**
-     * Finish an AI move using the best move calculated from the minimax method.
+     * A helper function to check, after a move of a node was searched, whether the search was stopped. The move then
+     * does not count and the other moves are not searched. At the root, the move tried first stands in for the best
+     * move when no move was searched to the end.
+     *
+     * @param ply the distance from the root, 0 at the root
+     * @param best the best result of the node so far
+     * @param i the row index of the move
+     * @param j the column index of the move
+     * @return true iif the search was stopped
+     */
+    private boolean isStopped(int ply, Object[] best, int i, int j){
+        if(scratch == null || !scratch.aborted){
+            return false;
+        }
+        if(ply == 0 && best[1] == null){
+            best[1] = i;
+            best[2] = j;
+        }
+        return true;
+    }
+
+    /**
+     * A helper function to search only the forcing moves after the depth of the minimax search, so a four or a five
+     * about to be made is not left behind the horizon. The side to move takes the evaluation of the board, or makes a
+     * four if it scores better; when the opponent can complete a five, it must block and can not stop. The moves are
+     * made on the input board and the search threats, and taken back.
+     *
+     * @param board the board, not changed when the method returns
+     * @param maximizingPlayer true iif the side to move is Player.O
+     * @param alpha the score the maximizer is sure of
+     * @param beta the score the minimizer is sure of
+     * @param hash the Zobrist hash of the board and the side to move, used only if the evaluation cache is on
+     * @param plies the number of plies which can still be added
+     * @return the score of the board
+     */
+    private double quiesce(Player[][] board, boolean maximizingPlayer, double alpha, double beta, long hash,
+                           int plies){
+        SearchStats searchStats = getSearchStats();
+        Player mover = maximizingPlayer ? Player.O : Player.X;
+        Player opponent = maximizingPlayer ? Player.X : Player.O;
+        boolean canWin = nodeThreats.first(mover, ThreatIndex.FIVE) >= 0;
+        boolean mustBlock = !canWin && nodeThreats.first(opponent, ThreatIndex.FIVE) >= 0;
+        double best;
+        if(plies == 0 || !mustBlock){
+            // Stand pat: the side to move does not have to make a threat
+            best = evaluateLeaf(board, maximizingPlayer, hash);
+            if(plies == 0 || (maximizingPlayer ? best >= beta : best <= alpha)){
+                return best;
+            }
+            if(maximizingPlayer){
+                alpha = Math.max(alpha, best);
+            }
+            else{
+                beta = Math.min(beta, best);
+            }
+        }
+        else{
+            best = maximizingPlayer ? -1.0 : 100000000;
+        }
+        // Complete the five, or block the five of the opponent, or make a four
+        Player owner = mustBlock ? opponent : mover;
+        int kind = (canWin || mustBlock) ? ThreatIndex.FIVE : ThreatIndex.FOUR;
+        boolean hashing = evaluationCache != null;
+        for(int index = nodeThreats.first(owner, kind); index >= 0; index = nodeThreats.next(owner, kind, index + 1)){
+            int i = index / boardSize;
+            int j = index % boardSize;
+            searchStats.countQuiescenceNode();
+            board[i][j] = mover;
+            nodeThreats.place(index, mover);
+            long childHash = hashing ? hash ^ Zobrist.SIDE ^ Zobrist.key(index, mover) : 0;
+            double score = quiesce(board, !maximizingPlayer, alpha, beta, childHash, plies - 1);
+            nodeThreats.place(index, Player.EMPTY);
+            board[i][j] = Player.EMPTY;
+            if(maximizingPlayer ? score > best : score < best){
+                best = score;
+            }
+            if(maximizingPlayer){
+                alpha = Math.max(alpha, score);
+            }
+            else{
+                beta = Math.min(beta, score);
+            }
+            if(alpha >= beta || canWin){
+                // One five is enough
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * A helper function to evaluate a leaf node, looking up the evaluation cache first when it is on.
+     *
+     * @param board the leaf board
+     * @param maximizingPlayer whether the turn is maximizer
+     * @param hash the Zobrist hash of the board, not used when the cache is off
+     * @return the score of the board
+     */
+    private double evaluateLeaf(Player[][] board, boolean maximizingPlayer, long hash){
+        SearchStats searchStats = getSearchStats();
+        searchStats.countLeafEvaluation();
+        if(evaluationCache == null){
+            return evaluate(board, !maximizingPlayer);
+        }
+        double score = evaluationCache.get(hash);
+        searchStats.countEvaluationCacheProbe(!Double.isNaN(score));
+        if(Double.isNaN(score)){
+            long start = System.nanoTime();
+            score = evaluate(board, !maximizingPlayer);
+            searchStats.addEvaluationNanos(System.nanoTime() - start);
+            evaluationCache.put(hash, score);
+        }
+        return score;
+    }
+
+    /**
+     * A helper function to store the result of a node in the transposition table, if the table is on and the search
+     * was not stopped by the deadline or the node limit.
+     *
+     * @param hash the Zobrist hash of the board
+     * @param depth the remaining depth of the search
+     * @param score the score for the maximizer
+     * @param flag EXACT, LOWER or UPPER
+     * @param move the best move as row * boardSize + column, -1 if there is none
+     */
+    private void storeResult(long hash, int depth, double score, byte flag, int move){
+        if(table != null && (scratch == null || !scratch.aborted)){
+            table.store(hash, depth, score, flag, move);
+        }
+    }
+
+    /**
+     * Finish an AI move using the best move chosen by the engine of the Model, the minimax method by default. The
+     * statistics and the time of the move are recorded in the SearchMetrics.
      */
     @Override
     public void moveAI(){
-        Position newPosition = new Position();
-        Position tempPosition = new Position();
-        // Looping over the whole board to see that whether there is a possible move to lead to win
+        getSearchStats().reset();
+        long start = System.nanoTime();
+        Position newPosition = engine.chooseMove(this);
+        // update the board based on the best move
         if(getTurn() == 1){
-            for(int i = 0; i < boardSize; i++){
-                for(int j = 0; j < boardSize; j++){
-                    if(board[i][j] == Player.EMPTY){
-                        board[i][j] = Player.X;
-                        tempPosition = lastPosition;
-                        lastPosition = new Position(i, j);
-                        if(getWinner() == Player.X){
-                            return;
-                        }
-                        board[i][j] = Player.EMPTY;
-                        lastPosition = tempPosition;
-                    }
+            placeChessOnPosition(newPosition, Player.X);
+        }
+        else if(getTurn() == 2){
+            placeChessOnPosition(newPosition, Player.O);
+        }
+        SearchMetrics.getInstance().record(searchStats, System.nanoTime() - start);
+    }
+
+    /**
+     * Choose the move of the side to move with the minimax method, which is the search of MinimaxEngine. The board is
+     * not changed.
+     *
+     * @return the position of an immediate win if there is one, otherwise of the best move calculated from the minimax
+     *         method
+     */
+    public Position chooseMinimaxMove(){
+        startMove();
+        scratch = SearchScratch.borrow(boardSize);
+        try{
+            return searchBestMove();
+        } finally{
+            scratch.release();
+            scratch = null;
+        }
+    }
+
+    /**
+     * A helper function to find the move of an immediate win if there is one, otherwise the best move calculated
+     * from the minimax method.
+     *
+     * @return the position of the move
+     */
+    private Position searchBestMove(){
+        // Look up whether there is a possible move to lead to win
+        Position win = findWinningMove();
+        if(win != null){
+            return win;
+        }
+
+        // Using the minimax method to find the best move of the current board
+        // Player.O is the maximizer and Player.X is the minimizer of the minimax algorithm
+        Object[] best = new Object[3];
+        if(timeBudget > 0 || nodeBudget > 0){
+            best = searchWithBudget();
+        }
+        else if(getTurn() == 1) {
+            best = minimax(h, fillBoard(scratch.board), false, -1.0, 100000000);
+            searchStats.setDepthReached(h);
+            rememberLine(scratch.board, best, false);
+        }
+        else if(getTurn() == 2){
+            best = minimax(h, fillBoard(scratch.board), true, -1.0, 100000000);
+            searchStats.setDepthReached(h);
+            rememberLine(scratch.board, best, true);
+        }
+        searchStats.setScore((Double)(best[0]));
+        return new Position((Integer)(best[1]), (Integer)(best[2]));
+    }
+
+    /**
+     * A helper function to search the depths 1, 2, ... up to the depth h until the time limit or the node budget is
+     * over. A new depth is not started when half of the time is already used, because it would most likely not be
+     * completed.
+     *
+     * @return the result of the minimax method of the deepest completed search
+     */
+    private Object[] searchWithBudget(){
+        long start = System.nanoTime();
+        long budget = timeBudget * 1000000;
+        Object[] best = null;
+        for(int depth = 1; depth <= h; depth++){
+            // The depth 1 is always completed, so there is a move to play
+            Object[] result = searchDepth(depth, (depth == 1 || budget == 0) ? Long.MAX_VALUE : start + budget,
+                    (depth == 1 || nodeBudget == 0) ? Long.MAX_VALUE : nodeBudget);
+            if(result == null){
+                break;
+            }
+            if(scratch.aborted){
+                // Cancelled, the best move so far of the depth is only played when no depth is completed
+                return (best == null) ? result : best;
+            }
+            best = result;
+            searchStats.setDepthReached(depth);
+            if(isCancelled() || (budget > 0 && System.nanoTime() - start > budget / 2)){
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * A helper function to keep the principal variation of a completed search of the root, if the reuse and the table
+     * are on, so the next search knows which reply was expected.
+     *
+     * @param root the board of the root
+     * @param result the result of the minimax method
+     * @param maximizingPlayer true iif Player.O is to move at the root
+     */
+    private void rememberLine(Player[][] root, Object[] result, boolean maximizingPlayer){
+        if(!searchReuse || table == null || result[1] == null || (scratch != null && scratch.aborted)){
+            return;
+        }
+        int move = (Integer)(result[1]) * boardSize + (Integer)(result[2]);
+        List<Position> line = principalVariation(root, move, maximizingPlayer ? Player.O : Player.X,
+                Zobrist.hash(root, maximizingPlayer));
+        int[] expectedLine = new int[line.size()];
+        for(int k = 0; k < expectedLine.length; k++){
+            expectedLine[k] = line.get(k).getRow() * boardSize + line.get(k).getColumn();
+        }
+        expectedLines[maximizingPlayer ? 1 : 0] = expectedLine;
+    }
+
+    /**
+     * Find a move of the side to move which wins at once, looked up in the threat index. The board is not changed.
+     *
+     * @return the position of the winning move, the first in the order of the rows, null if there is none
+     */
+    public Position findWinningMove(){
+        return findFive((getTurn() == 1) ? Player.X : Player.O);
+    }
+
+    /**
+     * Find a move which completes a five of the input player. The positions completing a five are kept in two bit sets,
+     * built at the first call and then updated with each piece placed on the Model, so the move is one lookup. The
+     * board is not changed.
+     *
+     * @param player Player.X or Player.O
+     * @return the position of the move, the first in the order of the rows, null if there is none
+     */
+    public Position findFive(Player player){
+        if(fives == null){
+            fives = new long[2][(boardSize * boardSize + 63) / 64];
+            for(int k = 0; k < moveCount; k++){
+                updateFives(moves[k]);
+            }
+        }
+        long[] bits = fives[(player == Player.X) ? 0 : 1];
+        for(int word = 0; word < bits.length; word++){
+            if(bits[word] != 0){
+                int five = word * 64 + Long.numberOfTrailingZeros(bits[word]);
+                return new Position(five / boardSize, five % boardSize);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A helper function to look again at the positions completing a five after a piece is placed or removed: the
+     * position itself and the positions at most four away on the four lines through it.
+     *
+     * @param index the position of the piece as row * boardSize + column
+     */
+    private void updateFives(int index){
+        int row = index / boardSize;
+        int column = index % boardSize;
+        updateFive(index);
+        for(int[] direction : DIRECTIONS){
+            for(int k = -4; k <= 4; k++){
+                int r = row + k * direction[0];
+                int c = column + k * direction[1];
+                if(k != 0 && r >= 0 && r < boardSize && c >= 0 && c < boardSize){
+                    updateFive(r * boardSize + c);
                 }
             }
         }
-        else if(getTurn() == 2){
-            for(int i = 0; i < boardSize; i++){
-                for(int j = 0; j < boardSize; j++){
-                    if(board[i][j] == Player.EMPTY){
-                        board[i][j] = Player.O;
-                        tempPosition = lastPosition;
-                        lastPosition = new Position(i, j);
-                        if(getWinner() == Player.O){
-                            return;
-                        }
-                        board[i][j] = Player.EMPTY;
-                        lastPosition = tempPosition;
+    }
+
+    /**
+     * A helper function to set the bits of one position in the bit sets of the fives.
+     *
+     * @param index the position as row * boardSize + column
+     */
+    private void updateFive(int index){
+        boolean empty = cell(index) == Player.EMPTY;
+        for(int p = 0; p < 2; p++){
+            if(empty && completesFive(index, (p == 0) ? Player.X : Player.O)){
+                fives[p][index >>> 6] |= 1L << index;
+            }
+            else{
+                fives[p][index >>> 6] &= ~(1L << index);
+            }
+        }
+    }
+
+    /**
+     * A helper function to check whether a piece of the player on the empty position makes five or more in a row.
+     *
+     * @param index the position as row * boardSize + column
+     * @param player Player.X or Player.O
+     * @return true iif the piece completes a five
+     */
+    private boolean completesFive(int index, Player player){
+        int row = index / boardSize;
+        int column = index % boardSize;
+        for(int[] direction : DIRECTIONS){
+            int run = 1;
+            for(int sign = -1; sign <= 1; sign += 2){
+                int r = row + sign * direction[0];
+                int c = column + sign * direction[1];
+                while(run < 5 && r >= 0 && r < boardSize && c >= 0 && c < boardSize
+                        && cell(r * boardSize + c) == player){
+                    run++;
+                    r += sign * direction[0];
+                    c += sign * direction[1];
+                }
+            }
+            if(run >= 5){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Search the board for the side to move to one depth with the minimax method. A search which goes deeper one depth
+     * at a time calls this once per depth, so it can stop or give way to other searches between two depths.
+     *
+     * @param depth the depth of the minimax algorithm
+     * @param deadline the value of System.nanoTime when the search must stop, Long.MAX_VALUE means no limit
+     * @return {the score of the board, row index of the best move, column index of the best move}, or null if the
+     *         deadline passed before the search was completed; when the search is cancelled, the best move found so far
+     */
+    public Object[] searchDepth(int depth, long deadline){
+        return searchDepth(depth, deadline, Long.MAX_VALUE);
+    }
+
+    /**
+     * Search the board for the side to move to one depth with the minimax method, until a deadline or a number of
+     * nodes. The nodes are counted by the SearchStats, so the nodes of the earlier depths since its last reset count
+     * too.
+     *
+     * @param depth the depth of the minimax algorithm
+     * @param deadline the value of System.nanoTime when the search must stop, Long.MAX_VALUE means no limit
+     * @param nodeLimit the number of nodes of the SearchStats when the search must stop, Long.MAX_VALUE means no limit
+     * @return {the score of the board, row index of the best move, column index of the best move}, or null if the
+     *         deadline or the node limit was reached before the search was completed; when the search is cancelled, the
+     *         best move found so far
+     */
+    public Object[] searchDepth(int depth, long deadline, long nodeLimit){
+        // The scratch is borrowed for this depth only when it is not a part of moveAI
+        boolean borrowed = scratch == null;
+        if(borrowed){
+            scratch = SearchScratch.borrow(boardSize);
+        }
+        try{
+            scratch.deadline = deadline;
+            scratch.nodeLimit = nodeLimit;
+            scratch.aborted = false;
+            Object[] result = minimax(depth, fillBoard(scratch.board), getTurn() == 2, -1.0, 100000000);
+            if(scratch.aborted){
+                return isCancelled() ? result : null;
+            }
+            rememberLine(scratch.board, result, getTurn() == 2);
+            return result;
+        } finally{
+            // Whether the depth was stopped is kept for the caller
+            scratch.deadline = Long.MAX_VALUE;
+            scratch.nodeLimit = Long.MAX_VALUE;
+            if(borrowed){
+                scratch.release();
+                scratch = null;
+            }
+        }
+    }
+
+    /**
+     * Analyze the board for the side to move and return its best moves, each with its score and principal variation.
+     * It is one search of the depth h: the root keeps the scores of the best moves found so far and searches the other
+     * moves with the window of the worst of them, so a move which can not enter the list is cut off like in the
+     * minimax method. The moves of the root are tried with the move of the table first, then the best scored by
+     * scoreMove, so the list fills with good moves early and the window cuts more. All lines share the transposition
+     * table, which also gives the principal variations; if the table is off, the table of the pooled SearchScratch is
+     * used for this analysis only. The time limit and the node budget of the Model apply; when the search is stopped
+     * by them or by the cancellation token, the lines are not complete and none is returned. The board is not changed.
+     *
+     * @param count the largest number of moves to return
+     * @return the best moves, the best first; a move scored the same as the last one of the list is not added; empty
+     *         when the search was stopped
+     * @throws IllegalArgumentException When the count is not positive
+     */
+    public List<AnalysisLine> analyze(int count) throws IllegalArgumentException{
+        if(count <= 0){
+            throw new IllegalArgumentException("The number of moves must be positive.");
+        }
+        getSearchStats().reset();
+        TranspositionTable saved = table;
+        boolean borrowed = scratch == null;
+        if(borrowed){
+            scratch = SearchScratch.borrow(boardSize);
+            scratch.deadline = (timeBudget > 0) ? System.nanoTime() + timeBudget * 1000000 : Long.MAX_VALUE;
+            scratch.nodeLimit = (nodeBudget > 0) ? nodeBudget : Long.MAX_VALUE;
+        }
+        if(table == null){
+            table = scratch.analysisTable();
+        }
+        try{
+            Player[][] board = fillBoard(scratch.board);
+            boolean maximizingPlayer = getTurn() == 2;
+            Player player = maximizingPlayer ? Player.O : Player.X;
+            long hash = Zobrist.hash(board, maximizingPlayer);
+            boolean[][] candidates = getCandidates(board);
+            nodeThreats = buildNodeThreats(board);
+            int forced = forcedSituation(player);
+            int[] order = scratch.beamMoves(0);
+            int moveCount = selectBeam(board, candidates, forced, player, boardSize * boardSize, 0, order);
+            // The move of the table goes first
+            int entry = table.probe(hash);
+            int hashMove = (entry >= 0) ? table.getMove(entry) : -1;
+            for(int n = 1; n < moveCount; n++){
+                if(order[n] == hashMove){
+                    System.arraycopy(order, 0, order, 1, n);
+                    order[0] = hashMove;
+                    break;
+                }
+            }
+            // The best moves so far as {score, index}, the best first
+            List<double[]> best = new ArrayList<>();
+            for(int n = 0; n < moveCount; n++){
+                int index = order[n];
+                int i = index / boardSize;
+                int j = index % boardSize;
+                // A move must be better than the worst of a full list
+                double bound = (best.size() < count) ? (maximizingPlayer ? -1.0 : 100000000.0)
+                        : best.get(count - 1)[0];
+                Player[][] cloneBoard = getCloneBoard(board);
+                cloneBoard[i][j] = player;
+                long childHash = hash ^ Zobrist.SIDE ^ Zobrist.key(index, player);
+                if(nodeThreats != null){
+                    nodeThreats.place(index, player);
+                }
+                double score = (Double)(search(h - 1, cloneBoard, !maximizingPlayer,
+                        maximizingPlayer ? bound : -1.0, maximizingPlayer ? 100000000 : bound, childHash, 1)[0]);
+                if(nodeThreats != null){
+                    nodeThreats.place(index, Player.EMPTY);
+                }
+                if(scratch.aborted || isCancelled()){
+                    // The score of the move and of the moves after it are not known
+                    return new ArrayList<>();
+                }
+                if(maximizingPlayer ? score > bound : score < bound){
+                    int k = best.size();
+                    while(k > 0 && (maximizingPlayer ? score > best.get(k - 1)[0] : score < best.get(k - 1)[0])){
+                        k--;
+                    }
+                    best.add(k, new double[]{score, index});
+                    if(best.size() > count){
+                        best.remove(count);
                     }
                 }
             }
+            searchStats.setDepthReached(h);
+            if(!best.isEmpty()){
+                searchStats.setScore(best.get(0)[0]);
+            }
+            List<AnalysisLine> lines = new ArrayList<>();
+            for(double[] line : best){
+                lines.add(new AnalysisLine(line[0], principalVariation(board, (int)line[1], player, hash)));
+            }
+            return lines;
+        } finally{
+            if(borrowed){
+                scratch.release();
+                scratch = null;
+            }
+            table = saved;
+            nodeThreats = null;
         }
+    }
 
-        // Using the minimax method to find the best move of the current board
-        Object[] best = new Object[3];
-        if(getTurn() == 1) {
-            best = minimax(h, board, true, -1.0, 100000000);
+    /**
+     * A helper function to follow the best moves stored in the transposition table from a move of the root, until the
+     * depth h or a board which is not stored.
+     *
+     * @param root the board of the root, which is not changed
+     * @param move the move of the root as row * boardSize + column
+     * @param player the player of the move
+     * @param hash the Zobrist hash of the root
+     * @return the move followed by the stored replies
+     */
+    private List<Position> principalVariation(Player[][] root, int move, Player player, long hash){
+        Player[][] board = getCloneBoard(root);
+        List<Position> variation = new ArrayList<>();
+        while(move >= 0 && variation.size() < h && board[move / boardSize][move % boardSize] == Player.EMPTY){
+            board[move / boardSize][move % boardSize] = player;
+            variation.add(new Position(move / boardSize, move % boardSize));
+            hash ^= Zobrist.SIDE ^ Zobrist.key(move, player);
+            player = (player == Player.X) ? Player.O : Player.X;
+            int entry = table.probe(hash);
+            move = (entry >= 0 && table.getMove(entry) < boardSize * boardSize) ? table.getMove(entry) : -1;
         }
-        else if(getTurn() == 2){
-            best = minimax(h, board, false, -1.0, 100000000);
+        return variation;
+    }
+
+    /**
+     * Get the number of bytes writeSnapshot writes for the current state.
+     *
+     * @return the size of the snapshot in bytes
+     */
+    public int getSnapshotSize(){
+        return SNAPSHOT_HEADER + moveCount * Integer.BYTES + cells.length * Long.BYTES;
+    }
+
+    /**
+     * Get the largest number of bytes writeSnapshot writes for a board of the input size, which is the snapshot of a
+     * full board.
+     *
+     * @param boardSize the number of row or column in the board
+     * @return the largest size of the snapshot in bytes
+     */
+    public static int getMaxSnapshotSize(int boardSize){
+        int cellCount = boardSize * boardSize;
+        return SNAPSHOT_HEADER + cellCount * Integer.BYTES
+                + (cellCount + CELLS_PER_LONG - 1) / CELLS_PER_LONG * Long.BYTES;
+    }
+
+    /**
+     * Write the state of the game to the buffer at its position: the board, the turn, the mode, the step, the last
+     * position, the list of the pieces and the settings of the search: the depth, the radius, the time limit and the
+     * node budget. The buffer can be a heap, direct or memory mapped buffer. The statistics of the last search are not
+     * written.
+     *
+     * @param buffer the buffer with at least getSnapshotSize() bytes remaining; its position moves after the snapshot
+     * @throws BufferOverflowException When the buffer has not enough bytes remaining; nothing is written then
+     */
+    public void writeSnapshot(ByteBuffer buffer) throws BufferOverflowException{
+        if(buffer.remaining() < getSnapshotSize()){
+            throw new BufferOverflowException();
         }
-        newPosition = new Position((Integer)(best[1]), (Integer)(best[2]));
-        // update the board based on the best move
-        if(getTurn() == 1){
-            board[newPosition.getRow()][newPosition.getColumn()] = Player.X;
+        buffer.putInt(SNAPSHOT_MAGIC);
+        buffer.put(SNAPSHOT_VERSION);
+        buffer.putInt(boardSize);
+        buffer.put((byte)turn);
+        buffer.put((byte)mode);
+        buffer.putInt(step);
+        buffer.putInt(h);
+        buffer.putInt(candidateRadius);
+        buffer.putLong(timeBudget);
+        buffer.putLong(nodeBudget);
+        buffer.putInt(lastMove);
+        buffer.putInt(moveCount);
+        for(int k = 0; k < moveCount; k++){
+            buffer.putInt(moves[k]);
         }
-        else if(getTurn() == 2){
-            board[newPosition.getRow()][newPosition.getColumn()] = Player.O;
+        for(long value : cells){
+            buffer.putLong(value);
+        }
+    }
+
+    /**
+     * Read a game written by writeSnapshot from the buffer at its position.
+     *
+     * @param buffer the buffer; its position moves after the snapshot
+     * @return a new Model with the state of the snapshot
+     * @throws IllegalArgumentException When the bytes are not a valid snapshot
+     */
+    public static Model readSnapshot(ByteBuffer buffer) throws IllegalArgumentException{
+        try{
+            if(buffer.getInt() != SNAPSHOT_MAGIC){
+                throw new IllegalArgumentException("The bytes are not a snapshot of a game.");
+            }
+            byte version = buffer.get();
+            if(version != SNAPSHOT_VERSION){
+                throw new IllegalArgumentException("The snapshot version " + version + " is not supported.");
+            }
+            int boardSize = buffer.getInt();
+            if(boardSize < 5 || boardSize > MAX_SNAPSHOT_BOARD_SIZE){
+                throw new IllegalArgumentException("The board size " + boardSize + " of the snapshot is not valid.");
+            }
+            int cellCount = boardSize * boardSize;
+            int turn = buffer.get();
+            int mode = buffer.get();
+            int step = buffer.getInt();
+            int h = buffer.getInt();
+            int candidateRadius = buffer.getInt();
+            long timeBudget = buffer.getLong();
+            long nodeBudget = buffer.getLong();
+            int lastMove = buffer.getInt();
+            int moveCount = buffer.getInt();
+            if(turn < 0 || turn > 2 || mode < 0 || mode > 2 || candidateRadius < 0 || timeBudget < 0 || nodeBudget < 0
+                    || lastMove < -1 || lastMove >= cellCount || moveCount < 0 || moveCount > cellCount){
+                throw new IllegalArgumentException("The snapshot has invalid values.");
+            }
+            // A truncated snapshot is refused before the board is allocated
+            int cellLongs = (cellCount + CELLS_PER_LONG - 1) / CELLS_PER_LONG;
+            if(buffer.remaining() < moveCount * Integer.BYTES + cellLongs * Long.BYTES){
+                throw new IllegalArgumentException("The snapshot is truncated.");
+            }
+            Model model = new Model(boardSize);
+            model.turn = turn;
+            model.mode = mode;
+            model.step = step;
+            model.h = h;
+            model.candidateRadius = candidateRadius;
+            model.timeBudget = timeBudget;
+            model.nodeBudget = nodeBudget;
+            model.lastMove = lastMove;
+            model.moves = new int[Math.max(4, moveCount)];
+            for(int k = 0; k < moveCount; k++){
+                model.moves[k] = buffer.getInt();
+            }
+            model.moveCount = moveCount;
+            for(int k = 0; k < model.cells.length; k++){
+                model.cells[k] = buffer.getLong();
+            }
+            model.checkSnapshot();
+            return model;
+        } catch (BufferUnderflowException e){
+            throw new IllegalArgumentException("The snapshot is truncated.", e);
+        }
+    }
+
+    /**
+     * A helper function to check that the board read from a snapshot agrees with its list of the pieces.
+     *
+     * @throws IllegalArgumentException When a cell has an invalid value, or the list of the pieces is not the list of
+     *         the pieces on the board
+     */
+    private void checkSnapshot() throws IllegalArgumentException{
+        int cellCount = boardSize * boardSize;
+        int pieces = 0;
+        for(int k = 0; k < cells.length; k++){
+            long value = cells[k];
+            // A cell is never 3, and the bits after the last cell are 0
+            boolean invalid = (value & (value >>> 1) & 0x5555555555555555L) != 0;
+            int used = Math.min(CELLS_PER_LONG, cellCount - k * CELLS_PER_LONG);
+            if(used < CELLS_PER_LONG && (value >>> (used * 2)) != 0){
+                invalid = true;
+            }
+            if(invalid){
+                throw new IllegalArgumentException("The snapshot has an invalid board.");
+            }
+            pieces += Long.bitCount((value | (value >>> 1)) & 0x5555555555555555L);
+        }
+        // A piece listed twice would leave another piece of the board out of the list
+        BitSet listed = new BitSet(cellCount);
+        for(int k = 0; k < moveCount; k++){
+            if(moves[k] < 0 || moves[k] >= cellCount || cell(moves[k]) == Player.EMPTY || listed.get(moves[k])){
+                throw new IllegalArgumentException("The snapshot has an invalid list of the pieces.");
+            }
+            listed.set(moves[k]);
+        }
+        if(pieces != moveCount){
+            throw new IllegalArgumentException("The snapshot has an invalid list of the pieces.");
         }
-        lastPosition = newPosition;
-        return;
     }
 }
@@ -0,0 +1,210 @@
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
+
+/**
+ * The MoveGenerator class gives the moves of one node of the minimax search one at a time, in stages: the move from the
+ * transposition table, then the moves completing or blocking a five, making or blocking an open four and making a
+ * four, then the two killer moves of the ply, and last the other moves, best scored first. A stage is only computed
+ * when the moves of the stages before it are used up, so a node cut off by its first moves never scores the others,
+ * and the remaining moves are not sorted: the best of them is picked each time a move is asked for.
+ *
+ * <p>The search keeps one generator per ply in its SearchScratch, so the buffers are allocated once. The killer moves
+ * are the last two moves which cut off a node of the ply; they are kept from one node to the next.
+ */
+public class MoveGenerator {
+    // The stages
+    private static final int HASH = 0;
+    private static final int THREATS = 1;
+    private static final int KILLERS = 2;
+    private static final int SCORE = 3;
+    private static final int REST = 4;
+    private static final int DONE = 5;
+    // The kinds of threats of the threat stage, strongest first, and whether each is of the side to move or of the
+    // opponent
+    private static final int[] THREAT_KINDS = {ThreatIndex.FIVE, ThreatIndex.FIVE, ThreatIndex.OPEN_FOUR,
+            ThreatIndex.OPEN_FOUR, ThreatIndex.FOUR};
+    private static final boolean[] THREAT_OWN = {true, false, true, false, true};
+
+    // The other moves and their scores, from position taken to position count
+    private final int[] moves;
+    private final long[] scores;
+    // The positions given at the current node are marked with the stamp of the node
+    private final int[] given;
+    private int stamp;
+    // The killer moves of the ply, -1 if there is none
+    private int killer1 = -1;
+    private int killer2 = -1;
+    // The state of the current node
+    private int stage = DONE;
+    private int hashMove;
+    private ThreatIndex threats;
+    private Player mover;
+    private IntPredicate searched;
+    private IntToLongFunction scorer;
+    private int threatStep;
+    private int threatFrom;
+    private int killerStep;
+    private int count;
+    private int taken;
+
+    /**
+     * Constructor of the MoveGenerator class.
+     *
+     * @param cellCount the number of positions of the board
+     */
+    public MoveGenerator(int cellCount){
+        moves = new int[cellCount];
+        scores = new long[cellCount];
+        given = new int[cellCount];
+    }
+
+    /**
+     * Start the moves of a new node.
+     *
+     * @param hashMove the move from the transposition table, -1 if there is none
+     * @param threats the threats of the board of the node, null to skip the threat stage
+     * @param mover the side to move
+     * @param searched tells whether a position is a move of the node
+     * @param scorer gives the score of a move of the node, higher is better
+     */
+    public void reset(int hashMove, ThreatIndex threats, Player mover, IntPredicate searched, IntToLongFunction scorer){
+        if(++stamp == Integer.MAX_VALUE){
+            Arrays.fill(given, 0);
+            stamp = 1;
+        }
+        this.hashMove = hashMove;
+        this.threats = threats;
+        this.mover = mover;
+        this.searched = searched;
+        this.scorer = scorer;
+        stage = HASH;
+        threatStep = 0;
+        threatFrom = 0;
+        killerStep = 0;
+        count = 0;
+        taken = 0;
+    }
+
+    /**
+     * Get the next move of the node. Each move is given once.
+     *
+     * @return the move as row * boardSize + column, -1 if there is no move left
+     */
+    public int next(){
+        while(true){
+            switch (stage){
+                case HASH:{
+                    stage = THREATS;
+                    if(hashMove >= 0 && give(hashMove)){
+                        return hashMove;
+                    }
+                    break;
+                }
+                case THREATS:{
+                    while(threats != null && threatStep < THREAT_KINDS.length){
+                        Player owner = THREAT_OWN[threatStep] ? mover : (mover == Player.X) ? Player.O : Player.X;
+                        int index = threats.next(owner, THREAT_KINDS[threatStep], threatFrom);
+                        if(index < 0){
+                            threatStep++;
+                            threatFrom = 0;
+                        }
+                        else{
+                            threatFrom = index + 1;
+                            if(give(index)){
+                                return index;
+                            }
+                        }
+                    }
+                    stage = KILLERS;
+                    break;
+                }
+                case KILLERS:{
+                    while(killerStep < 2){
+                        int killer = (killerStep++ == 0) ? killer1 : killer2;
+                        if(killer >= 0 && give(killer)){
+                            return killer;
+                        }
+                    }
+                    stage = SCORE;
+                    break;
+                }
+                case SCORE:{
+                    for(int index = 0; index < given.length; index++){
+                        if(given[index] != stamp && searched.test(index)){
+                            moves[count] = index;
+                            scores[count] = scorer.applyAsLong(index);
+                            count++;
+                        }
+                    }
+                    stage = REST;
+                    break;
+                }
+                case REST:{
+                    if(taken == count){
+                        stage = DONE;
+                        break;
+                    }
+                    // Pick the best of the moves left, equal scores in the order of the rows
+                    int best = taken;
+                    for(int a = taken + 1; a < count; a++){
+                        if(scores[a] > scores[best] || (scores[a] == scores[best] && moves[a] < moves[best])){
+                            best = a;
+                        }
+                    }
+                    int move = moves[best];
+                    moves[best] = moves[taken];
+                    scores[best] = scores[taken];
+                    moves[taken++] = move;
+                    return move;
+                }
+                default:
+                    return -1;
+            }
+        }
+    }
+
+    /**
+     * Check whether the other moves of the node were scored, which only happens when the moves of the earlier
+     * stages did not cut the node off.
+     *
+     * @return true iif the last stage is reached
+     */
+    public boolean isScored(){
+        return stage >= REST;
+    }
+
+    /**
+     * Record a move which cut off a node of the ply, so it is tried early at the next nodes of the ply.
+     *
+     * @param move the move as row * boardSize + column
+     */
+    public void addKiller(int move){
+        if(move != killer1){
+            killer2 = killer1;
+            killer1 = move;
+        }
+    }
+
+    /**
+     * Forget the killer moves, before the search of a new board.
+     */
+    public void clearKillers(){
+        killer1 = -1;
+        killer2 = -1;
+    }
+
+    /**
+     * A helper function to give a move of an early stage once, if it is a move of the node.
+     *
+     * @param index the move
+     * @return true iif the move is given
+     */
+    private boolean give(int index){
+        if(given[index] == stamp || !searched.test(index)){
+            return false;
+        }
+        given[index] = stamp;
+        return true;
+    }
+}
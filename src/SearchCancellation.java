@@ -0,0 +1,26 @@
+/**
+ * The SearchCancellation class stops the searches of a Model from another thread, for example when the Abort button is
+ * clicked, when a client stops waiting or when a scheduler needs the worker back. The search looks at the token every
+ * 256 nodes, so a cancelled search ends within a few milliseconds and plays the best move found so far. A token stays
+ * cancelled; a new search needs a new token.
+ */
+public class SearchCancellation {
+    // Whether the searches must stop, written by any thread
+    private volatile boolean cancelled;
+
+    /**
+     * Stop the searches using this token.
+     */
+    public void cancel(){
+        cancelled = true;
+    }
+
+    /**
+     * Check whether the searches using this token must stop.
+     *
+     * @return true iif the token is cancelled
+     */
+    public boolean isCancelled(){
+        return cancelled;
+    }
+}
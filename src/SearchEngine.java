@@ -0,0 +1,16 @@
+/**
+ * The SearchEngine interface chooses the move of the AI player of a Model. moveAI asks the engine of the Model and
+ * plays its move, so the engines can be swapped and compared with the same settings of the Model: its time limit, its
+ * node budget and its cancellation token. MinimaxEngine is the minimax search of the Model, MctsEngine a Monte Carlo
+ * tree search.
+ */
+public interface SearchEngine {
+    /**
+     * Choose the move of the side to move of the game. The board of the game is not changed; the counts of the search
+     * go to the SearchStats of the game.
+     *
+     * @param game the game, with at least one empty position
+     * @return the position of the move
+     */
+    Position chooseMove(Model game);
+}
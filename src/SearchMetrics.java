@@ -0,0 +1,297 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The SearchMetrics class collects the search statistics of every moveAI call in the process and exposes them as the
+ * JMX MBean "FiveInARow:type=SearchMetrics". Every thread adds its moves to its own counters, which only that thread
+ * writes, so searching games on many threads do not contend on shared counters. The counters of all threads are summed
+ * when an attribute is read. The latencies of the last moves are kept in a rolling window.
+ */
+public class SearchMetrics implements SearchMetricsMBean {
+    // The name of the MBean
+    public static final String OBJECT_NAME = "FiveInARow:type=SearchMetrics";
+    // The number of moves kept in the rolling window of latencies
+    private static final int WINDOW = 1024;
+    // The only instance of the class
+    private static final SearchMetrics INSTANCE = new SearchMetrics();
+
+    /**
+     * The counters of one thread. Only the owner thread writes them, the volatile fields let other threads read them.
+     */
+    private static class Counters {
+        // The thread writing the counters
+        private final Thread owner = Thread.currentThread();
+        private volatile long moves;
+        private volatile long nodes;
+        private volatile long evaluations;
+        private volatile long cutoffs;
+        private volatile long tableProbes;
+        private volatile long tableHits;
+        private volatile long evaluationCacheProbes;
+        private volatile long evaluationCacheHits;
+        private volatile long evaluationNanosSaved;
+        private volatile long searchNanos;
+    }
+
+    // The counters of every thread which recorded a move
+    private final ConcurrentLinkedQueue<Counters> allCounters = new ConcurrentLinkedQueue<>();
+    // The counters of the current thread
+    private final ThreadLocal<Counters> localCounters = ThreadLocal.withInitial(() -> {
+        // A new thread also folds the dead ones, so the list only holds the live threads
+        retireDeadThreads();
+        Counters counters = new Counters();
+        allCounters.add(counters);
+        return counters;
+    });
+    // The counters of the threads that are not alive anymore, folded together when a thread records its first move
+    // or the attributes are read
+    private final Counters retired = new Counters();
+    // The counters subtracted after a reset
+    private final Counters offset = new Counters();
+    // The latencies of the last moves in nanoseconds
+    private final AtomicLongArray window = new AtomicLongArray(WINDOW);
+    // The number of latencies written to the window
+    private final AtomicLong windowCount = new AtomicLong();
+    // The window count at the last reset
+    private volatile long windowStart;
+    // The latency of the last move in nanoseconds
+    private volatile long lastLatency;
+    // The depth reached by the last search
+    private volatile int lastDepth;
+
+    /**
+     * Constructor of the SearchMetrics class. Use getInstance instead.
+     */
+    private SearchMetrics(){
+
+    }
+
+    /**
+     * Get the only instance of the class.
+     *
+     * @return the SearchMetrics of the process
+     */
+    public static SearchMetrics getInstance(){
+        return INSTANCE;
+    }
+
+    /**
+     * Register the MBean to the platform MBean server, so it can be read by jconsole or any other JMX client. It does
+     * nothing if the MBean is registered already.
+     *
+     * @throws IllegalStateException When the MBean can not be registered
+     */
+    public static synchronized void register() throws IllegalStateException{
+        try{
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if(!ManagementFactory.getPlatformMBeanServer().isRegistered(name)){
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, name);
+            }
+        } catch (JMException e){
+            throw new IllegalStateException("The search metrics can not be registered.", e);
+        }
+    }
+
+    /**
+     * Record one searched move. It is called by the thread which searched the move.
+     *
+     * @param stats the statistics of the search
+     * @param nanos the time of the move in nanoseconds
+     */
+    public void record(SearchStats stats, long nanos){
+        Counters counters = localCounters.get();
+        counters.moves = counters.moves + 1;
+        counters.nodes = counters.nodes + stats.getNodes();
+        counters.evaluations = counters.evaluations + stats.getLeafEvaluations();
+        counters.cutoffs = counters.cutoffs + stats.getBetaCutoffs();
+        counters.tableProbes = counters.tableProbes + stats.getTableProbes();
+        counters.tableHits = counters.tableHits + stats.getTableHits();
+        counters.evaluationCacheProbes = counters.evaluationCacheProbes + stats.getEvaluationCacheProbes();
+        counters.evaluationCacheHits = counters.evaluationCacheHits + stats.getEvaluationCacheHits();
+        counters.evaluationNanosSaved = counters.evaluationNanosSaved + stats.getEvaluationNanosSaved();
+        counters.searchNanos = counters.searchNanos + nanos;
+        lastLatency = nanos;
+        lastDepth = stats.getDepthReached();
+        window.set((int) (windowCount.getAndIncrement() % WINDOW), nanos);
+    }
+
+    /**
+     * A helper function to move the counters of the threads that are not alive anymore into the retired counters, so
+     * the list does not grow with short-lived threads.
+     */
+    private synchronized void retireDeadThreads(){
+        Iterator<Counters> iterator = allCounters.iterator();
+        while(iterator.hasNext()){
+            Counters counters = iterator.next();
+            if(!counters.owner.isAlive()){
+                add(retired, counters);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Get the number of threads whose counters are kept apart.
+     *
+     * @return the number of counters in the list
+     */
+    int getCountedThreads(){
+        return allCounters.size();
+    }
+
+    /**
+     * Sum the counters of all threads, after folding the threads that are not alive anymore.
+     *
+     * @return the sum of the counters since the last reset
+     */
+    private synchronized Counters sum(){
+        retireDeadThreads();
+        Counters total = new Counters();
+        for(Counters counters : allCounters){
+            add(total, counters);
+        }
+        add(total, retired);
+        total.moves -= offset.moves;
+        total.nodes -= offset.nodes;
+        total.evaluations -= offset.evaluations;
+        total.cutoffs -= offset.cutoffs;
+        total.tableProbes -= offset.tableProbes;
+        total.tableHits -= offset.tableHits;
+        total.evaluationCacheProbes -= offset.evaluationCacheProbes;
+        total.evaluationCacheHits -= offset.evaluationCacheHits;
+        total.evaluationNanosSaved -= offset.evaluationNanosSaved;
+        total.searchNanos -= offset.searchNanos;
+        return total;
+    }
+
+    /**
+     * A helper function to add the input counters to the target counters.
+     *
+     * @param target the counters to add to
+     * @param counters the counters to add
+     */
+    private static void add(Counters target, Counters counters){
+        target.moves += counters.moves;
+        target.nodes += counters.nodes;
+        target.evaluations += counters.evaluations;
+        target.cutoffs += counters.cutoffs;
+        target.tableProbes += counters.tableProbes;
+        target.tableHits += counters.tableHits;
+        target.evaluationCacheProbes += counters.evaluationCacheProbes;
+        target.evaluationCacheHits += counters.evaluationCacheHits;
+        target.evaluationNanosSaved += counters.evaluationNanosSaved;
+        target.searchNanos += counters.searchNanos;
+    }
+
+    /**
+     * Get the latencies in the rolling window, sorted.
+     *
+     * @return the sorted latencies in nanoseconds
+     */
+    private long[] sortedWindow(){
+        long count = Math.min(windowCount.get() - windowStart, WINDOW);
+        long[] latencies = new long[(int) Math.max(count, 0)];
+        long end = windowCount.get();
+        for(int i = 0; i < latencies.length; i++){
+            latencies[i] = window.get((int) ((end - 1 - i) % WINDOW));
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    @Override
+    public long getMovesSearched(){
+        return sum().moves;
+    }
+
+    @Override
+    public long getNodesSearched(){
+        return sum().nodes;
+    }
+
+    @Override
+    public long getEvaluationCalls(){
+        return sum().evaluations;
+    }
+
+    @Override
+    public double getNodesPerSecond(){
+        Counters total = sum();
+        return (total.searchNanos == 0) ? 0 : total.nodes * 1e9 / total.searchNanos;
+    }
+
+    @Override
+    public int getLastDepthReached(){
+        return lastDepth;
+    }
+
+    @Override
+    public double getTranspositionTableHitRate(){
+        Counters total = sum();
+        return (total.tableProbes == 0) ? 0 : (double) total.tableHits / total.tableProbes;
+    }
+
+    @Override
+    public double getEvaluationCacheHitRate(){
+        Counters total = sum();
+        return (total.evaluationCacheProbes == 0) ? 0 : (double) total.evaluationCacheHits / total.evaluationCacheProbes;
+    }
+
+    @Override
+    public double getEvaluationCacheSavedMillis(){
+        return sum().evaluationNanosSaved / 1e6;
+    }
+
+    @Override
+    public double getBetaCutoffRatio(){
+        Counters total = sum();
+        // The cutoffs can only happen at the inner nodes
+        long innerNodes = total.nodes - total.evaluations;
+        return (innerNodes <= 0) ? 0 : (double) total.cutoffs / innerNodes;
+    }
+
+    @Override
+    public double getLastMoveLatencyMillis(){
+        return lastLatency / 1e6;
+    }
+
+    @Override
+    public double getAverageLatencyMillis(){
+        long[] latencies = sortedWindow();
+        if(latencies.length == 0){
+            return 0;
+        }
+        long sum = 0;
+        for(long latency : latencies){
+            sum += latency;
+        }
+        return sum / 1e6 / latencies.length;
+    }
+
+    @Override
+    public double getMedianLatencyMillis(){
+        long[] latencies = sortedWindow();
+        return (latencies.length == 0) ? 0 : latencies[latencies.length / 2] / 1e6;
+    }
+
+    @Override
+    public double getP99LatencyMillis(){
+        long[] latencies = sortedWindow();
+        return (latencies.length == 0) ? 0 : latencies[(int) Math.ceil(latencies.length * 0.99) - 1] / 1e6;
+    }
+
+    @Override
+    public synchronized void reset(){
+        Counters total = sum();
+        add(offset, total);
+        windowStart = windowCount.get();
+        lastLatency = 0;
+        lastDepth = 0;
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * The SearchMetricsMBean interface is the management interface of the SearchMetrics class. JMX clients such as
+ * jconsole show every getter as one attribute and the reset method as one operation.
+ */
+public interface SearchMetricsMBean {
+    /**
+     * Get the number of moves searched by moveAI.
+     *
+     * @return the number of moves
+     */
+    long getMovesSearched();
+
+    /**
+     * Get the number of nodes visited by the minimax algorithm.
+     *
+     * @return the number of nodes
+     */
+    long getNodesSearched();
+
+    /**
+     * Get the number of calls of the evaluate method.
+     *
+     * @return the number of evaluations
+     */
+    long getEvaluationCalls();
+
+    /**
+     * Get the number of nodes searched per second of search time.
+     *
+     * @return the nodes per second
+     */
+    double getNodesPerSecond();
+
+    /**
+     * Get the depth reached by the last search.
+     *
+     * @return the depth of the last search
+     */
+    int getLastDepthReached();
+
+    /**
+     * Get the share of the transposition table lookups that found the board.
+     *
+     * @return the hit rate between 0 and 1
+     */
+    double getTranspositionTableHitRate();
+
+    /**
+     * Get the share of the leaf evaluations found in the evaluation cache.
+     *
+     * @return the hit rate between 0 and 1
+     */
+    double getEvaluationCacheHitRate();
+
+    /**
+     * Get the time the evaluation cache saved, estimated from the average time of the evaluations it did not find.
+     *
+     * @return the saved time in milliseconds
+     */
+    double getEvaluationCacheSavedMillis();
+
+    /**
+     * Get the share of the inner nodes whose remaining moves are cut off by the alpha-beta pruning.
+     *
+     * @return the cutoff ratio between 0 and 1
+     */
+    double getBetaCutoffRatio();
+
+    /**
+     * Get the time of the last move in milliseconds.
+     *
+     * @return the latency of the last move
+     */
+    double getLastMoveLatencyMillis();
+
+    /**
+     * Get the average time of the moves in the rolling window in milliseconds.
+     *
+     * @return the average latency
+     */
+    double getAverageLatencyMillis();
+
+    /**
+     * Get the median time of the moves in the rolling window in milliseconds.
+     *
+     * @return the median latency
+     */
+    double getMedianLatencyMillis();
+
+    /**
+     * Get the 99th percentile of the time of the moves in the rolling window in milliseconds.
+     *
+     * @return the 99th percentile latency
+     */
+    double getP99LatencyMillis();
+
+    /**
+     * Set all the counters to zero and empty the rolling window.
+     */
+    void reset();
+}
@@ -0,0 +1,478 @@
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The SearchScheduler class shares a few worker threads between the AI searches of many games, so a few deep searches
+ * can not starve the others. A search goes one depth deeper at a time, and every depth is one slice of work. After
+ * each slice, the search goes back to the end of the queue of its priority class and the worker takes the next slice,
+ * so the searches are preempted between two depths of the iterative deepening. The classes share the workers by their
+ * weights with stride scheduling: interactive searches get four slices and standard searches two slices for each slice
+ * of a background search, as long as all of them are waiting.
+ *
+ * <p>The time limit of a search, see EngineConfig, counts from the submit, so the time waited in the queue is part of
+ * it and the latency of one move stays bounded under load. A node budget counts the nodes of all the slices. A search
+ * submitted with a SearchCancellation plays the best move found so far as soon as the token is cancelled, whether it
+ * waits in the queue or runs. A Model whose engine has no depths, like the Monte Carlo tree search, is searched in one
+ * slice with the time left. The queue depths and the waiting times are exposed as the JMX MBean
+ * "FiveInARow:type=SearchScheduler".
+ */
+public class SearchScheduler implements SearchSchedulerMBean, Closeable {
+    // The name of the MBean
+    public static final String OBJECT_NAME = "FiveInARow:type=SearchScheduler";
+
+    /**
+     * The priority classes of the searches.
+     */
+    public enum Priority {
+        // A human waits for the move
+        INTERACTIVE(4),
+        // AI vs AI games which are watched
+        STANDARD(2),
+        // Self-play and analysis nobody waits for
+        BACKGROUND(1);
+
+        // The share of the slices when all classes are waiting
+        private final int weight;
+
+        Priority(int weight){
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * One search between its slices.
+     */
+    private static class Job {
+        private Model model;
+        private EngineConfig config;
+        private Priority priority;
+        // The token which stops the search, null if it can not be cancelled
+        private SearchCancellation cancellation;
+        private CompletableFuture<Position> future = new CompletableFuture<>();
+        // The time of the submit
+        private long submitted;
+        // The time limit counted from the submit in nanoseconds, 0 means no limit
+        private long budget;
+        // The largest number of nodes of all the slices, 0 means no limit
+        private long nodeBudget;
+        // The time the job was put into the queue the last time
+        private long enqueued;
+        // The deepest completed depth
+        private int depth;
+        // The result of the minimax method at the deepest completed depth
+        private Object[] best;
+        // The move played when the job is finished
+        private Position move;
+    }
+
+    // The waiting jobs of each priority class
+    private final ArrayDeque<Job>[] queues;
+    // The virtual time of each priority class for the stride scheduling
+    private final double[] pass;
+    // The virtual time of the last class which got a slice
+    private double globalPass;
+    // The largest number of jobs waiting or running
+    private final int capacity;
+    // The number of jobs waiting or running
+    private int pending;
+    private int running;
+    private boolean closed;
+    // The metrics
+    private long completed;
+    private long rejected;
+    private long preemptions;
+    private final long[] waitNanos;
+    private final long[] waitCount;
+    private long maxWaitNanos;
+
+    /**
+     * Constructor of the SearchScheduler class. The worker threads start at once.
+     *
+     * @param threads the number of worker threads
+     * @param capacity the largest number of searches waiting or running; more searches are refused
+     * @throws IllegalArgumentException When the number of threads or the capacity is not positive
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SearchScheduler(int threads, int capacity) throws IllegalArgumentException{
+        if(threads <= 0 || capacity <= 0){
+            throw new IllegalArgumentException("The number of threads and the capacity must be positive.");
+        }
+        int classes = Priority.values().length;
+        this.capacity = capacity;
+        queues = new ArrayDeque[classes];
+        for(int c = 0; c < classes; c++){
+            queues[c] = new ArrayDeque<>();
+        }
+        pass = new double[classes];
+        waitNanos = new long[classes];
+        waitCount = new long[classes];
+        for(int t = 0; t < threads; t++){
+            Thread worker = new Thread(this::work, "SearchScheduler-" + t);
+            // The process does not wait for a search nobody needs anymore
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /**
+     * Submit the AI move of the side to move of the input game. The Model must not be used until the future is
+     * completed. When the search ends, the move is placed on the board like moveAI and the future gets its position.
+     *
+     * @param model the game
+     * @param config the settings of the search
+     * @param priority the priority class
+     * @return the future position of the move
+     * @throws RejectedExecutionException When the scheduler is full or closed
+     */
+    public CompletableFuture<Position> submit(Model model, EngineConfig config, Priority priority)
+            throws RejectedExecutionException{
+        return submit(model, config, priority, null);
+    }
+
+    /**
+     * Submit the AI move of the side to move of the input game, which can be stopped from another thread. Once the
+     * token is cancelled, the search ends at its next check and the best move found so far is played like moveAI.
+     *
+     * @param model the game
+     * @param config the settings of the search
+     * @param priority the priority class
+     * @param cancellation the token which stops the search, null if it can not be cancelled
+     * @return the future position of the move
+     * @throws RejectedExecutionException When the scheduler is full or closed
+     */
+    public synchronized CompletableFuture<Position> submit(Model model, EngineConfig config, Priority priority,
+                                                           SearchCancellation cancellation)
+            throws RejectedExecutionException{
+        if(closed || pending >= capacity){
+            rejected++;
+            throw new RejectedExecutionException(closed ? "The scheduler is closed." : "The scheduler is full.");
+        }
+        Job job = new Job();
+        job.model = model;
+        job.config = config;
+        job.priority = priority;
+        job.cancellation = cancellation;
+        job.submitted = System.nanoTime();
+        job.budget = config.getTime() * 1000000;
+        job.nodeBudget = config.getNodes();
+        pending++;
+        enqueue(job);
+        notify();
+        return job.future;
+    }
+
+    /**
+     * Register the MBean to the platform MBean server. It does nothing if an MBean with the same name is registered.
+     *
+     * @throws IllegalStateException When the MBean can not be registered
+     */
+    public void register() throws IllegalStateException{
+        try{
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if(!ManagementFactory.getPlatformMBeanServer().isRegistered(name)){
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            }
+        } catch (JMException e){
+            throw new IllegalStateException("The scheduler metrics can not be registered.", e);
+        }
+    }
+
+    /**
+     * Stop the workers after their current slices. The waiting searches are cancelled.
+     */
+    @Override
+    public synchronized void close(){
+        closed = true;
+        for(ArrayDeque<Job> queue : queues){
+            for(Job job : queue){
+                job.future.completeExceptionally(new CancellationException("The scheduler is closed."));
+            }
+            pending -= queue.size();
+            queue.clear();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Get the number of searches of one priority class waiting for a worker thread.
+     *
+     * @param priority the priority class
+     * @return the number of waiting searches
+     */
+    public synchronized int getQueueDepth(Priority priority){
+        return queues[priority.ordinal()].size();
+    }
+
+    /**
+     * Get the average time a slice of one priority class waited in the queue.
+     *
+     * @param priority the priority class
+     * @return the average wait in milliseconds
+     */
+    public synchronized double getAverageWaitMillis(Priority priority){
+        int c = priority.ordinal();
+        return (waitCount[c] == 0) ? 0 : waitNanos[c] / 1e6 / waitCount[c];
+    }
+
+    @Override
+    public synchronized int getQueueDepth(){
+        int depth = 0;
+        for(ArrayDeque<Job> queue : queues){
+            depth += queue.size();
+        }
+        return depth;
+    }
+
+    @Override
+    public int getInteractiveQueueDepth(){
+        return getQueueDepth(Priority.INTERACTIVE);
+    }
+
+    @Override
+    public int getBackgroundQueueDepth(){
+        return getQueueDepth(Priority.BACKGROUND);
+    }
+
+    @Override
+    public synchronized int getPendingSearches(){
+        return pending;
+    }
+
+    @Override
+    public synchronized int getRunningSearches(){
+        return running;
+    }
+
+    @Override
+    public synchronized long getCompletedSearches(){
+        return completed;
+    }
+
+    @Override
+    public synchronized long getRejectedSearches(){
+        return rejected;
+    }
+
+    @Override
+    public synchronized long getPreemptions(){
+        return preemptions;
+    }
+
+    @Override
+    public synchronized double getAverageWaitMillis(){
+        long nanos = 0;
+        long count = 0;
+        for(int c = 0; c < waitNanos.length; c++){
+            nanos += waitNanos[c];
+            count += waitCount[c];
+        }
+        return (count == 0) ? 0 : nanos / 1e6 / count;
+    }
+
+    @Override
+    public double getInteractiveAverageWaitMillis(){
+        return getAverageWaitMillis(Priority.INTERACTIVE);
+    }
+
+    @Override
+    public synchronized double getMaxWaitMillis(){
+        return maxWaitNanos / 1e6;
+    }
+
+    /**
+     * The loop of one worker thread.
+     */
+    private void work(){
+        while(true){
+            Job job = take();
+            if(job == null){
+                return;
+            }
+            boolean done;
+            RuntimeException error = null;
+            try{
+                done = runSlice(job);
+            } catch (RuntimeException e){
+                error = e;
+                done = true;
+            }
+            synchronized(this){
+                running--;
+                if(done){
+                    pending--;
+                    completed++;
+                }
+                else if(closed){
+                    pending--;
+                    job.future.completeExceptionally(new CancellationException("The scheduler is closed."));
+                }
+                else{
+                    if(getQueueDepth() > 0){
+                        preemptions++;
+                    }
+                    enqueue(job);
+                    notify();
+                }
+            }
+            // The future is completed after the counts, so a caller waiting for it sees them
+            if(error != null){
+                job.future.completeExceptionally(error);
+            }
+            else if(done){
+                job.future.complete(job.move);
+            }
+        }
+    }
+
+    /**
+     * A helper function to put a job at the end of the queue of its class. A class which was empty does not keep the
+     * slices it missed, so it can not take all the workers for a while when it wakes up.
+     *
+     * @param job the job
+     */
+    private void enqueue(Job job){
+        int c = job.priority.ordinal();
+        if(queues[c].isEmpty()){
+            pass[c] = Math.max(pass[c], globalPass);
+        }
+        job.enqueued = System.nanoTime();
+        queues[c].add(job);
+    }
+
+    /**
+     * A helper function to wait for the next slice. The class with the smallest virtual time among the waiting classes
+     * gets the slice, and its virtual time moves on by the inverse of its weight. Only close stops the workers: an
+     * interrupt does not end the wait, so the pool never shrinks without a trace, and it is set again on the thread
+     * when the wait ends.
+     *
+     * @return the job of the next slice, null when the scheduler is closed
+     */
+    private synchronized Job take(){
+        boolean interrupted = false;
+        try{
+            while(true){
+                if(closed){
+                    return null;
+                }
+                int best = -1;
+                for(int c = 0; c < queues.length; c++){
+                    if(!queues[c].isEmpty() && (best < 0 || pass[c] < pass[best])){
+                        best = c;
+                    }
+                }
+                if(best >= 0){
+                    globalPass = pass[best];
+                    pass[best] += 1.0 / Priority.values()[best].weight;
+                    Job job = queues[best].poll();
+                    long wait = System.nanoTime() - job.enqueued;
+                    waitNanos[best] += wait;
+                    waitCount[best]++;
+                    maxWaitNanos = Math.max(maxWaitNanos, wait);
+                    running++;
+                    return job;
+                }
+                try{
+                    wait();
+                } catch (InterruptedException e){
+                    interrupted = true;
+                }
+            }
+        } finally{
+            if(interrupted){
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * A helper function to search one more depth of a job, or finish the job.
+     *
+     * @param job the job
+     * @return true iif the job is finished and its move is played
+     */
+    private boolean runSlice(Job job){
+        Model model = job.model;
+        SearchStats stats = model.getSearchStats();
+        boolean cancelled = job.cancellation != null && job.cancellation.isCancelled();
+        if(cancelled && job.best != null){
+            // Cancelled while waiting for this slice, the deepest completed depth is played
+            finish(job, new Position((Integer)(job.best[1]), (Integer)(job.best[2])));
+            return true;
+        }
+        // The token of the job is only set while one of its slices runs, the Model may be shared between jobs
+        model.setCancellation(job.cancellation);
+        if(job.best == null){
+            job.config.applyTo(model);
+            model.startMove();
+            stats.reset();
+            Position win = model.findWinningMove();
+            if(win != null){
+                finish(job, win);
+                return true;
+            }
+            if(!(model.getEngine() instanceof MinimaxEngine)){
+                // An engine without depths is searched in one slice, with the time left since the submit
+                if(job.budget > 0){
+                    model.setTimeBudget(Math.max(1, (job.budget - (System.nanoTime() - job.submitted)) / 1000000));
+                }
+                Position move;
+                try{
+                    move = model.getEngine().chooseMove(model);
+                } finally{
+                    model.setCancellation(null);
+                }
+                finish(job, move);
+                return true;
+            }
+        }
+        int depth = job.depth + 1;
+        // The depth 1 is always completed, so there is a move to play
+        long deadline = (depth == 1 || job.budget == 0) ? Long.MAX_VALUE : job.submitted + job.budget;
+        long nodeLimit = (depth == 1 || job.nodeBudget == 0) ? Long.MAX_VALUE : job.nodeBudget;
+        Object[] result;
+        try{
+            result = model.searchDepth(depth, deadline, nodeLimit);
+        } finally{
+            model.setCancellation(null);
+        }
+        if(job.cancellation != null && job.cancellation.isCancelled()){
+            // The depth is not completed, its best move so far is only played when no depth is
+            if(job.best == null){
+                job.best = result;
+            }
+            finish(job, new Position((Integer)(job.best[1]), (Integer)(job.best[2])));
+            return true;
+        }
+        if(result != null){
+            job.best = result;
+            job.depth = depth;
+            stats.setDepthReached(depth);
+            stats.setScore((Double)(result[0]));
+        }
+        boolean outOfTime = job.budget > 0 && System.nanoTime() - job.submitted > job.budget / 2;
+        if(result == null || job.depth >= model.getH() || outOfTime){
+            finish(job, new Position((Integer)(job.best[1]), (Integer)(job.best[2])));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * A helper function to place the move of a finished job.
+     *
+     * @param job the job
+     * @param position the move
+     */
+    private void finish(Job job, Position position){
+        Model model = job.model;
+        model.placeChessOnPosition(position, (model.getTurn() == 1) ? Player.X : Player.O);
+        SearchMetrics.getInstance().record(model.getSearchStats(), System.nanoTime() - job.submitted);
+        job.move = position;
+    }
+}
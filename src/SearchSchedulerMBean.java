@@ -0,0 +1,82 @@
+/**
+ * The SearchSchedulerMBean interface is the management interface of the SearchScheduler class. JMX clients such as
+ * jconsole show every getter as one attribute.
+ */
+public interface SearchSchedulerMBean {
+    /**
+     * Get the number of searches waiting for a worker thread.
+     *
+     * @return the number of waiting searches of all priority classes
+     */
+    int getQueueDepth();
+
+    /**
+     * Get the number of interactive searches waiting for a worker thread.
+     *
+     * @return the number of waiting interactive searches
+     */
+    int getInteractiveQueueDepth();
+
+    /**
+     * Get the number of background searches waiting for a worker thread.
+     *
+     * @return the number of waiting background searches
+     */
+    int getBackgroundQueueDepth();
+
+    /**
+     * Get the number of searches submitted and not finished yet, waiting or running.
+     *
+     * @return the number of pending searches
+     */
+    int getPendingSearches();
+
+    /**
+     * Get the number of searches running on a worker thread.
+     *
+     * @return the number of running searches
+     */
+    int getRunningSearches();
+
+    /**
+     * Get the number of searches completed.
+     *
+     * @return the number of completed searches
+     */
+    long getCompletedSearches();
+
+    /**
+     * Get the number of searches refused because the scheduler was full.
+     *
+     * @return the number of refused searches
+     */
+    long getRejectedSearches();
+
+    /**
+     * Get the number of times a search gave way to another search between two depths.
+     *
+     * @return the number of preemptions
+     */
+    long getPreemptions();
+
+    /**
+     * Get the average time a slice of a search waited in the queue.
+     *
+     * @return the average wait in milliseconds
+     */
+    double getAverageWaitMillis();
+
+    /**
+     * Get the average time a slice of an interactive search waited in the queue.
+     *
+     * @return the average wait in milliseconds
+     */
+    double getInteractiveAverageWaitMillis();
+
+    /**
+     * Get the longest time a slice of a search waited in the queue.
+     *
+     * @return the longest wait in milliseconds
+     */
+    double getMaxWaitMillis();
+}
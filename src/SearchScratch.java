@@ -0,0 +1,160 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The SearchScratch class holds what a Model needs only while it searches: the two dimensional board the minimax
+ * method works on, the deadline and the node limit of the search and whether the search passed them. A Model borrows
+ * one from a shared pool when a search starts and gives it back when the search ends, so an idle game only keeps its
+ * compact board. The pool keeps one list of free scratches per board size, and never holds more scratches than
+ * searches ran at the same time.
+ * A scratch also keeps the move generators of the staged moves with the moves of their nodes, and the buffers of the
+ * beam, one per ply, created when the ply is first reached, and the table of the analyses of the Models without a
+ * table.
+ */
+public class SearchScratch {
+    // The free scratches of each board size
+    private static final ConcurrentHashMap<Integer, ConcurrentLinkedQueue<SearchScratch>> POOL =
+            new ConcurrentHashMap<>();
+
+    // The board of the search, filled by the Model
+    Player[][] board;
+    // The time when the search must stop, in the unit of System.nanoTime; Long.MAX_VALUE means no limit
+    long deadline;
+    // The number of nodes of the SearchStats at which the search must stop; Long.MAX_VALUE means no limit
+    long nodeLimit;
+    // Whether the search passed the deadline or the node limit; its result is not complete and is not used
+    boolean aborted;
+    // The move generators indexed by ply
+    private MoveGenerator[] generators = new MoveGenerator[0];
+    // The moves of the node of each ply given to its generator
+    private Model.NodeMoves[] nodeMoves = new Model.NodeMoves[0];
+    // The moves and the scores of the beam indexed by ply
+    private int[][] beamMoves = new int[0][];
+    private long[][] beamScores = new long[0][];
+    // The table of an analysis when the Model has no table, created when it is first asked for
+    private TranspositionTable analysisTable;
+
+    /**
+     * Constructor of the SearchScratch class. Use borrow instead.
+     *
+     * @param boardSize the number of row or column in the board
+     */
+    private SearchScratch(int boardSize){
+        board = new Player[boardSize][boardSize];
+    }
+
+    /**
+     * Take a free scratch of the input board size from the pool, or create one if there is none.
+     *
+     * @param boardSize the number of row or column in the board
+     * @return a scratch without deadline
+     */
+    public static SearchScratch borrow(int boardSize){
+        SearchScratch scratch = POOL.computeIfAbsent(boardSize, size -> new ConcurrentLinkedQueue<>()).poll();
+        if(scratch == null){
+            scratch = new SearchScratch(boardSize);
+        }
+        scratch.deadline = Long.MAX_VALUE;
+        scratch.nodeLimit = Long.MAX_VALUE;
+        scratch.aborted = false;
+        for(MoveGenerator generator : scratch.generators){
+            if(generator != null){
+                generator.clearKillers();
+            }
+        }
+        return scratch;
+    }
+
+    /**
+     * Get the move generator of a ply of the search, created when it is first asked for.
+     *
+     * @param ply the number of moves from the root
+     * @return the move generator of the ply
+     */
+    public MoveGenerator generator(int ply){
+        if(ply >= generators.length){
+            generators = Arrays.copyOf(generators, ply + 8);
+        }
+        if(generators[ply] == null){
+            generators[ply] = new MoveGenerator(board.length * board.length);
+        }
+        return generators[ply];
+    }
+
+    /**
+     * Get the moves of the node of a ply of the search, for its move generator, created when it is first asked for.
+     *
+     * @param ply the number of moves from the root
+     * @return the moves of the node of the ply, to reset for each node
+     */
+    public Model.NodeMoves nodeMoves(int ply){
+        if(ply >= nodeMoves.length){
+            nodeMoves = Arrays.copyOf(nodeMoves, ply + 8);
+        }
+        if(nodeMoves[ply] == null){
+            nodeMoves[ply] = new Model.NodeMoves();
+        }
+        return nodeMoves[ply];
+    }
+
+    /**
+     * Get the buffer of the moves of the beam of a ply of the search, created when it is first asked for.
+     *
+     * @param ply the number of moves from the root
+     * @return a buffer of one entry per position
+     */
+    public int[] beamMoves(int ply){
+        if(ply >= beamMoves.length){
+            beamMoves = Arrays.copyOf(beamMoves, ply + 8);
+        }
+        if(beamMoves[ply] == null){
+            beamMoves[ply] = new int[board.length * board.length];
+        }
+        return beamMoves[ply];
+    }
+
+    /**
+     * Get the buffer of the scores of the beam of a ply of the search, created when it is first asked for.
+     *
+     * @param ply the number of moves from the root
+     * @return a buffer of one entry per position
+     */
+    public long[] beamScores(int ply){
+        if(ply >= beamScores.length){
+            beamScores = Arrays.copyOf(beamScores, ply + 8);
+        }
+        if(beamScores[ply] == null){
+            beamScores[ply] = new long[board.length * board.length];
+        }
+        return beamScores[ply];
+    }
+
+    /**
+     * Get the transposition table of an analysis of a Model without a table, created when it is first asked for and
+     * cleared for every analysis.
+     *
+     * @return an empty table
+     */
+    public TranspositionTable analysisTable(){
+        if(analysisTable == null){
+            analysisTable = new TranspositionTable(1 << 16);
+        }
+        else{
+            analysisTable.clear();
+        }
+        return analysisTable;
+    }
+
+    /**
+     * Give the scratch back to the pool. It must not be used anymore.
+     */
+    public void release(){
+        for(Model.NodeMoves moves : nodeMoves){
+            if(moves != null){
+                moves.clear();
+            }
+        }
+        POOL.get(board.length).add(this);
+    }
+}
@@ -0,0 +1,303 @@
+/**
+ * The SearchStats class counts what the minimax algorithm does during one search: how many nodes are visited, how many
+ * leaf nodes are evaluated and how many times the alpha-beta pruning cuts off the remaining moves of a node. The counts
+ * only depend on the board and the depth, not on the speed of the machine, so they are used to compare the search
+ * before and after a change.
+ */
+public class SearchStats {
+    // The number of calls of the minimax method
+    private long nodes;
+    // The number of calls of the evaluate method at the leaf nodes
+    private long leafEvaluations;
+    // The number of nodes searched by the quiescence search after the depth of the minimax method, also counted in
+    // nodes
+    private long quiescenceNodes;
+    // The number of nodes whose remaining moves are cut off by the alpha-beta pruning
+    private long betaCutoffs;
+    // The number of late moves searched at a reduced depth
+    private long lateMoveReductions;
+    // The number of reduced late moves searched again at the full depth because they looked good
+    private long lateMoveResearches;
+    // The number of nodes cut off by a null move, after the verification search
+    private long nullMoveCutoffs;
+    // The number of lookups in the transposition table
+    private long tableProbes;
+    // The number of lookups in the transposition table that found the board
+    private long tableHits;
+    // The number of leaf evaluations looked up in the evaluation cache
+    private long evaluationCacheProbes;
+    // The number of leaf evaluations found in the evaluation cache
+    private long evaluationCacheHits;
+    // The time of the leaf evaluations which were not found in the evaluation cache, in nanoseconds
+    private long evaluationNanos;
+    // The depth of the last completed search
+    private int depthReached;
+    // The score of the best move of the last completed search
+    private double score;
+
+    /**
+     * Set all the counts to zero.
+     */
+    public void reset(){
+        nodes = 0;
+        quiescenceNodes = 0;
+        leafEvaluations = 0;
+        betaCutoffs = 0;
+        lateMoveReductions = 0;
+        lateMoveResearches = 0;
+        nullMoveCutoffs = 0;
+        tableProbes = 0;
+        tableHits = 0;
+        evaluationCacheProbes = 0;
+        evaluationCacheHits = 0;
+        evaluationNanos = 0;
+        depthReached = 0;
+        score = 0;
+    }
+
+    /**
+     * Count one visited node.
+     */
+    public void countNode(){
+        nodes++;
+    }
+
+    /**
+     * Count one node of the quiescence search, which is also a visited node.
+     */
+    public void countQuiescenceNode(){
+        nodes++;
+        quiescenceNodes++;
+    }
+
+    /**
+     * Count one leaf evaluation.
+     */
+    public void countLeafEvaluation(){
+        leafEvaluations++;
+    }
+
+    /**
+     * Count one cutoff.
+     */
+    public void countBetaCutoff(){
+        betaCutoffs++;
+    }
+
+    /**
+     * Count one late move searched at a reduced depth.
+     *
+     * @param researched whether the move is searched again at the full depth
+     */
+    public void countLateMoveReduction(boolean researched){
+        lateMoveReductions++;
+        if(researched){
+            lateMoveResearches++;
+        }
+    }
+
+    /**
+     * Count one node cut off by a null move.
+     */
+    public void countNullMoveCutoff(){
+        nullMoveCutoffs++;
+    }
+
+    /**
+     * Count one lookup in the transposition table.
+     *
+     * @param hit whether the board is found in the table
+     */
+    public void countTableProbe(boolean hit){
+        tableProbes++;
+        if(hit){
+            tableHits++;
+        }
+    }
+
+    /**
+     * Count one lookup in the evaluation cache.
+     *
+     * @param hit whether the score of the board is found in the cache
+     */
+    public void countEvaluationCacheProbe(boolean hit){
+        evaluationCacheProbes++;
+        if(hit){
+            evaluationCacheHits++;
+        }
+    }
+
+    /**
+     * Add the time of one evaluation which was not found in the evaluation cache.
+     *
+     * @param nanos the time of the evaluation in nanoseconds
+     */
+    public void addEvaluationNanos(long nanos){
+        evaluationNanos += nanos;
+    }
+
+    /**
+     * Set the depth of the last completed search.
+     *
+     * @param depth the depth of the search
+     */
+    public void setDepthReached(int depth){
+        depthReached = depth;
+    }
+
+    /**
+     * Set the score of the best move of the last completed search.
+     *
+     * @param score the score of the best move
+     */
+    public void setScore(double score){
+        this.score = score;
+    }
+
+    /**
+     * Get the number of visited nodes.
+     *
+     * @return the number of visited nodes
+     */
+    public long getNodes(){
+        return nodes;
+    }
+
+    /**
+     * Get the number of nodes searched by the quiescence search.
+     *
+     * @return the number of quiescence nodes
+     */
+    public long getQuiescenceNodes(){
+        return quiescenceNodes;
+    }
+
+    /**
+     * Get the number of leaf evaluations.
+     *
+     * @return the number of leaf evaluations
+     */
+    public long getLeafEvaluations(){
+        return leafEvaluations;
+    }
+
+    /**
+     * Get the number of cutoffs.
+     *
+     * @return the number of cutoffs
+     */
+    public long getBetaCutoffs(){
+        return betaCutoffs;
+    }
+
+    /**
+     * Get the number of late moves searched at a reduced depth.
+     *
+     * @return the number of reduced moves
+     */
+    public long getLateMoveReductions(){
+        return lateMoveReductions;
+    }
+
+    /**
+     * Get the number of reduced late moves searched again at the full depth.
+     *
+     * @return the number of searches again
+     */
+    public long getLateMoveResearches(){
+        return lateMoveResearches;
+    }
+
+    /**
+     * Get the number of nodes cut off by a null move.
+     *
+     * @return the number of null move cutoffs
+     */
+    public long getNullMoveCutoffs(){
+        return nullMoveCutoffs;
+    }
+
+    /**
+     * Get the number of lookups in the transposition table.
+     *
+     * @return the number of lookups
+     */
+    public long getTableProbes(){
+        return tableProbes;
+    }
+
+    /**
+     * Get the number of lookups in the transposition table that found the board.
+     *
+     * @return the number of hits
+     */
+    public long getTableHits(){
+        return tableHits;
+    }
+
+    /**
+     * Get the number of lookups in the evaluation cache.
+     *
+     * @return the number of lookups
+     */
+    public long getEvaluationCacheProbes(){
+        return evaluationCacheProbes;
+    }
+
+    /**
+     * Get the number of lookups in the evaluation cache that found the board.
+     *
+     * @return the number of hits
+     */
+    public long getEvaluationCacheHits(){
+        return evaluationCacheHits;
+    }
+
+    /**
+     * Get the share of the lookups in the evaluation cache that found the board.
+     *
+     * @return the hit rate between 0 and 1, 0 if the cache is not used
+     */
+    public double getEvaluationCacheHitRate(){
+        return (evaluationCacheProbes == 0) ? 0 : (double)evaluationCacheHits / evaluationCacheProbes;
+    }
+
+    /**
+     * Get the time the evaluation cache saved, estimated as the number of hits times the average time of the
+     * evaluations which were not found.
+     *
+     * @return the saved time in nanoseconds
+     */
+    public long getEvaluationNanosSaved(){
+        long misses = evaluationCacheProbes - evaluationCacheHits;
+        return (misses == 0) ? 0 : evaluationNanos / misses * evaluationCacheHits;
+    }
+
+    /**
+     * Get the depth of the last completed search.
+     *
+     * @return the depth of the search, 0 if no search is completed
+     */
+    public int getDepthReached(){
+        return depthReached;
+    }
+
+    /**
+     * Get the score of the best move of the last completed search.
+     *
+     * @return the score of the best move, 0 if no search is completed
+     */
+    public double getScore(){
+        return score;
+    }
+
+    /**
+     * Get the counts as a text.
+     *
+     * @return the counts as a text
+     */
+    @Override
+    public String toString(){
+        return "nodes=" + nodes + " leaves=" + leafEvaluations + " cutoffs=" + betaCutoffs;
+    }
+}
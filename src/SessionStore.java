@@ -0,0 +1,147 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The SessionStore class keeps suspended games outside of the heap, in a memory mapped file of fixed size slots. A game
+ * is written to a free slot with Model.writeSnapshot and read back with Model.readSnapshot, so suspending or resuming
+ * an idle game only copies a few hundred bytes and the operating system decides which slots stay in memory. A server
+ * can keep only its active games on the heap and many more suspended games in the store.
+ *
+ * <p>Each slot starts with the length of its snapshot as an int, 0 for a free slot. The store is a cache of one run
+ * of the program: it starts empty and the file is cleared when the store is opened.
+ */
+public class SessionStore implements Closeable {
+    // The bytes of the length before each snapshot
+    private static final int LENGTH_BYTES = Integer.BYTES;
+
+    // The file of the slots
+    private RandomAccessFile file;
+    // The whole file mapped in memory
+    private MappedByteBuffer slots;
+    // The number of bytes of one slot
+    private int slotSize;
+    // The free slots, the next free slot is at freeSlots[freeCount - 1]
+    private int[] freeSlots;
+    private int freeCount;
+
+    /**
+     * Constructor of the SessionStore class. The file is created or cleared, and mapped in memory.
+     *
+     * @param path the file of the slots
+     * @param slotCount the number of slots, which is the largest number of suspended games
+     * @param boardSize the largest board size of the games; the slots are large enough for a full board of this size
+     * @throws IllegalArgumentException When the number of slots is not positive, the board size is less than 5, or the
+     *         file would be larger than 2 GB
+     * @throws IOException When the file can not be created or mapped
+     */
+    public SessionStore(File path, int slotCount, int boardSize) throws IllegalArgumentException, IOException{
+        if(slotCount <= 0 || boardSize < 5){
+            throw new IllegalArgumentException("The number of slots must be positive and the board size at least 5.");
+        }
+        slotSize = LENGTH_BYTES + Model.getMaxSnapshotSize(boardSize);
+        if((long)slotSize * slotCount > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("The store can not be larger than 2 GB.");
+        }
+        file = new RandomAccessFile(path, "rw");
+        // A new length fills the file with zeros, so every slot is free
+        file.setLength(0);
+        file.setLength((long)slotSize * slotCount);
+        slots = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, (long)slotSize * slotCount);
+        freeSlots = new int[slotCount];
+        for(int k = 0; k < slotCount; k++){
+            // The slot 0 is taken first
+            freeSlots[k] = slotCount - 1 - k;
+        }
+        freeCount = slotCount;
+    }
+
+    /**
+     * Write the game to a free slot. The Model can be dropped afterwards.
+     *
+     * @param model the game, which is not searching
+     * @return the slot of the game
+     * @throws IllegalStateException When there is no free slot
+     * @throws IllegalArgumentException When the board of the game is larger than the board size of the store
+     */
+    public synchronized int save(Model model) throws IllegalStateException, IllegalArgumentException{
+        if(model.getSnapshotSize() > slotSize - LENGTH_BYTES){
+            throw new IllegalArgumentException("The board is too large for the store.");
+        }
+        if(freeCount == 0){
+            throw new IllegalStateException("The store is full.");
+        }
+        int slot = freeSlots[--freeCount];
+        ByteBuffer buffer = slot(slot);
+        buffer.putInt(model.getSnapshotSize());
+        model.writeSnapshot(buffer);
+        return slot;
+    }
+
+    /**
+     * Read the game of a slot and free the slot.
+     *
+     * @param slot the slot returned by save
+     * @return the game
+     * @throws IllegalArgumentException When the slot is not used
+     */
+    public synchronized Model resume(int slot) throws IllegalArgumentException{
+        Model model = load(slot);
+        slot(slot).putInt(0);
+        freeSlots[freeCount++] = slot;
+        return model;
+    }
+
+    /**
+     * Read the game of a slot. The slot stays used.
+     *
+     * @param slot the slot returned by save
+     * @return the game
+     * @throws IllegalArgumentException When the slot is not used
+     */
+    public synchronized Model load(int slot) throws IllegalArgumentException{
+        ByteBuffer buffer = slot(slot);
+        if(buffer.getInt() == 0){
+            throw new IllegalArgumentException("The slot " + slot + " is not used.");
+        }
+        return Model.readSnapshot(buffer);
+    }
+
+    /**
+     * Get the number of slots which can still be saved to.
+     *
+     * @return the number of free slots
+     */
+    public synchronized int getFreeSlots(){
+        return freeCount;
+    }
+
+    /**
+     * Write the used slots to the file and close it. The store can not be used afterwards.
+     *
+     * @throws IOException When the file can not be closed
+     */
+    @Override
+    public synchronized void close() throws IOException{
+        slots.force();
+        file.close();
+    }
+
+    /**
+     * A helper function to get the bytes of one slot.
+     *
+     * @param slot the slot
+     * @return a buffer over the slot, at the start of the slot
+     * @throws IllegalArgumentException When the slot is not in the store
+     */
+    private ByteBuffer slot(int slot) throws IllegalArgumentException{
+        if(slot < 0 || slot >= freeSlots.length){
+            throw new IllegalArgumentException("The slot " + slot + " is not in the store.");
+        }
+        return slots.slice(slot * slotSize, slotSize);
+    }
+}
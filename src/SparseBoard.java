@@ -0,0 +1,382 @@
+import java.util.Arrays;
+
+/**
+ * The SparseBoard class is a board that only stores the pieces, for very large or infinite boards where a two
+ * dimensional array can not be used. The pieces are kept in a LongByteMap keyed by the packed row and column, so the
+ * memory grows with the number of pieces and not with the area of the board. It keeps the bounding box of the pieces
+ * and the list of moves, so the last move can be taken back during a search. The board is infinite by default, or can
+ * be limited to size x size positions, in which case the edges block a sequence like in the Model class.
+ */
+public class SparseBoard {
+    // The four directions of a sequence: row, column, diagonal and the other diagonal
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+    // The value of a Player.X piece in the map
+    private static final byte X = 1;
+    // The value of a Player.O piece in the map
+    private static final byte O = 2;
+
+    // The pieces on the board
+    private LongByteMap pieces;
+    // The number of row or column of a limited board, 0 means the board is infinite
+    private int size;
+    // The keys of the moves, in the order they were played
+    private long[] moves;
+    // The bounding boxes before each move: minRow, maxRow, minColumn, maxColumn
+    private int[] boxes;
+    // The number of moves
+    private int moveCount;
+    // The bounding box of the pieces
+    private int minRow;
+    private int maxRow;
+    private int minColumn;
+    private int maxColumn;
+    // The set of positions already added by getCandidates
+    private LongByteMap seen;
+
+    /**
+     * Constructor of the SparseBoard class for an infinite board.
+     */
+    public SparseBoard(){
+        this(0);
+    }
+
+    /**
+     * Constructor of the SparseBoard class for a board limited to size x size positions.
+     *
+     * @param size the number of row or column, 0 means the board is infinite
+     * @throws IllegalArgumentException When the size is negative or between 1 and 4
+     */
+    public SparseBoard(int size) throws IllegalArgumentException{
+        if(size < 0 || (size > 0 && size < 5)){
+            throw new IllegalArgumentException("The board size must be 0 for an infinite board or at least 5.");
+        }
+        this.size = size;
+        pieces = new LongByteMap();
+        seen = new LongByteMap();
+        moves = new long[16];
+        boxes = new int[64];
+        minRow = Integer.MAX_VALUE;
+        maxRow = Integer.MIN_VALUE;
+        minColumn = Integer.MAX_VALUE;
+        maxColumn = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Pack a row and a column into one key.
+     *
+     * @param row the input row
+     * @param column the input column
+     * @return the key of the position
+     */
+    public static long key(int row, int column){
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Get the row of a key.
+     *
+     * @param key the input key
+     * @return the row of the position
+     */
+    public static int row(long key){
+        return (int) (key >> 32);
+    }
+
+    /**
+     * Get the column of a key.
+     *
+     * @param key the input key
+     * @return the column of the position
+     */
+    public static int column(long key){
+        return (int) key;
+    }
+
+    /**
+     * Get the size of the board.
+     *
+     * @return the number of row or column, 0 means the board is infinite
+     */
+    public int getSize(){
+        return size;
+    }
+
+    /**
+     * Get the number of pieces on the board.
+     *
+     * @return the number of pieces
+     */
+    public int getPieceCount(){
+        return moveCount;
+    }
+
+    /**
+     * Get the key of one move.
+     *
+     * @param i the index of the move, 0 is the first move
+     * @return the key of the position of the move
+     */
+    public long getMove(int i){
+        return moves[i];
+    }
+
+    /**
+     * Get the smallest row of the pieces.
+     *
+     * @return the top of the bounding box, Integer.MAX_VALUE if there is no piece
+     */
+    public int getMinRow(){
+        return minRow;
+    }
+
+    /**
+     * Get the largest row of the pieces.
+     *
+     * @return the bottom of the bounding box, Integer.MIN_VALUE if there is no piece
+     */
+    public int getMaxRow(){
+        return maxRow;
+    }
+
+    /**
+     * Get the smallest column of the pieces.
+     *
+     * @return the left of the bounding box, Integer.MAX_VALUE if there is no piece
+     */
+    public int getMinColumn(){
+        return minColumn;
+    }
+
+    /**
+     * Get the largest column of the pieces.
+     *
+     * @return the right of the bounding box, Integer.MIN_VALUE if there is no piece
+     */
+    public int getMaxColumn(){
+        return maxColumn;
+    }
+
+    /**
+     * Check whether a position is on the board.
+     *
+     * @param row the input row
+     * @param column the input column
+     * @return true iif the position is on the board
+     */
+    public boolean isOnBoard(int row, int column){
+        return size == 0 || (row >= 0 && row < size && column >= 0 && column < size);
+    }
+
+    /**
+     * Get the piece on the input position.
+     *
+     * @param row the input row
+     * @param column the input column
+     * @return the piece on the position, Player.EMPTY if there is no piece
+     */
+    public Player getStateOnPosition(int row, int column){
+        byte value = pieces.get(key(row, column));
+        return (value == X) ? Player.X : ((value == O) ? Player.O : Player.EMPTY);
+    }
+
+    /**
+     * Place a piece on the input position.
+     *
+     * @param row the input row
+     * @param column the input column
+     * @param player whose piece
+     * @throws IndexOutOfBoundsException When the position is not on the board
+     * @throws IllegalArgumentException When the player is Player.EMPTY or the position is not empty
+     */
+    public void play(int row, int column, Player player) throws IndexOutOfBoundsException, IllegalArgumentException{
+        if(!isOnBoard(row, column)){
+            throw new IndexOutOfBoundsException("The position " + row + "," + column + " is not on the board.");
+        }
+        if(player == Player.EMPTY){
+            throw new IllegalArgumentException("The input player can not be Player.EMPTY.");
+        }
+        long key = key(row, column);
+        if(pieces.get(key) != 0){
+            throw new IllegalArgumentException("The position " + row + "," + column + " is not empty.");
+        }
+        if(moveCount == moves.length){
+            moves = Arrays.copyOf(moves, moves.length * 2);
+            boxes = Arrays.copyOf(boxes, boxes.length * 2);
+        }
+        boxes[4 * moveCount] = minRow;
+        boxes[4 * moveCount + 1] = maxRow;
+        boxes[4 * moveCount + 2] = minColumn;
+        boxes[4 * moveCount + 3] = maxColumn;
+        moves[moveCount++] = key;
+        pieces.put(key, (player == Player.X) ? X : O);
+        minRow = Math.min(minRow, row);
+        maxRow = Math.max(maxRow, row);
+        minColumn = Math.min(minColumn, column);
+        maxColumn = Math.max(maxColumn, column);
+    }
+
+    /**
+     * Take back the last move.
+     *
+     * @throws IllegalStateException When there is no move
+     */
+    public void undo() throws IllegalStateException{
+        if(moveCount == 0){
+            throw new IllegalStateException("There is no move to take back.");
+        }
+        moveCount--;
+        pieces.remove(moves[moveCount]);
+        minRow = boxes[4 * moveCount];
+        maxRow = boxes[4 * moveCount + 1];
+        minColumn = boxes[4 * moveCount + 2];
+        maxColumn = boxes[4 * moveCount + 3];
+    }
+
+    /**
+     * Check whether the piece on the input position is part of five or more consecutive pieces.
+     *
+     * @param row the input row
+     * @param column the input column
+     * @return true iif the piece on the position makes five in a row
+     */
+    public boolean isFive(int row, int column){
+        byte value = pieces.get(key(row, column));
+        if(value == 0){
+            return false;
+        }
+        for(int[] d : DIRECTIONS){
+            int count = 1;
+            while(count < 5 && pieces.get(key(row + d[0] * count, column + d[1] * count)) == value){
+                count++;
+            }
+            for(int k = 1; count < 5 && pieces.get(key(row - d[0] * k, column - d[1] * k)) == value; k++){
+                count++;
+            }
+            if(count >= 5){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether the game is over by the last move and return the winner.
+     *
+     * @return the winner if the last move makes five in a row, otherwise Player.EMPTY
+     */
+    public Player getWinner(){
+        if(moveCount == 0){
+            return Player.EMPTY;
+        }
+        long last = moves[moveCount - 1];
+        return isFive(row(last), column(last)) ? getStateOnPosition(row(last), column(last)) : Player.EMPTY;
+    }
+
+    /**
+     * Sum the scores of all sequences of one player in the four directions. Only the sequences starting at a piece are
+     * visited, so the time grows with the number of pieces and not with the area of the board. The scores are the
+     * same as the sum of evaluateRow, evaluateColumn and evaluateDiagonal of the Model class on a limited board.
+     *
+     * @param forX whether it is calculating the score for Player.X
+     * @param XTurn whether it is the Player.X's turn
+     * @return the sum of the scores of all sequences
+     */
+    public int evaluateFor(boolean forX, boolean XTurn){
+        byte own = forX ? X : O;
+        int score = 0;
+        for(int slot = 0; slot < pieces.capacity(); slot++){
+            if(pieces.valueAt(slot) != own){
+                continue;
+            }
+            long key = pieces.keyAt(slot);
+            int row = row(key);
+            int column = column(key);
+            for(int[] d : DIRECTIONS){
+                int beforeRow = row - d[0];
+                int beforeColumn = column - d[1];
+                byte before = pieces.get(key(beforeRow, beforeColumn));
+                if(before == own){
+                    // This piece is not the start of its sequence
+                    continue;
+                }
+                int count = 1;
+                while(pieces.get(key(row + d[0] * count, column + d[1] * count)) == own){
+                    count++;
+                }
+                int afterRow = row + d[0] * count;
+                int afterColumn = column + d[1] * count;
+                int blocks = 0;
+                if(before != 0 || !isOnBoard(beforeRow, beforeColumn)){
+                    blocks++;
+                }
+                if(pieces.get(key(afterRow, afterColumn)) != 0 || !isOnBoard(afterRow, afterColumn)){
+                    blocks++;
+                }
+                score += Model.consecutiveScore(count, blocks, forX == XTurn);
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Evaluate the board in the same way as the evaluate method of the Model class.
+     *
+     * @param XTurn whether the current turn is the Player.X
+     * @return the relative score of the Player.O to Player.X by dividing
+     */
+    public double evaluate(boolean XTurn){
+        double Xscore = evaluateFor(true, XTurn);
+        double Oscore = evaluateFor(false, XTurn);
+        if(Xscore == 0){
+            Xscore = 1.0;
+        }
+        return Oscore / Xscore;
+    }
+
+    /**
+     * Get the largest number of candidates getCandidates can write with the input radius.
+     *
+     * @param radius the distance to a piece
+     * @return the length the buffer of getCandidates needs
+     */
+    public int getMaxCandidates(int radius){
+        return Math.max(1, moveCount * (2 * radius + 1) * (2 * radius + 1));
+    }
+
+    /**
+     * Write the keys of the empty positions within the input distance of a piece into the buffer, sorted by the key,
+     * so the search always visits them in the same order. Only the neighbors of the pieces are visited, so the time
+     * grows with the number of pieces. If there is no piece, the only candidate is the center of a limited board or
+     * 0,0 of an infinite board.
+     *
+     * @param buffer the buffer for the keys, with the length of at least getMaxCandidates
+     * @param radius the distance to a piece
+     * @return the number of candidates
+     * @throws IllegalArgumentException When the buffer is too small
+     */
+    public int getCandidates(long[] buffer, int radius) throws IllegalArgumentException{
+        if(buffer.length < getMaxCandidates(radius)){
+            throw new IllegalArgumentException("The buffer must have room for " + getMaxCandidates(radius) + " keys.");
+        }
+        int count = 0;
+        seen.clear();
+        if(moveCount == 0){
+            buffer[count++] = key(size / 2, size / 2);
+        }
+        for(int m = 0; m < moveCount; m++){
+            int row = row(moves[m]);
+            int column = column(moves[m]);
+            for(int r = row - radius; r <= row + radius; r++){
+                for(int c = column - radius; c <= column + radius; c++){
+                    long key = key(r, c);
+                    if(isOnBoard(r, c) && pieces.get(key) == 0 && seen.get(key) == 0){
+                        seen.put(key, (byte) 1);
+                        buffer[count++] = key;
+                    }
+                }
+            }
+        }
+        Arrays.sort(buffer, 0, count);
+        return count;
+    }
+}
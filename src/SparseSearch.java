@@ -0,0 +1,170 @@
+import java.util.Arrays;
+
+/**
+ * The SparseSearch class finds the best move on a SparseBoard with the minimax algorithm alpha-beta pruning, the same
+ * algorithm as the Model class. The moves are played on the board and taken back instead of copying the board, and
+ * only the empty positions near the pieces are tried, so the time of one search depends on the number of pieces and
+ * not on the area of the board. A move that makes five in a row ends the line of the search.
+ */
+public class SparseSearch {
+    // The result of a search without any move to play
+    public static final long NO_MOVE = Long.MIN_VALUE;
+
+    // The board searched
+    private SparseBoard board;
+    // Only the empty positions within this distance of a piece are tried
+    private int radius;
+    // The counts of the last search
+    private SearchStats searchStats;
+    // The candidate moves of each ply of the search
+    private long[][] buffers;
+    // The best move found at the root of the last search
+    private long bestMove;
+
+    /**
+     * Constructor of the SparseSearch class. The candidate radius is 2.
+     *
+     * @param board the board to search
+     */
+    public SparseSearch(SparseBoard board){
+        this.board = board;
+        this.radius = 2;
+        this.searchStats = new SearchStats();
+        this.buffers = new long[0][];
+    }
+
+    /**
+     * Set the candidate radius.
+     *
+     * @param radius only the empty positions within this distance of a piece are tried
+     * @throws IllegalArgumentException When the radius is not positive
+     */
+    public void setRadius(int radius) throws IllegalArgumentException{
+        if(radius <= 0){
+            throw new IllegalArgumentException("The candidate radius must be positive.");
+        }
+        this.radius = radius;
+    }
+
+    /**
+     * Get the counts of the last search.
+     *
+     * @return the search statistics
+     */
+    public SearchStats getSearchStats(){
+        return searchStats;
+    }
+
+    /**
+     * Find the best move of the input player. A move that wins at once is returned without searching.
+     *
+     * @param toMove the player to move
+     * @param depth the depth of the minimax algorithm
+     * @return the key of the best move, see SparseBoard.key, or NO_MOVE when no empty position is near a piece
+     * @throws IllegalArgumentException When the depth is not positive or the player is Player.EMPTY
+     */
+    public long findBestMove(Player toMove, int depth) throws IllegalArgumentException{
+        if(depth <= 0){
+            throw new IllegalArgumentException("The depth of the minimax algorithm must be positive.");
+        }
+        if(toMove == Player.EMPTY){
+            throw new IllegalArgumentException("The input player can not be Player.EMPTY.");
+        }
+        searchStats.reset();
+        long[] moves = buffer(0);
+        int count = board.getCandidates(moves, radius);
+        if(count == 0){
+            return NO_MOVE;
+        }
+        for(int m = 0; m < count; m++){
+            int row = SparseBoard.row(moves[m]);
+            int column = SparseBoard.column(moves[m]);
+            board.play(row, column, toMove);
+            boolean five = board.isFive(row, column);
+            board.undo();
+            if(five){
+                return moves[m];
+            }
+        }
+        bestMove = NO_MOVE;
+        // Player.O is the maximizer and Player.X is the minimizer
+        minimax(depth, toMove == Player.O, -1.0, 100000000, 0);
+        searchStats.setDepthReached(depth);
+        return bestMove;
+    }
+
+    /**
+     * Calculate the score of the board with the minimax algorithm alpha-beta pruning. At the root, the best move is
+     * stored in bestMove.
+     *
+     * @param depth the remaining depth
+     * @param maximizingPlayer whether the turn is maximizer
+     * @param alpha the alpha value for alpha-beta pruning
+     * @param beta the beta value for alpha-beta pruning
+     * @param ply the distance to the root
+     * @return the score of the board
+     */
+    private double minimax(int depth, boolean maximizingPlayer, double alpha, double beta, int ply){
+        searchStats.countNode();
+        if(depth == 0){
+            searchStats.countLeafEvaluation();
+            return board.evaluate(!maximizingPlayer);
+        }
+        long[] moves = buffer(ply);
+        int count = board.getCandidates(moves, radius);
+        if(count == 0){
+            searchStats.countLeafEvaluation();
+            return board.evaluate(!maximizingPlayer);
+        }
+        Player player = maximizingPlayer ? Player.O : Player.X;
+        double best = maximizingPlayer ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        for(int m = 0; m < count; m++){
+            int row = SparseBoard.row(moves[m]);
+            int column = SparseBoard.column(moves[m]);
+            board.play(row, column, player);
+            double score;
+            if(board.isFive(row, column)){
+                // The game is over, so the board is a leaf
+                searchStats.countNode();
+                searchStats.countLeafEvaluation();
+                score = board.evaluate(maximizingPlayer);
+            } else{
+                score = minimax(depth - 1, !maximizingPlayer, alpha, beta, ply + 1);
+            }
+            board.undo();
+            if(maximizingPlayer ? score > best : score < best){
+                best = score;
+                if(ply == 0){
+                    bestMove = moves[m];
+                }
+            }
+            if(maximizingPlayer){
+                alpha = Math.max(alpha, score);
+            } else{
+                beta = Math.min(beta, score);
+            }
+            if(alpha >= beta){
+                searchStats.countBetaCutoff();
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * A helper function to get the candidate buffer of one ply, large enough for the current board.
+     *
+     * @param ply the distance to the root
+     * @return the buffer of the ply
+     */
+    private long[] buffer(int ply){
+        if(ply >= buffers.length){
+            buffers = Arrays.copyOf(buffers, ply + 1);
+        }
+        int needed = board.getMaxCandidates(radius);
+        if(buffers[ply] == null || buffers[ply].length < needed){
+            buffers[ply] = new long[Math.max(needed, 2 * (buffers[ply] == null ? 0 : buffers[ply].length))];
+        }
+        return buffers[ply];
+    }
+}
@@ -0,0 +1,322 @@
+/**
+ * The ThreatIndex class records, for each player, which empty positions would make a threat if the player placed a
+ * piece there: complete a five, make an open four (two ways to complete a five on one line), make a four (one way) or
+ * make an open three (a three which can become an open four). It is updated with each placed or removed piece by
+ * looking again only at the positions on the four lines through that piece, at most 8 positions away, so questions like
+ * "can I win now?" or "must I block?" are answered by a lookup instead of a scan of the board.
+ *
+ * <p>The threats of a position are kept per direction, so a new piece only changes the direction of its line. The
+ * positions having each threat are kept in bit sets, so the first one is found with one instruction per 64 positions.
+ * An index can track only the stronger kinds, which makes the update several times cheaper for a search that only
+ * needs the fives and the fours.
+ */
+public class ThreatIndex {
+    // The kinds of threats
+    public static final int FIVE = 0;
+    public static final int OPEN_FOUR = 1;
+    public static final int FOUR = 2;
+    public static final int OPEN_THREE = 3;
+    // The number of kinds of threats
+    private static final int KINDS = 4;
+    // The farthest position whose threats a piece can change, along one line
+    private static final int REACH = 8;
+    // The directions of the lines as {row step, column step}
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+    // The values of the positions on a line: empty, a piece of the player, or blocked by the opponent or the edge
+    private static final int EMPTY = 0;
+    private static final int OWN = 1;
+    private static final int BLOCKED = 2;
+
+    // The number of row or column in the board
+    private final int boardSize;
+    // The weakest kind of threat tracked
+    private final int maxKind;
+    // The number of other pieces on a line of nine which the weakest tracked kind needs
+    private final int minPieces;
+    // The pieces: 0 is empty, 1 is Player.X and 2 is Player.O
+    private final byte[] board;
+    // The threats of each direction and position: the low 4 bits for Player.X and the high 4 bits for Player.O, one
+    // bit per kind; indexed by direction * boardSize * boardSize + position
+    private final byte[] threats;
+    // The positions having each kind of threat, as bit sets indexed by player (0 for X, 1 for O) * KINDS + kind
+    private final long[][] sets;
+    // The line around the position being looked at, from -REACH to REACH
+    private final int[] line = new int[2 * REACH + 1];
+
+    /**
+     * Constructor of the ThreatIndex class with an empty board, tracking all kinds of threats.
+     *
+     * @param boardSize the number of row or column in the board
+     */
+    public ThreatIndex(int boardSize){
+        this(boardSize, OPEN_THREE);
+    }
+
+    /**
+     * Constructor of the ThreatIndex class with an empty board, tracking only the kinds up to the input kind.
+     *
+     * @param boardSize the number of row or column in the board
+     * @param maxKind the weakest kind tracked, FIVE, OPEN_FOUR, FOUR or OPEN_THREE
+     * @throws IllegalArgumentException When the kind is not valid
+     */
+    public ThreatIndex(int boardSize, int maxKind) throws IllegalArgumentException{
+        if(maxKind < FIVE || maxKind > OPEN_THREE){
+            throw new IllegalArgumentException("The kind of threat must be between 0 and 3.");
+        }
+        this.boardSize = boardSize;
+        this.maxKind = maxKind;
+        minPieces = (maxKind == FIVE) ? 4 : (maxKind == OPEN_THREE) ? 2 : 3;
+        int cellCount = boardSize * boardSize;
+        board = new byte[cellCount];
+        threats = new byte[DIRECTIONS.length * cellCount];
+        sets = new long[2 * KINDS][(cellCount + 63) / 64];
+    }
+
+    /**
+     * Get the number of row or column in the board.
+     *
+     * @return the board size
+     */
+    public int getBoardSize(){
+        return boardSize;
+    }
+
+    /**
+     * Place a piece, or remove the piece of a position, and update the threats around it.
+     *
+     * @param index the position as row * boardSize + column
+     * @param player whose piece, or Player.EMPTY to remove the piece
+     */
+    public void place(int index, Player player){
+        byte value = (byte)((player == Player.X) ? 1 : (player == Player.O) ? 2 : 0);
+        if(board[index] == value){
+            return;
+        }
+        board[index] = value;
+        int row = index / boardSize;
+        int column = index % boardSize;
+        for(int d = 0; d < DIRECTIONS.length; d++){
+            for(int k = -REACH; k <= REACH; k++){
+                int r = row + k * DIRECTIONS[d][0];
+                int c = column + k * DIRECTIONS[d][1];
+                if(r >= 0 && r < boardSize && c >= 0 && c < boardSize){
+                    update(d, r * boardSize + c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the piece of a position.
+     *
+     * @param index the position as row * boardSize + column
+     * @return whose piece is on the position
+     */
+    public Player get(int index){
+        return (board[index] == 1) ? Player.X : (board[index] == 2) ? Player.O : Player.EMPTY;
+    }
+
+    /**
+     * Check whether a piece of the player on the position makes a threat of the kind.
+     *
+     * @param index the position as row * boardSize + column
+     * @param player Player.X or Player.O
+     * @param kind FIVE, OPEN_FOUR, FOUR or OPEN_THREE, which must be tracked
+     * @return true iif the empty position makes the threat
+     */
+    public boolean is(int index, Player player, int kind){
+        return (sets[set(player, kind)][index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Get the first position, in the order of the rows, where a piece of the player makes a threat of the kind.
+     *
+     * @param player Player.X or Player.O
+     * @param kind FIVE, OPEN_FOUR, FOUR or OPEN_THREE
+     * @return the position as row * boardSize + column, -1 if there is none
+     */
+    public int first(Player player, int kind){
+        return next(player, kind, 0);
+    }
+
+    /**
+     * Get the next position from the input position, in the order of the rows, where a piece of the player makes a
+     * threat of the kind.
+     *
+     * @param player Player.X or Player.O
+     * @param kind FIVE, OPEN_FOUR, FOUR or OPEN_THREE
+     * @param from the first position to look at
+     * @return the position as row * boardSize + column, -1 if there is none
+     */
+    public int next(Player player, int kind, int from){
+        long[] bits = sets[set(player, kind)];
+        int word = from >>> 6;
+        if(word >= bits.length){
+            return -1;
+        }
+        long current = bits[word] & (-1L << from);
+        while(current == 0){
+            if(++word == bits.length){
+                return -1;
+            }
+            current = bits[word];
+        }
+        return word * 64 + Long.numberOfTrailingZeros(current);
+    }
+
+    /**
+     * Get the number of positions where a piece of the player makes a threat of the kind.
+     *
+     * @param player Player.X or Player.O
+     * @param kind FIVE, OPEN_FOUR, FOUR or OPEN_THREE
+     * @return the number of positions
+     */
+    public int count(Player player, int kind){
+        int count = 0;
+        for(long bits : sets[set(player, kind)]){
+            count += Long.bitCount(bits);
+        }
+        return count;
+    }
+
+    /**
+     * A helper function to get the bit set of a player and a kind.
+     *
+     * @param player Player.X or Player.O
+     * @param kind the kind of threat
+     * @return the index of the bit set
+     */
+    private static int set(Player player, int kind){
+        return ((player == Player.X) ? 0 : KINDS) + kind;
+    }
+
+    /**
+     * A helper function to look again at the threats of one position along one direction, and update the bit sets if
+     * the threats of the position changed.
+     *
+     * @param d the direction
+     * @param index the position as row * boardSize + column
+     */
+    private void update(int d, int index){
+        int cellCount = boardSize * boardSize;
+        int value = 0;
+        if(board[index] == 0){
+            value = lineThreats(d, index, 1) | (lineThreats(d, index, 2) << KINDS);
+        }
+        int slot = d * cellCount + index;
+        if((threats[slot] & 0xFF) == value){
+            return;
+        }
+        threats[slot] = (byte)value;
+        int all = 0;
+        for(int k = 0; k < DIRECTIONS.length; k++){
+            all |= threats[k * cellCount + index] & 0xFF;
+        }
+        for(int bit = 0; bit < 2 * KINDS; bit++){
+            if((all & (1 << bit)) != 0){
+                sets[bit][index >>> 6] |= 1L << index;
+            }
+            else{
+                sets[bit][index >>> 6] &= ~(1L << index);
+            }
+        }
+    }
+
+    /**
+     * A helper function to find the threats a piece of one player on an empty position makes along one direction.
+     *
+     * @param d the direction
+     * @param index the position as row * boardSize + column
+     * @param player 1 for Player.X or 2 for Player.O
+     * @return one bit per kind of threat
+     */
+    private int lineThreats(int d, int index, int player){
+        int row = index / boardSize;
+        int column = index % boardSize;
+        int own = 0;
+        for(int k = -REACH; k <= REACH; k++){
+            int r = row + k * DIRECTIONS[d][0];
+            int c = column + k * DIRECTIONS[d][1];
+            int value;
+            if(r < 0 || r >= boardSize || c < 0 || c >= boardSize){
+                value = BLOCKED;
+            }
+            else{
+                int piece = board[r * boardSize + c];
+                value = (piece == 0) ? EMPTY : (piece == player) ? OWN : BLOCKED;
+            }
+            line[k + REACH] = value;
+            if(value == OWN && k >= -4 && k <= 4){
+                own++;
+            }
+        }
+        // Even an open three needs two other pieces within four positions, a four needs three
+        if(own < minPieces){
+            return 0;
+        }
+        line[REACH] = OWN;
+        int found = 0;
+        if(run() >= 5){
+            found |= 1 << FIVE;
+        }
+        if(maxKind == FIVE){
+            line[REACH] = EMPTY;
+            return found;
+        }
+        int completions = completions();
+        if(completions >= 1){
+            found |= 1 << FOUR;
+        }
+        if(completions >= 2){
+            found |= 1 << OPEN_FOUR;
+        }
+        if(completions == 0 && maxKind == OPEN_THREE){
+            for(int k = -4; k <= 4 && (found & (1 << OPEN_THREE)) == 0; k++){
+                if(k != 0 && line[REACH + k] == EMPTY){
+                    line[REACH + k] = OWN;
+                    if(completions() >= 2){
+                        found |= 1 << OPEN_THREE;
+                    }
+                    line[REACH + k] = EMPTY;
+                }
+            }
+        }
+        line[REACH] = EMPTY;
+        return found;
+    }
+
+    /**
+     * A helper function to count the empty positions of the line which make a five through its center.
+     *
+     * @return the number of such positions
+     */
+    private int completions(){
+        int count = 0;
+        for(int k = -4; k <= 4; k++){
+            if(k != 0 && line[REACH + k] == EMPTY){
+                line[REACH + k] = OWN;
+                if(run() >= 5){
+                    count++;
+                }
+                line[REACH + k] = EMPTY;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A helper function to get the length of the run of own pieces through the center of the line.
+     *
+     * @return the length of the run
+     */
+    private int run(){
+        int length = 1;
+        for(int k = REACH - 1; k >= 0 && line[k] == OWN; k--){
+            length++;
+        }
+        for(int k = REACH + 1; k < line.length && line[k] == OWN; k++){
+            length++;
+        }
+        return length;
+    }
+}
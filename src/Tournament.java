@@ -0,0 +1,353 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The Tournament class plays AI vs AI games between two engine configurations without the graphical user interface.
+ * The games are played in parallel. Each configuration searches on its own Model of the game, so it keeps its table,
+ * history and engine whatever the settings of the other side. Every two games start from the same random opening with
+ * the colors swapped, so neither configuration gets the better opening or the first move more often. After all games,
+ * it reports the win rates with a 95% confidence interval, the average time of one move and the nodes searched per
+ * second of each configuration. The games can be saved with a GameRecordWriter, in the order of the games.
+ */
+public class Tournament {
+    // The two configurations playing against each other
+    private EngineConfig[] configs;
+    // The number of games
+    private int games;
+    // The number of games played at the same time
+    private int threads;
+    // The number of random pieces placed around the center before the engines move
+    private int openingMoves;
+    // A game with this many moves of the engines is a tie
+    private int maxMoves;
+    // The seed of the random openings
+    private long seed;
+    // The number of row or column in the board
+    private int boardSize;
+    // The number of wins of each configuration in the last run
+    private int[] wins;
+    // The number of ties in the last run
+    private int ties;
+    // Where the games are saved, null if they are not saved
+    private GameRecordWriter recordWriter;
+
+    /**
+     * The result of one game.
+     */
+    private static class GameResult {
+        // -1 means a tie, 0 means the first configuration wins, 1 means the second configuration wins
+        private int winner = -1;
+        // The number of moves of each configuration
+        private long[] moves = new long[2];
+        // The time spent in moveAI by each configuration in nanoseconds
+        private long[] nanos = new long[2];
+        // The number of nodes searched by each configuration
+        private long[] nodes = new long[2];
+        // The moves of the game
+        private GameRecord record;
+    }
+
+    /**
+     * Constructor of the Tournament class. By default the games are played on the 15x15 board on all the cores, start
+     * with three random pieces and are a tie after 225 moves.
+     *
+     * @param first the first configuration
+     * @param second the second configuration
+     * @param games the number of games
+     * @throws IllegalArgumentException When the number of games is not positive
+     */
+    public Tournament(EngineConfig first, EngineConfig second, int games) throws IllegalArgumentException{
+        if(games <= 0){
+            throw new IllegalArgumentException("The number of games must be positive.");
+        }
+        this.configs = new EngineConfig[]{first, second};
+        this.games = games;
+        this.threads = Runtime.getRuntime().availableProcessors();
+        this.openingMoves = 3;
+        this.maxMoves = 225;
+        this.seed = 1;
+        this.boardSize = 15;
+        this.wins = new int[2];
+    }
+
+    /**
+     * Set the number of games played at the same time.
+     *
+     * @param threads the number of threads
+     * @throws IllegalArgumentException When the number of threads is not positive
+     */
+    public void setThreads(int threads) throws IllegalArgumentException{
+        if(threads <= 0){
+            throw new IllegalArgumentException("The number of threads must be positive.");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Set the number of random pieces placed around the center before the engines move.
+     *
+     * @param openingMoves the number of random pieces
+     * @throws IllegalArgumentException When the number is negative or does not fit the 5x5 square around the center
+     */
+    public void setOpeningMoves(int openingMoves) throws IllegalArgumentException{
+        if(openingMoves < 0 || openingMoves >= 25){
+            throw new IllegalArgumentException("The number of opening moves must be between 0 and 24.");
+        }
+        this.openingMoves = openingMoves;
+    }
+
+    /**
+     * Set the number of engine moves after which a game is a tie.
+     *
+     * @param maxMoves the number of moves
+     * @throws IllegalArgumentException When the number is not positive
+     */
+    public void setMaxMoves(int maxMoves) throws IllegalArgumentException{
+        if(maxMoves <= 0){
+            throw new IllegalArgumentException("The number of moves must be positive.");
+        }
+        this.maxMoves = maxMoves;
+    }
+
+    /**
+     * Set the seed of the random openings.
+     *
+     * @param seed the input seed
+     */
+    public void setSeed(long seed){
+        this.seed = seed;
+    }
+
+    /**
+     * Set the size of the board.
+     *
+     * @param boardSize the number of row or column in the board
+     * @throws IllegalArgumentException When the board size is less than 5
+     */
+    public void setBoardSize(int boardSize) throws IllegalArgumentException{
+        if(boardSize < 5){
+            throw new IllegalArgumentException("The board size must be at least 5.");
+        }
+        this.boardSize = boardSize;
+    }
+
+    /**
+     * Save the games of the next runs with the input writer.
+     *
+     * @param recordWriter the writer of the games, null to not save the games
+     */
+    public void setRecordWriter(GameRecordWriter recordWriter){
+        this.recordWriter = recordWriter;
+    }
+
+    /**
+     * Get the number of wins of one configuration in the last run.
+     *
+     * @param engine 0 for the first configuration, 1 for the second configuration
+     * @return the number of wins
+     */
+    public int getWins(int engine){
+        return wins[engine];
+    }
+
+    /**
+     * Get the number of ties in the last run.
+     *
+     * @return the number of ties
+     */
+    public int getTies(){
+        return ties;
+    }
+
+    /**
+     * Play all the games and return the report.
+     *
+     * @return the report of the tournament
+     * @throws InterruptedException When the thread is interrupted while waiting for the games
+     */
+    public String run() throws InterruptedException{
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<GameResult>> futures = new ArrayList<>();
+        for(int g = 0; g < games; g++){
+            final int game = g;
+            futures.add(pool.submit(() -> playGame(game)));
+        }
+        List<GameResult> results = new ArrayList<>();
+        try{
+            for(Future<GameResult> future : futures){
+                GameResult result = future.get();
+                results.add(result);
+                if(recordWriter != null){
+                    recordWriter.write(result.record);
+                }
+            }
+            if(recordWriter != null){
+                recordWriter.flush();
+            }
+        } catch (ExecutionException e){
+            throw new IllegalStateException("A game failed.", e.getCause());
+        } catch (IOException e){
+            throw new IllegalStateException("A game could not be saved.", e);
+        } finally{
+            pool.shutdownNow();
+        }
+        return report(results);
+    }
+
+    /**
+     * Play one game. The first configuration plays Player.X in the even games and Player.O in the odd games.
+     *
+     * @param game the index of the game
+     * @return the result of the game
+     */
+    private GameResult playGame(int game){
+        GameResult result = new GameResult();
+        result.record = new GameRecord(boardSize);
+        // Each configuration searches on its own copy of the game, so the table, the history and the engine of one
+        // side are never rebuilt or cleared by the settings of the other side
+        Model[] models = {new Model(boardSize), new Model(boardSize)};
+        int center = boardSize / 2;
+        // The two games of one pair have the same opening
+        Random random = new Random(seed + game / 2);
+        place(models, new Position(center, center), Player.X);
+        result.record.addMove(center, center);
+        Player player = Player.O;
+        for(int i = 0; i < openingMoves; i++){
+            Position position;
+            do{
+                position = new Position(center - 2 + random.nextInt(5), center - 2 + random.nextInt(5));
+            } while(models[0].getStateOnPosition(position) != Player.EMPTY);
+            place(models, position, player);
+            result.record.addMove(position.getRow(), position.getColumn());
+            player = (player == Player.X) ? Player.O : Player.X;
+        }
+        for(int e = 0; e < 2; e++){
+            models[e].setStep(openingMoves + 1);
+            models[e].setTurn((player == Player.X) ? 1 : 2);
+            configs[e].applyTo(models[e]);
+        }
+        int firstPlays = (game % 2 == 0) ? 1 : 2;
+        for(int move = 0; move < maxMoves && models[0].checkEmpty(); move++){
+            int engine = (models[0].getTurn() == firstPlays) ? 0 : 1;
+            Model model = models[engine];
+            long start = System.nanoTime();
+            model.moveAI();
+            long nanos = System.nanoTime() - start;
+            SearchStats stats = model.getSearchStats();
+            Position last = model.getLastPosition();
+            models[1 - engine].placeChessOnPosition(last, model.getStateOnPosition(last));
+            result.nanos[engine] += nanos;
+            result.nodes[engine] += stats.getNodes();
+            result.record.addMove(last.getRow(), last.getColumn(),
+                    stats.getScore(), stats.getDepthReached(), stats.getNodes(), nanos / 1000);
+            result.moves[engine]++;
+            if(model.getWinner() != Player.EMPTY){
+                result.winner = engine;
+                result.record.setWinner(model.getWinner());
+                break;
+            }
+            for(Model side : models){
+                side.setStep(side.getStep() + 1);
+                side.setTurn((side.getTurn() == 1) ? 2 : 1);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A helper function to place a piece on the copies of a game.
+     *
+     * @param models the copies of the game
+     * @param position where to place the piece
+     * @param player whose piece
+     */
+    private static void place(Model[] models, Position position, Player player){
+        for(Model model : models){
+            model.placeChessOnPosition(position, player);
+        }
+    }
+
+    /**
+     * Sum up the results of the games into the report.
+     *
+     * @param results the results of all games
+     * @return the report
+     */
+    private String report(List<GameResult> results){
+        wins = new int[2];
+        ties = 0;
+        long[] moves = new long[2];
+        long[] nanos = new long[2];
+        long[] nodes = new long[2];
+        double scoreSum = 0;
+        double scoreSquareSum = 0;
+        for(GameResult result : results){
+            if(result.winner < 0){
+                ties++;
+            } else{
+                wins[result.winner]++;
+            }
+            // The score of the first configuration: 1 for a win, 0.5 for a tie and 0 for a loss
+            double score = (result.winner < 0) ? 0.5 : (result.winner == 0 ? 1.0 : 0.0);
+            scoreSum += score;
+            scoreSquareSum += score * score;
+            for(int e = 0; e < 2; e++){
+                moves[e] += result.moves[e];
+                nanos[e] += result.nanos[e];
+                nodes[e] += result.nodes[e];
+            }
+        }
+        int n = results.size();
+        double mean = scoreSum / n;
+        double variance = (n > 1) ? (scoreSquareSum - n * mean * mean) / (n - 1) : 0;
+        double margin = 1.96 * Math.sqrt(Math.max(variance, 0) / n);
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%s vs %s: %d games%n", configs[0], configs[1], n));
+        text.append(String.format("%s wins %d (%.1f%%), %s wins %d (%.1f%%), ties %d (%.1f%%)%n",
+                configs[0], wins[0], 100.0 * wins[0] / n, configs[1], wins[1], 100.0 * wins[1] / n,
+                ties, 100.0 * ties / n));
+        text.append(String.format("score of %s: %.3f +/- %.3f (95%% confidence interval)%n", configs[0], mean, margin));
+        for(int e = 0; e < 2; e++){
+            double msPerMove = (moves[e] == 0) ? 0 : nanos[e] / 1e6 / moves[e];
+            double nodesPerSecond = (nanos[e] == 0) ? 0 : nodes[e] * 1e9 / nanos[e];
+            text.append(String.format("%s: %d moves, %.2f ms/move, %.0f nodes/s%n",
+                    configs[e], moves[e], msPerMove, nodesPerSecond));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Run a tournament from the command line.
+     *
+     * @param args the first configuration, the second configuration, then optionally the number of games, the
+     *             number of threads and the file to append the games to, for example "depth=2 depth=1 100 8 games.bin"
+     * @throws InterruptedException When the thread is interrupted while waiting for the games
+     * @throws IOException When the file of the games can not be written
+     */
+    public static void main(String[] args) throws InterruptedException, IOException{
+        if(args.length < 2){
+            System.err.println("Usage: Tournament <config> <config> [games] [threads] [record-file]");
+            System.exit(2);
+        }
+        int games = (args.length > 2) ? Integer.parseInt(args[2]) : 100;
+        Tournament tournament = new Tournament(EngineConfig.parse(args[0]), EngineConfig.parse(args[1]), games);
+        if(args.length > 3){
+            tournament.setThreads(Integer.parseInt(args[3]));
+        }
+        if(args.length > 4){
+            try(GameRecordWriter writer = GameRecordWriter.append(new File(args[4]))){
+                tournament.setRecordWriter(writer);
+                System.out.print(tournament.run());
+            }
+            return;
+        }
+        System.out.print(tournament.run());
+    }
+}
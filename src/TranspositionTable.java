@@ -0,0 +1,197 @@
+import java.util.Arrays;
+
+/**
+ * The TranspositionTable class remembers the result of the boards the minimax algorithm has searched, so a board which
+ * is reached again by another order of the same moves is not searched again, and the best move found before is tried
+ * first. It is a fixed size array indexed by the low bits of the Zobrist hash, stored as parallel primitive arrays, so
+ * a lookup does not allocate. A board can be in either of the two entries of its bucket. A result of the same board
+ * replaces the stored one unless the stored search was deeper; another board takes an empty entry, else an entry left
+ * by an earlier search, else the shallower entry.
+ *
+ * <p>The table can be kept from one move of a game to the next: newSearch starts a new age, and the entries of the
+ * older ages are still found but are the first to be replaced.
+ *
+ * <p>A score found with the alpha-beta pruning is often only a bound: a node which cut off is at least its score for
+ * the maximizer (LOWER), a node where no move reached alpha is at most its score (UPPER).
+ */
+public class TranspositionTable {
+    // The kinds of the stored scores
+    public static final byte EXACT = 1;
+    public static final byte LOWER = 2;
+    public static final byte UPPER = 3;
+
+    // The hashes of the stored boards
+    private final long[] hashes;
+    // The scores of the stored boards
+    private final double[] scores;
+    // The best moves as row * boardSize + column, -1 if there is none
+    private final int[] moves;
+    // The remaining depths of the searches of the stored boards
+    private final byte[] depths;
+    // The kinds of the scores, 0 for an empty entry
+    private final byte[] flags;
+    // The ages of the searches which stored the entries
+    private final byte[] ages;
+    // The low bits of the hash used as the index of the bucket, the lowest bit cleared
+    private final int mask;
+    // The age of the current search
+    private byte age;
+
+    /**
+     * Constructor of the TranspositionTable class.
+     *
+     * @param entries the number of entries, rounded up to a power of two of at least 2
+     * @throws IllegalArgumentException When the number of entries is not between 1 and 2^30
+     */
+    public TranspositionTable(int entries) throws IllegalArgumentException{
+        if(entries <= 0 || entries > (1 << 30)){
+            throw new IllegalArgumentException("The number of entries must be between 1 and 2^30.");
+        }
+        int size = Math.max(2, Integer.highestOneBit(entries));
+        if(size < entries){
+            size <<= 1;
+        }
+        hashes = new long[size];
+        scores = new double[size];
+        moves = new int[size];
+        depths = new byte[size];
+        flags = new byte[size];
+        ages = new byte[size];
+        mask = (size - 1) & ~1;
+    }
+
+    /**
+     * Get the number of entries.
+     *
+     * @return the number of entries
+     */
+    public int size(){
+        return hashes.length;
+    }
+
+    /**
+     * Find the entry of a board.
+     *
+     * @param hash the Zobrist hash of the board
+     * @return the index of the entry to pass to the getters, or -1 if the board is not stored
+     */
+    public int probe(long hash){
+        int slot = (int)hash & mask;
+        if(flags[slot] != 0 && hashes[slot] == hash){
+            return slot;
+        }
+        return (flags[slot + 1] != 0 && hashes[slot + 1] == hash) ? slot + 1 : -1;
+    }
+
+    /**
+     * Get the score of an entry.
+     *
+     * @param entry the index returned by probe
+     * @return the score for the maximizer
+     */
+    public double getScore(int entry){
+        return scores[entry];
+    }
+
+    /**
+     * Get the best move of an entry.
+     *
+     * @param entry the index returned by probe
+     * @return the best move as row * boardSize + column, -1 if there is none
+     */
+    public int getMove(int entry){
+        return moves[entry];
+    }
+
+    /**
+     * Get the remaining depth of the search of an entry.
+     *
+     * @param entry the index returned by probe
+     * @return the remaining depth
+     */
+    public int getDepth(int entry){
+        return depths[entry];
+    }
+
+    /**
+     * Get the kind of the score of an entry.
+     *
+     * @param entry the index returned by probe
+     * @return EXACT, LOWER or UPPER
+     */
+    public byte getFlag(int entry){
+        return flags[entry];
+    }
+
+    /**
+     * Store the result of the search of a board. A deeper result of the same board is kept.
+     *
+     * @param hash the Zobrist hash of the board
+     * @param depth the remaining depth of the search
+     * @param score the score for the maximizer
+     * @param flag EXACT, LOWER or UPPER
+     * @param move the best move as row * boardSize + column, -1 if there is none
+     */
+    public void store(long hash, int depth, double score, byte flag, int move){
+        int slot = probe(hash);
+        if(slot >= 0 && depths[slot] > depth){
+            ages[slot] = age;
+            return;
+        }
+        if(slot < 0){
+            slot = victim((int)hash & mask);
+        }
+        ages[slot] = age;
+        hashes[slot] = hash;
+        scores[slot] = score;
+        moves[slot] = move;
+        depths[slot] = (byte)Math.min(depth, Byte.MAX_VALUE);
+        flags[slot] = flag;
+    }
+
+    /**
+     * Start a new age, for the search of the next move of the game. The entries stored before are kept, but they are
+     * replaced before the entries of the new search.
+     */
+    public void newSearch(){
+        age++;
+    }
+
+    /**
+     * Check whether an entry was stored or found deeper by the current search.
+     *
+     * @param entry the index returned by probe
+     * @return true iif the entry is of the current age
+     */
+    public boolean isCurrent(int entry){
+        return ages[entry] == age;
+    }
+
+    /**
+     * Remove every entry.
+     */
+    public void clear(){
+        Arrays.fill(flags, (byte)0);
+    }
+
+    /**
+     * A helper function to choose the entry of a bucket a new board replaces: an empty entry, else an entry of an
+     * older age, else the entry of the shallower search, the second one when the depths are the same.
+     *
+     * @param slot the first entry of the bucket
+     * @return the entry to replace
+     */
+    private int victim(int slot){
+        for(int s = slot; s <= slot + 1; s++){
+            if(flags[s] == 0){
+                return s;
+            }
+        }
+        boolean firstOld = ages[slot] != age;
+        boolean secondOld = ages[slot + 1] != age;
+        if(firstOld != secondOld){
+            return firstOld ? slot : slot + 1;
+        }
+        return (depths[slot] < depths[slot + 1]) ? slot : slot + 1;
+    }
+}
@@ -29,25 +29,44 @@ public class View implements IView{
     private Dimension dimensionButton;
     // The clone board updated with the board in the model
     private Player[][] cloneBoard;
+    // The number of row or column in the board
+    private int boardSize;
+    // The width and height of one position on the board in pixels
+    private int cellSize;
 
     /**
-     * Constructor of the View class, which will initialize all the fields in the class and customize the graphical
-     * user interface.
+     * Constructor of the View class with the standard 15x15 board, which will initialize all the fields in the class
+     * and customize the graphical user interface.
      *
      * @param caption The title of the GUI passed in
      */
     public View(String caption){
+        this(caption, 15);
+    }
+
+    /**
+     * Constructor of the View class with the input board size, which will initialize all the fields in the class and
+     * customize the graphical user interface. The positions get smaller on large boards, so the window still fits on
+     * the screen.
+     *
+     * @param caption The title of the GUI passed in
+     * @param boardSize The number of row or column in the board
+     */
+    public View(String caption, int boardSize){
+        this.boardSize = boardSize;
+        cellSize = Math.max(20, Math.min(40, 760 / boardSize));
+        int boardPixels = cellSize * boardSize;
         // Initialize the clone board
-        cloneBoard = new Player[15][15];
-        for(int i = 0; i < 15; i++){
-            for(int j = 0; j < 15; j++){
+        cloneBoard = new Player[boardSize][boardSize];
+        for(int i = 0; i < boardSize; i++){
+            for(int j = 0; j < boardSize; j++){
                 cloneBoard[i][j] = Player.EMPTY;
             }
         }
         // Create the frame for the GUI
         jFrame = new JFrame();
         jFrame.setTitle(caption);
-        jFrame.setSize(800, 650);
+        jFrame.setSize(boardPixels + 200, boardPixels + 50);
         // Centering the window
         jFrame.setLocationRelativeTo(null);
         // option for th close button - Exit the application
@@ -55,7 +74,7 @@ public class View implements IView{
         jFrame.setLayout(new BorderLayout());
 
         dimensionRight = new Dimension(150,0);
-        dimensionLeft = new Dimension(550, 0);
+        dimensionLeft = new Dimension(boardPixels - 50, 0);
         dimensionButton = new Dimension(140, 40);
 
         // implement left panel
@@ -180,6 +199,16 @@ public class View implements IView{
         return jFrame;
     }
 
+    /**
+     * Get the width and height of one position on the board in pixels.
+     *
+     * @return the cell size of the View
+     */
+    @Override
+    public int getCellSize(){
+        return cellSize;
+    }
+
     /**
      * Get the cloneBoard of the View.
      *
@@ -197,8 +226,8 @@ public class View implements IView{
      */
     @Override
     public void updateCloneBoard(Player[][] board){
-        for(int i = 0; i < 15; i++){
-            for(int j = 0; j < 15; j++){
+        for(int i = 0; i < boardSize; i++){
+            for(int j = 0; j < boardSize; j++){
                 cloneBoard[i][j] = board[i][j];
             }
         }
@@ -238,28 +267,28 @@ public class View implements IView{
         jPanelLeft.paint(graphics);
         // Paint the board and labels of the row and column on the board
         graphics.setColor(Color.black);
-        int boardSize = 15;
+        int half = cellSize / 2;
+        int boardPixels = cellSize * boardSize;
         for(int i = 0; i < boardSize; i++){
             graphics.setColor(Color.blue);
-            graphics.drawLine(20, 20 + 40 * i, 20 + 40 * (boardSize - 1), 20 + 40 * i);
-            String [] rowLabel = {"A", "B", "C", "D", "E", "F", "G", "H", "I", "J", "K", "L", "M", "N", "O"};
-            graphics.drawString(rowLabel[i],620,40 * i+25);
+            graphics.drawLine(half, half + cellSize * i, half + cellSize * (boardSize - 1), half + cellSize * i);
+            graphics.drawString(getRowLabel(i),boardPixels + 20,cellSize * i + half + 5);
         }
         for(int j = 0; j < boardSize; j++){
             graphics.setColor(Color.blue);
-            graphics.drawLine(20 + 40 * j, 20, 20 + 40 * j, 20 + 40 * (boardSize - 1));
-            graphics.drawString(String.valueOf(j+1),15 + 40*j,610);
+            graphics.drawLine(half + cellSize * j, half, half + cellSize * j, half + cellSize * (boardSize - 1));
+            graphics.drawString(String.valueOf(j+1),half - 5 + cellSize*j,boardPixels + 10);
         }
         // Paint the pieces of marks on the board
         for(int i = 0; i < boardSize; i++){
             for(int j = 0; j < boardSize; j++){
                 if(cloneBoard[i][j] == Player.X){
                     graphics.setColor(Color.black);
-                    graphics.fillOval(40 * j, 40 * i, 40, 40);
+                    graphics.fillOval(cellSize * j, cellSize * i, cellSize, cellSize);
                 }
                 else if(cloneBoard[i][j] == Player.O){
                     graphics.setColor(Color.white);
-                    graphics.fillOval(40 * j, 40 * i, 40, 40);
+                    graphics.fillOval(cellSize * j, cellSize * i, cellSize, cellSize);
                 }
             }
         }
@@ -272,16 +301,16 @@ public class View implements IView{
      * @param j the input column
      * @param player the input player
      * @param step the input step number
-     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and 14
+     * @throws IndexOutOfBoundsException When the index of row or column is not between 0 and boardSize - 1
      * @throws IllegalArgumentException When the player is Player.EMPTY or the step is not positive
      */
     @Override
     public void paintMark(int i, int j, Player player, int step) throws IndexOutOfBoundsException, IllegalArgumentException{
-        if(i < 0 || i > 14){
-            throw new IndexOutOfBoundsException("Index of row must between 0 and 14.");
+        if(i < 0 || i >= boardSize){
+            throw new IndexOutOfBoundsException("Index of row must between 0 and " + (boardSize - 1) + ".");
         }
-        if(j < 0 || j > 14){
-            throw new IndexOutOfBoundsException("Index of column must between 0 and 14.");
+        if(j < 0 || j >= boardSize){
+            throw new IndexOutOfBoundsException("Index of column must between 0 and " + (boardSize - 1) + ".");
         }
         if(player == Player.EMPTY){
             throw new IllegalArgumentException("The input player can not be Player.EMPTY.");
@@ -291,9 +320,26 @@ public class View implements IView{
         }
         Graphics graphics = jPanelLeft.getGraphics();
         graphics.setColor((player == Player.X) ? Color.black : Color.white);
-        graphics.fillOval(40 * j, 40 * i, 40, 40);
+        graphics.fillOval(cellSize * j, cellSize * i, cellSize, cellSize);
         graphics.setColor(Color.red);
-        graphics.drawString(String.valueOf(step),40 * j+15,40 * i+20);
+        graphics.drawString(String.valueOf(step),cellSize * j + cellSize / 2 - 5,cellSize * i + cellSize / 2);
+    }
+
+    /**
+     * Get the label of one row: A to Z for the first 26 rows, then AA, AB and so on.
+     *
+     * @param i the input row
+     * @return the label of the row
+     */
+    private static String getRowLabel(int i){
+        String label = "";
+        int n = i + 1;
+        while(n > 0){
+            n--;
+            label = (char) ('A' + n % 26) + label;
+            n /= 26;
+        }
+        return label;
     }
 
     /**
@@ -0,0 +1,60 @@
+/**
+ * The Zobrist class gives the 64 bit hash of a board, so a board can be found in the TranspositionTable. The hash is
+ * the exclusive or of one random key per piece and one key for the side to move, so placing or removing a piece only
+ * changes it by the key of that piece. The keys are computed from the cell and the player by a fixed mix function
+ * instead of being stored in a table, so boards of every size share them and they are the same in every run.
+ */
+public class Zobrist {
+    // The key of the boards where Player.O, the maximizer, is to move
+    public static final long SIDE = mix(-1);
+
+    /**
+     * Constructor of the Zobrist class, which only has static methods.
+     */
+    private Zobrist(){
+    }
+
+    /**
+     * Get the key of one piece.
+     *
+     * @param index the cell as row * boardSize + column
+     * @param player whose piece, Player.X or Player.O
+     * @return the key of the piece
+     */
+    public static long key(int index, Player player){
+        return mix(index * 2L + ((player == Player.X) ? 0 : 1));
+    }
+
+    /**
+     * Get the hash of a whole board.
+     *
+     * @param board the input board
+     * @param maximizingPlayer whether Player.O is to move
+     * @return the hash of the board
+     */
+    public static long hash(Player[][] board, boolean maximizingPlayer){
+        long hash = maximizingPlayer ? SIDE : 0;
+        int size = board.length;
+        for(int i = 0; i < size; i++){
+            for(int j = 0; j < size; j++){
+                if(board[i][j] != Player.EMPTY){
+                    hash ^= key(i * size + j, board[i][j]);
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * A helper function to mix a number into 64 random looking bits, the finalizer of the SplitMix64 generator.
+     *
+     * @param value the input number
+     * @return the mixed bits
+     */
+    private static long mix(long value){
+        long z = value * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,80 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+/** Test the BatchAnalysis class which finds the best move of many boards without the GUI. */
+public class BatchAnalysisTest {
+
+  /**
+   * A helper function to analyze the input lines and return the output lines.
+   *
+   * @param input the input lines
+   * @param threads the number of threads
+   * @return the output lines
+   */
+  private static String[] analyze(String input, int threads)
+      throws IOException, InterruptedException {
+    return analyze(input, threads, "depth=1");
+  }
+
+  /**
+   * A helper function to analyze the input lines with a configuration and return the output lines.
+   *
+   * @param input the input lines
+   * @param threads the number of threads
+   * @param config the configuration of the search
+   * @return the output lines
+   */
+  private static String[] analyze(String input, int threads, String config)
+      throws IOException, InterruptedException {
+    BatchAnalysis analysis = new BatchAnalysis(EngineConfig.parse(config));
+    analysis.setThreads(threads);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    analysis.run(new BufferedReader(new StringReader(input)), new PrintStream(bytes, true));
+    return bytes.toString().split(System.lineSeparator());
+  }
+
+  /** The results are written in the order of the input, with the number of the line. */
+  @org.junit.Test
+  public void orderTest() throws IOException, InterruptedException {
+    StringBuilder input = new StringBuilder("# boards\n\n");
+    for (int i = 0; i < 40; i++) {
+      // The four of Player.O moves along the first row, blocked on the left, so Player.O wins on the right
+      int c = i % 10 + 1;
+      input.append(c - 1).append("xoooo").append(11 - c);
+      input.append("/15/15/15/15/15/15/15/15/15/15/15/15/15/15 o\n");
+    }
+    String[] lines = analyze(input.toString(), 4);
+    assertEquals(40, lines.length);
+    for (int i = 0; i < 40; i++) {
+      assertTrue(lines[i], lines[i].startsWith((i + 3) + " 0," + (i % 10 + 5) + " "));
+    }
+  }
+
+  /** A board which can not be read gives an error line and the next boards are still searched. */
+  @org.junit.Test
+  public void errorTest() throws IOException, InterruptedException {
+    String[] lines = analyze("15/15\n15/15/15/15/15/15/15/7x7/15/15/15/15/15/15/15 o\n", 1);
+    assertEquals(2, lines.length);
+    assertTrue(lines[0].startsWith("1 error "));
+    assertTrue(lines[1].startsWith("2 "));
+  }
+
+  /** With a time limit, every board of the batch stops before the depth of the configuration. */
+  @org.junit.Test
+  public void timeSettingTest() throws IOException, InterruptedException {
+    String board = "15/15/15/15/15/15/6o8/6xxo6/7ox6/15/15/15/15/15/15 x\n";
+    String[] lines = analyze(board + board + board, 3, "depth=12,radius=2,time=100");
+    assertEquals(3, lines.length);
+    for (String line : lines) {
+      int depth = Integer.parseInt(line.replaceAll(".* depth=(\\d+) .*", "$1"));
+      long ms = Long.parseLong(line.replaceAll(".* ms=(\\d+).*", "$1"));
+      assertTrue(line, depth >= 1 && depth < 12);
+      assertTrue(line, ms < 2000);
+    }
+  }
+}
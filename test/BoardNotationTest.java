@@ -0,0 +1,52 @@
+import static org.junit.Assert.*;
+
+/** Test the BoardNotation class which reads and writes the compact text notation of a board. */
+public class BoardNotationTest {
+  private static final String CENTER = "15/15/15/15/15/15/15/7x7/15/15/15/15/15/15/15";
+
+  /** Parse a board with one piece in the center. */
+  @org.junit.Test
+  public void parseTest() {
+    Player[][] board = BoardNotation.parse(CENTER + " o");
+    assertEquals(15, board.length);
+    assertEquals(Player.X, board[7][7]);
+    assertEquals(Player.EMPTY, board[7][8]);
+    assertEquals(Player.EMPTY, board[0][0]);
+  }
+
+  /** Formatting a parsed board should give back the same notation. */
+  @org.junit.Test
+  public void formatTest() {
+    String text = "15/15/15/4o10/5x1o7/5oxxx6/5xox1x5/6oxoo5/7ox6/15/15/15/15/15/15 o";
+    assertEquals(text, BoardNotation.format(BoardNotation.parse(text), Player.O));
+  }
+
+  /** The side to move is read from the notation, or follows from the number of pieces. */
+  @org.junit.Test
+  public void sideToMoveTest() {
+    assertEquals(Player.X, BoardNotation.sideToMove(CENTER + " x"));
+    assertEquals(Player.O, BoardNotation.sideToMove(CENTER));
+    assertEquals(Player.X, BoardNotation.sideToMove("15/15/15/15/15/15/15/7xo6/15/15/15/15/15/15/15"));
+  }
+
+  /** Load a model from the notation. */
+  @org.junit.Test
+  public void toModelTest() {
+    Model model = BoardNotation.toModel(CENTER + " o");
+    assertEquals(Player.X, model.getStateOnPosition(new Position(7, 7)));
+    assertEquals(2, model.getTurn());
+    assertEquals(1, model.getStep());
+  }
+
+  /** A row with too many positions is not accepted. */
+  @org.junit.Test(expected = IllegalArgumentException.class)
+  public void parseTooLongRowTest() {
+    BoardNotation.parse("15/15/15/15/15/15/15/7x8/15/15/15/15/15/15/15");
+  }
+
+  /** An unknown character is not accepted. */
+  @org.junit.Test(expected = IllegalArgumentException.class)
+  public void parseUnknownCharacterTest() {
+    BoardNotation.parse("15/15/15/15/15/15/15/7z7/15/15/15/15/15/15/15");
+  }
+}
@@ -0,0 +1,21 @@
+import static org.junit.Assert.*;
+
+/** Test the EvaluationCache class. */
+public class EvaluationCacheTest {
+
+  /** A cached board is found, a board of the same slot replaces it, and an empty cache finds nothing. */
+  @org.junit.Test
+  public void getPutTest() {
+    EvaluationCache cache = new EvaluationCache(100);
+    assertEquals(128, cache.size());
+    // The hash 0 is a valid board, the empty board with Player.X to move
+    assertTrue(Double.isNaN(cache.get(0L)));
+    cache.put(0L, 0.5);
+    assertEquals(0.5, cache.get(0L), 0);
+    cache.put(128L, 2.0);
+    assertTrue(Double.isNaN(cache.get(0L)));
+    assertEquals(2.0, cache.get(128L), 0);
+    cache.clear();
+    assertTrue(Double.isNaN(cache.get(128L)));
+  }
+}
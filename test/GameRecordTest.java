@@ -0,0 +1,136 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/** Test the GameRecord class and its binary format written by GameRecordWriter and GameRecordReader. */
+public class GameRecordTest {
+
+  /**
+   * A helper function to write games to bytes.
+   *
+   * @param games the games to write
+   * @return the bytes of the games
+   */
+  private static byte[] write(GameRecord... games) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (GameRecordWriter writer = new GameRecordWriter(bytes)) {
+      for (GameRecord game : games) {
+        writer.write(game);
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  /** A game with and without search results is read back the same. */
+  @org.junit.Test
+  public void roundTripTest() throws IOException {
+    GameRecord plain = new GameRecord(15);
+    plain.addMove(7, 7);
+    plain.addMove(14, 0);
+    plain.setWinner(Player.O);
+    GameRecord searched = new GameRecord(15);
+    searched.addMove(7, 7);
+    searched.addMove(8, 8, 0.25, 3, 123456789L, 4321);
+    GameRecordReader reader = new GameRecordReader(new ByteArrayInputStream(write(plain, searched)));
+    GameRecord first = reader.read();
+    assertEquals(Player.O, first.getWinner());
+    assertEquals(2, first.getMoveCount());
+    assertEquals(14, first.getPosition(1).getRow());
+    assertEquals(0, first.getPosition(1).getColumn());
+    assertFalse(first.hasSearchInfo());
+    GameRecord second = reader.read();
+    assertEquals(Player.EMPTY, second.getWinner());
+    assertEquals(0, second.getDepth(0));
+    assertEquals(3, second.getDepth(1));
+    assertEquals(0.25f, second.getScore(1), 0);
+    assertEquals(123456789L, second.getNodes(1));
+    assertEquals(4321, second.getMicros(1));
+    assertNull(reader.read());
+  }
+
+  /** On a 15x15 board a move without a search takes one byte. */
+  @org.junit.Test
+  public void compactTest() throws IOException {
+    GameRecord game = new GameRecord(15);
+    for (int i = 0; i < 100; i++) {
+      game.addMove(i / 15, i % 15);
+    }
+    // 5 bytes of the start, 4 bytes of the game and 100 moves
+    assertEquals(5 + 4 + 100, write(game).length);
+  }
+
+  /** The moves on a board larger than 16x16 are written as varints. */
+  @org.junit.Test
+  public void largeBoardTest() throws IOException {
+    GameRecord game = new GameRecord(1001);
+    game.addMove(1000, 1000);
+    game.addMove(0, 3);
+    GameRecord read = new GameRecordReader(new ByteArrayInputStream(write(game))).read();
+    assertEquals(1001, read.getBoardSize());
+    assertEquals(1000, read.getPosition(0).getRow());
+    assertEquals(1000, read.getPosition(0).getColumn());
+    assertEquals(3, read.getPosition(1).getColumn());
+  }
+
+  /** Games appended to a file in two sessions are all read back. */
+  @org.junit.Test
+  public void appendTest() throws IOException {
+    File file = File.createTempFile("games", ".bin");
+    file.delete();
+    try {
+      for (int session = 0; session < 2; session++) {
+        try (GameRecordWriter writer = GameRecordWriter.append(file)) {
+          GameRecord game = new GameRecord(15);
+          game.addMove(session, session);
+          writer.write(game);
+        }
+      }
+      try (GameRecordReader reader =
+          new GameRecordReader(new java.io.FileInputStream(file))) {
+        assertEquals(0, reader.read().getPosition(0).getRow());
+        assertEquals(1, reader.read().getPosition(0).getRow());
+        assertNull(reader.read());
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  /** A stream which does not start with the format is not accepted. */
+  @org.junit.Test(expected = IOException.class)
+  public void wrongStartTest() throws IOException {
+    new GameRecordReader(new ByteArrayInputStream("hello".getBytes()));
+  }
+
+  /** A game cut off in the middle is reported. */
+  @org.junit.Test(expected = IOException.class)
+  public void cutOffTest() throws IOException {
+    GameRecord game = new GameRecord(15);
+    game.addMove(7, 7);
+    game.addMove(7, 8);
+    byte[] bytes = write(game);
+    new GameRecordReader(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1))).read();
+  }
+
+  /** The games saved by a tournament replay to the same winners. */
+  @org.junit.Test
+  public void tournamentTest() throws IOException, InterruptedException {
+    Tournament tournament = new Tournament(new EngineConfig("a", 1), new EngineConfig("b", 1), 2);
+    tournament.setMaxMoves(20);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    GameRecordWriter writer = new GameRecordWriter(bytes);
+    tournament.setRecordWriter(writer);
+    tournament.run();
+    assertEquals(2, writer.getGameCount());
+    GameRecordReader reader = new GameRecordReader(new ByteArrayInputStream(bytes.toByteArray()));
+    for (GameRecord game = reader.read(); game != null; game = reader.read()) {
+      assertTrue(game.hasSearchInfo());
+      Model model = game.toModel();
+      assertEquals(game.getWinner(), model.getWinner());
+    }
+  }
+}
@@ -0,0 +1,193 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/** Test the GameServer class which hosts many games on one port. */
+public class GameServerTest {
+  private GameServer server;
+
+  /** One client connection of the test. */
+  private static class Client {
+    private final Socket socket;
+    private final BufferedReader in;
+    private final PrintWriter out;
+
+    Client(int port) throws IOException {
+      socket = new Socket("localhost", port);
+      socket.setSoTimeout(20000);
+      in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+      out = new PrintWriter(socket.getOutputStream(), true);
+    }
+
+    void send(String command) {
+      out.println(command);
+    }
+
+    String receive() throws IOException {
+      return in.readLine();
+    }
+  }
+
+  /** Stop the server after each test. */
+  @org.junit.After
+  public void tearDown() throws IOException {
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  /** Many connections play at the same time, each with its own game. */
+  @org.junit.Test
+  public void manyGamesTest() throws IOException {
+    server = new GameServer(0, 2, 1000);
+    Client[] clients = new Client[50];
+    for (int i = 0; i < clients.length; i++) {
+      clients[i] = new Client(server.getPort());
+      clients[i].send("CONFIG depth=1,radius=1");
+      clients[i].send("MOVE 7," + (i % 15));
+    }
+    for (Client client : clients) {
+      assertEquals("OK", client.receive());
+      assertTrue(client.receive().matches("MOVE \\d+,\\d+"));
+    }
+    assertEquals(50, server.getSessionCount());
+    clients[3].send("BOARD");
+    String board = clients[3].receive();
+    assertTrue(board, board.endsWith(" x"));
+    assertTrue(board.contains("x") && board.contains("o"));
+    for (Client client : clients) {
+      client.send("QUIT");
+      assertEquals("BYE", client.receive());
+      client.socket.close();
+    }
+  }
+
+  /** Wrong commands are answered with ERROR and the game goes on. */
+  @org.junit.Test
+  public void errorTest() throws IOException {
+    server = new GameServer(0, 1, 10);
+    Client client = new Client(server.getPort());
+    client.send("NEW 3");
+    assertTrue(client.receive().startsWith("ERROR"));
+    client.send("MOVE 20,0");
+    assertTrue(client.receive().startsWith("ERROR"));
+    client.send("JUMP");
+    assertEquals("ERROR unknown command JUMP", client.receive());
+    // Sizes which would take the memory of the other games are refused
+    client.send("NEW 50000");
+    assertTrue(client.receive().startsWith("ERROR"));
+    client.send("CONFIG depth=2,table=1073741824");
+    assertTrue(client.receive().startsWith("ERROR"));
+    client.send("CONFIG depth=2,evalcache=1073741824");
+    assertTrue(client.receive().startsWith("ERROR"));
+    client.send("CONFIG engine=mcts,tree=1073741824");
+    assertTrue(client.receive().startsWith("ERROR"));
+    client.send("CONFIG depth=" + (GameServer.MAX_DEPTH + 1) + ",radius=0");
+    assertTrue(client.receive().startsWith("ERROR"));
+    client.send("NEW 9");
+    assertEquals("OK", client.receive());
+    client.send("BOARD");
+    assertEquals("9/9/9/9/9/9/9/9/9 x", client.receive());
+    client.socket.close();
+    // The server still answers a new connection
+    Client other = new Client(server.getPort());
+    other.send("NEW 9");
+    assertEquals("OK", other.receive());
+    other.socket.close();
+  }
+
+  /** A game is played to its end on a small board, after which no move is accepted. */
+  @org.junit.Test
+  public void endOfGameTest() throws IOException {
+    server = new GameServer(0, 1, 10);
+    Client client = new Client(server.getPort());
+    client.send("NEW 5");
+    assertEquals("OK", client.receive());
+    client.send("BOARD");
+    String line = client.receive();
+    boolean boardPending = false;
+    while (line.contains("/")) {
+      // Play the first empty position of the board
+      Player[][] cells = BoardNotation.parse(line);
+      int empty = 0;
+      while (cells[empty / 5][empty % 5] != Player.EMPTY) {
+        empty++;
+      }
+      client.send("MOVE " + empty / 5 + "," + empty % 5);
+      line = client.receive();
+      if (line.startsWith("MOVE ")) {
+        // The end of the game comes after the move of the AI player, before the board
+        client.send("BOARD");
+        line = client.receive();
+        boardPending = !line.contains("/");
+      }
+    }
+    assertTrue(line, line.equals("WIN X") || line.equals("WIN O") || line.equals("DRAW"));
+    if (boardPending) {
+      assertTrue(client.receive().contains("/"));
+    }
+    client.send("GO");
+    assertEquals("ERROR the game is over", client.receive());
+    client.socket.close();
+  }
+
+  /** When the compute threads and the queue are full, the search is refused with BUSY. */
+  @org.junit.Test
+  public void busyTest() throws IOException {
+    server = new GameServer(0, 1, 1);
+    Client[] clients = new Client[3];
+    for (int i = 0; i < clients.length; i++) {
+      clients[i] = new Client(server.getPort());
+      clients[i].send("CONFIG depth=6,time=500,radius=2");
+      clients[i].send("GO");
+      assertEquals("OK", clients[i].receive());
+    }
+    assertEquals("BUSY", clients[2].receive());
+    assertTrue(clients[0].receive().startsWith("MOVE"));
+    assertTrue(clients[1].receive().startsWith("MOVE"));
+  }
+
+  /** STOP ends a search which would take hours, and the AI player answers with its best move so far. */
+  @org.junit.Test
+  public void stopTest() throws IOException {
+    server = new GameServer(0, 1, 10);
+    Client client = new Client(server.getPort());
+    client.send("STOP");
+    assertEquals("ERROR no search is running", client.receive());
+    client.send("CONFIG depth=6,radius=2");
+    assertEquals("OK", client.receive());
+    client.send("MOVE 7,7");
+    client.send("STOP");
+    // The answer comes within the timeout of the client
+    assertTrue(client.receive().matches("MOVE \\d+,\\d+"));
+    client.send("BOARD");
+    assertTrue(client.receive().endsWith(" x"));
+    client.socket.close();
+  }
+
+  /**
+   * A search without a time limit in its configuration is stopped at the time limit of the server,
+   * and the AI player answers with its best move so far.
+   */
+  @org.junit.Test
+  public void moveTimeLimitTest() throws IOException {
+    server = new GameServer(0, 1, 10, 300);
+    Client client = new Client(server.getPort());
+    client.send("NEW " + GameServer.MAX_BOARD_SIZE);
+    assertEquals("OK", client.receive());
+    client.send("CONFIG depth=" + GameServer.MAX_DEPTH + ",radius=0");
+    assertEquals("OK", client.receive());
+    long start = System.nanoTime();
+    client.send("MOVE 30,30");
+    assertTrue(client.receive().matches("MOVE \\d+,\\d+"));
+    assertTrue(System.nanoTime() - start < 10000000000L);
+    client.send("BOARD");
+    assertTrue(client.receive().endsWith(" x"));
+    client.socket.close();
+  }
+}
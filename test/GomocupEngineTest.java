@@ -0,0 +1,89 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+/** Test the GomocupEngine class which plays through the Gomocup engine protocol. */
+public class GomocupEngineTest {
+  private ByteArrayOutputStream bytes;
+  private GomocupEngine engine;
+
+  /** Set up an engine writing to a buffer. */
+  @org.junit.Before
+  public void setUp() {
+    bytes = new ByteArrayOutputStream();
+    engine = new GomocupEngine(EngineConfig.parse("depth=20,radius=2"), new PrintStream(bytes, true));
+  }
+
+  /**
+   * A helper function to send commands to the engine and return its answers.
+   *
+   * @param commands the commands, one per line
+   * @return the answers, one per line
+   */
+  private String[] send(String commands) throws IOException {
+    engine.run(new BufferedReader(new StringReader(commands)));
+    return bytes.toString().trim().split("\\s*\\n");
+  }
+
+  /** START answers OK, BEGIN plays in the center and TURN is answered with a move on an empty position. */
+  @org.junit.Test
+  public void gameTest() throws IOException {
+    String[] answers = send("START 20\nINFO timeout_turn 300\nBEGIN\nTURN 11,11\nEND\nBEGIN\n");
+    assertEquals(3, answers.length);
+    assertEquals("OK", answers[0]);
+    assertEquals("10,10", answers[1]);
+    assertTrue(answers[2].matches("\\d+,\\d+"));
+    assertNotEquals("11,11", answers[2]);
+    assertNotEquals("10,10", answers[2]);
+  }
+
+  /** After BOARD the engine blocks the four of the opponent within the time of the turn. */
+  @org.junit.Test
+  public void boardTest() throws IOException {
+    long start = System.nanoTime();
+    String[] answers =
+        send("START 15\nINFO timeout_turn 500\nBOARD\n3,7,2\n4,7,2\n5,7,2\n6,7,2\n2,7,1\n8,8,1\nDONE\nEND\n");
+    assertEquals("7,7", answers[1]);
+    assertTrue(System.nanoTime() - start < 3000000000L);
+  }
+
+  /** Wrong commands are answered with ERROR or UNKNOWN and do not stop the engine. */
+  @org.junit.Test
+  public void errorTest() throws IOException {
+    String[] answers = send("BEGIN\nSTART 3\nSTART 15\nTURN 15,0\nTURN a,b\nFOO\nABOUT\n");
+    assertTrue(answers[0].startsWith("ERROR"));
+    assertTrue(answers[1].startsWith("ERROR"));
+    assertEquals("OK", answers[2]);
+    assertTrue(answers[3].startsWith("ERROR"));
+    assertTrue(answers[4].startsWith("ERROR"));
+    assertEquals("UNKNOWN FOO", answers[5]);
+    assertTrue(answers[6].startsWith("name="));
+  }
+
+  /** TAKEBACK removes a piece, and an empty position is answered with ERROR. */
+  @org.junit.Test
+  public void takebackTest() throws IOException {
+    String[] answers = send("START 15\nBEGIN\nTAKEBACK 7,7\nTAKEBACK 7,7\nTAKEBACK 0,0\nBEGIN\n");
+    assertEquals("7,7", answers[1]);
+    assertEquals("OK", answers[2]);
+    assertTrue(answers[3].startsWith("ERROR"));
+    assertTrue(answers[4].startsWith("ERROR"));
+    // The board is empty again
+    assertEquals("7,7", answers[5]);
+  }
+
+  /** The time of a move is the smallest of the turn limit and a share of the time left. */
+  @org.junit.Test
+  public void moveTimeTest() throws IOException {
+    send("INFO timeout_turn 2000\n");
+    assertEquals(1950, engine.getMoveTime());
+    send("INFO timeout_match 100000\nINFO time_left 10000\n");
+    assertEquals(450, engine.getMoveTime());
+    send("INFO timeout_turn 0\n");
+    assertEquals(1, engine.getMoveTime());
+  }
+}
@@ -0,0 +1,62 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Test the LongByteMap class, the primitive open addressing map used by the SparseBoard. */
+public class LongByteMapTest {
+  private LongByteMap map;
+
+  /** Set up an empty map for each test. */
+  @org.junit.Before
+  public void setUp() {
+    map = new LongByteMap();
+  }
+
+  /** Put, get and remove a few keys, including negative ones. */
+  @org.junit.Test
+  public void putGetRemoveTest() {
+    map.put(5L, (byte) 1);
+    map.put(-7L, (byte) 2);
+    assertEquals(2, map.size());
+    assertEquals(1, map.get(5L));
+    assertEquals(2, map.get(-7L));
+    assertEquals(0, map.get(6L));
+    map.put(5L, (byte) 3);
+    assertEquals(3, map.get(5L));
+    assertEquals(2, map.size());
+    assertEquals(3, map.remove(5L));
+    assertEquals(0, map.get(5L));
+    assertEquals(0, map.remove(5L));
+    assertEquals(1, map.size());
+  }
+
+  /** The map grows and stays equal to a HashMap after many random puts and removes. */
+  @org.junit.Test
+  public void randomOperationsTest() {
+    Map<Long, Byte> expected = new HashMap<>();
+    Random random = new Random(3);
+    for (int i = 0; i < 20000; i++) {
+      long key = SparseBoard.key(random.nextInt(64) - 32, random.nextInt(64) - 32);
+      if (random.nextInt(3) == 0) {
+        Byte old = expected.remove(key);
+        assertEquals(old == null ? 0 : (byte) old, map.remove(key));
+      } else {
+        byte value = (byte) (1 + random.nextInt(2));
+        expected.put(key, value);
+        map.put(key, value);
+      }
+    }
+    assertEquals(expected.size(), map.size());
+    for (Map.Entry<Long, Byte> entry : expected.entrySet()) {
+      assertEquals((byte) entry.getValue(), map.get(entry.getKey()));
+    }
+  }
+
+  /** The value 0 marks a free slot, so it can not be stored. */
+  @org.junit.Test(expected = IllegalArgumentException.class)
+  public void putZeroTest() {
+    map.put(1L, (byte) 0);
+  }
+}
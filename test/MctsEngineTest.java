@@ -0,0 +1,116 @@
+import static org.junit.Assert.*;
+
+/** Test the MctsEngine class which chooses the moves with a Monte Carlo tree search. */
+public class MctsEngineTest {
+  /**
+   * Create a game with a few pieces in the middle of the board, X to move.
+   *
+   * @return the game
+   */
+  private static Model opening() {
+    Model game = new Model(15);
+    game.placeChessOnPosition(new Position(7, 7), Player.X);
+    game.placeChessOnPosition(new Position(7, 8), Player.O);
+    game.placeChessOnPosition(new Position(8, 8), Player.X);
+    game.placeChessOnPosition(new Position(6, 6), Player.O);
+    game.setTurn(1);
+    return game;
+  }
+
+  /** An immediate five is played, and a five of the opponent is blocked, without a search. */
+  @org.junit.Test
+  public void forcedMoveTest() {
+    Model game = new Model(15);
+    for (int c = 3; c < 7; c++) {
+      game.placeChessOnPosition(new Position(5, c), Player.X);
+    }
+    game.placeChessOnPosition(new Position(5, 2), Player.O);
+    game.placeChessOnPosition(new Position(9, 9), Player.O);
+    game.setEngine(new MctsEngine());
+    game.setTurn(1);
+    Position win = game.getEngine().chooseMove(game);
+    assertEquals(5, win.getRow());
+    assertEquals(7, win.getColumn());
+    game.setTurn(2);
+    game.moveAI();
+    assertEquals(5, game.getLastPosition().getRow());
+    assertEquals(7, game.getLastPosition().getColumn());
+    assertEquals(0, game.getSearchStats().getNodes());
+  }
+
+  /** With a node budget, the search plays that many playouts and the same move every time. */
+  @org.junit.Test
+  public void nodeBudgetTest() {
+    Position[] moves = new Position[2];
+    for (int k = 0; k < 2; k++) {
+      Model game = opening();
+      game.setNodeBudget(2000);
+      game.setEngine(new MctsEngine());
+      game.moveAI();
+      assertEquals(2000, game.getSearchStats().getNodes());
+      assertTrue(game.getSearchStats().getDepthReached() > 0);
+      moves[k] = game.getLastPosition();
+      assertEquals(5, game.getMoveCount());
+    }
+    assertEquals(moves[0].getRow(), moves[1].getRow());
+    assertEquals(moves[0].getColumn(), moves[1].getColumn());
+  }
+
+  /** The tree of the last move is kept when the opponent replies with a move of the tree, and dropped otherwise. */
+  @org.junit.Test
+  public void reuseTest() {
+    Model game = opening();
+    game.setNodeBudget(3000);
+    MctsEngine engine = new MctsEngine();
+    game.setEngine(engine);
+    game.moveAI();
+    assertEquals(0, engine.getReusedVisits());
+    Position last = game.getLastPosition();
+    int row = (last.getRow() > 0) ? last.getRow() - 1 : last.getRow() + 1;
+    if (game.getStateOnPosition(new Position(row, last.getColumn())) != Player.EMPTY) {
+      row = last.getRow() + 1;
+    }
+    game.placeChessOnPosition(new Position(row, last.getColumn()), Player.O);
+    game.setTurn(1);
+    game.moveAI();
+    assertTrue(engine.getReusedVisits() > 0);
+    // A new game does not use the tree of the old one
+    Model other = opening();
+    other.setNodeBudget(100);
+    other.setEngine(engine);
+    other.moveAI();
+    assertEquals(0, engine.getReusedVisits());
+  }
+
+  /** When the arena is too small for the moves of the root, an empty position is still played. */
+  @org.junit.Test
+  public void smallArenaTest() {
+    Model game = opening();
+    game.setNodeBudget(100);
+    game.setEngine(new MctsEngine(2));
+    game.moveAI();
+    assertEquals(5, game.getMoveCount());
+    try {
+      new MctsEngine(1);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  /** A cancelled search still plays a move of the root. */
+  @org.junit.Test
+  public void cancellationTest() {
+    Model game = opening();
+    SearchCancellation cancellation = new SearchCancellation();
+    cancellation.cancel();
+    game.setCancellation(cancellation);
+    game.setTimeBudget(60000);
+    game.setEngine(new MctsEngine());
+    long start = System.nanoTime();
+    game.moveAI();
+    assertTrue(System.nanoTime() - start < 5000000000L);
+    assertEquals(5, game.getMoveCount());
+    assertTrue(game.getSearchStats().getNodes() <= 64);
+  }
+}
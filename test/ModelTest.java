@@ -302,4 +302,604 @@ public class ModelTest {
     assertEquals(Player.X, model.getStateOnPosition(new Position(0, 4)));
     assertEquals(Player.X, model.getWinner());
   }
+
+  /**
+   * Player.X is the minimizer of the minimax algorithm, so with an open three of each side and no
+   * five to play, X to move makes its own open four instead of the move Player.O would like.
+   */
+  @org.junit.Test
+  public void xToMoveTest() {
+    for (int depth = 2; depth <= 3; depth++) {
+      model.clearBoard();
+      for (int c = 3; c < 6; c++) {
+        model.placeChessOnPosition(new Position(3, c), Player.X);
+        model.placeChessOnPosition(new Position(11, c + 6), Player.O);
+      }
+      model.placeChessOnPosition(new Position(7, 7), Player.X);
+      model.placeChessOnPosition(new Position(7, 8), Player.O);
+      model.setH(depth);
+      model.setCandidateRadius(2);
+      model.setTurn(1);
+      model.moveAI();
+      Position last = model.getLastPosition();
+      assertEquals(3, last.getRow());
+      assertTrue(last.getColumn() == 2 || last.getColumn() == 6);
+    }
+  }
+
+  /** A model can have a larger board, and the indexes are checked against its size. */
+  @org.junit.Test
+  public void largeBoardTest() {
+    Model large = new Model(19);
+    assertEquals(19, large.getBoardSize());
+    assertEquals(19, large.getCloneBoard().length);
+    large.placeChessOnPosition(new Position(18, 18), Player.O);
+    assertEquals(Player.O, large.getStateOnPosition(new Position(18, 18)));
+  }
+
+  /** The index 19 is out of range on the 19x19 board. */
+  @org.junit.Test(expected = IndexOutOfBoundsException.class)
+  public void largeBoardExceptionTest() {
+    new Model(19).placeChessOnPosition(new Position(19, 0), Player.X);
+  }
+
+  /** A board smaller than 5x5 can not have five in a row. */
+  @org.junit.Test(expected = IllegalArgumentException.class)
+  public void smallBoardExceptionTest() {
+    new Model(4);
+  }
+
+  /** Five in a row is found at the far corner of the 19x19 board, in every direction. */
+  @org.junit.Test
+  public void largeBoardGetWinnerTest() {
+    Model large = new Model(19);
+    for (int i = 14; i < 19; i++) {
+      large.placeChessOnPosition(new Position(i, i), Player.O);
+    }
+    assertEquals(Player.O, large.getWinner());
+    large.clearBoard();
+    for (int i = 14; i < 19; i++) {
+      large.placeChessOnPosition(new Position(18, i), Player.X);
+    }
+    assertEquals(Player.X, large.getWinner());
+    large.clearBoard();
+    for (int i = 0; i < 5; i++) {
+      large.placeChessOnPosition(new Position(18 - i, 14 + i), Player.O);
+    }
+    assertEquals(Player.O, large.getWinner());
+  }
+
+  /**
+   * With the candidate radius, minimax only tries the positions near the pieces and still blocks
+   * the four at the far end of the 19x19 board.
+   */
+  @org.junit.Test
+  public void candidateRadiusTest() {
+    Model large = new Model(19);
+    for (int i = 15; i < 19; i++) {
+      large.placeChessOnPosition(new Position(18, i), Player.X);
+    }
+    large.setCandidateRadius(1);
+    assertEquals(1, large.getCandidateRadius());
+    Object[] best = large.minimax(2, large.getCloneBoard(), true, -1.0, 100000000);
+    assertEquals(18, best[1]);
+    assertEquals(14, best[2]);
+    // 4 pieces in the corner row with a radius of 1 leave 6 candidates at the root
+    assertTrue(large.getSearchStats().getNodes() <= 1 + 6 * 9);
+  }
+
+  /** With a time limit, moveAI stops deepening in time and still plays a move. */
+  @org.junit.Test
+  public void timeBudgetTest() {
+    Model timed = BoardNotation.toModel("15/15/15/15/15/15/15/7xo6/8x6/15/15/15/15/15/15 o");
+    timed.setH(10);
+    timed.setTimeBudget(200);
+    assertEquals(200, timed.getTimeBudget());
+    long start = System.nanoTime();
+    timed.moveAI();
+    // The depth 10 takes hours, so the search must stop close to the time limit
+    assertTrue(System.nanoTime() - start < 5000000000L);
+    int depth = timed.getSearchStats().getDepthReached();
+    assertTrue(depth >= 1 && depth < 10);
+    assertEquals(Player.O, timed.getStateOnPosition(timed.getLastPosition()));
+  }
+
+  /** The time limit can not be negative. */
+  @org.junit.Test(expected = IllegalArgumentException.class)
+  public void negativeTimeBudgetTest() {
+    model.setTimeBudget(-1);
+  }
+
+  /**
+   * With a node budget, moveAI stops deepening within the budget, and two searches of the same board play the same
+   * move with the same nodes.
+   */
+  @org.junit.Test
+  public void nodeBudgetTest() {
+    String notation = "15/15/15/15/15/15/6o8/6xxo6/7x7/15/15/15/15/15/15 o";
+    Model[] games = new Model[2];
+    for (int g = 0; g < 2; g++) {
+      games[g] = BoardNotation.toModel(notation);
+      games[g].setH(10);
+      games[g].setCandidateRadius(2);
+      games[g].setNodeBudget(5000);
+      games[g].moveAI();
+    }
+    assertEquals(5000, games[0].getNodeBudget());
+    assertTrue(games[0].getSearchStats().getNodes() <= 5000);
+    int depth = games[0].getSearchStats().getDepthReached();
+    assertTrue(depth >= 2 && depth < 10);
+    assertEquals(depth, games[1].getSearchStats().getDepthReached());
+    assertEquals(games[0].getSearchStats().getNodes(), games[1].getSearchStats().getNodes());
+    assertEquals(BoardNotation.format(games[0].getCloneBoard(), Player.X),
+        BoardNotation.format(games[1].getCloneBoard(), Player.X));
+  }
+
+  /** The node budget can not be negative. */
+  @org.junit.Test(expected = IllegalArgumentException.class)
+  public void negativeNodeBudgetTest() {
+    model.setNodeBudget(-1);
+  }
+
+  /** A search cancelled from another thread ends at once and still plays a move. */
+  @org.junit.Test
+  public void cancellationTest() throws InterruptedException {
+    Model game = BoardNotation.toModel("15/15/15/15/15/15/15/7xo6/8x6/15/15/15/15/15/15 o");
+    game.setH(10);
+    SearchCancellation cancellation = new SearchCancellation();
+    game.setCancellation(cancellation);
+    assertSame(cancellation, game.getCancellation());
+    Thread stopper = new Thread(() -> {
+      try {
+        Thread.sleep(200);
+      } catch (InterruptedException e) {
+        return;
+      }
+      cancellation.cancel();
+    });
+    stopper.start();
+    long start = System.nanoTime();
+    game.moveAI();
+    stopper.join();
+    // The depth 10 takes hours, so the search must stop soon after the cancellation
+    assertTrue(System.nanoTime() - start < 5000000000L);
+    assertEquals(Player.O, game.getStateOnPosition(game.getLastPosition()));
+  }
+
+  /**
+   * A cancelled search with a time limit plays the move of the deepest completed depth, and leaves nothing wrong in
+   * the transposition table kept for the next move.
+   */
+  @org.junit.Test
+  public void cancelledBestMoveTest() {
+    String notation = "15/15/15/15/15/15/6o8/6xxo6/7x7/15/15/15/15/15/15 o";
+    Model game = BoardNotation.toModel(notation);
+    game.setCandidateRadius(2);
+    game.setTableSize(65536);
+    game.setSearchReuse(true);
+    // The depth 1 ends before the first check of the token, the depth 2 is stopped
+    Object[] expected = game.searchDepth(1, Long.MAX_VALUE);
+    game.setH(6);
+    game.setTimeBudget(100000);
+    SearchCancellation cancellation = new SearchCancellation();
+    cancellation.cancel();
+    game.setCancellation(cancellation);
+    game.startMove();
+    game.getSearchStats().reset();
+    game.moveAI();
+    assertEquals(1, game.getSearchStats().getDepthReached());
+    assertEquals(expected[1], game.getLastPosition().getRow());
+    assertEquals(expected[2], game.getLastPosition().getColumn());
+    // Search the same board again with the kept table, the result is the same as without the cancelled search
+    game.placeChessOnPosition(game.getLastPosition(), Player.EMPTY);
+    game.setCancellation(null);
+    Object[] again = game.searchDepth(3, Long.MAX_VALUE);
+    Model fresh = BoardNotation.toModel(notation);
+    fresh.setCandidateRadius(2);
+    fresh.setTableSize(65536);
+    Object[] reference = fresh.searchDepth(3, Long.MAX_VALUE);
+    assertEquals(reference[0], again[0]);
+  }
+
+  /** The list of the pieces keeps the order of placement, and a removed piece leaves the list. */
+  @org.junit.Test
+  public void moveListTest() {
+    assertEquals(0, model.getMoveCount());
+    assertNull(model.getLastPosition());
+    model.placeChessOnPosition(new Position(7, 7), Player.X);
+    model.placeChessOnPosition(new Position(7, 8), Player.O);
+    model.placeChessOnPosition(new Position(8, 8), Player.X);
+    assertEquals(3, model.getMoveCount());
+    assertEquals(8, model.getMove(1).getColumn());
+    model.placeChessOnPosition(new Position(7, 8), Player.EMPTY);
+    assertEquals(2, model.getMoveCount());
+    assertEquals(8, model.getMove(1).getRow());
+    assertEquals(8, model.getLastPosition().getColumn());
+    // Taking back the last piece makes the piece before it the last one
+    model.placeChessOnPosition(new Position(8, 8), Player.EMPTY);
+    assertEquals(7, model.getLastPosition().getColumn());
+    model.placeChessOnPosition(new Position(8, 8), Player.X);
+    assertEquals(Player.EMPTY, model.getStateOnPosition(new Position(7, 8)));
+    assertEquals(Player.X, model.getStateOnPosition(new Position(8, 8)));
+    model.clearBoard();
+    assertEquals(0, model.getMoveCount());
+  }
+
+  /** A search leaves the pieces of the board and the list of the pieces in order. */
+  @org.junit.Test
+  public void moveListAfterSearchTest() {
+    Model game = BoardNotation.toModel("15/15/15/15/15/15/15/7xo6/8x6/15/15/15/15/15/15 o");
+    game.setH(1);
+    game.moveAI();
+    assertEquals(4, game.getMoveCount());
+    assertEquals(game.getLastPosition().getRow(), game.getMove(3).getRow());
+    assertEquals(game.getLastPosition().getColumn(), game.getMove(3).getColumn());
+    assertEquals(Player.O, game.getStateOnPosition(game.getMove(3)));
+  }
+
+  /** A snapshot restores the board, the list of the pieces, the turn and the settings of the game. */
+  @org.junit.Test
+  public void snapshotTest() {
+    Model game = BoardNotation.toModel("15/15/15/15/15/15/15/7xo6/8x6/15/15/15/15/15/15 o");
+    game.setMode(1);
+    game.setStep(3);
+    game.setH(2);
+    game.setCandidateRadius(2);
+    game.setNodeBudget(5000);
+    java.nio.ByteBuffer buffer = java.nio.ByteBuffer.allocateDirect(Model.getMaxSnapshotSize(15));
+    game.writeSnapshot(buffer);
+    assertEquals(game.getSnapshotSize(), buffer.position());
+    buffer.flip();
+    Model copy = Model.readSnapshot(buffer);
+    assertFalse(buffer.hasRemaining());
+    assertArrayEquals(game.getCloneBoard(), copy.getCloneBoard());
+    assertEquals(game.getMoveCount(), copy.getMoveCount());
+    for (int k = 0; k < game.getMoveCount(); k++) {
+      assertEquals(game.getMove(k).getRow(), copy.getMove(k).getRow());
+      assertEquals(game.getMove(k).getColumn(), copy.getMove(k).getColumn());
+    }
+    assertEquals(game.getLastPosition().getRow(), copy.getLastPosition().getRow());
+    assertEquals(game.getLastPosition().getColumn(), copy.getLastPosition().getColumn());
+    assertEquals(2, copy.getTurn());
+    assertEquals(1, copy.getMode());
+    assertEquals(3, copy.getStep());
+    assertEquals(2, copy.getH());
+    assertEquals(2, copy.getCandidateRadius());
+    assertEquals(5000, copy.getNodeBudget());
+    // The restored game plays the same move
+    game.moveAI();
+    copy.moveAI();
+    assertEquals(game.getLastPosition().getRow(), copy.getLastPosition().getRow());
+    assertEquals(game.getLastPosition().getColumn(), copy.getLastPosition().getColumn());
+  }
+
+  /** A buffer which is too small is not written at all. */
+  @org.junit.Test
+  public void snapshotOverflowTest() {
+    model.placeChessOnPosition(new Position(7, 7), Player.X);
+    java.nio.ByteBuffer buffer = java.nio.ByteBuffer.allocate(model.getSnapshotSize() - 1);
+    try {
+      model.writeSnapshot(buffer);
+      fail();
+    } catch (java.nio.BufferOverflowException e) {
+      assertEquals(0, buffer.position());
+    }
+  }
+
+  /** Bytes which are not a snapshot, a truncated snapshot or a corrupted board are not accepted. */
+  @org.junit.Test
+  public void invalidSnapshotTest() {
+    model.placeChessOnPosition(new Position(7, 7), Player.X);
+    java.nio.ByteBuffer buffer = java.nio.ByteBuffer.allocate(model.getSnapshotSize());
+    model.writeSnapshot(buffer);
+    byte[] bytes = buffer.array();
+    // Two pieces with the first one listed twice, so the second one is not in the list
+    Model pair = new Model();
+    pair.placeChessOnPosition(new Position(7, 7), Player.X);
+    pair.placeChessOnPosition(new Position(7, 8), Player.O);
+    java.nio.ByteBuffer twice = java.nio.ByteBuffer.allocate(pair.getSnapshotSize());
+    pair.writeSnapshot(twice);
+    twice.putInt(47 + 4, twice.getInt(47));
+    byte[][] invalid = {
+        "hello".getBytes(),
+        java.util.Arrays.copyOf(bytes, bytes.length - 1),
+        bytes.clone(),
+        twice.array(),
+        // A header of a huge board without the board
+        java.util.Arrays.copyOf(bytes, 9),
+        // A whole header of a large board without the board
+        java.util.Arrays.copyOf(bytes, 47),
+    };
+    // The last long of the board has a cell after the last cell of the board
+    invalid[2][bytes.length - 8] = 1;
+    java.nio.ByteBuffer.wrap(invalid[4]).putInt(5, 46340);
+    java.nio.ByteBuffer.wrap(invalid[5]).putInt(5, 1024);
+    for (byte[] snapshot : invalid) {
+      try {
+        Model.readSnapshot(java.nio.ByteBuffer.wrap(snapshot));
+        fail();
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  /**
+   * The best line of the analysis is the move of the minimax method, and the score of every line is the score of its
+   * move searched alone.
+   */
+  @org.junit.Test
+  public void analyzeTest() {
+    String notation = "15/15/15/15/15/15/6o8/6xxo6/7x7/15/15/15/15/15/15 o";
+    Model game = BoardNotation.toModel(notation);
+    game.setH(2);
+    game.setCandidateRadius(2);
+    Object[] best = game.minimax(2, game.getCloneBoard(), true, -1.0, 100000000);
+    java.util.List<AnalysisLine> lines = game.analyze(3);
+    assertEquals(3, lines.size());
+    assertEquals(best[1], lines.get(0).getMove().getRow());
+    assertEquals(best[2], lines.get(0).getMove().getColumn());
+    assertEquals((Double) best[0], lines.get(0).getScore(), 1e-9);
+    for (int k = 0; k < lines.size(); k++) {
+      AnalysisLine line = lines.get(k);
+      if (k > 0) {
+        assertTrue(line.getScore() <= lines.get(k - 1).getScore());
+      }
+      Player[][] board = game.getCloneBoard();
+      board[line.getMove().getRow()][line.getMove().getColumn()] = Player.O;
+      Object[] alone = game.minimax(1, board, false, -1.0, 100000000);
+      assertEquals((Double) alone[0], line.getScore(), 1e-9);
+      // The variation starts with the move and is as long as the depth
+      assertSame(line.getMove(), line.getVariation().get(0));
+      assertEquals(2, line.getVariation().size());
+    }
+    // The board and the table setting are not changed
+    assertEquals(BoardNotation.format(game.getCloneBoard(), Player.O), notation);
+    assertEquals(0, game.getTableSize());
+  }
+
+  /** A stopped analysis returns no line instead of lines scored with the values of the stopped search. */
+  @org.junit.Test
+  public void stoppedAnalyzeTest() {
+    Model game = BoardNotation.toModel("15/15/15/15/15/15/6o8/6xxo6/7x7/15/15/15/15/15/15 o");
+    game.setH(3);
+    game.setCandidateRadius(2);
+    SearchCancellation cancellation = new SearchCancellation();
+    cancellation.cancel();
+    game.setCancellation(cancellation);
+    assertTrue(game.analyze(3).isEmpty());
+    game.setCancellation(null);
+    game.setNodeBudget(50);
+    assertTrue(game.analyze(3).isEmpty());
+    game.setNodeBudget(0);
+    assertEquals(3, game.analyze(3).size());
+  }
+
+  /** With the transposition table, the deepening search finds the same move with fewer nodes. */
+  @org.junit.Test
+  public void tableTest() {
+    String notation = "15/15/15/15/15/15/6o8/6xxo6/7x7/15/15/15/15/15/15 o";
+    long[] nodes = new long[2];
+    Object[][] results = new Object[2][];
+    for (int t = 0; t < 2; t++) {
+      Model game = BoardNotation.toModel(notation);
+      game.setCandidateRadius(2);
+      game.setTableSize(t * 4096);
+      for (int depth = 1; depth <= 3; depth++) {
+        results[t] = game.searchDepth(depth, Long.MAX_VALUE);
+      }
+      nodes[t] = game.getSearchStats().getNodes();
+      assertEquals(t == 1, game.getSearchStats().getTableProbes() > 0);
+    }
+    assertEquals(results[0][1], results[1][1]);
+    assertEquals(results[0][2], results[1][2]);
+    assertTrue(nodes[1] < nodes[0]);
+  }
+
+  /**
+   * The evaluation cache gives the same result, and the search of the next move finds the leaf boards of the first
+   * search in it.
+   */
+  @org.junit.Test
+  public void evaluationCacheTest() {
+    String notation = "15/15/15/15/15/15/6o8/6xxo6/7x7/15/15/15/15/15/15 o";
+    Model plain = BoardNotation.toModel(notation);
+    Model cached = BoardNotation.toModel(notation);
+    cached.setEvaluationCacheSize(1 << 16);
+    for (Model game : new Model[] {plain, cached}) {
+      game.setH(2);
+      game.setCandidateRadius(2);
+    }
+    Object[] expected = plain.minimax(2, plain.getCloneBoard(), true, -1.0, 100000000);
+    Object[] actual = cached.minimax(2, cached.getCloneBoard(), true, -1.0, 100000000);
+    assertArrayEquals(expected, actual);
+    assertEquals(plain.getSearchStats().getNodes(), cached.getSearchStats().getNodes());
+    assertTrue(cached.getSearchStats().getEvaluationCacheProbes() > 0);
+    // The same search again finds almost every leaf, a few were overwritten by a board of the same slot
+    cached.getSearchStats().reset();
+    cached.minimax(2, cached.getCloneBoard(), true, -1.0, 100000000);
+    assertTrue(cached.getSearchStats().getEvaluationCacheHitRate() > 0.9);
+    assertEquals(0, plain.getSearchStats().getEvaluationCacheProbes());
+  }
+
+  /**
+   * With the forced moves, O completes its own five instead of blocking the five of X, which the plain search at
+   * depth 2 does not see, and only searches that move; when only X threatens a five, O only searches the block.
+   */
+  @org.junit.Test
+  public void forcedMovesTest() {
+    String[] notations = {
+      "xxxx11/15/oooo11/15/15/15/15/15/15/15/15/15/15/15/15 o",
+      "xxxx11/15/ooo12/15/15/15/15/15/15/15/15/15/15/15/15 o"
+    };
+    int[][] moves = {{2, 4}, {0, 4}};
+    for (int c = 0; c < notations.length; c++) {
+      Model plain = BoardNotation.toModel(notations[c]);
+      Model forced = BoardNotation.toModel(notations[c]);
+      forced.setForcedMoveLevel(1);
+      plain.minimax(2, plain.getCloneBoard(), true, -1.0, 100000000);
+      Object[] actual = forced.minimax(2, forced.getCloneBoard(), true, -1.0, 100000000);
+      assertEquals(moves[c][0], actual[1]);
+      assertEquals(moves[c][1], actual[2]);
+      assertTrue(forced.getSearchStats().getNodes() < plain.getSearchStats().getNodes());
+    }
+    assertEquals(0, new Model(15).getForcedMoveLevel());
+    try {
+      new Model(15).setForcedMoveLevel(3);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Both sides have an open three and O moves. At depth 1 the plain search blocks the three of X, while the quiescence
+   * search follows the four of O to the five and makes the open four which wins.
+   */
+  @org.junit.Test
+  public void quiescenceTest() {
+    String notation = "15/15/2ooo10/15/15/15/15/6xxx6/15/15/15/15/15/15/15 o";
+    Model plain = BoardNotation.toModel(notation);
+    Model quiescent = BoardNotation.toModel(notation);
+    quiescent.setQuiescenceDepth(4);
+    Object[] blocked = plain.minimax(1, plain.getCloneBoard(), true, -1.0, 100000000);
+    Player[][] board = quiescent.getCloneBoard();
+    Object[] won = quiescent.minimax(1, board, true, -1.0, 100000000);
+    assertEquals(7, blocked[1]);
+    assertEquals(2, won[1]);
+    assertTrue((Integer) won[2] == 1 || (Integer) won[2] == 5);
+    assertTrue((Double) won[0] > (Double) blocked[0]);
+    assertEquals(0, plain.getSearchStats().getQuiescenceNodes());
+    assertTrue(quiescent.getSearchStats().getQuiescenceNodes() > 0);
+    // The board is not changed by the moves of the quiescence search
+    assertEquals(notation, BoardNotation.format(board, Player.O));
+    try {
+      quiescent.setQuiescenceDepth(-1);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  /**
+   * The late move reductions and the null move pruning still block the four at depth 3, with far fewer nodes.
+   */
+  @org.junit.Test
+  public void pruningTest() {
+    String notation = "xxxx11/15/15/15/15/15/15/15/15/15/15/15/15/15/15 o";
+    Model plain = BoardNotation.toModel(notation);
+    plain.minimax(3, plain.getCloneBoard(), true, -1.0, 100000000);
+    Model reduced = BoardNotation.toModel(notation);
+    reduced.setLateMoveReduction(2);
+    Model nullMove = BoardNotation.toModel(notation);
+    nullMove.setNullMoveReduction(1);
+    for (Model game : new Model[] {reduced, nullMove}) {
+      Object[] best = game.minimax(3, game.getCloneBoard(), true, -1.0, 100000000);
+      assertEquals(0, best[1]);
+      assertEquals(4, best[2]);
+      assertTrue(game.getSearchStats().getNodes() < plain.getSearchStats().getNodes() / 10);
+    }
+    assertTrue(reduced.getSearchStats().getLateMoveReductions() > 0);
+    assertEquals(0, reduced.getSearchStats().getNullMoveCutoffs());
+    assertTrue(nullMove.getSearchStats().getNullMoveCutoffs() > 0);
+    assertEquals(0, plain.getSearchStats().getLateMoveReductions() + plain.getSearchStats().getNullMoveCutoffs());
+  }
+
+  /**
+   * The beam searches at most the product of its widths, finds the block and the win like the full search, and is
+   * off again with an empty array.
+   */
+  @org.junit.Test
+  public void beamTest() {
+    String[] notations = {
+      "xxxx11/15/15/15/15/15/15/15/15/15/15/15/15/15/15 o",
+      "15/15/15/4o10/5x1o7/5oxxx6/5xox1x5/6oxoo5/7ox6/15/15/15/15/15/15 o"
+    };
+    int[][] moves = {{0, 4}, {5, 9}};
+    for (int c = 0; c < notations.length; c++) {
+      Model game = BoardNotation.toModel(notations[c]);
+      game.setBeamWidths(new int[] {6, 4, 3});
+      Object[] best = game.minimax(4, game.getCloneBoard(), true, -1.0, 100000000);
+      assertEquals(moves[c][0], best[1]);
+      assertEquals(moves[c][1], best[2]);
+      // One root, 6 moves at the root, 6 * 4 at the next ply, then 3 moves at each deeper ply
+      assertTrue(game.getSearchStats().getNodes() <= 1 + 6 + 6 * 4 + 6 * 4 * 3 + 6 * 4 * 3 * 3);
+    }
+    Model game = new Model(15);
+    game.setBeamWidths(new int[] {6});
+    assertArrayEquals(new int[] {6}, game.getBeamWidths());
+    game.setBeamWidths(new int[0]);
+    assertEquals(0, game.getBeamWidths().length);
+    try {
+      game.setBeamWidths(new int[] {4, 0});
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  /**
+   * With the reuse, the searches of the moves of a game play the same moves and need fewer nodes, because the table,
+   * the history of the cutoffs and the expected line of the last search are kept.
+   */
+  @org.junit.Test
+  public void reuseTest() {
+    long[] nodes = new long[2];
+    String[] boards = new String[2];
+    for (int r = 0; r < 2; r++) {
+      Model game = BoardNotation.toModel("15/15/15/15/15/15/6o8/6xxo6/7x7/15/15/15/15/15/15 o");
+      game.setH(3);
+      game.setTimeBudget(100000);
+      game.setCandidateRadius(2);
+      game.setTableSize(65536);
+      game.setStagedMoves(true);
+      game.setSearchReuse(r == 1);
+      assertEquals(r == 1, game.isSearchReuse());
+      for (int move = 0; move < 12 && game.getWinner() == Player.EMPTY; move++) {
+        game.moveAI();
+        nodes[r] += game.getSearchStats().getNodes();
+        game.setTurn(3 - game.getTurn());
+      }
+      boards[r] = BoardNotation.format(game.getCloneBoard(), Player.O);
+    }
+    assertEquals(boards[0], boards[1]);
+    assertTrue(nodes[1] < nodes[0]);
+  }
+
+  /**
+   * When one Model searches both sides, each side keeps its own expected line, so the search of the opponent does not
+   * erase it. The table is cleared between the moves, so the root has no move from the table and tries the seed.
+   */
+  @org.junit.Test
+  public void expectedLinePerSideTest() {
+    Model game = BoardNotation.toModel("15/15/15/15/15/15/6o8/6xxo6/7x7/15/15/15/15/15/15 o");
+    game.setH(3);
+    game.setCandidateRadius(2);
+    game.setTableSize(65536);
+    game.setStagedMoves(true);
+    game.setSearchReuse(true);
+    int seeded = 0;
+    int tried = 0;
+    for (int move = 0; move < 10 && game.getWinner() == Player.EMPTY; move++) {
+      game.moveAI();
+      if (game.isRootSeedTried()) {
+        tried++;
+      }
+      int seed = game.getRootSeed();
+      if (seed >= 0) {
+        seeded++;
+        // The seed was a move of the root: it is the move played or still empty
+        Position last = game.getLastPosition();
+        assertTrue(seed == last.getRow() * 15 + last.getColumn()
+            || game.getStateOnPosition(new Position(seed / 15, seed % 15)) == Player.EMPTY);
+      }
+      game.setTurn(3 - game.getTurn());
+      game.clearTable();
+    }
+    assertTrue(seeded > 0);
+    assertTrue(tried > 0);
+    game.setSearchReuse(false);
+    game.moveAI();
+    assertEquals(-1, game.getRootSeed());
+  }
 }
@@ -0,0 +1,71 @@
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/** Test the MoveGenerator class which gives the moves of a node in stages. */
+public class MoveGeneratorTest {
+  /**
+   * The moves come as the hash move, the threats, the killer moves, then the others best scored first, each once.
+   */
+  @org.junit.Test
+  public void stagesTest() {
+    // X can complete a five at 0,4 (index 4), O to move
+    ThreatIndex threats = new ThreatIndex(15);
+    for (int c = 0; c < 4; c++) {
+      threats.place(c, Player.X);
+    }
+    MoveGenerator generator = new MoveGenerator(225);
+    generator.addKiller(100);
+    generator.addKiller(101);
+    // The positions 0 to 3 are taken, the score of a move is its index
+    generator.reset(200, threats, Player.O, index -> index > 3, index -> index);
+    assertEquals(200, generator.next());
+    assertEquals(4, generator.next());
+    assertEquals(101, generator.next());
+    assertEquals(100, generator.next());
+    assertFalse(generator.isScored());
+    Set<Integer> moves = new HashSet<>();
+    int previous = Integer.MAX_VALUE;
+    for (int move = generator.next(); move >= 0; move = generator.next()) {
+      assertTrue(move < previous);
+      assertTrue(moves.add(move));
+      previous = move;
+    }
+    assertTrue(generator.isScored());
+    // 225 positions, 4 taken, 4 given in the early stages
+    assertEquals(225 - 4 - 4, moves.size());
+    assertEquals(-1, generator.next());
+  }
+
+  /** When the node is cut off by its first move, the other moves are never scored. */
+  @org.junit.Test
+  public void lazyTest() {
+    MoveGenerator generator = new MoveGenerator(225);
+    int[] scored = new int[1];
+    generator.reset(112, null, Player.X, index -> true, index -> ++scored[0]);
+    assertEquals(112, generator.next());
+    assertEquals(0, scored[0]);
+    assertFalse(generator.isScored());
+    // The next node starts again from the hash move; a move which is not a move of the node is skipped
+    generator.reset(112, null, Player.X, index -> index != 112, index -> 0);
+    assertEquals(0, generator.next());
+    assertTrue(generator.isScored());
+  }
+
+  /** The killer moves are the last two different moves recorded, and are forgotten by clearKillers. */
+  @org.junit.Test
+  public void killersTest() {
+    MoveGenerator generator = new MoveGenerator(9);
+    generator.addKiller(3);
+    generator.addKiller(3);
+    generator.addKiller(5);
+    generator.reset(-1, null, Player.O, index -> true, index -> 0);
+    assertEquals(5, generator.next());
+    assertEquals(3, generator.next());
+    assertEquals(0, generator.next());
+    generator.clearKillers();
+    generator.reset(-1, null, Player.O, index -> true, index -> 0);
+    assertEquals(0, generator.next());
+  }
+}
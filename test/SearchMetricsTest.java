@@ -0,0 +1,80 @@
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+
+import static org.junit.Assert.*;
+
+/** Test the SearchMetrics class which exposes the search statistics as a JMX MBean. */
+public class SearchMetricsTest {
+  private SearchMetrics metrics;
+
+  /** Reset the metrics before each test. */
+  @org.junit.Before
+  public void setUp() {
+    metrics = SearchMetrics.getInstance();
+    metrics.reset();
+  }
+
+  /** A move of the AI player is recorded with its statistics and latency. */
+  @org.junit.Test
+  public void recordMoveTest() {
+    Model model = BoardNotation.toModel("15/15/15/15/15/15/15/7xo6/8x6/15/15/15/15/15/15 o");
+    model.setH(1);
+    model.moveAI();
+    assertEquals(1, metrics.getMovesSearched());
+    assertEquals(model.getSearchStats().getNodes(), metrics.getNodesSearched());
+    assertEquals(model.getSearchStats().getLeafEvaluations(), metrics.getEvaluationCalls());
+    assertEquals(1, metrics.getLastDepthReached());
+    assertTrue(metrics.getLastMoveLatencyMillis() > 0);
+    assertEquals(metrics.getLastMoveLatencyMillis(), metrics.getAverageLatencyMillis(), 1e-9);
+    assertTrue(metrics.getNodesPerSecond() > 0);
+  }
+
+  /** The counters of several threads are summed when they are read. */
+  @org.junit.Test
+  public void sumThreadsTest() throws InterruptedException {
+    SearchStats stats = new SearchStats();
+    stats.countNode();
+    stats.countNode();
+    stats.countNode();
+    stats.countLeafEvaluation();
+    stats.countBetaCutoff();
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(() -> metrics.record(stats, 1000000));
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(4, metrics.getMovesSearched());
+    assertEquals(12, metrics.getNodesSearched());
+    assertEquals(0.5, metrics.getBetaCutoffRatio(), 1e-9);
+    assertEquals(1.0, metrics.getP99LatencyMillis(), 1e-9);
+  }
+
+  /** The counters of the dead threads are folded when a new thread records, without reading the attributes. */
+  @org.junit.Test
+  public void deadThreadsTest() throws InterruptedException {
+    SearchStats stats = new SearchStats();
+    stats.countNode();
+    for (int i = 0; i < 20; i++) {
+      Thread thread = new Thread(() -> metrics.record(stats, 1000));
+      thread.start();
+      thread.join();
+    }
+    // Only the last thread, and the threads still alive from before, can be kept apart
+    assertTrue(metrics.getCountedThreads() < 5);
+    assertEquals(20, metrics.getMovesSearched());
+  }
+
+  /** The MBean can be read from the platform MBean server. */
+  @org.junit.Test
+  public void registerTest() throws Exception {
+    SearchMetrics.register();
+    SearchMetrics.register();
+    Object moves =
+        ManagementFactory.getPlatformMBeanServer()
+            .getAttribute(new ObjectName(SearchMetrics.OBJECT_NAME), "MovesSearched");
+    assertEquals(0L, moves);
+  }
+}
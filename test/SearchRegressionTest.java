@@ -0,0 +1,243 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Run the minimax algorithm to fixed depths on the corpus of board states in search-baseline.txt and compare the
+ * chosen move and the search statistics with the recorded baseline. The test fails when a chosen move changes. The
+ * change of the node counts is only printed, so pruning and move ordering work can show how many nodes it saves
+ * without depending on the speed of the machine. After an intended change of the chosen moves, run the main method
+ * from the project folder to record a new baseline.
+ */
+public class SearchRegressionTest {
+  private static final Path BASELINE = Paths.get("test", "search-baseline.txt");
+
+  /** One line of the baseline: a board, a depth and what the search did. */
+  private static class Case {
+    private String name;
+    private int depth;
+    private int row;
+    private int column;
+    private long nodes;
+    private long leaves;
+    private long cutoffs;
+    private String notation;
+
+    /**
+     * Parse one line of the baseline.
+     *
+     * @param line the input line
+     */
+    private Case(String line) {
+      String[] parts = line.trim().split("\\s+", 7);
+      name = parts[0];
+      depth = Integer.parseInt(parts[1]);
+      String[] move = parts[2].split(",");
+      row = Integer.parseInt(move[0]);
+      column = Integer.parseInt(move[1]);
+      nodes = Long.parseLong(parts[3]);
+      leaves = Long.parseLong(parts[4]);
+      cutoffs = Long.parseLong(parts[5]);
+      notation = parts[6];
+    }
+
+    /**
+     * Write the case as one line of the baseline.
+     *
+     * @return the line
+     */
+    private String toLine() {
+      return name + " " + depth + " " + row + "," + column + " " + nodes + " " + leaves + " "
+          + cutoffs + " " + notation;
+    }
+  }
+
+  /**
+   * Run the minimax algorithm on the board of the input case and store the chosen move and the
+   * statistics in a new case.
+   *
+   * @param expected the input case
+   * @param table the number of entries of the transposition table, 0 for none
+   * @param forced the forced move level, 0 for off
+   * @param staged whether the moves are given in stages
+   * @return the case holding what the search did
+   */
+  private static Case search(Case expected, int table, int forced, boolean staged) {
+    Model model = BoardNotation.toModel(expected.notation);
+    model.setTableSize(table);
+    model.setForcedMoveLevel(forced);
+    model.setStagedMoves(staged);
+    model.getSearchStats().reset();
+    // Player.O is the maximizer of the minimax algorithm
+    Object[] best =
+        model.minimax(
+            expected.depth, model.getCloneBoard(), model.getTurn() == 2, -1.0, 100000000);
+    Case actual = new Case(expected.toLine());
+    actual.row = (Integer) best[1];
+    actual.column = (Integer) best[2];
+    actual.nodes = model.getSearchStats().getNodes();
+    actual.leaves = model.getSearchStats().getLeafEvaluations();
+    actual.cutoffs = model.getSearchStats().getBetaCutoffs();
+    return actual;
+  }
+
+  /**
+   * Read the cases from the baseline file.
+   *
+   * @return the cases
+   * @throws IOException When the file can not be read
+   */
+  private static List<Case> readBaseline() throws IOException {
+    List<Case> cases = new ArrayList<>();
+    for (String line : Files.readAllLines(BASELINE, StandardCharsets.UTF_8)) {
+      if (!line.trim().isEmpty() && !line.startsWith("#")) {
+        cases.add(new Case(line));
+      }
+    }
+    return cases;
+  }
+
+  /**
+   * Get the change from the baseline count to the new count as a text.
+   *
+   * @param before the baseline count
+   * @param after the new count
+   * @return the change as a text
+   */
+  private static String change(long before, long after) {
+    if (before == 0) {
+      return String.valueOf(after);
+    }
+    return before + " -> " + after + String.format(" (%+.1f%%)", 100.0 * (after - before) / before);
+  }
+
+  /**
+   * The chosen moves should be the same as the baseline. The change of the node counts is printed.
+   */
+  @org.junit.Test
+  public void chosenMovesTest() throws IOException {
+    List<String> changedMoves = new ArrayList<>();
+    long baselineNodes = 0;
+    long totalNodes = 0;
+    for (Case expected : readBaseline()) {
+      Case actual = search(expected, 0, 0, false);
+      baselineNodes += expected.nodes;
+      totalNodes += actual.nodes;
+      System.out.println(
+          expected.name + " depth " + expected.depth + ": nodes " + change(expected.nodes, actual.nodes)
+              + ", leaves " + change(expected.leaves, actual.leaves)
+              + ", cutoffs " + change(expected.cutoffs, actual.cutoffs));
+      if (actual.row != expected.row || actual.column != expected.column) {
+        changedMoves.add(
+            expected.name + " depth " + expected.depth + ": " + expected.row + "," + expected.column
+                + " -> " + actual.row + "," + actual.column);
+      }
+    }
+    System.out.println("total nodes: " + change(baselineNodes, totalNodes));
+    assertTrue("Chosen moves changed: " + changedMoves, changedMoves.isEmpty());
+  }
+
+  /**
+   * The transposition table only saves work: the chosen moves are the same as the baseline.
+   */
+  @org.junit.Test
+  public void tableTest() throws IOException {
+    List<String> changedMoves = new ArrayList<>();
+    long baselineNodes = 0;
+    long totalNodes = 0;
+    for (Case expected : readBaseline()) {
+      Case actual = search(expected, 1 << 16, 0, false);
+      baselineNodes += expected.nodes;
+      totalNodes += actual.nodes;
+      if (actual.row != expected.row || actual.column != expected.column) {
+        changedMoves.add(expected.name + " depth " + expected.depth);
+      }
+    }
+    System.out.println("total nodes with the table: " + change(baselineNodes, totalNodes));
+    assertTrue("Chosen moves changed: " + changedMoves, changedMoves.isEmpty());
+  }
+
+  /**
+   * The forced moves only search the answers to a five or an open four, so on the tactical boards the chosen moves
+   * are the same as the baseline with fewer nodes. Elsewhere a move can change when the baseline missed a four at its
+   * horizon. The change of the node counts of both levels is printed.
+   */
+  @org.junit.Test
+  public void forcedMovesTest() throws IOException {
+    List<String> failures = new ArrayList<>();
+    long baselineNodes = 0;
+    long[] totalNodes = new long[3];
+    for (Case expected : readBaseline()) {
+      baselineNodes += expected.nodes;
+      boolean tactical = expected.name.equals("block-four") || expected.name.equals("open-three");
+      for (int level = 1; level <= 2; level++) {
+        Case actual = search(expected, 0, level, false);
+        totalNodes[level] += actual.nodes;
+        System.out.println(
+            expected.name + " depth " + expected.depth + " forced " + level + ": nodes "
+                + change(expected.nodes, actual.nodes) + ", move " + actual.row + "," + actual.column);
+        if (tactical
+            && (actual.row != expected.row || actual.column != expected.column || actual.nodes > expected.nodes)) {
+          failures.add(expected.name + " depth " + expected.depth + " forced " + level);
+        }
+      }
+    }
+    System.out.println("total nodes with forced 1: " + change(baselineNodes, totalNodes[1]));
+    System.out.println("total nodes with forced 2: " + change(baselineNodes, totalNodes[2]));
+    assertTrue("Moves or node counts changed: " + failures, failures.isEmpty());
+  }
+
+  /**
+   * The staged moves only change the order of the moves, so the chosen moves are the same as the baseline and the
+   * total number of nodes is smaller.
+   */
+  @org.junit.Test
+  public void stagedMovesTest() throws IOException {
+    List<String> changedMoves = new ArrayList<>();
+    long baselineNodes = 0;
+    long totalNodes = 0;
+    for (Case expected : readBaseline()) {
+      Case actual = search(expected, 0, 0, true);
+      baselineNodes += expected.nodes;
+      totalNodes += actual.nodes;
+      if (actual.row != expected.row || actual.column != expected.column) {
+        changedMoves.add(expected.name + " depth " + expected.depth);
+      }
+    }
+    System.out.println("total nodes with the staged moves: " + change(baselineNodes, totalNodes));
+    assertTrue("Chosen moves changed: " + changedMoves, changedMoves.isEmpty());
+    assertTrue(totalNodes < baselineNodes / 2);
+  }
+
+  /**
+   * Record a new baseline by running every case again. Run it from the project folder.
+   *
+   * @param args not used
+   * @throws IOException When the baseline file can not be read or written
+   */
+  public static void main(String[] args) throws IOException {
+    List<String> header = new ArrayList<>();
+    for (String line : Files.readAllLines(BASELINE, StandardCharsets.UTF_8)) {
+      if (line.startsWith("#")) {
+        header.add(line);
+      }
+    }
+    List<Case> cases = readBaseline();
+    try (PrintWriter writer =
+        new PrintWriter(Files.newBufferedWriter(BASELINE, StandardCharsets.UTF_8))) {
+      for (String line : header) {
+        writer.println(line);
+      }
+      for (Case expected : cases) {
+        writer.println(search(expected, 0, 0, false).toLine());
+      }
+    }
+  }
+}
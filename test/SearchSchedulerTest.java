@@ -0,0 +1,158 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/** Test the SearchScheduler class which shares the worker threads between the searches of many games. */
+public class SearchSchedulerTest {
+  private static final String MIDDLEGAME =
+      "15/15/15/4o10/5x1o7/5oxxx6/5xox1x5/6oxoo5/7ox6/15/15/15/15/15/15 o";
+
+  private SearchScheduler scheduler;
+
+  /** Stop the workers after each test. */
+  @org.junit.After
+  public void tearDown() {
+    if (scheduler != null) {
+      scheduler.close();
+    }
+  }
+
+  /** A scheduled search plays the same move as moveAI with the same settings. */
+  @org.junit.Test
+  public void sameMoveTest() throws Exception {
+    scheduler = new SearchScheduler(2, 10);
+    EngineConfig config = EngineConfig.parse("depth=2,radius=2");
+    Model direct = BoardNotation.toModel(MIDDLEGAME);
+    config.applyTo(direct);
+    direct.moveAI();
+    Model scheduled = BoardNotation.toModel(MIDDLEGAME);
+    Position position =
+        scheduler.submit(scheduled, config, SearchScheduler.Priority.STANDARD).get(20, TimeUnit.SECONDS);
+    assertEquals(direct.getLastPosition().getRow(), position.getRow());
+    assertEquals(direct.getLastPosition().getColumn(), position.getColumn());
+    assertEquals(Player.O, scheduled.getStateOnPosition(position));
+    assertEquals(2, scheduled.getSearchStats().getDepthReached());
+    assertEquals(1, scheduler.getCompletedSearches());
+  }
+
+  /** With a node budget, a scheduled search stops at the same depth and plays the same move as moveAI. */
+  @org.junit.Test
+  public void nodeBudgetTest() throws Exception {
+    scheduler = new SearchScheduler(2, 10);
+    EngineConfig config = EngineConfig.parse("depth=10,radius=2,nodes=3000");
+    assertEquals(3000, config.getNodes());
+    Model direct = BoardNotation.toModel(MIDDLEGAME);
+    config.applyTo(direct);
+    direct.moveAI();
+    Model scheduled = BoardNotation.toModel(MIDDLEGAME);
+    Position position =
+        scheduler.submit(scheduled, config, SearchScheduler.Priority.STANDARD).get(20, TimeUnit.SECONDS);
+    assertEquals(direct.getLastPosition().getRow(), position.getRow());
+    assertEquals(direct.getLastPosition().getColumn(), position.getColumn());
+    assertEquals(direct.getSearchStats().getDepthReached(), scheduled.getSearchStats().getDepthReached());
+    assertEquals(direct.getSearchStats().getNodes(), scheduled.getSearchStats().getNodes());
+  }
+
+  /** A cancelled search plays its best move so far at once, instead of searching for hours. */
+  @org.junit.Test
+  public void cancellationTest() throws Exception {
+    scheduler = new SearchScheduler(1, 10);
+    Model model = BoardNotation.toModel(MIDDLEGAME);
+    SearchCancellation cancellation = new SearchCancellation();
+    CompletableFuture<Position> future = scheduler.submit(model, EngineConfig.parse("depth=10,radius=2"),
+        SearchScheduler.Priority.STANDARD, cancellation);
+    Thread.sleep(200);
+    cancellation.cancel();
+    Position position = future.get(20, TimeUnit.SECONDS);
+    assertEquals(Player.O, model.getStateOnPosition(position));
+    assertNull(model.getCancellation());
+    assertEquals(1, scheduler.getCompletedSearches());
+  }
+
+  /** The searches still queued when the scheduler is closed are cancelled and no longer pending. */
+  @org.junit.Test
+  public void closeTest() throws Exception {
+    scheduler = new SearchScheduler(1, 10);
+    SearchCancellation cancellation = new SearchCancellation();
+    EngineConfig slow = EngineConfig.parse("depth=10,radius=2");
+    CompletableFuture<Position> running = scheduler.submit(BoardNotation.toModel(MIDDLEGAME), slow,
+        SearchScheduler.Priority.STANDARD, cancellation);
+    while (scheduler.getRunningSearches() == 0) {
+      Thread.sleep(10);
+    }
+    CompletableFuture<Position> queued =
+        scheduler.submit(BoardNotation.toModel(MIDDLEGAME), slow, SearchScheduler.Priority.STANDARD);
+    assertEquals(2, scheduler.getPendingSearches());
+    scheduler.close();
+    assertTrue(queued.isCompletedExceptionally());
+    // The running search ends at its cancellation, after its slice
+    cancellation.cancel();
+    while (!running.isDone()) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, scheduler.getPendingSearches());
+  }
+
+  /** An interrupt of an idle worker does not stop it, the next search is still played. */
+  @org.junit.Test
+  public void interruptTest() throws Exception {
+    scheduler = new SearchScheduler(1, 10);
+    Thread.sleep(100);
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().equals("SearchScheduler-0")) {
+        thread.interrupt();
+      }
+    }
+    Thread.sleep(100);
+    Model model = BoardNotation.toModel(MIDDLEGAME);
+    CompletableFuture<Position> future =
+        scheduler.submit(model, EngineConfig.parse("depth=1,radius=2"), SearchScheduler.Priority.STANDARD);
+    Position position = future.get(20, TimeUnit.SECONDS);
+    assertEquals(Player.O, model.getStateOnPosition(position));
+  }
+
+  /** An interactive search does not wait for the long background searches queued before it. */
+  @org.junit.Test
+  public void priorityTest() throws Exception {
+    scheduler = new SearchScheduler(1, 10);
+    EngineConfig slow = EngineConfig.parse("depth=20,time=3000,radius=2");
+    CompletableFuture<?>[] background = new CompletableFuture<?>[3];
+    for (int i = 0; i < background.length; i++) {
+      background[i] =
+          scheduler.submit(BoardNotation.toModel(MIDDLEGAME), slow, SearchScheduler.Priority.BACKGROUND);
+    }
+    Thread.sleep(100);
+    CompletableFuture<Position> interactive =
+        scheduler.submit(
+            BoardNotation.toModel(MIDDLEGAME),
+            EngineConfig.parse("depth=1"),
+            SearchScheduler.Priority.INTERACTIVE);
+    interactive.get(20, TimeUnit.SECONDS);
+    int unfinished = 0;
+    for (CompletableFuture<?> future : background) {
+      unfinished += future.isDone() ? 0 : 1;
+    }
+    assertTrue(unfinished > 0);
+    CompletableFuture.allOf(background).get(30, TimeUnit.SECONDS);
+    assertTrue(scheduler.getPreemptions() > 0);
+    assertTrue(scheduler.getMaxWaitMillis() > 0);
+    assertEquals(0, scheduler.getQueueDepth());
+    assertEquals(4, scheduler.getCompletedSearches());
+  }
+
+  /** A search is refused when the scheduler is full. */
+  @org.junit.Test
+  public void capacityTest() {
+    scheduler = new SearchScheduler(1, 1);
+    EngineConfig slow = EngineConfig.parse("depth=20,time=1000,radius=2");
+    scheduler.submit(BoardNotation.toModel(MIDDLEGAME), slow, SearchScheduler.Priority.STANDARD);
+    try {
+      scheduler.submit(BoardNotation.toModel(MIDDLEGAME), slow, SearchScheduler.Priority.STANDARD);
+      fail("The second search must be refused.");
+    } catch (RejectedExecutionException e) {
+      assertEquals(1, scheduler.getRejectedSearches());
+    }
+  }
+}
@@ -0,0 +1,68 @@
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/** Test the SessionStore class. */
+public class SessionStoreTest {
+
+  /** Games saved to the store are resumed with their boards, and their slots are used again. */
+  @org.junit.Test
+  public void saveResumeTest() throws IOException {
+    File file = File.createTempFile("sessions", ".bin");
+    try (SessionStore store = new SessionStore(file, 100, 15)) {
+      int[] slots = new int[100];
+      for (int i = 0; i < 100; i++) {
+        Model game = new Model();
+        game.setStep(i);
+        game.placeChessOnPosition(new Position(i / 15, i % 15), Player.X);
+        slots[i] = store.save(game);
+      }
+      assertEquals(0, store.getFreeSlots());
+      for (int i = 0; i < 100; i++) {
+        Model game = store.resume(slots[i]);
+        assertEquals(i, game.getStep());
+        assertEquals(Player.X, game.getStateOnPosition(new Position(i / 15, i % 15)));
+        assertEquals(1, game.getMoveCount());
+      }
+      assertEquals(100, store.getFreeSlots());
+      assertEquals(slots[99], store.save(new Model()));
+    } finally {
+      file.delete();
+    }
+  }
+
+  /** A full store, a free slot and a board larger than the slots are refused. */
+  @org.junit.Test
+  public void refuseTest() throws IOException {
+    File file = File.createTempFile("sessions", ".bin");
+    try (SessionStore store = new SessionStore(file, 1, 5)) {
+      Model large = new Model(7);
+      for (int i = 0; i < 49; i++) {
+        large.placeChessOnPosition(new Position(i / 7, i % 7), (i % 2 == 0) ? Player.X : Player.O);
+      }
+      try {
+        store.save(large);
+        fail();
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      int slot = store.save(new Model(5));
+      try {
+        store.save(new Model(5));
+        fail();
+      } catch (IllegalStateException e) {
+        // expected
+      }
+      store.resume(slot);
+      try {
+        store.load(slot);
+        fail();
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    } finally {
+      file.delete();
+    }
+  }
+}
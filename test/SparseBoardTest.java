@@ -0,0 +1,142 @@
+import static org.junit.Assert.*;
+
+/** Test the SparseBoard class and the SparseSearch class for very large or infinite boards. */
+public class SparseBoardTest {
+  private static final String[] BOARDS = {
+    "15/15/15/15/15/15/15/7xo6/8x6/15/15/15/15/15/15 o",
+    "15/15/15/4o10/5x1o7/5oxxx6/5xox1x5/6oxoo5/7ox6/15/15/15/15/15/15 o",
+    "9o5/8ox5/8oxo4/4o3oxo4/5x1oxxxo3/5oxxxo1x3/5xox1xo1o2/6oxooxxxo1/7ox1xox2/9x5/8o1x4/11o3/15/15/15 o",
+    "xxxx11/15/15/15/15/15/15/15/15/15/15/15/15/15/15 o"
+  };
+
+  /**
+   * A helper function to load a board of the notation into a sparse board, moved by the input
+   * offset.
+   *
+   * @param notation the board in the notation of the BoardNotation class
+   * @param size the size of the sparse board, 0 for an infinite board
+   * @param offset how far the pieces are moved down and right
+   * @return the sparse board
+   */
+  private static SparseBoard load(String notation, int size, int offset) {
+    Player[][] board = BoardNotation.parse(notation);
+    SparseBoard sparse = new SparseBoard(size);
+    for (int i = 0; i < board.length; i++) {
+      for (int j = 0; j < board.length; j++) {
+        if (board[i][j] != Player.EMPTY) {
+          sparse.play(i + offset, j + offset, board[i][j]);
+        }
+      }
+    }
+    return sparse;
+  }
+
+  /** On a limited 15x15 board, the evaluation is the same as the evaluate method of the Model. */
+  @org.junit.Test
+  public void evaluateSameAsModelTest() {
+    for (String notation : BOARDS) {
+      Model model = BoardNotation.toModel(notation);
+      SparseBoard sparse = load(notation, 15, 0);
+      for (boolean xTurn : new boolean[] {true, false}) {
+        assertEquals(
+            model.evaluate(model.getCloneBoard(), xTurn), sparse.evaluate(xTurn), 1e-9);
+      }
+    }
+  }
+
+  /** On an infinite board, the evaluation does not change when the pieces are moved far away. */
+  @org.junit.Test
+  public void evaluateFarAwayTest() {
+    SparseBoard near = load(BOARDS[1], 0, 0);
+    SparseBoard far = load(BOARDS[1], 0, -1000000000);
+    assertEquals(near.evaluate(false), far.evaluate(false), 1e-9);
+    assertEquals(-1000000000 + 3, far.getMinRow());
+  }
+
+  /** The bounding box grows with the moves and goes back when a move is taken back. */
+  @org.junit.Test
+  public void playAndUndoTest() {
+    SparseBoard sparse = new SparseBoard();
+    sparse.play(0, 0, Player.X);
+    sparse.play(-5, 9, Player.O);
+    assertEquals(Player.O, sparse.getStateOnPosition(-5, 9));
+    assertEquals(-5, sparse.getMinRow());
+    assertEquals(9, sparse.getMaxColumn());
+    sparse.undo();
+    assertEquals(Player.EMPTY, sparse.getStateOnPosition(-5, 9));
+    assertEquals(0, sparse.getMinRow());
+    assertEquals(0, sparse.getMaxColumn());
+    assertEquals(1, sparse.getPieceCount());
+  }
+
+  /** Five in a row is found in every direction, also across negative rows and columns. */
+  @org.junit.Test
+  public void getWinnerTest() {
+    SparseBoard sparse = new SparseBoard();
+    for (int i = -2; i < 2; i++) {
+      sparse.play(i, -i, Player.O);
+      assertEquals(Player.EMPTY, sparse.getWinner());
+    }
+    sparse.play(2, -2, Player.O);
+    assertEquals(Player.O, sparse.getWinner());
+  }
+
+  /** The candidates are the empty positions within the radius of a piece, without duplicates. */
+  @org.junit.Test
+  public void getCandidatesTest() {
+    SparseBoard sparse = new SparseBoard();
+    sparse.play(0, 0, Player.X);
+    sparse.play(0, 1, Player.O);
+    long[] buffer = new long[sparse.getMaxCandidates(1)];
+    // The 3x4 rectangle around the two pieces without the two pieces
+    assertEquals(10, sparse.getCandidates(buffer, 1));
+  }
+
+  /** A position off a limited board can not be played. */
+  @org.junit.Test(expected = IndexOutOfBoundsException.class)
+  public void playOffBoardTest() {
+    new SparseBoard(15).play(15, 0, Player.X);
+  }
+
+  /** The search blocks the four and wins at once when it can, anywhere on an infinite board. */
+  @org.junit.Test
+  public void searchTest() {
+    SparseBoard sparse = load(BOARDS[3], 0, 500000);
+    // The four is open at both ends on an infinite board, one end is blocked first
+    SparseSearch search = new SparseSearch(sparse);
+    sparse.play(500000, 499999, Player.O);
+    long move = search.findBestMove(Player.O, 2);
+    assertEquals(SparseBoard.key(500000, 500004), move);
+    sparse.play(500000, 500004, Player.O);
+    sparse.undo();
+    sparse.undo();
+    // Both ends win for Player.X
+    move = new SparseSearch(sparse).findBestMove(Player.X, 1);
+    sparse.play(SparseBoard.row(move), SparseBoard.column(move), Player.X);
+    assertEquals(Player.X, sparse.getWinner());
+  }
+
+  /** A full limited board has no move to search. */
+  @org.junit.Test
+  public void searchFullBoardTest() {
+    SparseBoard sparse = new SparseBoard(5);
+    for (int r = 0; r < 5; r++) {
+      for (int c = 0; c < 5; c++) {
+        sparse.play(r, c, ((c + 2 * r) % 4 < 2) ? Player.X : Player.O);
+      }
+    }
+    assertEquals(Player.EMPTY, sparse.getWinner());
+    assertEquals(SparseSearch.NO_MOVE, new SparseSearch(sparse).findBestMove(Player.X, 2));
+  }
+
+  /** The number of nodes does not depend on where the pieces are on an infinite board. */
+  @org.junit.Test
+  public void searchSizeIndependentTest() {
+    SparseSearch near = new SparseSearch(load(BOARDS[1], 0, 0));
+    SparseSearch far = new SparseSearch(load(BOARDS[1], 0, 700000000));
+    assertEquals(
+        SparseBoard.column(near.findBestMove(Player.O, 2)) + 700000000,
+        SparseBoard.column(far.findBestMove(Player.O, 2)));
+    assertEquals(near.getSearchStats().getNodes(), far.getSearchStats().getNodes());
+  }
+}
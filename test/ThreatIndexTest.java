@@ -0,0 +1,112 @@
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Test the ThreatIndex class and its use by the Model. */
+public class ThreatIndexTest {
+
+  /**
+   * A helper function to place the pieces of a row of text on the row 7 of an index, starting at the column 3.
+   *
+   * @param index the index
+   * @param text the pieces, x, o or . for empty
+   */
+  private static void placeRow(ThreatIndex index, String text) {
+    for (int k = 0; k < text.length(); k++) {
+      char c = text.charAt(k);
+      if (c != '.') {
+        index.place(7 * 15 + 3 + k, (c == 'x') ? Player.X : Player.O);
+      }
+    }
+  }
+
+  /** The threats of a few lines: a four, an open three, a broken three and a blocked three. */
+  @org.junit.Test
+  public void kindsTest() {
+    ThreatIndex index = new ThreatIndex(15);
+    // Columns 3 to 11 of the row 7: . x x x x . . . .
+    placeRow(index, ".xxxx");
+    assertEquals(2, index.count(Player.X, ThreatIndex.FIVE));
+    assertTrue(index.is(7 * 15 + 3, Player.X, ThreatIndex.FIVE));
+    assertTrue(index.is(7 * 15 + 8, Player.X, ThreatIndex.FIVE));
+    assertEquals(7 * 15 + 3, index.first(Player.X, ThreatIndex.FIVE));
+    assertEquals(7 * 15 + 8, index.next(Player.X, ThreatIndex.FIVE, 7 * 15 + 4));
+    assertEquals(0, index.count(Player.O, ThreatIndex.FIVE));
+    // O blocks one end, the other end still completes the five
+    index.place(7 * 15 + 8, Player.O);
+    assertEquals(1, index.count(Player.X, ThreatIndex.FIVE));
+    // Taking the piece back gives the two ends again
+    index.place(7 * 15 + 8, Player.EMPTY);
+    assertEquals(2, index.count(Player.X, ThreatIndex.FIVE));
+  }
+
+  /** Two pieces with room on both sides: the cells next to them make an open three. */
+  @org.junit.Test
+  public void openThreeTest() {
+    ThreatIndex index = new ThreatIndex(15);
+    // Columns 3 to 11: . . . x x . . . .
+    placeRow(index, "...xx....");
+    assertTrue(index.is(7 * 15 + 5, Player.X, ThreatIndex.OPEN_THREE));
+    assertTrue(index.is(7 * 15 + 8, Player.X, ThreatIndex.OPEN_THREE));
+    assertFalse(index.is(7 * 15 + 8, Player.X, ThreatIndex.FOUR));
+    // Three pieces: the cells next to them make an open four
+    index.place(7 * 15 + 8, Player.X);
+    assertTrue(index.is(7 * 15 + 5, Player.X, ThreatIndex.OPEN_FOUR));
+    assertTrue(index.is(7 * 15 + 9, Player.X, ThreatIndex.OPEN_FOUR));
+    // A four next to the edge of the board has one way to become a five
+    ThreatIndex edge = new ThreatIndex(15);
+    edge.place(0, Player.O);
+    edge.place(1, Player.O);
+    edge.place(2, Player.O);
+    assertTrue(edge.is(3, Player.O, ThreatIndex.FOUR));
+    assertFalse(edge.is(3, Player.O, ThreatIndex.OPEN_FOUR));
+  }
+
+  /** On random games the winning positions of the index are the ones found by trying every empty position. */
+  @org.junit.Test
+  public void randomGamesTest() {
+    Random random = new Random(7);
+    for (int game = 0; game < 30; game++) {
+      Model model = new Model(9);
+      model.getThreatIndex();
+      model.findFive(Player.X);
+      for (int move = 0; move < 40; move++) {
+        Position position = new Position(random.nextInt(9), random.nextInt(9));
+        model.placeChessOnPosition(position, random.nextBoolean() ? Player.X : Player.O);
+        if (random.nextInt(8) == 0) {
+          model.placeChessOnPosition(position, Player.EMPTY);
+        }
+        // The fives of the Model are updated with each piece like the index
+        for (Player player : new Player[] {Player.X, Player.O}) {
+          Position five = model.findFive(player);
+          int first = model.getThreatIndex().first(player, ThreatIndex.FIVE);
+          assertEquals(first, (five == null) ? -1 : five.getRow() * 9 + five.getColumn());
+        }
+      }
+      // A fresh index built from the pieces agrees with the updated one
+      Model fresh = BoardNotation.toModel(BoardNotation.format(model.getCloneBoard(), Player.X));
+      // Built from the pieces at the first call, the fives agree with the updated index
+      for (Player player : new Player[] {Player.X, Player.O}) {
+        Position five = fresh.findFive(player);
+        int first = model.getThreatIndex().first(player, ThreatIndex.FIVE);
+        assertEquals(first, (five == null) ? -1 : five.getRow() * 9 + five.getColumn());
+      }
+      for (Player player : new Player[] {Player.X, Player.O}) {
+        for (int index = 0; index < 81; index++) {
+          Position position = new Position(index / 9, index % 9);
+          boolean wins = false;
+          if (model.getStateOnPosition(position) == Player.EMPTY) {
+            Model copy = BoardNotation.toModel(BoardNotation.format(model.getCloneBoard(), Player.X));
+            copy.placeChessOnPosition(position, player);
+            wins = copy.getWinner() == player;
+          }
+          assertEquals(wins, model.getThreatIndex().is(index, player, ThreatIndex.FIVE));
+          for (int kind = 0; kind < 4; kind++) {
+            assertEquals(fresh.getThreatIndex().is(index, player, kind),
+                model.getThreatIndex().is(index, player, kind));
+          }
+        }
+      }
+    }
+  }
+}
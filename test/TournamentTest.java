@@ -0,0 +1,113 @@
+import static org.junit.Assert.*;
+
+/** Test the Tournament class which plays AI vs AI games without the graphical user interface. */
+public class TournamentTest {
+
+  /** Every game ends with a win or a tie, and the report names both configurations. */
+  @org.junit.Test
+  public void runTest() throws InterruptedException {
+    Tournament tournament =
+        new Tournament(EngineConfig.parse("depth=1"), new EngineConfig("shallow", 1), 4);
+    tournament.setThreads(2);
+    tournament.setMaxMoves(12);
+    String report = tournament.run();
+    assertEquals(4, tournament.getWins(0) + tournament.getWins(1) + tournament.getTies());
+    assertTrue(report.contains("depth=1 vs shallow: 4 games"));
+    assertTrue(report.contains("nodes/s"));
+  }
+
+  /** The same seed gives the same games, no matter how many threads play them. */
+  @org.junit.Test
+  public void deterministicTest() throws InterruptedException {
+    Tournament parallel = new Tournament(new EngineConfig("a", 1), new EngineConfig("b", 1), 4);
+    parallel.setThreads(4);
+    parallel.setMaxMoves(12);
+    parallel.setSeed(7);
+    parallel.run();
+    Tournament serial = new Tournament(new EngineConfig("a", 1), new EngineConfig("b", 1), 4);
+    serial.setThreads(1);
+    serial.setMaxMoves(12);
+    serial.setSeed(7);
+    serial.run();
+    assertEquals(parallel.getWins(0), serial.getWins(0));
+    assertEquals(parallel.getWins(1), serial.getWins(1));
+    assertEquals(parallel.getTies(), serial.getTies());
+  }
+
+  /** The number of games must be positive. */
+  @org.junit.Test(expected = IllegalArgumentException.class)
+  public void noGamesTest() {
+    new Tournament(new EngineConfig("a", 1), new EngineConfig("b", 1), 0);
+  }
+
+  /** The beam has one width per ply separated by slashes, and the widths must be positive. */
+  @org.junit.Test
+  public void beamSettingTest() {
+    assertArrayEquals(new int[] {12, 10, 8, 6}, EngineConfig.parse("depth=6,beam=12/10/8/6").getBeam());
+    assertEquals(0, EngineConfig.parse("depth=6").getBeam().length);
+    try {
+      EngineConfig.parse("beam=8/0");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  /** The reuse setting is read as true or false, and is off by default. */
+  @org.junit.Test
+  public void reuseSettingTest() {
+    assertTrue(EngineConfig.parse("depth=4,table=65536,reuse=true").isReuse());
+    assertFalse(EngineConfig.parse("depth=4").isReuse());
+    Model game = new Model(15);
+    EngineConfig.parse("reuse=true").applyTo(game);
+    assertTrue(game.isSearchReuse());
+    try {
+      EngineConfig.parse("reuse=yes");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  /** The key engine sets the search of the model, and a Monte Carlo engine keeps its tree between two applies. */
+  @org.junit.Test
+  public void engineSettingTest() {
+    assertEquals("minimax", EngineConfig.parse("depth=4").getEngine());
+    Model game = new Model(15);
+    EngineConfig mcts = EngineConfig.parse("engine=mcts,nodes=500");
+    mcts.applyTo(game);
+    SearchEngine engine = game.getEngine();
+    assertTrue(engine instanceof MctsEngine);
+    mcts.applyTo(game);
+    assertSame(engine, game.getEngine());
+    assertEquals(MctsEngine.DEFAULT_CAPACITY, ((MctsEngine) engine).getCapacity());
+    // The key tree sets the size of the arenas, a new size gives a new engine
+    EngineConfig small = EngineConfig.parse("engine=mcts,nodes=500,tree=4096");
+    small.applyTo(game);
+    assertNotSame(engine, game.getEngine());
+    assertEquals(4096, ((MctsEngine) game.getEngine()).getCapacity());
+    game.setTurn(1);
+    game.moveAI();
+    assertTrue(((MctsEngine) game.getEngine()).getNodeCount() <= 4096);
+    EngineConfig.parse("engine=minimax").applyTo(game);
+    assertTrue(game.getEngine() instanceof MinimaxEngine);
+    try {
+      EngineConfig.parse("engine=random");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      EngineConfig.parse("engine=mcts,tree=1");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  /** An unknown engine setting is not accepted. */
+  @org.junit.Test(expected = IllegalArgumentException.class)
+  public void unknownSettingTest() {
+    EngineConfig.parse("width=3");
+  }
+}
@@ -0,0 +1,76 @@
+import static org.junit.Assert.*;
+
+/** Test the TranspositionTable class and the Zobrist hash. */
+public class TranspositionTableTest {
+
+  /** A stored board is found with its result, and another board is not. */
+  @org.junit.Test
+  public void storeProbeTest() {
+    TranspositionTable table = new TranspositionTable(1000);
+    assertEquals(1024, table.size());
+    table.store(42L, 3, 1.5, TranspositionTable.LOWER, 17);
+    int entry = table.probe(42L);
+    assertTrue(entry >= 0);
+    assertEquals(1.5, table.getScore(entry), 0);
+    assertEquals(3, table.getDepth(entry));
+    assertEquals(TranspositionTable.LOWER, table.getFlag(entry));
+    assertEquals(17, table.getMove(entry));
+    // The same slot with another hash
+    assertEquals(-1, table.probe(42L + 1024));
+    table.clear();
+    assertEquals(-1, table.probe(42L));
+  }
+
+  /**
+   * A shallower result of the same board does not replace a deeper one. Two boards share a bucket, and a third one
+   * replaces the shallower of them.
+   */
+  @org.junit.Test
+  public void replaceTest() {
+    TranspositionTable table = new TranspositionTable(16);
+    table.store(5L, 4, 1.0, TranspositionTable.EXACT, 1);
+    table.store(5L, 2, 2.0, TranspositionTable.EXACT, 2);
+    assertEquals(4, table.getDepth(table.probe(5L)));
+    table.store(5L + 16, 1, 3.0, TranspositionTable.UPPER, 3);
+    assertEquals(1, table.getMove(table.probe(5L)));
+    assertEquals(3, table.getMove(table.probe(5L + 16)));
+    table.store(5L + 32, 2, 4.0, TranspositionTable.LOWER, 4);
+    assertEquals(-1, table.probe(5L + 16));
+    assertEquals(1, table.getMove(table.probe(5L)));
+    assertEquals(4, table.getMove(table.probe(5L + 32)));
+  }
+
+  /**
+   * After a new search starts, the entries of the older search are still found, but a new board replaces them before
+   * the entries of the new search, even when they are deeper.
+   */
+  @org.junit.Test
+  public void ageTest() {
+    TranspositionTable table = new TranspositionTable(16);
+    table.store(5L, 4, 1.0, TranspositionTable.EXACT, 1);
+    table.store(5L + 16, 3, 2.0, TranspositionTable.EXACT, 2);
+    table.newSearch();
+    assertFalse(table.isCurrent(table.probe(5L)));
+    table.store(5L + 32, 1, 3.0, TranspositionTable.EXACT, 3);
+    // Both old entries could go, the shallower one does
+    assertEquals(-1, table.probe(5L + 16));
+    assertTrue(table.isCurrent(table.probe(5L + 32)));
+    table.store(5L + 48, 1, 4.0, TranspositionTable.EXACT, 4);
+    // The old entry goes before the new one, although it is deeper
+    assertEquals(-1, table.probe(5L));
+    assertEquals(3, table.getMove(table.probe(5L + 32)));
+    assertEquals(4, table.getMove(table.probe(5L + 48)));
+  }
+
+  /** The hash of a board does not depend on the order of its moves, and changes with the side to move. */
+  @org.junit.Test
+  public void zobristTest() {
+    Player[][] board = BoardNotation.parse("15/15/15/15/15/15/15/7xo6/8x6/15/15/15/15/15/15 o");
+    long hash = Zobrist.hash(board, true);
+    assertNotEquals(hash, Zobrist.hash(board, false));
+    long incremental = Zobrist.SIDE ^ Zobrist.key(7 * 15 + 7, Player.X) ^ Zobrist.key(8 * 15 + 8, Player.X)
+        ^ Zobrist.key(7 * 15 + 8, Player.O);
+    assertEquals(hash, incremental);
+    assertNotEquals(Zobrist.key(0, Player.X), Zobrist.key(0, Player.O));
+  }
+}
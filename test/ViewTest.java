@@ -146,4 +146,13 @@ public class ViewTest {
   public void popUpTest() {
     view.popUp("TestPopUp");
   }
+
+  /** The positions get smaller on a large board so the window still fits on the screen. */
+  @org.junit.Test
+  public void cellSizeTest() {
+    assertEquals(40, view.getCellSize());
+    View large = new View("large view", 25);
+    assertEquals(30, large.getCellSize());
+    assertEquals(25, large.getCloneBoard().length);
+  }
 }